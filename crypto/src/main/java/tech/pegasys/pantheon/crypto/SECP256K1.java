@@ -54,7 +54,6 @@ import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
 import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPrivateKey;
 import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPublicKey;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.math.ec.ECAlgorithms;
 import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.math.ec.FixedPointCombMultiplier;
 import org.bouncycastle.math.ec.custom.sec.SecP256K1Curve;
@@ -153,10 +152,8 @@ public class SECP256K1 {
     // two possibilities. So it's encoded in the recId.
     final ECPoint R = decompressKey(x, (recId & 1) == 1);
     // 1.4. If nR != point at infinity, then do another iteration of Step 1 (callers
-    // responsibility).
-    if (!R.multiply(n).isInfinity()) {
-      return null;
-    }
+    // responsibility). secp256k1 has a cofactor of 1, so every point that decodes successfully
+    // has order n and this always holds.
     // 1.5. Compute e from M using Steps 2 and 3 of ECDSA signature verification.
     final BigInteger e = asUnsignedBigInteger(dataHash);
     // 1.6. For k from 1 to 2 do the following. (loop is outside this function via
@@ -177,15 +174,9 @@ public class SECP256K1 {
     final BigInteger rInv = r.modInverse(n);
     final BigInteger srInv = rInv.multiply(s).mod(n);
     final BigInteger eInvrInv = rInv.multiply(eInv).mod(n);
-    final ECPoint q = ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, R, srInv);
-
-    if (q.isInfinity()) {
-      return null;
-    }
-
-    final byte[] qBytes = q.getEncoded(false);
-    // We remove the prefix
-    return new BigInteger(1, Arrays.copyOfRange(qBytes, 1, qBytes.length));
+    return SECP256K1Multiplier.sumOfTwoMultiplies(eInvrInv, R, srInv)
+        .map(q -> new BigInteger(1, q.getArrayUnsafe()))
+        .orElse(null);
   }
 
   public static Signature sign(final Bytes32 dataHash, final KeyPair keyPair) {
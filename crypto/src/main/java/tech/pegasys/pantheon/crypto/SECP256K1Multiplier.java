@@ -0,0 +1,385 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.math.BigInteger;
+import java.util.Optional;
+
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.WNafUtil;
+import org.bouncycastle.math.ec.custom.sec.SecP256K1Curve;
+import org.bouncycastle.math.ec.custom.sec.SecP256K1Field;
+import org.bouncycastle.math.ec.endo.ECEndomorphism;
+import org.bouncycastle.math.ec.endo.GLVEndomorphism;
+import org.bouncycastle.math.raw.Mod;
+import org.bouncycastle.math.raw.Nat256;
+
+/**
+ * Computes {@code a*G + b*P} on secp256k1, which is the expensive part of public key recovery.
+ *
+ * <p>Both scalars are split with the curve's GLV endomorphism and the four resulting half-length
+ * scalars are processed together with Straus' method, so that the 128 doublings are shared. The odd
+ * multiples of the generator are precomputed once in affine form, while those of {@code P} are
+ * built per call and normalised with a single inversion. Field elements are mutable {@code int[8]}
+ * values owned by the multiplier, so the main loop does not allocate.
+ *
+ * <p>Instances hold scratch state and are not thread safe; {@link #sumOfTwoMultiplies} creates one
+ * per call.
+ */
+final class SECP256K1Multiplier {
+
+  private static final int GENERATOR_WINDOW = 8;
+  private static final int POINT_WINDOW = 5;
+  private static final int POINT_TABLE_SIZE = 1 << (POINT_WINDOW - 2);
+
+  private static final int[] P = Nat256.fromBigInteger(SecP256K1Curve.q);
+  private static final int[] ONE = Nat256.fromBigInteger(BigInteger.ONE);
+
+  private static final GLVEndomorphism ENDOMORPHISM;
+  // phi(x, y) = (beta * x, y) = lambda * (x, y)
+  private static final int[] BETA;
+
+  private static final int[][] GENERATOR_X;
+  private static final int[][] GENERATOR_PHI_X;
+  private static final int[][] GENERATOR_Y;
+
+  static {
+    final ECCurve curve = SECP256K1.CURVE.getCurve();
+    final ECEndomorphism endomorphism = curve.getEndomorphism();
+    checkState(
+        endomorphism instanceof GLVEndomorphism, "secp256k1 curve must have a GLV endomorphism");
+    ENDOMORPHISM = (GLVEndomorphism) endomorphism;
+
+    final ECPoint g = SECP256K1.CURVE.getG().normalize();
+    final ECPoint phiG = endomorphism.getPointMap().map(g).normalize();
+    BETA = fieldElement(phiG.getAffineXCoord().divide(g.getAffineXCoord()).toBigInteger());
+
+    final int tableSize = 1 << (GENERATOR_WINDOW - 2);
+    final ECPoint[] multiples = new ECPoint[tableSize];
+    final ECPoint twiceG = g.twice();
+    multiples[0] = g;
+    for (int i = 1; i < tableSize; ++i) {
+      multiples[i] = multiples[i - 1].add(twiceG);
+    }
+    curve.normalizeAll(multiples);
+
+    GENERATOR_X = new int[tableSize][];
+    GENERATOR_PHI_X = new int[tableSize][];
+    GENERATOR_Y = new int[tableSize][];
+    for (int i = 0; i < tableSize; ++i) {
+      GENERATOR_X[i] = fieldElement(multiples[i].getAffineXCoord().toBigInteger());
+      GENERATOR_Y[i] = fieldElement(multiples[i].getAffineYCoord().toBigInteger());
+      GENERATOR_PHI_X[i] = Nat256.create();
+      SecP256K1Field.multiply(GENERATOR_X[i], BETA, GENERATOR_PHI_X[i]);
+    }
+  }
+
+  // Jacobian accumulator: (x / z^2, y / z^3).
+  private final int[] x = Nat256.create();
+  private final int[] y = Nat256.create();
+  private final int[] z = Nat256.create();
+  private boolean infinity = true;
+
+  private final int[] product = Nat256.createExt();
+  private final int[] t0 = Nat256.create();
+  private final int[] t1 = Nat256.create();
+  private final int[] t2 = Nat256.create();
+  private final int[] t3 = Nat256.create();
+  private final int[] t4 = Nat256.create();
+  private final int[] t5 = Nat256.create();
+  private final int[] negatedY = Nat256.create();
+  private final int[] doubledX = Nat256.create();
+  private final int[] doubledY = Nat256.create();
+  private final int[] doubledZ = Nat256.create();
+
+  private final int[][] pointX = new int[POINT_TABLE_SIZE][];
+  private final int[][] pointPhiX = new int[POINT_TABLE_SIZE][];
+  private final int[][] pointY = new int[POINT_TABLE_SIZE][];
+  private final int[][] pointZ = new int[POINT_TABLE_SIZE][];
+
+  private SECP256K1Multiplier() {
+    for (int i = 0; i < POINT_TABLE_SIZE; ++i) {
+      pointX[i] = Nat256.create();
+      pointPhiX[i] = Nat256.create();
+      pointY[i] = Nat256.create();
+      pointZ[i] = Nat256.create();
+    }
+  }
+
+  /**
+   * Computes {@code a*G + b*point}.
+   *
+   * @param a the generator scalar, in the range [0, n)
+   * @param point a normalised point on the curve, other than the point at infinity
+   * @param b the point scalar, in the range [0, n)
+   * @return the 64 byte uncompressed encoding (without prefix) of the result, or empty if the
+   *     result is the point at infinity
+   */
+  static Optional<BytesValue> sumOfTwoMultiplies(
+      final BigInteger a, final ECPoint point, final BigInteger b) {
+    return new SECP256K1Multiplier().compute(a, point, b);
+  }
+
+  private Optional<BytesValue> compute(
+      final BigInteger a, final ECPoint point, final BigInteger b) {
+    buildPointTable(
+        fieldElement(point.getAffineXCoord().toBigInteger()),
+        fieldElement(point.getAffineYCoord().toBigInteger()));
+
+    final BigInteger[] aParts = ENDOMORPHISM.decomposeScalar(a);
+    final BigInteger[] bParts = ENDOMORPHISM.decomposeScalar(b);
+    final byte[][] nafs = {
+      WNafUtil.generateWindowNaf(GENERATOR_WINDOW, aParts[0].abs()),
+      WNafUtil.generateWindowNaf(GENERATOR_WINDOW, aParts[1].abs()),
+      WNafUtil.generateWindowNaf(POINT_WINDOW, bParts[0].abs()),
+      WNafUtil.generateWindowNaf(POINT_WINDOW, bParts[1].abs())
+    };
+    final boolean[] negated = {
+      aParts[0].signum() < 0, aParts[1].signum() < 0, bParts[0].signum() < 0, bParts[1].signum() < 0
+    };
+    final int[][][] tablesX = {GENERATOR_X, GENERATOR_PHI_X, pointX, pointPhiX};
+    final int[][][] tablesY = {GENERATOR_Y, GENERATOR_Y, pointY, pointY};
+
+    int length = 0;
+    for (final byte[] naf : nafs) {
+      length = Math.max(length, naf.length);
+    }
+
+    infinity = true;
+    for (int i = length - 1; i >= 0; --i) {
+      if (!infinity) {
+        twice();
+      }
+      for (int j = 0; j < nafs.length; ++j) {
+        final byte[] naf = nafs[j];
+        final int digit = i < naf.length ? naf[i] : 0;
+        if (digit == 0) {
+          continue;
+        }
+        final int index = Math.abs(digit) >>> 1;
+        int[] addendY = tablesY[j][index];
+        if ((digit < 0) != negated[j]) {
+          SecP256K1Field.negate(addendY, negatedY);
+          addendY = negatedY;
+        }
+        addAffine(tablesX[j][index], addendY);
+      }
+    }
+
+    if (infinity) {
+      return Optional.empty();
+    }
+    Mod.invert(P, z, t0);
+    square(t0, t1);
+    multiply(x, t1, x);
+    multiply(t1, t0, t1);
+    multiply(y, t1, y);
+
+    final byte[] encoded = new byte[64];
+    encode(x, encoded, 0);
+    encode(y, encoded, 32);
+    return Optional.of(BytesValue.wrap(encoded));
+  }
+
+  /**
+   * Fills the point table with the affine odd multiples P, 3P, ..., (2^(w-1) - 1)P.
+   *
+   * <p>The multiples are built on the isomorphic curve on which 2P is affine, which lets every
+   * step use a mixed addition. The formulas used do not depend on the curve's b coefficient, so
+   * scaling the resulting z coordinates by 2P's z maps the points back onto secp256k1.
+   */
+  private void buildPointTable(final int[] px, final int[] py) {
+    // 2P, in Jacobian coordinates.
+    Nat256.copy(px, x);
+    Nat256.copy(py, y);
+    Nat256.copy(ONE, z);
+    infinity = false;
+    twice();
+    Nat256.copy(x, doubledX);
+    Nat256.copy(y, doubledY);
+    Nat256.copy(z, doubledZ);
+
+    // P on the isomorphic curve: (px * z^2, py * z^3, 1).
+    square(doubledZ, t0);
+    multiply(px, t0, x);
+    multiply(t0, doubledZ, t0);
+    multiply(py, t0, y);
+    Nat256.copy(ONE, z);
+    storePointTableEntry(0);
+    for (int i = 1; i < POINT_TABLE_SIZE; ++i) {
+      addAffine(doubledX, doubledY);
+      storePointTableEntry(i);
+    }
+
+    // Back onto secp256k1, then normalise all entries with one inversion (Montgomery's trick).
+    for (int i = 0; i < POINT_TABLE_SIZE; ++i) {
+      multiply(pointZ[i], doubledZ, pointZ[i]);
+    }
+    final int[][] partialProducts = pointPhiX;
+    Nat256.copy(pointZ[0], partialProducts[0]);
+    for (int i = 1; i < POINT_TABLE_SIZE; ++i) {
+      multiply(partialProducts[i - 1], pointZ[i], partialProducts[i]);
+    }
+    final int[] inverse = t2;
+    Mod.invert(P, partialProducts[POINT_TABLE_SIZE - 1], inverse);
+    for (int i = POINT_TABLE_SIZE - 1; i >= 0; --i) {
+      final int[] zInverse = t3;
+      if (i > 0) {
+        multiply(inverse, partialProducts[i - 1], zInverse);
+        multiply(inverse, pointZ[i], inverse);
+      } else {
+        Nat256.copy(inverse, zInverse);
+      }
+      square(zInverse, t0);
+      multiply(pointX[i], t0, pointX[i]);
+      multiply(t0, zInverse, t0);
+      multiply(pointY[i], t0, pointY[i]);
+      multiply(pointX[i], BETA, pointPhiX[i]);
+    }
+  }
+
+  private void storePointTableEntry(final int index) {
+    Nat256.copy(x, pointX[index]);
+    Nat256.copy(y, pointY[index]);
+    Nat256.copy(z, pointZ[index]);
+  }
+
+  /** Doubles the accumulator in place (dbl-2009-l, a = 0). */
+  private void twice() {
+    final int[] a = t0;
+    final int[] b = t1;
+    final int[] c = t2;
+    final int[] d = t3;
+
+    // z3 = 2 * y1 * z1
+    multiply(y, z, z);
+    SecP256K1Field.twice(z, z);
+
+    square(x, a);
+    square(y, b);
+    square(b, c);
+    // d = 2 * ((x1 + b)^2 - a - c)
+    SecP256K1Field.add(x, b, d);
+    square(d, d);
+    SecP256K1Field.subtract(d, a, d);
+    SecP256K1Field.subtract(d, c, d);
+    SecP256K1Field.twice(d, d);
+    // e = 3 * a, stored in a
+    SecP256K1Field.twice(a, b);
+    SecP256K1Field.add(a, b, a);
+    // x3 = e^2 - 2 * d
+    square(a, x);
+    SecP256K1Field.twice(d, b);
+    SecP256K1Field.subtract(x, b, x);
+    // y3 = e * (d - x3) - 8 * c
+    SecP256K1Field.subtract(d, x, d);
+    multiply(a, d, y);
+    SecP256K1Field.twice(c, c);
+    SecP256K1Field.twice(c, c);
+    SecP256K1Field.twice(c, c);
+    SecP256K1Field.subtract(y, c, y);
+  }
+
+  /** Adds the affine point (x2, y2) to the accumulator (madd-2007-bl). */
+  private void addAffine(final int[] x2, final int[] y2) {
+    if (infinity) {
+      Nat256.copy(x2, x);
+      Nat256.copy(y2, y);
+      Nat256.copy(ONE, z);
+      infinity = false;
+      return;
+    }
+    final int[] z1z1 = t0;
+    final int[] h = t1;
+    final int[] r = t2;
+    final int[] hh = t3;
+
+    square(z, z1z1);
+    // h = x2 * z1z1 - x1
+    multiply(x2, z1z1, h);
+    SecP256K1Field.subtract(h, x, h);
+    // r = 2 * (y2 * z1 * z1z1 - y1)
+    multiply(y2, z, r);
+    multiply(r, z1z1, r);
+    SecP256K1Field.subtract(r, y, r);
+    SecP256K1Field.twice(r, r);
+
+    if (Nat256.isZero(h)) {
+      if (Nat256.isZero(r)) {
+        twice();
+      } else {
+        infinity = true;
+      }
+      return;
+    }
+
+    square(h, hh);
+    // z3 = (z1 + h)^2 - z1z1 - hh
+    SecP256K1Field.add(z, h, z);
+    square(z, z);
+    SecP256K1Field.subtract(z, z1z1, z);
+    SecP256K1Field.subtract(z, hh, z);
+
+    final int[] i = z1z1;
+    final int[] j = t4;
+    final int[] v = hh;
+    SecP256K1Field.twice(hh, i);
+    SecP256K1Field.twice(i, i);
+    multiply(h, i, j);
+    multiply(x, i, v);
+    // y1 * j, kept for y3 once x1 has been overwritten
+    final int[] y1j = h;
+    multiply(y, j, y1j);
+
+    // x3 = r^2 - j - 2 * v
+    square(r, x);
+    SecP256K1Field.subtract(x, j, x);
+    SecP256K1Field.twice(v, t5);
+    SecP256K1Field.subtract(x, t5, x);
+    // y3 = r * (v - x3) - 2 * y1 * j
+    SecP256K1Field.subtract(v, x, v);
+    multiply(r, v, y);
+    SecP256K1Field.twice(y1j, y1j);
+    SecP256K1Field.subtract(y, y1j, y);
+  }
+
+  private void multiply(final int[] a, final int[] b, final int[] result) {
+    Nat256.mul(a, b, product);
+    SecP256K1Field.reduce(product, result);
+  }
+
+  private void square(final int[] a, final int[] result) {
+    Nat256.square(a, product);
+    SecP256K1Field.reduce(product, result);
+  }
+
+  private static int[] fieldElement(final BigInteger value) {
+    return Nat256.fromBigInteger(value);
+  }
+
+  private static void encode(final int[] value, final byte[] target, final int offset) {
+    for (int i = 0; i < 8; ++i) {
+      final int word = value[7 - i];
+      final int position = offset + (i << 2);
+      target[position] = (byte) (word >>> 24);
+      target[position + 1] = (byte) (word >>> 16);
+      target[position + 2] = (byte) (word >>> 8);
+      target[position + 3] = (byte) word;
+    }
+  }
+}
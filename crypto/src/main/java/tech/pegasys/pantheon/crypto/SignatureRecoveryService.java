@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Recovers the public keys of batches of signatures, splitting each batch between the calling
+ * thread and a pool of worker threads.
+ */
+public class SignatureRecoveryService implements AutoCloseable {
+
+  public static final int DEFAULT_WORKER_THREADS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+  // Below this many signatures per thread, handing work over to the pool costs more than it saves.
+  private static final int MIN_SIGNATURES_PER_TASK = 8;
+
+  private final int workerThreads;
+  private final Optional<ExecutorService> executor;
+
+  private SignatureRecoveryService(
+      final int workerThreads, final Optional<ExecutorService> executor) {
+    this.workerThreads = workerThreads;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates a service recovering signatures with the given number of worker threads, in addition to
+   * the calling thread.
+   *
+   * @param workerThreads the number of worker threads, 0 to only use the calling thread
+   * @return the service
+   */
+  public static SignatureRecoveryService create(final int workerThreads) {
+    checkArgument(workerThreads >= 0, "Worker threads must not be negative");
+    if (workerThreads == 0) {
+      return new SignatureRecoveryService(0, Optional.empty());
+    }
+    return new SignatureRecoveryService(
+        workerThreads,
+        Optional.of(
+            Executors.newFixedThreadPool(
+                workerThreads,
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("SignatureRecovery-%d")
+                    .build())));
+  }
+
+  /**
+   * Recovers the public keys that produced the given signatures.
+   *
+   * @param dataHashes the hashes of the signed data
+   * @param signatures the signatures, in the same order as {@code dataHashes}
+   * @return the recovered public keys in the same order, empty for signatures that can't be
+   *     recovered
+   */
+  public List<Optional<PublicKey>> recoverPublicKeys(
+      final List<Bytes32> dataHashes, final List<Signature> signatures) {
+    checkArgument(
+        dataHashes.size() == signatures.size(),
+        "Expected as many hashes as signatures, got %s and %s",
+        dataHashes.size(),
+        signatures.size());
+    final int size = signatures.size();
+    final int tasks = Math.min(workerThreads + 1, size / MIN_SIGNATURES_PER_TASK);
+    if (!executor.isPresent() || tasks <= 1) {
+      return recover(dataHashes, signatures, 0, size);
+    }
+
+    final int taskSize = (size + tasks - 1) / tasks;
+    final List<Future<List<Optional<PublicKey>>>> futures = new ArrayList<>(tasks - 1);
+    for (int start = taskSize; start < size; start += taskSize) {
+      final int from = start;
+      final int to = Math.min(size, start + taskSize);
+      futures.add(executor.get().submit(() -> recover(dataHashes, signatures, from, to)));
+    }
+
+    final List<Optional<PublicKey>> result = new ArrayList<>(size);
+    result.addAll(recover(dataHashes, signatures, 0, taskSize));
+    for (int i = 0; i < futures.size(); i++) {
+      final int from = taskSize * (i + 1);
+      final int to = Math.min(size, from + taskSize);
+      result.addAll(awaitOrRecover(futures.get(i), dataHashes, signatures, from, to));
+    }
+    return result;
+  }
+
+  private static List<Optional<PublicKey>> awaitOrRecover(
+      final Future<List<Optional<PublicKey>>> future,
+      final List<Bytes32> dataHashes,
+      final List<Signature> signatures,
+      final int from,
+      final int to) {
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      // Don't lose the batch: recover this part on the calling thread instead.
+      Thread.currentThread().interrupt();
+      future.cancel(false);
+      return recover(dataHashes, signatures, from, to);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to recover signatures", e.getCause());
+    }
+  }
+
+  private static List<Optional<PublicKey>> recover(
+      final List<Bytes32> dataHashes,
+      final List<Signature> signatures,
+      final int from,
+      final int to) {
+    final List<Optional<PublicKey>> publicKeys = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      publicKeys.add(PublicKey.recoverFromSignature(dataHashes.get(i), signatures.get(i)));
+    }
+    return publicKeys;
+  }
+
+  @Override
+  public void close() {
+    executor.ifPresent(ExecutorService::shutdownNow);
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * alt_bn128 point addition, scalar multiplication and pairing checks on Montgomery-form limbs.
+ *
+ * <p>These produce the same results as {@link AltBn128Point} and {@link AltBn128Fq12Pairer}, which
+ * remain the readable reference implementation, but avoid their per-operation BigInteger
+ * allocations and field inversions.
+ */
+public final class AltBn128Operations {
+
+  private static final BigInteger CURVE_ORDER =
+      new BigInteger(
+          "21888242871839275222246405745257275088548364400416034343698204186575808495617");
+
+  private AltBn128Operations() {}
+
+  /**
+   * Adds two points of G1.
+   *
+   * @param a a point on the curve
+   * @param b a point on the curve
+   * @return a + b
+   */
+  public static AltBn128Point add(final AltBn128Point a, final AltBn128Point b) {
+    if (a.isInfinity()) {
+      return b;
+    }
+    if (b.isInfinity()) {
+      return a;
+    }
+    final JacobianPoint sum = new JacobianPoint(toLimbs(a.getX()), toLimbs(a.getY()));
+    sum.addAffine(toLimbs(b.getX()), toLimbs(b.getY()));
+    return sum.toAffine();
+  }
+
+  /**
+   * Multiplies a point of G1 by a scalar.
+   *
+   * @param point a point on the curve
+   * @param scalar the non-negative scalar
+   * @return scalar * point
+   */
+  public static AltBn128Point multiply(final AltBn128Point point, final BigInteger scalar) {
+    // G1 has prime order r, so the scalar can be reduced first.
+    final BigInteger k = scalar.mod(CURVE_ORDER);
+    if (point.isInfinity() || k.signum() == 0) {
+      return AltBn128Point.INFINITY;
+    }
+    final int[] x = toLimbs(point.getX());
+    final int[] y = toLimbs(point.getY());
+    final JacobianPoint product = new JacobianPoint(x, y);
+    for (int i = k.bitLength() - 2; i >= 0; --i) {
+      product.twice();
+      if (k.testBit(i)) {
+        product.addAffine(x, y);
+      }
+    }
+    return product.toAffine();
+  }
+
+  /**
+   * Checks whether the product of the pairings of the given points is one, as the alt_bn128
+   * pairing precompile does.
+   *
+   * @param g1Points points on the curve
+   * @param g2Points points on the twist, one per G1 point
+   * @return true if e(g1Points[0], g2Points[0]) * ... * e(g1Points[n], g2Points[n]) == 1
+   */
+  public static boolean pairingProductIsOne(
+      final List<AltBn128Point> g1Points, final List<AltBn128Fq2Point> g2Points) {
+    checkArgument(g1Points.size() == g2Points.size(), "Mismatched number of G1 and G2 points");
+    return OptimalAtePairing.finalExponentiation(millerLoop(g1Points, g2Points)).isOne();
+  }
+
+  static Fp12 millerLoop(
+      final List<AltBn128Point> g1Points, final List<AltBn128Fq2Point> g2Points) {
+    final List<int[][]> g1 = new ArrayList<>(g1Points.size());
+    final List<OptimalAtePairing.PreparedG2Point> g2 = new ArrayList<>(g2Points.size());
+    for (int i = 0; i < g1Points.size(); ++i) {
+      final AltBn128Point p = g1Points.get(i);
+      final AltBn128Fq2Point q = g2Points.get(i);
+      if (p.isInfinity() || q.isInfinity()) {
+        continue;
+      }
+      g1.add(new int[][] {toLimbs(p.getX()), toLimbs(p.getY())});
+      g2.add(OptimalAtePairing.prepare(Fp2.create(q.getX()), Fp2.create(q.getY())));
+    }
+    return OptimalAtePairing.millerLoop(g1, g2);
+  }
+
+  private static int[] toLimbs(final Fq value) {
+    return Fp.fromBigInteger(value.toBigInteger());
+  }
+
+  /** A mutable point of G1 in Jacobian coordinates (x / z^2, y / z^3). */
+  private static final class JacobianPoint {
+    private final int[] x = Fp.create();
+    private final int[] y = Fp.create();
+    private final int[] z = Fp.create();
+    private boolean infinity;
+
+    private final int[] t0 = Fp.create();
+    private final int[] t1 = Fp.create();
+    private final int[] t2 = Fp.create();
+    private final int[] t3 = Fp.create();
+    private final int[] t4 = Fp.create();
+
+    private JacobianPoint(final int[] affineX, final int[] affineY) {
+      setAffine(affineX, affineY);
+    }
+
+    private void setAffine(final int[] affineX, final int[] affineY) {
+      System.arraycopy(affineX, 0, x, 0, Fp.LIMBS);
+      System.arraycopy(affineY, 0, y, 0, Fp.LIMBS);
+      System.arraycopy(Fp.ONE, 0, z, 0, Fp.LIMBS);
+      infinity = false;
+    }
+
+    /** Doubles this point in place (dbl-2009-l, a = 0). */
+    private void twice() {
+      if (infinity) {
+        return;
+      }
+      if (Fp.isZero(y)) {
+        infinity = true;
+        return;
+      }
+      final int[] a = t0;
+      final int[] b = t1;
+      final int[] c = t2;
+      final int[] d = t3;
+
+      Fp.multiply(y, z, z);
+      Fp.twice(z, z);
+
+      Fp.square(x, a);
+      Fp.square(y, b);
+      Fp.square(b, c);
+      Fp.add(x, b, d);
+      Fp.square(d, d);
+      Fp.subtract(d, a, d);
+      Fp.subtract(d, c, d);
+      Fp.twice(d, d);
+      // e = 3a, stored in a
+      Fp.twice(a, b);
+      Fp.add(a, b, a);
+      Fp.square(a, x);
+      Fp.twice(d, b);
+      Fp.subtract(x, b, x);
+      Fp.subtract(d, x, d);
+      Fp.multiply(a, d, y);
+      Fp.twice(c, c);
+      Fp.twice(c, c);
+      Fp.twice(c, c);
+      Fp.subtract(y, c, y);
+    }
+
+    /** Adds the affine point (x2, y2) to this point in place (madd-2007-bl). */
+    private void addAffine(final int[] x2, final int[] y2) {
+      if (infinity) {
+        setAffine(x2, y2);
+        return;
+      }
+      final int[] z1z1 = t0;
+      final int[] h = t1;
+      final int[] r = t2;
+      final int[] hh = t3;
+
+      Fp.square(z, z1z1);
+      Fp.multiply(x2, z1z1, h);
+      Fp.subtract(h, x, h);
+      Fp.multiply(y2, z, r);
+      Fp.multiply(r, z1z1, r);
+      Fp.subtract(r, y, r);
+      Fp.twice(r, r);
+      if (Fp.isZero(h)) {
+        if (Fp.isZero(r)) {
+          twice();
+        } else {
+          infinity = true;
+        }
+        return;
+      }
+
+      Fp.square(h, hh);
+      Fp.add(z, h, z);
+      Fp.square(z, z);
+      Fp.subtract(z, z1z1, z);
+      Fp.subtract(z, hh, z);
+
+      final int[] i = z1z1;
+      final int[] j = t4;
+      final int[] v = hh;
+      Fp.twice(hh, i);
+      Fp.twice(i, i);
+      Fp.multiply(h, i, j);
+      Fp.multiply(x, i, v);
+      final int[] y1j = h;
+      Fp.multiply(y, j, y1j);
+
+      Fp.square(r, x);
+      Fp.subtract(x, j, x);
+      Fp.subtract(x, v, x);
+      Fp.subtract(x, v, x);
+      Fp.subtract(v, x, v);
+      Fp.multiply(r, v, y);
+      Fp.twice(y1j, y1j);
+      Fp.subtract(y, y1j, y);
+    }
+
+    private AltBn128Point toAffine() {
+      if (infinity) {
+        return AltBn128Point.INFINITY;
+      }
+      final int[] zInverse = t0;
+      final int[] scale = t1;
+      Fp.invert(z, zInverse);
+      Fp.square(zInverse, scale);
+      Fp.multiply(x, scale, x);
+      Fp.multiply(scale, zInverse, scale);
+      Fp.multiply(y, scale, y);
+      return new AltBn128Point(
+          Fq.create(Fp.toBigInteger(x)), Fq.create(Fp.toBigInteger(y)));
+    }
+  }
+}
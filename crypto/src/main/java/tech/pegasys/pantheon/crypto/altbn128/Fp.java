@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic in the alt_bn128 base field on Montgomery-form limbs.
+ *
+ * <p>An element is an {@code int[8]} holding {@code a * 2^256 mod p} as little-endian 32 bit limbs,
+ * always fully reduced. Operations write their result to a caller supplied array, which may alias
+ * either input.
+ */
+final class Fp {
+
+  static final int LIMBS = 8;
+
+  private static final long MASK = 0xFFFFFFFFL;
+
+  private static final BigInteger MODULUS = FieldElement.FIELD_MODULUS;
+  private static final int[] P = toLimbs(MODULUS);
+  // -p^-1 mod 2^32
+  private static final long INVERSE =
+      BigInteger.ONE
+              .shiftLeft(32)
+              .subtract(MODULUS.modInverse(BigInteger.ONE.shiftLeft(32)))
+              .longValue()
+          & MASK;
+  private static final int[] R_SQUARED = toLimbs(BigInteger.ONE.shiftLeft(512).mod(MODULUS));
+  private static final int[] RAW_ONE = toLimbs(BigInteger.ONE);
+
+  static final int[] ZERO = create();
+  static final int[] ONE = fromBigInteger(BigInteger.ONE);
+
+  private Fp() {}
+
+  static int[] create() {
+    return new int[LIMBS];
+  }
+
+  static int[] fromBigInteger(final BigInteger value) {
+    final int[] result = toLimbs(value.mod(MODULUS));
+    multiply(result, R_SQUARED, result);
+    return result;
+  }
+
+  static int[] fromLong(final long value) {
+    return fromBigInteger(BigInteger.valueOf(value));
+  }
+
+  static BigInteger toBigInteger(final int[] a) {
+    final int[] raw = create();
+    multiply(a, RAW_ONE, raw);
+    final byte[] bytes = new byte[LIMBS * 4];
+    for (int i = 0; i < LIMBS; ++i) {
+      final int limb = raw[LIMBS - 1 - i];
+      bytes[i * 4] = (byte) (limb >>> 24);
+      bytes[i * 4 + 1] = (byte) (limb >>> 16);
+      bytes[i * 4 + 2] = (byte) (limb >>> 8);
+      bytes[i * 4 + 3] = (byte) limb;
+    }
+    return new BigInteger(1, bytes);
+  }
+
+  static boolean isZero(final int[] a) {
+    int bits = 0;
+    for (int i = 0; i < LIMBS; ++i) {
+      bits |= a[i];
+    }
+    return bits == 0;
+  }
+
+  static boolean equal(final int[] a, final int[] b) {
+    for (int i = 0; i < LIMBS; ++i) {
+      if (a[i] != b[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static void add(final int[] a, final int[] b, final int[] result) {
+    long carry = 0;
+    for (int i = 0; i < LIMBS; ++i) {
+      final long sum = (a[i] & MASK) + (b[i] & MASK) + carry;
+      result[i] = (int) sum;
+      carry = sum >>> 32;
+    }
+    // p < 2^254, so the sum never carries out of the top limb.
+    if (!lessThanModulus(result)) {
+      subtractModulus(result);
+    }
+  }
+
+  static void subtract(final int[] a, final int[] b, final int[] result) {
+    long borrow = 0;
+    for (int i = 0; i < LIMBS; ++i) {
+      final long difference = (a[i] & MASK) - (b[i] & MASK) - borrow;
+      result[i] = (int) difference;
+      borrow = (difference >>> 63);
+    }
+    if (borrow != 0) {
+      long carry = 0;
+      for (int i = 0; i < LIMBS; ++i) {
+        final long sum = (result[i] & MASK) + (P[i] & MASK) + carry;
+        result[i] = (int) sum;
+        carry = sum >>> 32;
+      }
+    }
+  }
+
+  static void negate(final int[] a, final int[] result) {
+    subtract(ZERO, a, result);
+  }
+
+  static void twice(final int[] a, final int[] result) {
+    add(a, a, result);
+  }
+
+  /** Montgomery multiplication (CIOS): result = a * b / 2^256 mod p. */
+  static void multiply(final int[] a, final int[] b, final int[] result) {
+    final long[] t = new long[LIMBS + 2];
+    for (int i = 0; i < LIMBS; ++i) {
+      final long ai = a[i] & MASK;
+      long carry = 0;
+      for (int j = 0; j < LIMBS; ++j) {
+        final long sum = t[j] + ai * (b[j] & MASK) + carry;
+        t[j] = sum & MASK;
+        carry = sum >>> 32;
+      }
+      long sum = t[LIMBS] + carry;
+      t[LIMBS] = sum & MASK;
+      t[LIMBS + 1] = sum >>> 32;
+
+      final long m = (t[0] * INVERSE) & MASK;
+      sum = t[0] + m * (P[0] & MASK);
+      carry = sum >>> 32;
+      for (int j = 1; j < LIMBS; ++j) {
+        sum = t[j] + m * (P[j] & MASK) + carry;
+        t[j - 1] = sum & MASK;
+        carry = sum >>> 32;
+      }
+      sum = t[LIMBS] + carry;
+      t[LIMBS - 1] = sum & MASK;
+      t[LIMBS] = t[LIMBS + 1] + (sum >>> 32);
+    }
+    for (int i = 0; i < LIMBS; ++i) {
+      result[i] = (int) t[i];
+    }
+    // Both inputs are below p < 2^254, so the result is below 2p and t[LIMBS] is zero.
+    if (!lessThanModulus(result)) {
+      subtractModulus(result);
+    }
+  }
+
+  static void square(final int[] a, final int[] result) {
+    multiply(a, a, result);
+  }
+
+  /** Inverts an element, mapping zero to zero. */
+  static void invert(final int[] a, final int[] result) {
+    if (isZero(a)) {
+      System.arraycopy(ZERO, 0, result, 0, LIMBS);
+      return;
+    }
+    // Inversions are rare (one per affine result), so BigInteger's binary GCD is fast enough.
+    final int[] inverse = fromBigInteger(toBigInteger(a).modInverse(MODULUS));
+    System.arraycopy(inverse, 0, result, 0, LIMBS);
+  }
+
+  private static boolean lessThanModulus(final int[] a) {
+    for (int i = LIMBS - 1; i >= 0; --i) {
+      final int comparison = Integer.compareUnsigned(a[i], P[i]);
+      if (comparison != 0) {
+        return comparison < 0;
+      }
+    }
+    return false;
+  }
+
+  private static void subtractModulus(final int[] a) {
+    long borrow = 0;
+    for (int i = 0; i < LIMBS; ++i) {
+      final long difference = (a[i] & MASK) - (P[i] & MASK) - borrow;
+      a[i] = (int) difference;
+      borrow = (difference >>> 63);
+    }
+  }
+
+  private static int[] toLimbs(final BigInteger value) {
+    final int[] limbs = new int[LIMBS];
+    for (int i = 0; i < LIMBS; ++i) {
+      limbs[i] = value.shiftRight(i * 32).intValue();
+    }
+    return limbs;
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * An immutable element {@code c0 + c1 * w} of Fp12 = Fp6[w] / (w^2 - v).
+ *
+ * <p>Since w^6 = xi, this is the same field as {@link Fq12}, whose polynomial basis X corresponds to
+ * w.
+ */
+final class Fp12 {
+
+  static final Fp12 ONE = new Fp12(Fp6.ONE, Fp6.ZERO);
+
+  // FROBENIUS_COEFFICIENTS[n] = xi^(n * (p - 1) / 6) = w^(n * (p - 1))
+  private static final Fp2[] FROBENIUS_COEFFICIENTS = new Fp2[6];
+
+  static {
+    final BigInteger exponent =
+        FieldElement.FIELD_MODULUS.subtract(BigInteger.ONE).divide(BigInteger.valueOf(6));
+    final Fp2 gamma = Fp2.create(BigInteger.valueOf(9), BigInteger.ONE).power(exponent);
+    FROBENIUS_COEFFICIENTS[0] = Fp2.ONE;
+    for (int n = 1; n < FROBENIUS_COEFFICIENTS.length; ++n) {
+      FROBENIUS_COEFFICIENTS[n] = FROBENIUS_COEFFICIENTS[n - 1].multiply(gamma);
+    }
+  }
+
+  final Fp6 c0;
+  final Fp6 c1;
+
+  Fp12(final Fp6 c0, final Fp6 c1) {
+    this.c0 = c0;
+    this.c1 = c1;
+  }
+
+  static Fp2 frobeniusCoefficient(final int n) {
+    return FROBENIUS_COEFFICIENTS[n];
+  }
+
+  boolean isOne() {
+    return equals(ONE);
+  }
+
+  Fp12 multiply(final Fp12 other) {
+    final Fp6 t0 = c0.multiply(other.c0);
+    final Fp6 t1 = c1.multiply(other.c1);
+    final Fp6 r1 = c0.add(c1).multiply(other.c0.add(other.c1)).subtract(t0).subtract(t1);
+    return new Fp12(t0.add(t1.multiplyByV()), r1);
+  }
+
+  Fp12 square() {
+    final Fp6 t = c0.multiply(c1);
+    final Fp6 r0 =
+        c0.add(c1).multiply(c0.add(c1.multiplyByV())).subtract(t).subtract(t.multiplyByV());
+    return new Fp12(r0, t.add(t));
+  }
+
+  /**
+   * Multiplies by a line function value {@code l0 + (a + b * v) * w}, where l0 is an element of
+   * Fp2.
+   */
+  Fp12 multiplyByLine(final Fp2 l0, final Fp2 a, final Fp2 b) {
+    final Fp6 r0 = c0.multiply(l0).add(c1.multiplyBy01(a, b).multiplyByV());
+    final Fp6 r1 = c0.multiplyBy01(a, b).add(c1.multiply(l0));
+    return new Fp12(r0, r1);
+  }
+
+  /** Raises to the power p^6, which is the inverse for elements of the cyclotomic subgroup. */
+  Fp12 conjugate() {
+    return new Fp12(c0, c1.negate());
+  }
+
+  Fp12 invert() {
+    final Fp6 normInverse = c0.square().subtract(c1.square().multiplyByV()).invert();
+    return new Fp12(c0.multiply(normInverse), c1.negate().multiply(normInverse));
+  }
+
+  /** Raises to the power p. */
+  Fp12 frobenius() {
+    return new Fp12(
+        new Fp6(
+            c0.c0.conjugate(),
+            c0.c1.conjugate().multiply(FROBENIUS_COEFFICIENTS[2]),
+            c0.c2.conjugate().multiply(FROBENIUS_COEFFICIENTS[4])),
+        new Fp6(
+            c1.c0.conjugate().multiply(FROBENIUS_COEFFICIENTS[1]),
+            c1.c1.conjugate().multiply(FROBENIUS_COEFFICIENTS[3]),
+            c1.c2.conjugate().multiply(FROBENIUS_COEFFICIENTS[5])));
+  }
+
+  Fp12 power(final BigInteger exponent) {
+    Fp12 result = ONE;
+    for (int i = exponent.bitLength() - 1; i >= 0; --i) {
+      result = result.square();
+      if (exponent.testBit(i)) {
+        result = result.multiply(this);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the coefficients of this element in the basis 1, w, ..., w^11 over Fp, which is the
+   * representation used by {@link Fq12}.
+   */
+  BigInteger[] toPolynomialCoefficients() {
+    final Fp2[] powers = {c0.c0, c1.c0, c0.c1, c1.c1, c0.c2, c1.c2};
+    final BigInteger[] coefficients = new BigInteger[12];
+    for (int n = 0; n < powers.length; ++n) {
+      // a + b i with i = w^6 - 9
+      final BigInteger real = powers[n].realPart();
+      final BigInteger imaginary = powers[n].imaginaryPart();
+      coefficients[n] =
+          real.subtract(imaginary.multiply(BigInteger.valueOf(9))).mod(FieldElement.FIELD_MODULUS);
+      coefficients[n + 6] = imaginary;
+    }
+    return coefficients;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Fp12)) {
+      return false;
+    }
+    final Fp12 other = (Fp12) obj;
+    return c0.equals(other.c0) && c1.equals(other.c1);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(c0, c1);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("c0", c0).add("c1", c1).toString();
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * An immutable element {@code c0 + c1 * i} of Fp2 = Fp[i] / (i^2 + 1) on Montgomery-form limbs.
+ *
+ * @see Fq2 for the reference implementation
+ */
+final class Fp2 {
+
+  static final Fp2 ZERO = new Fp2(Fp.ZERO, Fp.ZERO);
+  static final Fp2 ONE = new Fp2(Fp.ONE, Fp.ZERO);
+
+  private static final int[] NINE = Fp.fromLong(9);
+
+  final int[] c0;
+  final int[] c1;
+
+  private Fp2(final int[] c0, final int[] c1) {
+    this.c0 = c0;
+    this.c1 = c1;
+  }
+
+  static Fp2 create(final BigInteger c0, final BigInteger c1) {
+    return new Fp2(Fp.fromBigInteger(c0), Fp.fromBigInteger(c1));
+  }
+
+  static Fp2 create(final Fq2 value) {
+    final Fq[] coefficients = value.getCoefficients();
+    return create(coefficients[0].toBigInteger(), coefficients[1].toBigInteger());
+  }
+
+  BigInteger realPart() {
+    return Fp.toBigInteger(c0);
+  }
+
+  BigInteger imaginaryPart() {
+    return Fp.toBigInteger(c1);
+  }
+
+  boolean isZero() {
+    return Fp.isZero(c0) && Fp.isZero(c1);
+  }
+
+  Fp2 add(final Fp2 other) {
+    final int[] r0 = Fp.create();
+    final int[] r1 = Fp.create();
+    Fp.add(c0, other.c0, r0);
+    Fp.add(c1, other.c1, r1);
+    return new Fp2(r0, r1);
+  }
+
+  Fp2 subtract(final Fp2 other) {
+    final int[] r0 = Fp.create();
+    final int[] r1 = Fp.create();
+    Fp.subtract(c0, other.c0, r0);
+    Fp.subtract(c1, other.c1, r1);
+    return new Fp2(r0, r1);
+  }
+
+  Fp2 twice() {
+    return add(this);
+  }
+
+  Fp2 negate() {
+    final int[] r0 = Fp.create();
+    final int[] r1 = Fp.create();
+    Fp.negate(c0, r0);
+    Fp.negate(c1, r1);
+    return new Fp2(r0, r1);
+  }
+
+  Fp2 conjugate() {
+    final int[] r1 = Fp.create();
+    Fp.negate(c1, r1);
+    return new Fp2(c0, r1);
+  }
+
+  Fp2 multiply(final Fp2 other) {
+    // Karatsuba: (a0 + a1 i)(b0 + b1 i) = a0 b0 - a1 b1 + ((a0 + a1)(b0 + b1) - a0 b0 - a1 b1) i
+    final int[] t0 = Fp.create();
+    final int[] t1 = Fp.create();
+    final int[] s0 = Fp.create();
+    final int[] s1 = Fp.create();
+    Fp.multiply(c0, other.c0, t0);
+    Fp.multiply(c1, other.c1, t1);
+    Fp.add(c0, c1, s0);
+    Fp.add(other.c0, other.c1, s1);
+    Fp.multiply(s0, s1, s1);
+    Fp.subtract(s1, t0, s1);
+    Fp.subtract(s1, t1, s1);
+    Fp.subtract(t0, t1, t0);
+    return new Fp2(t0, s1);
+  }
+
+  /** Multiplies by an element of the base field. */
+  Fp2 multiply(final int[] scalar) {
+    final int[] r0 = Fp.create();
+    final int[] r1 = Fp.create();
+    Fp.multiply(c0, scalar, r0);
+    Fp.multiply(c1, scalar, r1);
+    return new Fp2(r0, r1);
+  }
+
+  Fp2 square() {
+    // (a0 + a1 i)^2 = (a0 + a1)(a0 - a1) + 2 a0 a1 i
+    final int[] sum = Fp.create();
+    final int[] difference = Fp.create();
+    final int[] r1 = Fp.create();
+    Fp.add(c0, c1, sum);
+    Fp.subtract(c0, c1, difference);
+    Fp.multiply(sum, difference, sum);
+    Fp.multiply(c0, c1, r1);
+    Fp.twice(r1, r1);
+    return new Fp2(sum, r1);
+  }
+
+  /** Multiplies by the non-residue xi = 9 + i used to build Fp6. */
+  Fp2 multiplyByXi() {
+    // (9 + i)(a0 + a1 i) = 9 a0 - a1 + (a0 + 9 a1) i
+    final int[] r0 = Fp.create();
+    final int[] r1 = Fp.create();
+    Fp.multiply(c0, NINE, r0);
+    Fp.subtract(r0, c1, r0);
+    Fp.multiply(c1, NINE, r1);
+    Fp.add(r1, c0, r1);
+    return new Fp2(r0, r1);
+  }
+
+  Fp2 invert() {
+    // 1 / (a0 + a1 i) = (a0 - a1 i) / (a0^2 + a1^2)
+    final int[] norm = Fp.create();
+    final int[] t = Fp.create();
+    Fp.square(c0, norm);
+    Fp.square(c1, t);
+    Fp.add(norm, t, norm);
+    Fp.invert(norm, norm);
+    final int[] r0 = Fp.create();
+    final int[] r1 = Fp.create();
+    Fp.multiply(c0, norm, r0);
+    Fp.multiply(c1, norm, r1);
+    Fp.negate(r1, r1);
+    return new Fp2(r0, r1);
+  }
+
+  Fp2 power(final BigInteger exponent) {
+    Fp2 result = ONE;
+    for (int i = exponent.bitLength() - 1; i >= 0; --i) {
+      result = result.square();
+      if (exponent.testBit(i)) {
+        result = result.multiply(this);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Fp2)) {
+      return false;
+    }
+    final Fp2 other = (Fp2) obj;
+    return Fp.equal(c0, other.c0) && Fp.equal(c1, other.c1);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(c0) + Arrays.hashCode(c1);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("c0", realPart())
+        .add("c1", imaginaryPart())
+        .toString();
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * An immutable element {@code c0 + c1 * v + c2 * v^2} of Fp6 = Fp2[v] / (v^3 - xi), where xi = 9 +
+ * i.
+ */
+final class Fp6 {
+
+  static final Fp6 ZERO = new Fp6(Fp2.ZERO, Fp2.ZERO, Fp2.ZERO);
+  static final Fp6 ONE = new Fp6(Fp2.ONE, Fp2.ZERO, Fp2.ZERO);
+
+  final Fp2 c0;
+  final Fp2 c1;
+  final Fp2 c2;
+
+  Fp6(final Fp2 c0, final Fp2 c1, final Fp2 c2) {
+    this.c0 = c0;
+    this.c1 = c1;
+    this.c2 = c2;
+  }
+
+  boolean isZero() {
+    return c0.isZero() && c1.isZero() && c2.isZero();
+  }
+
+  Fp6 add(final Fp6 other) {
+    return new Fp6(c0.add(other.c0), c1.add(other.c1), c2.add(other.c2));
+  }
+
+  Fp6 subtract(final Fp6 other) {
+    return new Fp6(c0.subtract(other.c0), c1.subtract(other.c1), c2.subtract(other.c2));
+  }
+
+  Fp6 negate() {
+    return new Fp6(c0.negate(), c1.negate(), c2.negate());
+  }
+
+  Fp6 multiply(final Fp6 other) {
+    final Fp2 t0 = c0.multiply(other.c0);
+    final Fp2 t1 = c1.multiply(other.c1);
+    final Fp2 t2 = c2.multiply(other.c2);
+    final Fp2 r0 =
+        c1.add(c2)
+            .multiply(other.c1.add(other.c2))
+            .subtract(t1)
+            .subtract(t2)
+            .multiplyByXi()
+            .add(t0);
+    final Fp2 r1 =
+        c0.add(c1)
+            .multiply(other.c0.add(other.c1))
+            .subtract(t0)
+            .subtract(t1)
+            .add(t2.multiplyByXi());
+    final Fp2 r2 = c0.add(c2).multiply(other.c0.add(other.c2)).subtract(t0).subtract(t2).add(t1);
+    return new Fp6(r0, r1, r2);
+  }
+
+  /** Multiplies by an element of Fp2. */
+  Fp6 multiply(final Fp2 scalar) {
+    return new Fp6(c0.multiply(scalar), c1.multiply(scalar), c2.multiply(scalar));
+  }
+
+  /** Multiplies by the sparse element {@code a + b * v}. */
+  Fp6 multiplyBy01(final Fp2 a, final Fp2 b) {
+    // (c0 + c1 v + c2 v^2)(a + b v) = c0 a + xi c2 b + (c0 b + c1 a) v + (c1 b + c2 a) v^2
+    final Fp2 r0 = c0.multiply(a).add(c2.multiply(b).multiplyByXi());
+    final Fp2 r1 = c0.multiply(b).add(c1.multiply(a));
+    final Fp2 r2 = c1.multiply(b).add(c2.multiply(a));
+    return new Fp6(r0, r1, r2);
+  }
+
+  /** Multiplies by v, the generator of Fp6 over Fp2. */
+  Fp6 multiplyByV() {
+    return new Fp6(c2.multiplyByXi(), c0, c1);
+  }
+
+  Fp6 square() {
+    return multiply(this);
+  }
+
+  Fp6 invert() {
+    final Fp2 t0 = c0.square().subtract(c1.multiply(c2).multiplyByXi());
+    final Fp2 t1 = c2.square().multiplyByXi().subtract(c0.multiply(c1));
+    final Fp2 t2 = c1.square().subtract(c0.multiply(c2));
+    final Fp2 norm = c0.multiply(t0).add(c2.multiply(t1).add(c1.multiply(t2)).multiplyByXi());
+    final Fp2 normInverse = norm.invert();
+    return new Fp6(t0.multiply(normInverse), t1.multiply(normInverse), t2.multiply(normInverse));
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Fp6)) {
+      return false;
+    }
+    final Fp6 other = (Fp6) obj;
+    return c0.equals(other.c0) && c1.equals(other.c1) && c2.equals(other.c2);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(c0, c1, c2);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("c0", c0).add("c1", c1).add("c2", c2).toString();
+  }
+}
@@ -50,6 +50,10 @@ public class Fq implements FieldElement<Fq> {
     this.n = n;
   }
 
+  public BigInteger toBigInteger() {
+    return n;
+  }
+
   public BytesValue toBytesValue() {
     return BytesValues.trimLeadingZeros(BytesValue.wrap(n.toByteArray()));
   }
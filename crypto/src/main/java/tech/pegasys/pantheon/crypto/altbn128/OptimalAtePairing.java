@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The optimal ate pairing on alt_bn128 over the Montgomery-form tower Fp2, Fp6 and Fp12.
+ *
+ * <p>Compared to {@link AltBn128Fq12Pairer} this keeps the G2 point on the twist in Jacobian
+ * coordinates, so no inversions are needed in the Miller loop. The line functions of each G2 point
+ * are computed once as sparse Fp12 elements that only need scaling by the G1 coordinates, the
+ * Miller loops of all pairs share the squarings of the accumulator, and the product is raised to
+ * (p^12 - 1) / r with a single final exponentiation.
+ */
+final class OptimalAtePairing {
+
+  private static final int LOG_ATE_LOOP_COUNT = 63;
+  private static final BigInteger ATE_LOOP_COUNT = new BigInteger("29793968203157093288");
+  private static final BigInteger BN_PARAMETER = new BigInteger("4965661367192848881");
+
+  // pi(x, y) = (conj(x) * xi^((p - 1) / 3), conj(y) * xi^((p - 1) / 2)) on the twist.
+  private static final Fp2 FROBENIUS_X = Fp12.frobeniusCoefficient(2);
+  private static final Fp2 FROBENIUS_Y = Fp12.frobeniusCoefficient(3);
+  // pi^2(x, y) = (x * xi^((p^2 - 1) / 3), y * xi^((p^2 - 1) / 2)) on the twist.
+  private static final Fp2 FROBENIUS_SQUARED_X;
+  private static final Fp2 FROBENIUS_SQUARED_Y;
+
+  static {
+    final BigInteger pSquaredMinusOne =
+        FieldElement.FIELD_MODULUS.pow(2).subtract(BigInteger.ONE);
+    final Fp2 xi = Fp2.create(BigInteger.valueOf(9), BigInteger.ONE);
+    FROBENIUS_SQUARED_X = xi.power(pSquaredMinusOne.divide(BigInteger.valueOf(3)));
+    FROBENIUS_SQUARED_Y = xi.power(pSquaredMinusOne.divide(BigInteger.valueOf(2)));
+  }
+
+  private OptimalAtePairing() {}
+
+  /**
+   * Computes the product of the Miller loops of the given pairs, omitting pairs in which either
+   * point is the point at infinity.
+   *
+   * @param g1Points the G1 points, as affine (x, y) Montgomery-form coordinates
+   * @param g2Points the G2 points, prepared with {@link #prepare(Fp2, Fp2)}
+   * @return the product of the Miller loop values, before final exponentiation
+   */
+  static Fp12 millerLoop(final List<int[][]> g1Points, final List<PreparedG2Point> g2Points) {
+    checkArgument(g1Points.size() == g2Points.size(), "Mismatched number of G1 and G2 points");
+    final int pairs = g1Points.size();
+    Fp12 f = Fp12.ONE;
+    int lineIndex = 0;
+    for (int i = LOG_ATE_LOOP_COUNT; i >= 0; --i) {
+      f = f.square();
+      f = multiplyLines(f, g1Points, g2Points, pairs, lineIndex++);
+      if (ATE_LOOP_COUNT.testBit(i)) {
+        f = multiplyLines(f, g1Points, g2Points, pairs, lineIndex++);
+      }
+    }
+    f = multiplyLines(f, g1Points, g2Points, pairs, lineIndex++);
+    return multiplyLines(f, g1Points, g2Points, pairs, lineIndex);
+  }
+
+  private static Fp12 multiplyLines(
+      final Fp12 f,
+      final List<int[][]> g1Points,
+      final List<PreparedG2Point> g2Points,
+      final int pairs,
+      final int lineIndex) {
+    Fp12 result = f;
+    for (int j = 0; j < pairs; ++j) {
+      final Line line = g2Points.get(j).lines[lineIndex];
+      if (line != null) {
+        final int[][] p = g1Points.get(j);
+        result = result.multiplyByLine(line.l0.multiply(p[1]), line.l1.multiply(p[0]), line.l2);
+      }
+    }
+    return result;
+  }
+
+  /** Raises a Miller loop value to (p^12 - 1) / r. */
+  static Fp12 finalExponentiation(final Fp12 f) {
+    // Easy part: f^((p^6 - 1)(p^2 + 1)).
+    Fp12 t1 = f.conjugate().multiply(f.invert());
+    t1 = t1.multiply(t1.frobenius().frobenius());
+
+    // Hard part: (p^4 - p^2 + 1) / r, following Devegili, Scott and Dahab, "Implementing
+    // Cryptographic Pairings over Barreto-Naehrig Curves".
+    final Fp12 fp = t1.frobenius();
+    final Fp12 fp2 = fp.frobenius();
+    final Fp12 fp3 = fp2.frobenius();
+    final Fp12 fu = t1.power(BN_PARAMETER);
+    final Fp12 fu2 = fu.power(BN_PARAMETER);
+    final Fp12 fu3 = fu2.power(BN_PARAMETER);
+    final Fp12 fu2p = fu2.frobenius();
+    final Fp12 fu3p = fu3.frobenius();
+
+    final Fp12 y0 = fp.multiply(fp2).multiply(fp3);
+    final Fp12 y1 = t1.conjugate();
+    final Fp12 y2 = fu2p.frobenius();
+    final Fp12 y3 = fu.frobenius().conjugate();
+    final Fp12 y4 = fu.multiply(fu2p).conjugate();
+    final Fp12 y5 = fu2.conjugate();
+    final Fp12 y6 = fu3.multiply(fu3p).conjugate();
+
+    Fp12 t0 = y6.square().multiply(y4).multiply(y5);
+    t1 = y3.multiply(y5).multiply(t0);
+    t0 = t0.multiply(y2);
+    t1 = t1.square().multiply(t0).square();
+    t0 = t1.multiply(y1);
+    t1 = t1.multiply(y0);
+    return t0.square().multiply(t1);
+  }
+
+  /**
+   * Computes the line functions used by the Miller loop for a G2 point given in affine coordinates
+   * on the twist.
+   */
+  static PreparedG2Point prepare(final Fp2 x, final Fp2 y) {
+    final List<Line> lines = new ArrayList<>();
+    final TwistPoint t = new TwistPoint(x, y);
+    for (int i = LOG_ATE_LOOP_COUNT; i >= 0; --i) {
+      lines.add(t.doubleStep());
+      if (ATE_LOOP_COUNT.testBit(i)) {
+        lines.add(t.addStep(x, y));
+      }
+    }
+    final Fp2 q1x = x.conjugate().multiply(FROBENIUS_X);
+    final Fp2 q1y = y.conjugate().multiply(FROBENIUS_Y);
+    final Fp2 nq2x = x.multiply(FROBENIUS_SQUARED_X);
+    final Fp2 nq2y = y.multiply(FROBENIUS_SQUARED_Y).negate();
+    lines.add(t.addStep(q1x, q1y));
+    lines.add(t.addStep(nq2x, nq2y));
+    return new PreparedG2Point(lines.toArray(new Line[0]));
+  }
+
+  static final class PreparedG2Point {
+    private final Line[] lines;
+
+    private PreparedG2Point(final Line[] lines) {
+      this.lines = lines;
+    }
+  }
+
+  /**
+   * The line l0 * yP + (l1 * xP + l2 * v) * w through points of the twist, evaluated at a G1 point
+   * P, scaled by a factor in Fp2 that the final exponentiation removes.
+   */
+  private static final class Line {
+    private final Fp2 l0;
+    private final Fp2 l1;
+    private final Fp2 l2;
+
+    private Line(final Fp2 l0, final Fp2 l1, final Fp2 l2) {
+      this.l0 = l0;
+      this.l1 = l1;
+      this.l2 = l2;
+    }
+  }
+
+  /** A mutable point on the twist in Jacobian coordinates (x / z^2, y / z^3). */
+  private static final class TwistPoint {
+    private Fp2 x;
+    private Fp2 y;
+    private Fp2 z;
+    private boolean infinity;
+
+    private TwistPoint(final Fp2 x, final Fp2 y) {
+      this.x = x;
+      this.y = y;
+      this.z = Fp2.ONE;
+    }
+
+    /**
+     * Doubles this point and returns the tangent line at its previous value, or null for a
+     * vertical line, whose value the final exponentiation maps to one.
+     */
+    private Line doubleStep() {
+      if (infinity || y.isZero()) {
+        infinity = true;
+        return null;
+      }
+      // dbl-2009-l
+      final Fp2 a = x.square();
+      final Fp2 b = y.square();
+      final Fp2 c = b.square();
+      final Fp2 d = x.add(b).square().subtract(a).subtract(c).twice();
+      final Fp2 e = a.twice().add(a);
+      final Fp2 zz = z.square();
+
+      final Fp2 newZ = y.multiply(z).twice();
+      final Fp2 newX = e.square().subtract(d.twice());
+      final Fp2 newY = e.multiply(d.subtract(newX)).subtract(c.twice().twice().twice());
+      final Line line = new Line(newZ.multiply(zz), e.multiply(zz).negate(), e.multiply(x).subtract(b.twice()));
+
+      x = newX;
+      y = newY;
+      z = newZ;
+      return line;
+    }
+
+    /**
+     * Adds the affine point (qx, qy) to this point and returns the line through both, or null for
+     * a vertical line.
+     */
+    private Line addStep(final Fp2 qx, final Fp2 qy) {
+      if (infinity) {
+        x = qx;
+        y = qy;
+        z = Fp2.ONE;
+        infinity = false;
+        return null;
+      }
+      // madd-2007-bl
+      final Fp2 z1z1 = z.square();
+      final Fp2 h = qx.multiply(z1z1).subtract(x);
+      final Fp2 r = qy.multiply(z).multiply(z1z1).subtract(y).twice();
+      if (h.isZero()) {
+        if (r.isZero()) {
+          return doubleStep();
+        }
+        infinity = true;
+        return null;
+      }
+      final Fp2 hh = h.square();
+      final Fp2 i = hh.twice().twice();
+      final Fp2 j = h.multiply(i);
+      final Fp2 v = x.multiply(i);
+
+      final Fp2 newX = r.square().subtract(j).subtract(v.twice());
+      final Fp2 newY = r.multiply(v.subtract(newX)).subtract(y.multiply(j).twice());
+      final Fp2 newZ = z.add(h).square().subtract(z1z1).subtract(hh);
+      final Line line = new Line(newZ, r.negate(), r.multiply(qx).subtract(qy.multiply(newZ)));
+
+      x = newX;
+      y = newY;
+      z = newZ;
+      return line;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+public class SECP256K1MultiplierTest {
+
+  private static final BigInteger N = SECP256K1.CURVE.getN();
+  private static final ECPoint G = SECP256K1.CURVE.getG();
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void matchesBouncyCastleForRandomScalars() {
+    for (int i = 0; i < 500; ++i) {
+      final ECPoint point = G.multiply(randomScalar()).normalize();
+      final BigInteger a = randomScalar();
+      final BigInteger b = randomScalar();
+
+      assertThat(SECP256K1Multiplier.sumOfTwoMultiplies(a, point, b))
+          .isEqualTo(expected(a, point, b));
+    }
+  }
+
+  @Test
+  public void matchesBouncyCastleForSmallAndEdgeScalars() {
+    final ECPoint point = G.multiply(randomScalar()).normalize();
+    final BigInteger[] scalars = {
+      BigInteger.ZERO,
+      BigInteger.ONE,
+      BigInteger.valueOf(2),
+      BigInteger.valueOf(15),
+      BigInteger.valueOf(127),
+      N.subtract(BigInteger.ONE),
+      N.shiftRight(1)
+    };
+    for (final BigInteger a : scalars) {
+      for (final BigInteger b : scalars) {
+        assertThat(SECP256K1Multiplier.sumOfTwoMultiplies(a, point, b))
+            .isEqualTo(expected(a, point, b));
+      }
+    }
+  }
+
+  @Test
+  public void handlesPointEqualToGenerator() {
+    final ECPoint point = G.normalize();
+    final BigInteger a = randomScalar();
+
+    // a*G + a*G requires doubling inside the addition.
+    assertThat(SECP256K1Multiplier.sumOfTwoMultiplies(a, point, a))
+        .isEqualTo(expected(a, point, a));
+  }
+
+  @Test
+  public void returnsEmptyForPointAtInfinity() {
+    final BigInteger k = randomScalar();
+    final ECPoint point = G.multiply(k).normalize();
+    final BigInteger b = randomScalar();
+    final BigInteger a = N.subtract(b.multiply(k).mod(N));
+
+    assertThat(SECP256K1Multiplier.sumOfTwoMultiplies(a, point, b)).isEmpty();
+  }
+
+  @Test
+  public void recoversPublicKeysOfRandomSignatures() {
+    for (int i = 0; i < 100; ++i) {
+      final KeyPair keyPair = KeyPair.generate();
+      final Bytes32 dataHash = Bytes32.wrap(randomBytes(32));
+      final Signature signature = SECP256K1.sign(dataHash, keyPair);
+
+      assertThat(PublicKey.recoverFromSignature(dataHash, signature))
+          .contains(keyPair.getPublicKey());
+    }
+  }
+
+  private static Optional<BytesValue> expected(
+      final BigInteger a, final ECPoint point, final BigInteger b) {
+    final ECPoint result = ECAlgorithms.sumOfTwoMultiplies(G, a, point, b);
+    if (result.isInfinity()) {
+      return Optional.empty();
+    }
+    final byte[] encoded = result.getEncoded(false);
+    return Optional.of(BytesValue.wrap(Arrays.copyOfRange(encoded, 1, encoded.length)));
+  }
+
+  private BigInteger randomScalar() {
+    BigInteger scalar;
+    do {
+      scalar = new BigInteger(N.bitLength(), random);
+    } while (scalar.signum() == 0 || scalar.compareTo(N) >= 0);
+    return scalar;
+  }
+
+  private byte[] randomBytes(final int size) {
+    final byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+}
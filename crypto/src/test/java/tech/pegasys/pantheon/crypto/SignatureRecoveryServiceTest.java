@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SignatureRecoveryServiceTest {
+
+  private static final int BATCH_SIZE = 100;
+
+  private static final List<Bytes32> dataHashes = new ArrayList<>();
+  private static final List<Signature> signatures = new ArrayList<>();
+  private static final List<Optional<PublicKey>> expectedKeys = new ArrayList<>();
+
+  @BeforeClass
+  public static void signBatch() {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      final KeyPair keyPair = KeyPair.generate();
+      final Bytes32 dataHash = Hash.keccak256(BytesValue.wrap(("data" + i).getBytes(UTF_8)));
+      dataHashes.add(dataHash);
+      signatures.add(SECP256K1.sign(dataHash, keyPair));
+      expectedKeys.add(Optional.of(keyPair.getPublicKey()));
+    }
+  }
+
+  @Test
+  public void shouldRecoverOnCallingThread() {
+    try (final SignatureRecoveryService service = SignatureRecoveryService.create(0)) {
+      assertThat(service.recoverPublicKeys(dataHashes, signatures)).isEqualTo(expectedKeys);
+    }
+  }
+
+  @Test
+  public void shouldRecoverWithWorkersInBatchOrder() {
+    try (final SignatureRecoveryService service = SignatureRecoveryService.create(3)) {
+      assertThat(service.recoverPublicKeys(dataHashes, signatures)).isEqualTo(expectedKeys);
+    }
+  }
+
+  @Test
+  public void shouldRecoverBatchesSmallerThanWorkers() {
+    try (final SignatureRecoveryService service = SignatureRecoveryService.create(3)) {
+      assertThat(service.recoverPublicKeys(dataHashes.subList(0, 2), signatures.subList(0, 2)))
+          .isEqualTo(expectedKeys.subList(0, 2));
+      assertThat(service.recoverPublicKeys(new ArrayList<>(), new ArrayList<>())).isEmpty();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectMismatchedBatch() {
+    try (final SignatureRecoveryService service = SignatureRecoveryService.create(0)) {
+      service.recoverPublicKeys(dataHashes, signatures.subList(0, 1));
+    }
+  }
+}
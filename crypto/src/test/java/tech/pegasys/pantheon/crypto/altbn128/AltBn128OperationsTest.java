@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AltBn128OperationsTest {
+
+  private static final BigInteger CURVE_ORDER =
+      new BigInteger(
+          "21888242871839275222246405745257275088548364400416034343698204186575808495617");
+
+  private final Random random = new Random(3);
+
+  @Test
+  public void shouldAddLikeReferenceImplementation() {
+    final AltBn128Point a = AltBn128Point.g1().multiply(randomScalar());
+    final AltBn128Point b = AltBn128Point.g1().multiply(randomScalar());
+
+    assertThat(AltBn128Operations.add(a, b)).isEqualTo(a.add(b));
+    assertThat(AltBn128Operations.add(a, a)).isEqualTo(a.add(a));
+    assertThat(AltBn128Operations.add(a, a.negate())).isEqualTo(a.add(a.negate()));
+    assertThat(AltBn128Operations.add(a, AltBn128Point.INFINITY)).isEqualTo(a);
+    assertThat(AltBn128Operations.add(AltBn128Point.INFINITY, b)).isEqualTo(b);
+  }
+
+  @Test
+  public void shouldMultiplyLikeReferenceImplementation() {
+    final AltBn128Point point = AltBn128Point.g1().multiply(BigInteger.valueOf(5));
+    final BigInteger[] scalars = {
+      BigInteger.ZERO,
+      BigInteger.ONE,
+      BigInteger.valueOf(2),
+      randomScalar(),
+      CURVE_ORDER.subtract(BigInteger.ONE),
+      CURVE_ORDER,
+      BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE)
+    };
+    for (final BigInteger scalar : scalars) {
+      assertThat(AltBn128Operations.multiply(point, scalar)).isEqualTo(point.multiply(scalar));
+    }
+  }
+
+  @Test
+  public void shouldMatchReferencePairing() {
+    final AltBn128Point p = AltBn128Point.g1().multiply(BigInteger.valueOf(3));
+    final AltBn128Fq2Point q = AltBn128Fq2Point.g2().multiply(BigInteger.valueOf(7));
+
+    final Fp12 pairing =
+        OptimalAtePairing.finalExponentiation(
+            AltBn128Operations.millerLoop(singletonList(p), singletonList(q)));
+    final Fq12 reference = AltBn128Fq12Pairer.finalize(AltBn128Fq12Pairer.pair(p, q));
+
+    assertThat(toFq12(pairing)).isEqualTo(reference);
+  }
+
+  @Test
+  public void shouldBeBilinear() {
+    final BigInteger a = randomScalar();
+    final BigInteger b = randomScalar();
+    final AltBn128Point g1 = AltBn128Point.g1();
+    final AltBn128Fq2Point g2 = AltBn128Fq2Point.g2();
+
+    // e(aP, bQ) * e(-abP, Q) == 1
+    assertThat(
+            AltBn128Operations.pairingProductIsOne(
+                asList(
+                    AltBn128Operations.multiply(g1, a),
+                    AltBn128Operations.multiply(g1, a.multiply(b)).negate()),
+                asList(g2.multiply(b), g2)))
+        .isTrue();
+    assertThat(
+            AltBn128Operations.pairingProductIsOne(
+                asList(AltBn128Operations.multiply(g1, a), AltBn128Operations.multiply(g1, b)),
+                asList(g2.multiply(b), g2)))
+        .isFalse();
+  }
+
+  @Test
+  public void shouldBeNonDegenerate() {
+    assertThat(
+            AltBn128Operations.pairingProductIsOne(
+                singletonList(AltBn128Point.g1()), singletonList(AltBn128Fq2Point.g2())))
+        .isFalse();
+  }
+
+  @Test
+  public void shouldIgnorePairsContainingPointAtInfinity() {
+    final AltBn128Fq2Point infinity = new AltBn128Fq2Point(Fq2.zero(), Fq2.zero());
+
+    assertThat(AltBn128Operations.pairingProductIsOne(emptyList(), emptyList())).isTrue();
+    assertThat(
+            AltBn128Operations.pairingProductIsOne(
+                asList(AltBn128Point.INFINITY, AltBn128Point.g1()),
+                asList(AltBn128Fq2Point.g2(), infinity)))
+        .isTrue();
+  }
+
+  private static Fq12 toFq12(final Fp12 value) {
+    return new Fq12(
+        Arrays.stream(value.toPolynomialCoefficients()).map(Fq::create).toArray(Fq[]::new));
+  }
+
+  private BigInteger randomScalar() {
+    return new BigInteger(CURVE_ORDER.bitLength(), random).mod(CURVE_ORDER);
+  }
+}
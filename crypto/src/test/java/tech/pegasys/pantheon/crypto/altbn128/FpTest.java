@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FpTest {
+
+  private static final BigInteger P = FieldElement.FIELD_MODULUS;
+
+  private final Random random = new Random(7);
+
+  @Test
+  public void shouldRoundTripThroughMontgomeryForm() {
+    for (int i = 0; i < 100; ++i) {
+      final BigInteger value = randomElement();
+      assertThat(Fp.toBigInteger(Fp.fromBigInteger(value))).isEqualTo(value);
+    }
+    assertThat(Fp.toBigInteger(Fp.fromBigInteger(P.subtract(BigInteger.ONE))))
+        .isEqualTo(P.subtract(BigInteger.ONE));
+    assertThat(Fp.toBigInteger(Fp.fromBigInteger(P))).isEqualTo(BigInteger.ZERO);
+  }
+
+  @Test
+  public void shouldMatchBigIntegerArithmetic() {
+    for (int i = 0; i < 1000; ++i) {
+      final BigInteger a = i == 0 ? P.subtract(BigInteger.ONE) : randomElement();
+      final BigInteger b = i == 1 ? BigInteger.ZERO : randomElement();
+      final int[] limbsA = Fp.fromBigInteger(a);
+      final int[] limbsB = Fp.fromBigInteger(b);
+      final int[] result = Fp.create();
+
+      Fp.add(limbsA, limbsB, result);
+      assertThat(Fp.toBigInteger(result)).isEqualTo(a.add(b).mod(P));
+      Fp.subtract(limbsA, limbsB, result);
+      assertThat(Fp.toBigInteger(result)).isEqualTo(a.subtract(b).mod(P));
+      Fp.multiply(limbsA, limbsB, result);
+      assertThat(Fp.toBigInteger(result)).isEqualTo(a.multiply(b).mod(P));
+      Fp.negate(limbsA, result);
+      assertThat(Fp.toBigInteger(result)).isEqualTo(a.negate().mod(P));
+    }
+  }
+
+  @Test
+  public void shouldAllowResultToAliasInputs() {
+    final BigInteger a = randomElement();
+    final BigInteger b = randomElement();
+    final int[] limbsA = Fp.fromBigInteger(a);
+
+    Fp.multiply(limbsA, Fp.fromBigInteger(b), limbsA);
+    Fp.square(limbsA, limbsA);
+
+    assertThat(Fp.toBigInteger(limbsA)).isEqualTo(a.multiply(b).pow(2).mod(P));
+  }
+
+  @Test
+  public void shouldInvert() {
+    final BigInteger a = randomElement();
+    final int[] inverse = Fp.create();
+
+    Fp.invert(Fp.fromBigInteger(a), inverse);
+    Fp.multiply(inverse, Fp.fromBigInteger(a), inverse);
+
+    assertThat(Fp.equal(inverse, Fp.ONE)).isTrue();
+  }
+
+  private BigInteger randomElement() {
+    return new BigInteger(P.bitLength() + 16, random).mod(P);
+  }
+}
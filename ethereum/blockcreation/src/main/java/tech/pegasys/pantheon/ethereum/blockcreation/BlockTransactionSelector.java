@@ -24,9 +24,12 @@ import tech.pegasys.pantheon.ethereum.eth.transactions.PendingTransactions;
 import tech.pegasys.pantheon.ethereum.eth.transactions.PendingTransactions.TransactionSelectionResult;
 import tech.pegasys.pantheon.ethereum.mainnet.MainnetBlockProcessor.TransactionReceiptFactory;
 import tech.pegasys.pantheon.ethereum.mainnet.TransactionProcessor;
+import tech.pegasys.pantheon.ethereum.mainnet.TransactionValidator.TransactionInvalidReason;
 import tech.pegasys.pantheon.ethereum.vm.BlockHashLookup;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.function.Supplier;
 
@@ -49,8 +52,12 @@ import com.google.common.collect.Lists;
  *   <li>The amount of gas consumed when executing all transactions.
  * </ul>
  *
- * Once "used" this class must be discarded and another created. This class contains state which is
- * not cleared between executions of buildTransactionListForBlock().
+ * Once a transaction from a sender can't be included in the block, none of the sender's later
+ * transactions can be either, as their nonces no longer follow on from the sender's nonce. They are
+ * skipped without being processed.
+ *
+ * <p>Once "used" this class must be discarded and another created. This class contains state which
+ * is not cleared between executions of buildTransactionListForBlock().
  */
 public class BlockTransactionSelector {
 
@@ -94,6 +101,7 @@ public class BlockTransactionSelector {
 
   private final TransactionSelectionResults transactionSelectionResult =
       new TransactionSelectionResults();
+  private final Set<Address> skippedSenders = new HashSet<>();
 
   public BlockTransactionSelector(
       final TransactionProcessor transactionProcessor,
@@ -141,10 +149,15 @@ public class BlockTransactionSelector {
       throw new CancellationException("Cancelled during transaction selection.");
     }
 
+    if (skippedSenders.contains(transaction.getSender())) {
+      return TransactionSelectionResult.CONTINUE;
+    }
+
     if (transactionTooLargeForBlock(transaction)) {
       if (blockOccupancyAboveThreshold()) {
         return TransactionSelectionResult.COMPLETE_OPERATION;
       } else {
+        skippedSenders.add(transaction.getSender());
         return TransactionSelectionResult.CONTINUE;
       }
     }
@@ -152,6 +165,7 @@ public class BlockTransactionSelector {
     // If the gas price specified by the transaction is less than this node is willing to accept,
     // do not include it in the block.
     if (minTransactionGasPrice.compareTo(transaction.getGasPrice()) > 0) {
+      skippedSenders.add(transaction.getSender());
       return TransactionSelectionResult.DELETE_TRANSACTION_AND_CONTINUE;
     }
 
@@ -172,6 +186,18 @@ public class BlockTransactionSelector {
       worldStateUpdater.commit();
       updateTransactionResultTracking(transaction, result);
     } else {
+      final TransactionInvalidReason invalidReason =
+          result.getValidationResult().getInvalidReason();
+      // A transaction with a nonce lower than the sender's was already included in an earlier block
+      // and doesn't stop the sender's later transactions from being included.
+      if (invalidReason != TransactionInvalidReason.NONCE_TOO_LOW) {
+        skippedSenders.add(transaction.getSender());
+      }
+      // A transaction with a nonce higher than the sender's may become valid once the
+      // transactions preceding it arrive, so it's kept.
+      if (invalidReason == TransactionInvalidReason.INCORRECT_NONCE) {
+        return TransactionSelectionResult.CONTINUE;
+      }
       // Remove invalid transactions from the transaction pool but continue looking for valid ones
       // as the block may not yet be full.
       return TransactionSelectionResult.DELETE_TRANSACTION_AND_CONTINUE;
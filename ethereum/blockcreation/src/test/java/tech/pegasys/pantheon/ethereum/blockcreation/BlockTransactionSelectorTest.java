@@ -16,6 +16,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static tech.pegasys.pantheon.ethereum.mainnet.TransactionValidator.TransactionInvalidReason.NONCE_TOO_LOW;
 
@@ -379,7 +381,8 @@ public class BlockTransactionSelectorTest {
     final TransactionTestFixture txTestFixture = new TransactionTestFixture();
     // Add 3 transactions to the Pending Transactions, 79% of block, 100% of block and 10% of block
     // should end up selecting the first and third only.
-    // NOTE - PendingTransactions outputs these in nonce order
+    // NOTE - PendingTransactions outputs these in nonce order, and the third transaction pays a
+    // lower gas price and comes from another sender, so isn't held up by the second one.
     final List<Transaction> transactionsToInject = Lists.newArrayList();
     transactionsToInject.add(
         txTestFixture
@@ -391,8 +394,9 @@ public class BlockTransactionSelectorTest {
     transactionsToInject.add(
         txTestFixture
             .gasLimit((long) (blockHeader.getGasLimit() * 0.1))
+            .gasPrice(Wei.of(1))
             .nonce(3)
-            .createTransaction(keyPair));
+            .createTransaction(KeyPair.generate()));
 
     for (final Transaction tx : transactionsToInject) {
       pendingTransactions.addRemoteTransaction(tx);
@@ -558,6 +562,128 @@ public class BlockTransactionSelectorTest {
     assertThat(pendingTransactions.getTransactionByHash(invalidTransaction.hash())).isNotPresent();
   }
 
+  @Test
+  public void shouldKeepTransactionsWithFutureNonceAndSkipSendersLaterTransactions() {
+    final PendingTransactions pendingTransactions =
+        new PendingTransactions(10, TestClock.fixed(), metricsSystem);
+    final TransactionProcessor transactionProcessor = mock(TransactionProcessor.class);
+    final Blockchain blockchain = new TestBlockchain();
+    final DefaultMutableWorldState worldState = inMemoryWorldState();
+    final Supplier<Boolean> isCancelled = () -> false;
+
+    final ProcessableBlockHeader blockHeader =
+        BlockHeaderBuilder.create()
+            .parentHash(Hash.EMPTY)
+            .coinbase(Address.fromHexString(String.format("%020x", 1)))
+            .difficulty(UInt256.ONE)
+            .number(1)
+            .gasLimit(300)
+            .timestamp(Instant.now().toEpochMilli())
+            .buildProcessableBlockHeader();
+
+    final Address miningBeneficiary = AddressHelpers.ofValue(1);
+    final BlockTransactionSelector selector =
+        new BlockTransactionSelector(
+            transactionProcessor,
+            blockchain,
+            worldState,
+            pendingTransactions,
+            blockHeader,
+            this::createReceipt,
+            Wei.ZERO,
+            isCancelled,
+            miningBeneficiary);
+
+    final TransactionTestFixture txTestFixture = new TransactionTestFixture();
+    final Transaction futureNonceTransaction =
+        txTestFixture.nonce(1).gasLimit(1).createTransaction(keyPair);
+    final Transaction laterTransaction =
+        txTestFixture.nonce(2).gasLimit(1).createTransaction(keyPair);
+
+    pendingTransactions.addRemoteTransaction(futureNonceTransaction);
+    pendingTransactions.addRemoteTransaction(laterTransaction);
+
+    when(transactionProcessor.processTransaction(
+            eq(blockchain),
+            any(WorldUpdater.class),
+            eq(blockHeader),
+            eq(futureNonceTransaction),
+            any(),
+            any(),
+            any()))
+        .thenReturn(
+            Result.invalid(ValidationResult.invalid(TransactionInvalidReason.INCORRECT_NONCE)));
+
+    final BlockTransactionSelector.TransactionSelectionResults results =
+        selector.buildTransactionListForBlock();
+
+    assertThat(results.getTransactions()).isEmpty();
+    verify(transactionProcessor, never())
+        .processTransaction(any(), any(), any(), eq(laterTransaction), any(), any(), any());
+    assertThat(pendingTransactions.getTransactionByHash(futureNonceTransaction.hash())).isPresent();
+    assertThat(pendingTransactions.getTransactionByHash(laterTransaction.hash())).isPresent();
+  }
+
+  @Test
+  public void shouldIncludeTransactionThatReplacedSendersOnlyPendingTransaction() {
+    final PendingTransactions pendingTransactions =
+        new PendingTransactions(10, TestClock.fixed(), metricsSystem);
+    final TransactionProcessor transactionProcessor = mock(TransactionProcessor.class);
+    final Blockchain blockchain = new TestBlockchain();
+    final DefaultMutableWorldState worldState = inMemoryWorldState();
+    final Supplier<Boolean> isCancelled = () -> false;
+
+    final ProcessableBlockHeader blockHeader =
+        BlockHeaderBuilder.create()
+            .parentHash(Hash.EMPTY)
+            .coinbase(Address.fromHexString(String.format("%020x", 1)))
+            .difficulty(UInt256.ONE)
+            .number(1)
+            .gasLimit(300)
+            .timestamp(Instant.now().toEpochMilli())
+            .buildProcessableBlockHeader();
+
+    final Address miningBeneficiary = AddressHelpers.ofValue(1);
+    final BlockTransactionSelector selector =
+        new BlockTransactionSelector(
+            transactionProcessor,
+            blockchain,
+            worldState,
+            pendingTransactions,
+            blockHeader,
+            this::createReceipt,
+            Wei.ZERO,
+            isCancelled,
+            miningBeneficiary);
+
+    final TransactionTestFixture txTestFixture = new TransactionTestFixture();
+    final Transaction transaction =
+        txTestFixture.nonce(0).gasLimit(1).gasPrice(Wei.of(1)).createTransaction(keyPair);
+    final Transaction replacementTransaction =
+        txTestFixture.nonce(0).gasLimit(1).gasPrice(Wei.of(2)).createTransaction(keyPair);
+
+    pendingTransactions.addRemoteTransaction(transaction);
+    pendingTransactions.addRemoteTransaction(replacementTransaction);
+
+    when(transactionProcessor.processTransaction(
+            eq(blockchain),
+            any(WorldUpdater.class),
+            eq(blockHeader),
+            eq(replacementTransaction),
+            any(),
+            any(),
+            any()))
+        .thenReturn(
+            Result.successful(LogSeries.empty(), 0, BytesValue.EMPTY, ValidationResult.valid()));
+
+    final BlockTransactionSelector.TransactionSelectionResults results =
+        selector.buildTransactionListForBlock();
+
+    assertThat(results.getTransactions()).containsExactly(replacementTransaction);
+    verify(transactionProcessor, never())
+        .processTransaction(any(), any(), any(), eq(transaction), any(), any(), any());
+  }
+
   private Transaction createTransaction(final int transactionNumber) {
     return Transaction.builder()
         .gasLimit(100)
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet.precompiles;
+
+import tech.pegasys.pantheon.crypto.altbn128.AltBn128Fq12Pairer;
+import tech.pegasys.pantheon.crypto.altbn128.AltBn128Fq2Point;
+import tech.pegasys.pantheon.crypto.altbn128.AltBn128Operations;
+import tech.pegasys.pantheon.crypto.altbn128.AltBn128Point;
+import tech.pegasys.pantheon.crypto.altbn128.Fq12;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link AltBn128Operations} to the reference {@link AltBn128Point} and {@link
+ * AltBn128Fq12Pairer} implementations for the work done by the alt_bn128 precompiles.
+ */
+@State(Scope.Thread)
+public class AltBN128Benchmark {
+
+  private static final BigInteger SCALAR =
+      new BigInteger("9d4a6b2f0e9ae33a1f1d5d5c2f1e8a7b6c5d4e3f2a1b0c9d8e7f6a5b4c3d2e1f", 16);
+
+  private AltBn128Point a;
+  private AltBn128Point b;
+  // A two pair check, the shape of a typical Groth16 verifier call after aggregation.
+  private List<AltBn128Point> g1Points;
+  private List<AltBn128Fq2Point> g2Points;
+
+  @Setup
+  public void prepare() {
+    a = AltBn128Point.g1().multiply(BigInteger.valueOf(3));
+    b = AltBn128Point.g1().multiply(BigInteger.valueOf(11));
+    g1Points = Arrays.asList(a, a.negate());
+    g2Points = Arrays.asList(AltBn128Fq2Point.g2(), AltBn128Fq2Point.g2());
+  }
+
+  @Benchmark
+  public AltBn128Point add() {
+    return AltBn128Operations.add(a, b);
+  }
+
+  @Benchmark
+  public AltBn128Point addReference() {
+    return a.add(b);
+  }
+
+  @Benchmark
+  public AltBn128Point multiply() {
+    return AltBn128Operations.multiply(a, SCALAR);
+  }
+
+  @Benchmark
+  public AltBn128Point multiplyReference() {
+    return a.multiply(SCALAR);
+  }
+
+  @Benchmark
+  public boolean pairing() {
+    return AltBn128Operations.pairingProductIsOne(g1Points, g2Points);
+  }
+
+  @Benchmark
+  public boolean pairingReference() {
+    Fq12 product = Fq12.one();
+    for (int i = 0; i < g1Points.size(); ++i) {
+      product = product.multiply(AltBn128Fq12Pairer.pair(g1Points.get(i), g2Points.get(i)));
+    }
+    return AltBn128Fq12Pairer.finalize(product).equals(Fq12.one());
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Compares the contiguous {@link Memory} to the previous {@link WordListMemory}. */
+@State(Scope.Thread)
+public class MemoryBenchmark {
+
+  // Misaligns every access, as ABI decoding of dynamic types commonly does.
+  private static final int OFFSET = 7;
+
+  @Param({"1024", "65536"})
+  public int size;
+
+  private Bytes32 word;
+  private BytesValue buffer;
+  private UInt256 bufferLength;
+
+  @Setup
+  public void prepare() {
+    final Random random = new Random(1);
+    final byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    buffer = BytesValue.wrap(bytes);
+    bufferLength = UInt256.of(size);
+    word = Bytes32.wrap(buffer, 0);
+  }
+
+  @Benchmark
+  public Bytes32 wordAccess() {
+    final Memory memory = new Memory();
+    Bytes32 result = word;
+    for (int i = OFFSET; i < size; i += Bytes32.SIZE) {
+      final UInt256 location = UInt256.of(i);
+      memory.setWord(location, result);
+      result = memory.getWord(location);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Bytes32 wordAccessWordList() {
+    final WordListMemory memory = new WordListMemory();
+    Bytes32 result = word;
+    for (int i = OFFSET; i < size; i += Bytes32.SIZE) {
+      final UInt256 location = UInt256.of(i);
+      memory.setWord(location, result);
+      result = memory.getWord(location);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public BytesValue bulkCopy() {
+    final Memory memory = new Memory();
+    final UInt256 location = UInt256.of(OFFSET);
+    memory.setBytes(location, bufferLength, buffer);
+    return memory.getBytes(location, bufferLength);
+  }
+
+  @Benchmark
+  public BytesValue bulkCopyWordList() {
+    final WordListMemory memory = new WordListMemory();
+    final UInt256 location = UInt256.of(OFFSET);
+    memory.setBytes(location, bufferLength, buffer);
+    return memory.getBytes(location, bufferLength);
+  }
+}
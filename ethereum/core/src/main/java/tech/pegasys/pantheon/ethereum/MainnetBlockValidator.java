@@ -83,7 +83,10 @@ public class MainnetBlockValidator<C> implements BlockValidator<C> {
       return Optional.empty();
     }
     final MutableWorldState worldState = maybeWorldState.get();
-    final BlockProcessor.Result result = blockProcessor.processBlock(blockchain, worldState, block);
+    context.getTransactionSenderRecovery().recoverSenders(block.getBody().getTransactions());
+    final BlockProcessor.Result result =
+        blockProcessor.processBlock(
+            blockchain, worldState, block, context.getParallelTransactionExecutor());
     if (!result.isSuccessful()) {
       return Optional.empty();
     }
@@ -14,11 +14,15 @@ package tech.pegasys.pantheon.ethereum;
 
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
 import tech.pegasys.pantheon.ethereum.chain.BlockchainStorage;
+import tech.pegasys.pantheon.ethereum.chain.CachingBlockchainStorage;
 import tech.pegasys.pantheon.ethereum.chain.DefaultMutableBlockchain;
 import tech.pegasys.pantheon.ethereum.chain.GenesisState;
 import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
+import tech.pegasys.pantheon.ethereum.core.TransactionSenderRecovery;
+import tech.pegasys.pantheon.ethereum.mainnet.ParallelTransactionExecutor;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.storage.StorageProvider;
+import tech.pegasys.pantheon.ethereum.worldstate.CachingWorldStateStorage;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateArchive;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
@@ -36,14 +40,40 @@ public class ProtocolContext<C> {
   private final MutableBlockchain blockchain;
   private final WorldStateArchive worldStateArchive;
   private final C consensusState;
+  private final TransactionSenderRecovery transactionSenderRecovery;
+  private final ParallelTransactionExecutor parallelTransactionExecutor;
 
   public ProtocolContext(
       final MutableBlockchain blockchain,
       final WorldStateArchive worldStateArchive,
       final C consensusState) {
+    this(blockchain, worldStateArchive, consensusState, TransactionSenderRecovery.sequential());
+  }
+
+  public ProtocolContext(
+      final MutableBlockchain blockchain,
+      final WorldStateArchive worldStateArchive,
+      final C consensusState,
+      final TransactionSenderRecovery transactionSenderRecovery) {
+    this(
+        blockchain,
+        worldStateArchive,
+        consensusState,
+        transactionSenderRecovery,
+        ParallelTransactionExecutor.disabled());
+  }
+
+  public ProtocolContext(
+      final MutableBlockchain blockchain,
+      final WorldStateArchive worldStateArchive,
+      final C consensusState,
+      final TransactionSenderRecovery transactionSenderRecovery,
+      final ParallelTransactionExecutor parallelTransactionExecutor) {
     this.blockchain = blockchain;
     this.worldStateArchive = worldStateArchive;
     this.consensusState = consensusState;
+    this.transactionSenderRecovery = transactionSenderRecovery;
+    this.parallelTransactionExecutor = parallelTransactionExecutor;
   }
 
   public static <T> ProtocolContext<T> init(
@@ -51,10 +81,23 @@ public class ProtocolContext<C> {
       final GenesisState genesisState,
       final ProtocolSchedule<T> protocolSchedule,
       final MetricsSystem metricsSystem,
+      final int blockchainCacheSize,
+      final long worldStateCacheSizeBytes,
+      final TransactionSenderRecovery transactionSenderRecovery,
+      final ParallelTransactionExecutor parallelTransactionExecutor,
       final BiFunction<Blockchain, WorldStateArchive, T> consensusContextFactory) {
-    final BlockchainStorage blockchainStorage =
+    final BlockchainStorage storedBlockchain =
         storageProvider.createBlockchainStorage(protocolSchedule);
-    final WorldStateStorage worldStateStorage = storageProvider.createWorldStateStorage();
+    final BlockchainStorage blockchainStorage =
+        blockchainCacheSize > 0
+            ? new CachingBlockchainStorage(storedBlockchain, blockchainCacheSize, metricsSystem)
+            : storedBlockchain;
+    final WorldStateStorage storedWorldState = storageProvider.createWorldStateStorage();
+    final WorldStateStorage worldStateStorage =
+        worldStateCacheSizeBytes > 0
+            ? new CachingWorldStateStorage(
+                storedWorldState, worldStateCacheSizeBytes, metricsSystem)
+            : storedWorldState;
 
     final MutableBlockchain blockchain =
         new DefaultMutableBlockchain(genesisState.getBlock(), blockchainStorage, metricsSystem);
@@ -65,7 +108,9 @@ public class ProtocolContext<C> {
     return new ProtocolContext<>(
         blockchain,
         worldStateArchive,
-        consensusContextFactory.apply(blockchain, worldStateArchive));
+        consensusContextFactory.apply(blockchain, worldStateArchive),
+        transactionSenderRecovery,
+        parallelTransactionExecutor);
   }
 
   public MutableBlockchain getBlockchain() {
@@ -76,6 +121,14 @@ public class ProtocolContext<C> {
     return worldStateArchive;
   }
 
+  public TransactionSenderRecovery getTransactionSenderRecovery() {
+    return transactionSenderRecovery;
+  }
+
+  public ParallelTransactionExecutor getParallelTransactionExecutor() {
+    return parallelTransactionExecutor;
+  }
+
   public C getConsensusState() {
     return consensusState;
   }
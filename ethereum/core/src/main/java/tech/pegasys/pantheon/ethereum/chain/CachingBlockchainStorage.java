@@ -0,0 +1,343 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.chain;
+
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A {@link BlockchainStorage} which keeps the decoded headers, bodies, receipts and total
+ * difficulties of recently read and added blocks, as well as the canonical block hashes by number
+ * and the chain head, so the most recent blocks aren't read from the underlying storage and decoded
+ * on each lookup.
+ *
+ * <p>Block data is keyed by block hash and never changes once stored, so it can be cached freely.
+ * The canonical hashes and the chain head do change when the chain advances or is reorganised;
+ * these are updated once the changes are committed, and values read from the underlying storage
+ * while a commit is in progress are not cached.
+ *
+ * <p>This storage must be the only one through which the underlying storage is updated.
+ */
+public class CachingBlockchainStorage implements BlockchainStorage {
+
+  public static final int DEFAULT_CACHE_SIZE = 128;
+  // Headers, total difficulties and hashes are much smaller than bodies and receipts.
+  private static final int HEADERS_PER_CACHED_BLOCK = 8;
+
+  private final BlockchainStorage storage;
+  private final Cache<Hash, BlockHeader> headers;
+  private final Cache<Hash, BlockBody> bodies;
+  private final Cache<Hash, List<TransactionReceipt>> receipts;
+  private final Cache<Hash, UInt256> totalDifficulties;
+  private final Cache<Long, Hash> canonicalHashes;
+  // The chain head, or null if it hasn't been read yet.
+  private volatile Optional<Hash> chainHead;
+  // Incremented each time canonical chain data is committed.
+  private volatile long canonicalChainVersion;
+
+  private final Counter headerHits;
+  private final Counter headerMisses;
+  private final Counter bodyHits;
+  private final Counter bodyMisses;
+  private final Counter receiptsHits;
+  private final Counter receiptsMisses;
+  private final Counter totalDifficultyHits;
+  private final Counter totalDifficultyMisses;
+  private final Counter hashHits;
+  private final Counter hashMisses;
+
+  /**
+   * Creates a caching storage.
+   *
+   * @param storage the storage to cache data from
+   * @param cacheSize the number of blocks whose bodies and receipts are cached; up to {@value
+   *     #HEADERS_PER_CACHED_BLOCK} times as many headers, total difficulties and canonical hashes
+   *     are cached
+   * @param metricsSystem the metrics system to report cache hits and misses to
+   */
+  public CachingBlockchainStorage(
+      final BlockchainStorage storage, final int cacheSize, final MetricsSystem metricsSystem) {
+    this.storage = storage;
+    this.headers = createCache(cacheSize * HEADERS_PER_CACHED_BLOCK);
+    this.bodies = createCache(cacheSize);
+    this.receipts = createCache(cacheSize);
+    this.totalDifficulties = createCache(cacheSize * HEADERS_PER_CACHED_BLOCK);
+    this.canonicalHashes = createCache(cacheSize * HEADERS_PER_CACHED_BLOCK);
+
+    final LabelledMetric<Counter> hits =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.BLOCKCHAIN,
+            "cache_hits_total",
+            "Total number of blockchain lookups served from the cache",
+            "cache");
+    final LabelledMetric<Counter> misses =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.BLOCKCHAIN,
+            "cache_misses_total",
+            "Total number of blockchain lookups read from storage because they were not cached",
+            "cache");
+    headerHits = hits.labels("header");
+    headerMisses = misses.labels("header");
+    bodyHits = hits.labels("body");
+    bodyMisses = misses.labels("body");
+    receiptsHits = hits.labels("receipts");
+    receiptsMisses = misses.labels("receipts");
+    totalDifficultyHits = hits.labels("total_difficulty");
+    totalDifficultyMisses = misses.labels("total_difficulty");
+    hashHits = hits.labels("hash");
+    hashMisses = misses.labels("hash");
+  }
+
+  private static <K, V> Cache<K, V> createCache(final long maximumSize) {
+    return CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  private static <V> Optional<V> get(
+      final Cache<Hash, V> cache,
+      final Hash blockHash,
+      final Function<Hash, Optional<V>> loader,
+      final Counter hitCounter,
+      final Counter missCounter) {
+    final V cached = cache.getIfPresent(blockHash);
+    if (cached != null) {
+      hitCounter.inc();
+      return Optional.of(cached);
+    }
+    missCounter.inc();
+    final Optional<V> value = loader.apply(blockHash);
+    value.ifPresent(v -> cache.put(blockHash, v));
+    return value;
+  }
+
+  @Override
+  public Optional<Hash> getChainHead() {
+    final Optional<Hash> cached = chainHead;
+    if (cached != null) {
+      return cached;
+    }
+    final long version = canonicalChainVersion;
+    final Optional<Hash> head = storage.getChainHead();
+    cacheIfUnchanged(version, () -> chainHead = head);
+    return head;
+  }
+
+  @Override
+  public Collection<Hash> getForkHeads() {
+    return storage.getForkHeads();
+  }
+
+  @Override
+  public Optional<BlockHeader> getBlockHeader(final Hash blockHash) {
+    return get(headers, blockHash, storage::getBlockHeader, headerHits, headerMisses);
+  }
+
+  @Override
+  public Optional<BlockBody> getBlockBody(final Hash blockHash) {
+    return get(bodies, blockHash, storage::getBlockBody, bodyHits, bodyMisses);
+  }
+
+  @Override
+  public Optional<List<TransactionReceipt>> getTransactionReceipts(final Hash blockHash) {
+    return get(receipts, blockHash, storage::getTransactionReceipts, receiptsHits, receiptsMisses);
+  }
+
+  @Override
+  public Optional<BytesValue> getBlockHeaderRlp(final Hash blockHash) {
+    return storage.getBlockHeaderRlp(blockHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getBlockBodyRlp(final Hash blockHash) {
+    return storage.getBlockBodyRlp(blockHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getTransactionReceiptsRlp(final Hash blockHash) {
+    return storage.getTransactionReceiptsRlp(blockHash);
+  }
+
+  @Override
+  public Optional<Hash> getBlockHash(final long blockNumber) {
+    final Hash cached = canonicalHashes.getIfPresent(blockNumber);
+    if (cached != null) {
+      hashHits.inc();
+      return Optional.of(cached);
+    }
+    hashMisses.inc();
+    final long version = canonicalChainVersion;
+    final Optional<Hash> hash = storage.getBlockHash(blockNumber);
+    hash.ifPresent(h -> cacheIfUnchanged(version, () -> canonicalHashes.put(blockNumber, h)));
+    return hash;
+  }
+
+  @Override
+  public Optional<UInt256> getTotalDifficulty(final Hash blockHash) {
+    return get(
+        totalDifficulties,
+        blockHash,
+        storage::getTotalDifficulty,
+        totalDifficultyHits,
+        totalDifficultyMisses);
+  }
+
+  @Override
+  public Optional<TransactionLocation> getTransactionLocation(final Hash transactionHash) {
+    return storage.getTransactionLocation(transactionHash);
+  }
+
+  /**
+   * Caches canonical chain data read from storage, unless canonical chain data was committed since
+   * it was read, in which case it may be stale.
+   */
+  private synchronized void cacheIfUnchanged(final long version, final Runnable cacheUpdate) {
+    if (version == canonicalChainVersion) {
+      cacheUpdate.run();
+    }
+  }
+
+  @Override
+  public BlockchainStorage.Updater updater() {
+    return new Updater(storage.updater());
+  }
+
+  private class Updater implements BlockchainStorage.Updater {
+
+    private final BlockchainStorage.Updater updater;
+    private final Map<Hash, BlockHeader> addedHeaders = new HashMap<>();
+    private final Map<Hash, BlockBody> addedBodies = new HashMap<>();
+    private final Map<Hash, List<TransactionReceipt>> addedReceipts = new HashMap<>();
+    private final Map<Hash, UInt256> addedTotalDifficulties = new HashMap<>();
+    private final Map<Long, Hash> addedHashes = new HashMap<>();
+    private final Set<Long> removedHashes = new HashSet<>();
+    private Optional<Hash> newChainHead = Optional.empty();
+
+    private Updater(final BlockchainStorage.Updater updater) {
+      this.updater = updater;
+    }
+
+    @Override
+    public void putBlockHeader(final Hash blockHash, final BlockHeader blockHeader) {
+      updater.putBlockHeader(blockHash, blockHeader);
+      addedHeaders.put(blockHash, blockHeader);
+    }
+
+    @Override
+    public void putBlockBody(final Hash blockHash, final BlockBody blockBody) {
+      updater.putBlockBody(blockHash, blockBody);
+      addedBodies.put(blockHash, blockBody);
+    }
+
+    @Override
+    public void putTransactionLocation(
+        final Hash transactionHash, final TransactionLocation transactionLocation) {
+      updater.putTransactionLocation(transactionHash, transactionLocation);
+    }
+
+    @Override
+    public void putTransactionReceipts(
+        final Hash blockHash, final List<TransactionReceipt> transactionReceipts) {
+      updater.putTransactionReceipts(blockHash, transactionReceipts);
+      addedReceipts.put(blockHash, new ArrayList<>(transactionReceipts));
+    }
+
+    @Override
+    public void putBlockHash(final long blockNumber, final Hash blockHash) {
+      updater.putBlockHash(blockNumber, blockHash);
+      removedHashes.remove(blockNumber);
+      addedHashes.put(blockNumber, blockHash);
+    }
+
+    @Override
+    public void putTotalDifficulty(final Hash blockHash, final UInt256 totalDifficulty) {
+      updater.putTotalDifficulty(blockHash, totalDifficulty);
+      addedTotalDifficulties.put(blockHash, totalDifficulty);
+    }
+
+    @Override
+    public void setChainHead(final Hash blockHash) {
+      updater.setChainHead(blockHash);
+      newChainHead = Optional.of(blockHash);
+    }
+
+    @Override
+    public void setForkHeads(final Collection<Hash> forkHeadHashes) {
+      updater.setForkHeads(forkHeadHashes);
+    }
+
+    @Override
+    public void removeBlockHash(final long blockNumber) {
+      updater.removeBlockHash(blockNumber);
+      addedHashes.remove(blockNumber);
+      removedHashes.add(blockNumber);
+    }
+
+    @Override
+    public void removeTransactionLocation(final Hash transactionHash) {
+      updater.removeTransactionLocation(transactionHash);
+    }
+
+    @Override
+    public void commit() {
+      updater.commit();
+      // Newly added blocks are the most likely to be read next.
+      headers.putAll(addedHeaders);
+      bodies.putAll(addedBodies);
+      receipts.putAll(addedReceipts);
+      totalDifficulties.putAll(addedTotalDifficulties);
+      synchronized (CachingBlockchainStorage.this) {
+        canonicalChainVersion++;
+        canonicalHashes.invalidateAll(removedHashes);
+        canonicalHashes.putAll(addedHashes);
+        newChainHead.ifPresent(head -> chainHead = Optional.of(head));
+      }
+      clear();
+    }
+
+    @Override
+    public void rollback() {
+      clear();
+      updater.rollback();
+    }
+
+    private void clear() {
+      addedHeaders.clear();
+      addedBodies.clear();
+      addedReceipts.clear();
+      addedTotalDifficulties.clear();
+      addedHashes.clear();
+      removedHashes.clear();
+      newChainHead = Optional.empty();
+    }
+  }
+}
@@ -37,6 +37,7 @@ public class LogsBloomFilter {
   private static final int LEAST_SIGNIFICANT_BYTE = 0xFF;
   private static final int LEAST_SIGNIFICANT_THREE_BITS = 0x7;
   private static final int BITS_IN_BYTE = 8;
+  public static final int BIT_SIZE = BYTE_SIZE * BITS_IN_BYTE;
 
   private final MutableBytesValue data;
 
@@ -90,17 +91,25 @@ public class LogsBloomFilter {
   }
 
   /**
-   * Discover the low order 11-bits, of the first three double-bytes, of the SHA3 hash, of each
-   * value and update the bloom filter accordingly.
+   * Discover the low order 11-bits, of the first three double-bytes, of the SHA3 hash, of a value.
    *
-   * @param hashValue The hash of the log item.
+   * @param value The log item.
+   * @return the indices of the bloom filter bits set by {@code value}.
    */
-  private void setBits(final BytesValue hashValue) {
-    for (int counter = 0; counter < 6; counter += 2) {
-      final int setBloomBit =
-          ((hashValue.get(counter) & LEAST_SIGNIFICANT_THREE_BITS) << BITS_IN_BYTE)
-              + (hashValue.get(counter + 1) & LEAST_SIGNIFICANT_BYTE);
-      setBit(setBloomBit);
+  public static int[] bitIndices(final BytesValue value) {
+    final BytesValue hashValue = keccak256(value);
+    final int[] indices = new int[3];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] =
+          ((hashValue.get(2 * i) & LEAST_SIGNIFICANT_THREE_BITS) << BITS_IN_BYTE)
+              + (hashValue.get(2 * i + 1) & LEAST_SIGNIFICANT_BYTE);
+    }
+    return indices;
+  }
+
+  private void setBits(final BytesValue value) {
+    for (final int index : bitIndices(value)) {
+      setBit(index);
     }
   }
 
@@ -126,13 +135,19 @@ public class LogsBloomFilter {
   }
 
   public void insertLog(final Log log) {
-    setBits(keccak256(log.getLogger()));
+    setBits(log.getLogger());
 
     for (final LogTopic topic : log.getTopics()) {
-      setBits(keccak256(topic));
+      setBits(topic);
     }
   }
 
+  public boolean isBitSet(final int index) {
+    final int byteIndex = BYTE_SIZE - 1 - index / 8;
+    final int bitIndex = index % 8;
+    return (data.get(byteIndex) & (1 << bitIndex)) != 0;
+  }
+
   private void setBit(final int index) {
     final int byteIndex = BYTE_SIZE - 1 - index / 8;
     final int bitIndex = index % 8;
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.core;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An updater over a world state that doesn't change while it is in use, which records the accounts
+ * and storage slots read through it.
+ *
+ * <p>This lets a transaction be executed ahead of the transactions preceding it: once those have
+ * been applied, the updates accumulated here remain valid if none of what was read has since been
+ * written, and can then be applied on top of the current state with {@link #applyTo(WorldUpdater)}.
+ *
+ * <p>An account is only considered written if its nonce, balance, code or existence changed, so
+ * that transactions only updating the storage of a contract don't conflict with each other merely
+ * because they read its code.
+ *
+ * <p>Every transaction credits its fee to the mining beneficiary, which would otherwise make all
+ * transactions of a block conflict. So if a fee recipient is given and nothing else reads it, the
+ * fee is applied as a credit on top of its current balance, rather than as an overwrite of the
+ * balance it had when this updater was created. The fee recipient must only be accessed directly
+ * through {@link #getMutable(Address)} to pay the fee, so it must not be the transaction sender.
+ */
+public class SpeculativeWorldUpdater
+    extends AbstractWorldUpdater<
+        SpeculativeWorldUpdater.RecordingWorldView, SpeculativeWorldUpdater.RecordingAccount> {
+
+  private final Optional<Address> feeRecipient;
+
+  public SpeculativeWorldUpdater(final WorldView world, final Optional<Address> feeRecipient) {
+    super(new RecordingWorldView(world));
+    this.feeRecipient = feeRecipient;
+  }
+
+  @Override
+  protected RecordingAccount getForMutation(final Address address) {
+    return wrappedWorldView().get(address);
+  }
+
+  @Override
+  public MutableAccount getMutable(final Address address) {
+    if (!feeRecipient.isPresent() || !feeRecipient.get().equals(address)) {
+      return super.getMutable(address);
+    }
+    final RecordingWorldView world = wrappedWorldView();
+    world.recordingAccounts = false;
+    try {
+      return super.getMutable(address);
+    } finally {
+      world.recordingAccounts = true;
+    }
+  }
+
+  @Override
+  public Collection<Account> getTouchedAccounts() {
+    return new ArrayList<>(updatedAccounts());
+  }
+
+  @Override
+  public void revert() {
+    deletedAccounts().clear();
+    updatedAccounts().clear();
+  }
+
+  /**
+   * Not supported, since the world state this updates must not change while it is in use.
+   *
+   * @throws UnsupportedOperationException always; use {@link #applyTo(WorldUpdater)} instead
+   */
+  @Override
+  public void commit() {
+    throw new UnsupportedOperationException("Speculative updates must be applied to an updater");
+  }
+
+  /**
+   * Whether any account or storage slot read through this updater is among the given writes.
+   *
+   * @param writes the writes made since this updater was created
+   * @return {@code true} if the updates accumulated here may depend on a value that has changed
+   */
+  public boolean readsAnyOf(final WriteSet writes) {
+    final RecordingWorldView reads = wrappedWorldView();
+    for (final Address address : reads.accounts) {
+      if (writes.accounts.contains(address)) {
+        return true;
+      }
+    }
+    for (final Address address : reads.scannedStorage) {
+      if (writes.clearedStorage.contains(address) || writes.storage.containsKey(address)) {
+        return true;
+      }
+    }
+    for (final Map.Entry<Address, Set<UInt256>> entry : reads.storage.entrySet()) {
+      if (writes.clearedStorage.contains(entry.getKey())) {
+        return true;
+      }
+      final Set<UInt256> writtenKeys = writes.storage.get(entry.getKey());
+      if (writtenKeys != null) {
+        for (final UInt256 key : entry.getValue()) {
+          if (writtenKeys.contains(key)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the updates accumulated here can be applied on top of the given state, which is the
+   * state this updater was created over with the given writes applied.
+   *
+   * @param current the current state
+   * @param writes the writes made since this updater was created
+   * @return {@code true} if applying the updates gives the same result as having made them on top
+   *     of {@code current}
+   */
+  public boolean canApplyTo(final WorldView current, final WriteSet writes) {
+    if (readsAnyOf(writes)) {
+      return false;
+    }
+    if (!isFeeRecipientOnlyCredited()) {
+      return true;
+    }
+    // A credit can only leave the fee recipient empty, and so subject to being cleared, if it is
+    // zero. Whether empty accounts are cleared is then only known if it was empty here too.
+    final Address address = feeRecipient.get();
+    final Account account = current.get(address);
+    final boolean emptyAfterCredit =
+        (account == null || account.isEmpty()) && feeRecipientCredit().isZero();
+    return !emptyAfterCredit
+        || deletedAccounts().contains(address)
+        || trackedAccount(address).isEmpty();
+  }
+
+  /**
+   * Applies the updates accumulated here to the given updater.
+   *
+   * @param target the updater to apply the updates to
+   */
+  public void applyTo(final WorldUpdater target) {
+    final boolean feeRecipientOnlyCredited = isFeeRecipientOnlyCredited();
+    for (final Address address : deletedAccounts()) {
+      if (!(feeRecipientOnlyCredited && address.equals(feeRecipient.get()))) {
+        target.deleteAccount(address);
+      }
+    }
+    for (final UpdateTrackingAccount<RecordingAccount> update : updatedAccounts()) {
+      final Address address = update.getAddress();
+      if (feeRecipientOnlyCredited && address.equals(feeRecipient.get())) {
+        continue;
+      }
+      final MutableAccount account =
+          update.getWrappedAccount() == null
+              ? target.createAccount(address)
+              : target.getMutable(address);
+      account.setNonce(update.getNonce());
+      account.setBalance(update.getBalance());
+      if (update.codeWasUpdated()) {
+        account.setCode(update.getCode());
+      }
+      if (update.getStorageWasCleared()) {
+        account.clearStorage();
+      }
+      update.getUpdatedStorage().forEach(account::setStorageValue);
+    }
+
+    if (feeRecipientOnlyCredited) {
+      final Address address = feeRecipient.get();
+      final MutableAccount recipient = target.getOrCreate(address);
+      recipient.incrementBalance(feeRecipientCredit());
+      if (recipient.isEmpty() && deletedAccounts().contains(address)) {
+        target.deleteAccount(address);
+      }
+    }
+  }
+
+  /**
+   * Adds the accounts and storage slots written by the updates accumulated here to the given set.
+   *
+   * @param writes the set to add the writes to
+   */
+  public void addWritesTo(final WriteSet writes) {
+    final boolean feeRecipientOnlyCredited = isFeeRecipientOnlyCredited();
+    for (final Address address : deletedAccounts()) {
+      writes.accounts.add(address);
+      writes.clearedStorage.add(address);
+    }
+    for (final UpdateTrackingAccount<RecordingAccount> update : updatedAccounts()) {
+      final Address address = update.getAddress();
+      final Account original = update.getWrappedAccount();
+      if (feeRecipientOnlyCredited && address.equals(feeRecipient.get())) {
+        writes.accounts.add(address);
+        continue;
+      }
+      if (original == null) {
+        writes.accounts.add(address);
+        writes.clearedStorage.add(address);
+      } else {
+        if (update.getNonce() != original.getNonce()
+            || !update.getBalance().equals(original.getBalance())
+            || update.codeWasUpdated()) {
+          writes.accounts.add(address);
+        }
+        if (update.getStorageWasCleared()) {
+          writes.clearedStorage.add(address);
+        }
+      }
+      if (!update.getUpdatedStorage().isEmpty()) {
+        writes
+            .storage
+            .computeIfAbsent(address, a -> new HashSet<>())
+            .addAll(update.getUpdatedStorage().keySet());
+      }
+    }
+  }
+
+  /**
+   * The accounts read through this updater so far.
+   *
+   * @return the addresses of the accounts read, whether or not they exist
+   */
+  public Set<Address> getAccountsRead() {
+    return Collections.unmodifiableSet(wrappedWorldView().accounts);
+  }
+
+  /**
+   * The storage slots read through this updater so far, by account.
+   *
+   * @return the keys of the storage slots read, by the address of the account they belong to
+   */
+  public Map<Address, Set<UInt256>> getStorageRead() {
+    return Collections.unmodifiableMap(wrappedWorldView().storage);
+  }
+
+  private boolean isFeeRecipientOnlyCredited() {
+    if (!feeRecipient.isPresent()) {
+      return false;
+    }
+    final Address address = feeRecipient.get();
+    return !wrappedWorldView().accounts.contains(address)
+        && (deletedAccounts().contains(address) || trackedAccount(address) != null);
+  }
+
+  private Wei feeRecipientCredit() {
+    final UpdateTrackingAccount<RecordingAccount> recipient = trackedAccount(feeRecipient.get());
+    if (recipient == null) {
+      return Wei.ZERO;
+    }
+    final Account original = recipient.getWrappedAccount();
+    return original == null
+        ? recipient.getBalance()
+        : recipient.getBalance().minus(original.getBalance());
+  }
+
+  private UpdateTrackingAccount<RecordingAccount> trackedAccount(final Address address) {
+    for (final UpdateTrackingAccount<RecordingAccount> account : updatedAccounts()) {
+      if (account.getAddress().equals(address)) {
+        return account;
+      }
+    }
+    return null;
+  }
+
+  /** The accounts and storage slots written by a sequence of updates. */
+  public static class WriteSet {
+    private final Set<Address> accounts = new HashSet<>();
+    private final Set<Address> clearedStorage = new HashSet<>();
+    private final Map<Address, Set<UInt256>> storage = new HashMap<>();
+  }
+
+  static class RecordingWorldView implements WorldView {
+    private final WorldView world;
+    private final Set<Address> accounts = new HashSet<>();
+    private final Set<Address> scannedStorage = new HashSet<>();
+    private final Map<Address, Set<UInt256>> storage = new HashMap<>();
+    private boolean recordingAccounts = true;
+
+    RecordingWorldView(final WorldView world) {
+      this.world = world;
+    }
+
+    @Override
+    public RecordingAccount get(final Address address) {
+      if (recordingAccounts) {
+        accounts.add(address);
+      }
+      final Account account = world.get(address);
+      return account == null ? null : new RecordingAccount(account, this);
+    }
+
+    private void recordStorageRead(final Address address, final UInt256 key) {
+      storage.computeIfAbsent(address, a -> new HashSet<>()).add(key);
+    }
+  }
+
+  static class RecordingAccount implements Account {
+    private final Account account;
+    private final RecordingWorldView reads;
+
+    private RecordingAccount(final Account account, final RecordingWorldView reads) {
+      this.account = account;
+      this.reads = reads;
+    }
+
+    @Override
+    public Hash getAddressHash() {
+      return account.getAddressHash();
+    }
+
+    @Override
+    public Address getAddress() {
+      return account.getAddress();
+    }
+
+    @Override
+    public long getNonce() {
+      return account.getNonce();
+    }
+
+    @Override
+    public Wei getBalance() {
+      return account.getBalance();
+    }
+
+    @Override
+    public BytesValue getCode() {
+      return account.getCode();
+    }
+
+    @Override
+    public Hash getCodeHash() {
+      return account.getCodeHash();
+    }
+
+    @Override
+    public boolean hasCode() {
+      return account.hasCode();
+    }
+
+    @Override
+    public UInt256 getStorageValue(final UInt256 key) {
+      reads.recordStorageRead(account.getAddress(), key);
+      return account.getStorageValue(key);
+    }
+
+    @Override
+    public UInt256 getOriginalStorageValue(final UInt256 key) {
+      reads.recordStorageRead(account.getAddress(), key);
+      return account.getOriginalStorageValue(key);
+    }
+
+    @Override
+    public NavigableMap<Bytes32, UInt256> storageEntriesFrom(
+        final Bytes32 startKeyHash, final int limit) {
+      reads.scannedStorage.add(account.getAddress());
+      return account.storageEntriesFrom(startKeyHash, limit);
+    }
+  }
+}
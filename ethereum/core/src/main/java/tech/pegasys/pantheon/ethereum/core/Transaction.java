@@ -242,7 +242,15 @@ public class Transaction {
     return sender;
   }
 
-  private Bytes32 getOrComputeSenderRecoveryHash() {
+  boolean hasSender() {
+    return sender != null;
+  }
+
+  void setSender(final Address sender) {
+    this.sender = sender;
+  }
+
+  Bytes32 getOrComputeSenderRecoveryHash() {
     if (hashNoSignature == null) {
       hashNoSignature =
           computeSenderRecoveryHash(
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.core;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
+import tech.pegasys.pantheon.crypto.SignatureRecoveryService;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Recovers the senders of transactions in batches, and remembers recently recovered senders by
+ * transaction hash so a transaction received from several peers and then in a block is only
+ * recovered once.
+ */
+public class TransactionSenderRecovery {
+
+  public static final int DEFAULT_CACHE_SIZE = 100_000;
+
+  private final SignatureRecoveryService recoveryService;
+  private final Cache<Hash, Address> senders;
+
+  public TransactionSenderRecovery(
+      final SignatureRecoveryService recoveryService, final int cacheSize) {
+    this.recoveryService = recoveryService;
+    this.senders = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+  }
+
+  /**
+   * Creates a sender recovery that only uses the calling thread.
+   *
+   * @return the sender recovery
+   */
+  public static TransactionSenderRecovery sequential() {
+    return new TransactionSenderRecovery(SignatureRecoveryService.create(0), DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Recovers the sender of every transaction that doesn't know it yet, so that {@link
+   * Transaction#getSender()} no longer has to. Transactions whose sender can't be recovered are
+   * left as is, and will fail when their sender is requested.
+   *
+   * @param transactions the transactions to recover the senders of
+   */
+  public void recoverSenders(final Collection<Transaction> transactions) {
+    final List<Transaction> toRecover = new ArrayList<>(transactions.size());
+    for (final Transaction transaction : transactions) {
+      if (transaction.hasSender()) continue;
+
+      final Address sender = senders.getIfPresent(transaction.hash());
+      if (sender != null) {
+        transaction.setSender(sender);
+      } else {
+        toRecover.add(transaction);
+      }
+    }
+    if (toRecover.isEmpty()) {
+      return;
+    }
+
+    final List<Bytes32> dataHashes = new ArrayList<>(toRecover.size());
+    final List<Signature> signatures = new ArrayList<>(toRecover.size());
+    for (final Transaction transaction : toRecover) {
+      dataHashes.add(transaction.getOrComputeSenderRecoveryHash());
+      signatures.add(transaction.getSignature());
+    }
+    final List<Optional<PublicKey>> publicKeys =
+        recoveryService.recoverPublicKeys(dataHashes, signatures);
+    for (int i = 0; i < toRecover.size(); i++) {
+      final Transaction transaction = toRecover.get(i);
+      publicKeys
+          .get(i)
+          .ifPresent(
+              publicKey -> {
+                final Address sender = Address.extract(Hash.hash(publicKey.getEncodedBytes()));
+                transaction.setSender(sender);
+                senders.put(transaction.hash(), sender);
+              });
+    }
+  }
+}
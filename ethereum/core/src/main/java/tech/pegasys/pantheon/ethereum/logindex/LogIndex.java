@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.logindex;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent.EventType;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.LogsBloomFilter;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Indexes the logs blooms of the canonical chain so log queries can skip blocks which cannot contain
+ * a matching log. The chain is split into sections of {@link #SECTION_SIZE} blocks and, for every
+ * bit of the logs bloom, a section stores a vector marking the blocks whose bloom has that bit set.
+ * A query then only reads the few vectors its addresses and topics map to instead of every header.
+ *
+ * <p>Sections are indexed on the supplied executor once they are {@link #CONFIRMATIONS} blocks
+ * behind the chain head, starting with any sections imported while the index was not running.
+ * Sections whose blocks are replaced by a chain reorganisation are dropped and indexed again.
+ */
+public class LogIndex {
+  private static final Logger LOG = LogManager.getLogger();
+
+  public static final int SECTION_SIZE = 4096;
+  static final long CONFIRMATIONS = 256;
+
+  private final Blockchain blockchain;
+  private final LogIndexStorage storage;
+  private final ExecutorService executorService;
+
+  private final AtomicBoolean indexing = new AtomicBoolean(false);
+  private volatile long indexedSectionCount;
+  private long blockAddedObserverId;
+
+  public LogIndex(
+      final Blockchain blockchain,
+      final LogIndexStorage storage,
+      final ExecutorService executorService) {
+    this.blockchain = blockchain;
+    this.storage = storage;
+    this.executorService = executorService;
+    this.indexedSectionCount = storage.getIndexedSectionCount();
+  }
+
+  public void start() {
+    LOG.info("Starting log index with {} indexed sections.", indexedSectionCount);
+    blockAddedObserverId =
+        blockchain.observeBlockAdded((event, blockchain) -> handleNewBlock(event));
+    scheduleIndexing();
+  }
+
+  public void stop() throws InterruptedException {
+    LOG.info("Stopping log index.");
+    blockchain.removeObserver(blockAddedObserverId);
+    executorService.shutdownNow();
+    executorService.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Returns the number of blocks, counted from genesis, which are covered by indexed sections.
+   *
+   * @return the number of the first block which is not indexed
+   */
+  public long getIndexedBlockCount() {
+    return indexedSectionCount * SECTION_SIZE;
+  }
+
+  /**
+   * Finds the blocks of an indexed section which may contain a log matching the given criteria.
+   *
+   * @param section the section to search
+   * @param criteria groups of log addresses and topics; a block may match when its bloom contains
+   *     at least one value of every group
+   * @return the offsets within the section of blocks which may match, or empty if the section is
+   *     not indexed
+   */
+  public Optional<BitSet> matchingBlocks(
+      final long section, final List<List<BytesValue>> criteria) {
+    if (section >= indexedSectionCount) {
+      return Optional.empty();
+    }
+
+    final Map<Integer, BitSet> bloomBits = new HashMap<>();
+    final BitSet matches = new BitSet(SECTION_SIZE);
+    matches.set(0, SECTION_SIZE);
+    for (final List<BytesValue> group : criteria) {
+      final BitSet groupMatches = new BitSet(SECTION_SIZE);
+      for (final BytesValue value : group) {
+        final BitSet valueMatches = new BitSet(SECTION_SIZE);
+        valueMatches.set(0, SECTION_SIZE);
+        for (final int bloomBit : LogsBloomFilter.bitIndices(value)) {
+          valueMatches.and(
+              bloomBits.computeIfAbsent(bloomBit, bit -> readBloomBits(section, bit)));
+        }
+        groupMatches.or(valueMatches);
+      }
+      matches.and(groupMatches);
+    }
+    return Optional.of(matches);
+  }
+
+  private BitSet readBloomBits(final long section, final int bloomBit) {
+    return storage
+        .getBloomBits(section, bloomBit)
+        .map(bits -> BitSet.valueOf(bits.extractArray()))
+        .orElseThrow(
+            () ->
+                new IllegalStateException(
+                    "Missing bloom bits " + bloomBit + " of indexed section " + section));
+  }
+
+  private void handleNewBlock(final BlockAddedEvent event) {
+    if (event.getEventType() == EventType.CHAIN_REORG
+        || (event.isNewCanonicalHead() && isConfirmed(indexedSectionCount))) {
+      scheduleIndexing();
+    }
+  }
+
+  private void scheduleIndexing() {
+    if (indexing.compareAndSet(false, true)) {
+      executorService.execute(this::indexConfirmedSections);
+    }
+  }
+
+  private void indexConfirmedSections() {
+    try {
+      dropReorganisedSections();
+      while (!Thread.currentThread().isInterrupted()
+          && isConfirmed(indexedSectionCount)
+          && indexSection(indexedSectionCount)) {
+        indexedSectionCount++;
+      }
+    } catch (final Throwable t) {
+      LOG.error("Log indexing failed", t);
+    } finally {
+      indexing.set(false);
+    }
+  }
+
+  private void dropReorganisedSections() {
+    long sectionCount = indexedSectionCount;
+    while (sectionCount > 0 && !isCanonical(sectionCount - 1)) {
+      sectionCount--;
+    }
+    if (sectionCount < indexedSectionCount) {
+      LOG.info(
+          "Chain reorganisation replaced indexed blocks, dropping log index sections from {}",
+          sectionCount);
+      storage.updater().setIndexedSectionCount(sectionCount).commit();
+      indexedSectionCount = sectionCount;
+    }
+  }
+
+  private boolean isCanonical(final long section) {
+    final Optional<Hash> sectionHead = storage.getSectionHead(section);
+    return sectionHead.isPresent()
+        && sectionHead.equals(blockchain.getBlockHashByNumber(lastBlockNumber(section)));
+  }
+
+  private boolean isConfirmed(final long section) {
+    return lastBlockNumber(section) + CONFIRMATIONS <= blockchain.getChainHeadBlockNumber();
+  }
+
+  private static long lastBlockNumber(final long section) {
+    return (section + 1) * SECTION_SIZE - 1;
+  }
+
+  private boolean indexSection(final long section) {
+    final byte[][] bloomBits = new byte[LogsBloomFilter.BIT_SIZE][SECTION_SIZE / Byte.SIZE];
+    final long firstBlockNumber = section * SECTION_SIZE;
+    Hash parentHash = null;
+    for (int offset = 0; offset < SECTION_SIZE; offset++) {
+      final Optional<BlockHeader> maybeHeader = blockchain.getBlockHeader(firstBlockNumber + offset);
+      if (!maybeHeader.isPresent()
+          || (parentHash != null && !parentHash.equals(maybeHeader.get().getParentHash()))) {
+        // The canonical chain changed while reading the section, it will be retried later.
+        LOG.debug("Canonical chain changed while indexing section {}", section);
+        return false;
+      }
+      final BlockHeader header = maybeHeader.get();
+      final LogsBloomFilter bloom = header.getLogsBloom();
+      for (int bloomBit = 0; bloomBit < LogsBloomFilter.BIT_SIZE; bloomBit++) {
+        if (bloom.isBitSet(bloomBit)) {
+          bloomBits[bloomBit][offset / Byte.SIZE] |= 1 << (offset % Byte.SIZE);
+        }
+      }
+      parentHash = header.getHash();
+    }
+
+    final LogIndexStorage.Updater updater = storage.updater();
+    for (int bloomBit = 0; bloomBit < LogsBloomFilter.BIT_SIZE; bloomBit++) {
+      updater.putBloomBits(section, bloomBit, BytesValue.wrap(bloomBits[bloomBit]));
+    }
+    updater.putSectionHead(section, parentHash).setIndexedSectionCount(section + 1).commit();
+    LOG.debug("Indexed logs of section {}", section);
+    return true;
+  }
+}
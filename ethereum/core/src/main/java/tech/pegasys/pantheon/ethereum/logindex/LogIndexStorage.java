@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.logindex;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Optional;
+
+/**
+ * Persists the bloom bit vectors of {@link LogIndex}. Each completed section of the canonical
+ * chain stores, for every bit of the logs bloom, a vector with one bit per block of the section.
+ */
+public interface LogIndexStorage {
+
+  long getIndexedSectionCount();
+
+  Optional<Hash> getSectionHead(long section);
+
+  Optional<BytesValue> getBloomBits(long section, int bloomBit);
+
+  Updater updater();
+
+  interface Updater {
+
+    Updater putSectionHead(long section, Hash lastBlockHash);
+
+    Updater putBloomBits(long section, int bloomBit, BytesValue blockBits);
+
+    Updater setIndexedSectionCount(long sectionCount);
+
+    void commit();
+
+    void rollback();
+  }
+}
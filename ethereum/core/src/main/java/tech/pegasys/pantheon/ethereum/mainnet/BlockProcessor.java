@@ -62,6 +62,29 @@ public interface BlockProcessor {
         block.getBody().getOmmers());
   }
 
+  /**
+   * Processes the block, possibly executing its transactions in parallel.
+   *
+   * @param blockchain the blockchain to append the block to
+   * @param worldState the world state to apply changes to
+   * @param block the block to process
+   * @param parallelTransactionExecutor the executor to execute transactions in parallel with
+   * @return the block processing result
+   */
+  default Result processBlock(
+      final Blockchain blockchain,
+      final MutableWorldState worldState,
+      final Block block,
+      final ParallelTransactionExecutor parallelTransactionExecutor) {
+    return processBlock(
+        blockchain,
+        worldState,
+        block.getHeader(),
+        block.getBody().getTransactions(),
+        block.getBody().getOmmers(),
+        parallelTransactionExecutor);
+  }
+
   /**
    * Processes the block.
    *
@@ -78,4 +101,28 @@ public interface BlockProcessor {
       BlockHeader blockHeader,
       List<Transaction> transactions,
       List<BlockHeader> ommers);
+
+  /**
+   * Processes the block, possibly executing its transactions in parallel.
+   *
+   * <p>The result, and the changes made to the world state, are the same as those of {@link
+   * #processBlock(Blockchain, MutableWorldState, BlockHeader, List, List)}, which this defaults to.
+   *
+   * @param blockchain the blockchain to append the block to
+   * @param worldState the world state to apply changes to
+   * @param blockHeader the block header for the block
+   * @param transactions the transactions in the block
+   * @param ommers the block ommers
+   * @param parallelTransactionExecutor the executor to execute transactions in parallel with
+   * @return the block processing result
+   */
+  default Result processBlock(
+      final Blockchain blockchain,
+      final MutableWorldState worldState,
+      final BlockHeader blockHeader,
+      final List<Transaction> transactions,
+      final List<BlockHeader> ommers,
+      final ParallelTransactionExecutor parallelTransactionExecutor) {
+    return processBlock(blockchain, worldState, blockHeader, transactions, ommers);
+  }
 }
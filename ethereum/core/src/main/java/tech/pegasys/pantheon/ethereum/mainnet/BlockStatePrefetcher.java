@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.SpeculativeWorldUpdater;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.trie.StoredMerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.vm.BlockHashLookup;
+import tech.pegasys.pantheon.ethereum.worldstate.StateTrieAccountValue;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateArchive;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the state a block is likely to touch ahead of its execution, so that the storage holding it
+ * is already cached by the time the block is processed.
+ *
+ * <p>The transactions of the block are executed against the latest available state, without keeping
+ * any of their updates, to find the accounts and storage slots they read. The trie nodes on the
+ * paths to each of those are then loaded, as they will be needed again to compute the state root
+ * once the block is actually processed. When the block's parent hasn't been imported yet, the
+ * transactions are executed on top of the chain head, so what they read is only an approximation.
+ * Transactions sent directly to a precompiled contract are not executed.
+ */
+public class BlockStatePrefetcher<C> {
+
+  private final ProtocolSchedule<C> protocolSchedule;
+  private final ProtocolContext<C> protocolContext;
+
+  public BlockStatePrefetcher(
+      final ProtocolSchedule<C> protocolSchedule, final ProtocolContext<C> protocolContext) {
+    this.protocolSchedule = protocolSchedule;
+    this.protocolContext = protocolContext;
+  }
+
+  /**
+   * Reads the state the given block is likely to touch.
+   *
+   * @param block the block to read the state for
+   * @return {@code true} if the state was read, or {@code false} if no state to read it from was
+   *     available
+   */
+  public boolean prefetch(final Block block) {
+    final Blockchain blockchain = protocolContext.getBlockchain();
+    final BlockHeader header = block.getHeader();
+    final Hash stateRoot =
+        blockchain
+            .getBlockHeader(header.getParentHash())
+            .orElseGet(blockchain::getChainHeadHeader)
+            .getStateRoot();
+    final WorldStateArchive worldStateArchive = protocolContext.getWorldStateArchive();
+    final Optional<MutableWorldState> maybeWorldState = worldStateArchive.getMutable(stateRoot);
+    if (!maybeWorldState.isPresent()) {
+      return false;
+    }
+
+    final ProtocolSpec<C> protocolSpec = protocolSchedule.getByBlockNumber(header.getNumber());
+    final TransactionProcessor transactionProcessor = protocolSpec.getTransactionProcessor();
+    final Address miningBeneficiary =
+        protocolSpec.getMiningBeneficiaryCalculator().calculateBeneficiary(header);
+    final PrecompileContractRegistry precompiles = protocolSpec.getPrecompileContractRegistry();
+    final BlockHashLookup blockHashLookup = new BlockHashLookup(header, blockchain);
+    final SpeculativeWorldUpdater updater =
+        new SpeculativeWorldUpdater(maybeWorldState.get(), Optional.empty());
+    final Set<Address> accounts = new HashSet<>();
+    accounts.add(miningBeneficiary);
+    for (final Transaction transaction : block.getBody().getTransactions()) {
+      accounts.add(transaction.getSender());
+      transaction.getTo().ifPresent(accounts::add);
+      // Precompiles don't touch any state, but may be expensive or call out to other services.
+      if (transaction.getTo().map(precompiles::get).isPresent()) {
+        continue;
+      }
+      final WorldUpdater transactionUpdater = updater.updater();
+      final TransactionProcessor.Result result =
+          transactionProcessor.processTransaction(
+              blockchain,
+              transactionUpdater,
+              header,
+              transaction,
+              miningBeneficiary,
+              blockHashLookup,
+              false);
+      if (!result.isInvalid()) {
+        transactionUpdater.commit();
+      }
+    }
+    accounts.addAll(updater.getAccountsRead());
+
+    loadTrieNodes(worldStateArchive.getStorage(), stateRoot, accounts, updater.getStorageRead());
+    return true;
+  }
+
+  private static void loadTrieNodes(
+      final WorldStateStorage worldStateStorage,
+      final Hash stateRoot,
+      final Set<Address> accounts,
+      final Map<Address, Set<UInt256>> storage) {
+    final MerklePatriciaTrie<Bytes32, BytesValue> accountStateTrie =
+        new StoredMerklePatriciaTrie<>(
+            worldStateStorage::getAccountStateTrieNode, stateRoot, b -> b, b -> b);
+    for (final Address address : accounts) {
+      final Optional<BytesValue> accountValue = accountStateTrie.get(Hash.hash(address));
+      final Set<UInt256> slots = storage.getOrDefault(address, Collections.emptySet());
+      if (!accountValue.isPresent() || slots.isEmpty()) {
+        continue;
+      }
+      final Hash storageRoot =
+          StateTrieAccountValue.readFrom(RLP.input(accountValue.get())).getStorageRoot();
+      final MerklePatriciaTrie<Bytes32, BytesValue> storageTrie =
+          new StoredMerklePatriciaTrie<>(
+              worldStateStorage::getAccountStorageTrieNode, storageRoot, b -> b, b -> b);
+      for (final UInt256 slot : slots) {
+        storageTrie.get(Hash.hash(slot.getBytes()));
+      }
+    }
+  }
+}
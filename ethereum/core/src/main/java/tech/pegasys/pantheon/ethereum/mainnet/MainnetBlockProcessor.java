@@ -18,6 +18,7 @@ import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.MutableAccount;
 import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
 import tech.pegasys.pantheon.ethereum.core.ProcessableBlockHeader;
+import tech.pegasys.pantheon.ethereum.core.SpeculativeWorldUpdater;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
 import tech.pegasys.pantheon.ethereum.core.Wei;
@@ -26,7 +27,10 @@ import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
 import tech.pegasys.pantheon.ethereum.vm.BlockHashLookup;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.logging.log4j.LogManager;
@@ -103,11 +107,47 @@ public class MainnetBlockProcessor implements BlockProcessor {
       final BlockHeader blockHeader,
       final List<Transaction> transactions,
       final List<BlockHeader> ommers) {
+    return processBlock(
+        blockchain,
+        worldState,
+        blockHeader,
+        transactions,
+        ommers,
+        ParallelTransactionExecutor.disabled());
+  }
+
+  @Override
+  public Result processBlock(
+      final Blockchain blockchain,
+      final MutableWorldState worldState,
+      final BlockHeader blockHeader,
+      final List<Transaction> transactions,
+      final List<BlockHeader> ommers,
+      final ParallelTransactionExecutor parallelTransactionExecutor) {
 
     long gasUsed = 0;
     final List<TransactionReceipt> receipts = new ArrayList<>();
 
-    for (final Transaction transaction : transactions) {
+    // Execute every transaction on top of the state at the start of the block first. Each result is
+    // then only used if nothing it read was written by the transactions before it.
+    final Optional<List<SpeculativeExecution>> speculativeExecutions;
+    if (parallelTransactionExecutor.isEnabled() && transactions.size() > 1) {
+      final boolean[] hasEarlierSenderTransaction = hasEarlierSenderTransaction(transactions);
+      speculativeExecutions =
+          Optional.of(
+              parallelTransactionExecutor.executeAll(
+                  transactions.size(),
+                  i ->
+                      hasEarlierSenderTransaction[i]
+                          ? null
+                          : speculate(blockchain, worldState, blockHeader, transactions.get(i))));
+    } else {
+      speculativeExecutions = Optional.empty();
+    }
+    final SpeculativeWorldUpdater.WriteSet blockWrites = new SpeculativeWorldUpdater.WriteSet();
+
+    for (int i = 0; i < transactions.size(); i++) {
+      final Transaction transaction = transactions.get(i);
       final long remainingGasBudget = blockHeader.getGasLimit() - gasUsed;
       if (Long.compareUnsigned(transaction.getGasLimit(), remainingGasBudget) > 0) {
         LOG.warn(
@@ -118,18 +158,32 @@ public class MainnetBlockProcessor implements BlockProcessor {
       }
 
       final WorldUpdater worldStateUpdater = worldState.updater();
-      final BlockHashLookup blockHashLookup = new BlockHashLookup(blockHeader, blockchain);
-      final Address miningBeneficiary =
-          miningBeneficiaryCalculator.calculateBeneficiary(blockHeader);
-      final TransactionProcessor.Result result =
-          transactionProcessor.processTransaction(
-              blockchain,
-              worldStateUpdater,
-              blockHeader,
-              transaction,
-              miningBeneficiary,
-              blockHashLookup,
-              true);
+      final TransactionProcessor.Result result;
+      if (speculativeExecutions.isPresent()) {
+        result =
+            applyOrExecute(
+                speculativeExecutions.get().get(i),
+                blockchain,
+                worldState,
+                worldStateUpdater,
+                blockWrites,
+                blockHeader,
+                transaction,
+                parallelTransactionExecutor);
+      } else {
+        final BlockHashLookup blockHashLookup = new BlockHashLookup(blockHeader, blockchain);
+        final Address miningBeneficiary =
+            miningBeneficiaryCalculator.calculateBeneficiary(blockHeader);
+        result =
+            transactionProcessor.processTransaction(
+                blockchain,
+                worldStateUpdater,
+                blockHeader,
+                transaction,
+                miningBeneficiary,
+                blockHashLookup,
+                true);
+      }
       if (result.isInvalid()) {
         return Result.failed();
       }
@@ -149,6 +203,91 @@ public class MainnetBlockProcessor implements BlockProcessor {
     return Result.successful(receipts);
   }
 
+  // A transaction whose sender has an earlier transaction in the block can only be valid once that
+  // one has been applied, so there's no point executing it ahead.
+  private static boolean[] hasEarlierSenderTransaction(final List<Transaction> transactions) {
+    final boolean[] hasEarlierSenderTransaction = new boolean[transactions.size()];
+    final Set<Address> senders = new HashSet<>();
+    for (int i = 0; i < transactions.size(); i++) {
+      try {
+        hasEarlierSenderTransaction[i] = !senders.add(transactions.get(i).getSender());
+      } catch (final RuntimeException e) {
+        hasEarlierSenderTransaction[i] = true;
+      }
+    }
+    return hasEarlierSenderTransaction;
+  }
+
+  private SpeculativeExecution speculate(
+      final Blockchain blockchain,
+      final WorldState worldState,
+      final BlockHeader blockHeader,
+      final Transaction transaction) {
+    try {
+      final Address miningBeneficiary =
+          miningBeneficiaryCalculator.calculateBeneficiary(blockHeader);
+      // The fee paid to the mining beneficiary is applied as a credit, unless the sender is the
+      // beneficiary, as its balance must then be known to validate the transaction.
+      final Optional<Address> feeRecipient =
+          transaction.getSender().equals(miningBeneficiary)
+              ? Optional.empty()
+              : Optional.of(miningBeneficiary);
+      // Nothing may be persisted on the side, as the result of this execution may be discarded.
+      return execute(blockchain, worldState, feeRecipient, blockHeader, transaction, false);
+    } catch (final RuntimeException e) {
+      // Leave it to the sequential execution to fail the same way.
+      LOG.debug("Failed to execute transaction {} in parallel", transaction.hash(), e);
+      return null;
+    }
+  }
+
+  private TransactionProcessor.Result applyOrExecute(
+      final SpeculativeExecution speculativeExecution,
+      final Blockchain blockchain,
+      final WorldState worldState,
+      final WorldUpdater worldStateUpdater,
+      final SpeculativeWorldUpdater.WriteSet blockWrites,
+      final BlockHeader blockHeader,
+      final Transaction transaction,
+      final ParallelTransactionExecutor parallelTransactionExecutor) {
+    final SpeculativeExecution execution;
+    if (speculativeExecution != null
+        && !speculativeExecution.result.isInvalid()
+        && speculativeExecution.updater.canApplyTo(worldState, blockWrites)) {
+      parallelTransactionExecutor.recordApplied();
+      execution = speculativeExecution;
+    } else {
+      parallelTransactionExecutor.recordReexecuted();
+      execution = execute(blockchain, worldState, Optional.empty(), blockHeader, transaction, true);
+    }
+
+    if (!execution.result.isInvalid()) {
+      execution.updater.applyTo(worldStateUpdater);
+      execution.updater.addWritesTo(blockWrites);
+    }
+    return execution.result;
+  }
+
+  private SpeculativeExecution execute(
+      final Blockchain blockchain,
+      final WorldState worldState,
+      final Optional<Address> feeRecipient,
+      final BlockHeader blockHeader,
+      final Transaction transaction,
+      final boolean isPersistingState) {
+    final SpeculativeWorldUpdater updater = new SpeculativeWorldUpdater(worldState, feeRecipient);
+    final TransactionProcessor.Result result =
+        transactionProcessor.processTransaction(
+            blockchain,
+            updater,
+            blockHeader,
+            transaction,
+            miningBeneficiaryCalculator.calculateBeneficiary(blockHeader),
+            new BlockHashLookup(blockHeader, blockchain),
+            isPersistingState);
+    return new SpeculativeExecution(updater, result);
+  }
+
   private boolean rewardCoinbase(
       final MutableWorldState worldState,
       final ProcessableBlockHeader header,
@@ -181,4 +320,15 @@ public class MainnetBlockProcessor implements BlockProcessor {
 
     return true;
   }
+
+  private static class SpeculativeExecution {
+    private final SpeculativeWorldUpdater updater;
+    private final TransactionProcessor.Result result;
+
+    private SpeculativeExecution(
+        final SpeculativeWorldUpdater updater, final TransactionProcessor.Result result) {
+      this.updater = updater;
+      this.result = result;
+    }
+  }
 }
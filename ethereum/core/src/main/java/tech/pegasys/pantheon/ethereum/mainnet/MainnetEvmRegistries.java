@@ -12,6 +12,7 @@
  */
 package tech.pegasys.pantheon.ethereum.mainnet;
 
+import tech.pegasys.pantheon.ethereum.vm.CodeCache;
 import tech.pegasys.pantheon.ethereum.vm.EVM;
 import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
 import tech.pegasys.pantheon.ethereum.vm.Operation;
@@ -116,7 +117,9 @@ public abstract class MainnetEvmRegistries {
   }
 
   private static EVM createAndPopulate(
-      final List<OperationFactory> factories, final GasCalculator gasCalculator) {
+      final List<OperationFactory> factories,
+      final GasCalculator gasCalculator,
+      final CodeCache codeCache) {
     final OperationRegistry registry = new OperationRegistry();
 
     for (final OperationFactory factory : factories) {
@@ -124,23 +127,23 @@ public abstract class MainnetEvmRegistries {
       registry.put(operation.getOpcode(), operation);
     }
 
-    return new EVM(registry, new InvalidOperation(gasCalculator));
+    return new EVM(registry, new InvalidOperation(gasCalculator), codeCache);
   }
 
-  public static EVM frontier(final GasCalculator gasCalculator) {
-    return createAndPopulate(FRONTIER_OPERATION_FACTORIES, gasCalculator);
+  public static EVM frontier(final GasCalculator gasCalculator, final CodeCache codeCache) {
+    return createAndPopulate(FRONTIER_OPERATION_FACTORIES, gasCalculator, codeCache);
   }
 
-  public static EVM homestead(final GasCalculator gasCalculator) {
-    return createAndPopulate(HOMESTEAD_OPERATION_FACTORIES, gasCalculator);
+  public static EVM homestead(final GasCalculator gasCalculator, final CodeCache codeCache) {
+    return createAndPopulate(HOMESTEAD_OPERATION_FACTORIES, gasCalculator, codeCache);
   }
 
-  public static EVM byzantium(final GasCalculator gasCalculator) {
-    return createAndPopulate(BYZANTIUM_OPERATION_FACTORIES, gasCalculator);
+  public static EVM byzantium(final GasCalculator gasCalculator, final CodeCache codeCache) {
+    return createAndPopulate(BYZANTIUM_OPERATION_FACTORIES, gasCalculator, codeCache);
   }
 
-  public static EVM constantinople(final GasCalculator gasCalculator) {
-    return createAndPopulate(CONSTANTINOPLE_OPERATION_FACTORIES, gasCalculator);
+  public static EVM constantinople(final GasCalculator gasCalculator, final CodeCache codeCache) {
+    return createAndPopulate(CONSTANTINOPLE_OPERATION_FACTORIES, gasCalculator, codeCache);
   }
 
   private static List<OperationFactory> buildFrontierFactories() {
@@ -265,6 +265,19 @@ public abstract class MainnetProtocolSpecs {
       return wrapped.processBlock(blockchain, worldState, blockHeader, transactions, ommers);
     }
 
+    @Override
+    public Result processBlock(
+        final Blockchain blockchain,
+        final MutableWorldState worldState,
+        final BlockHeader blockHeader,
+        final List<Transaction> transactions,
+        final List<BlockHeader> ommers,
+        final ParallelTransactionExecutor parallelTransactionExecutor) {
+      updateWorldStateForDao(worldState);
+      return wrapped.processBlock(
+          blockchain, worldState, blockHeader, transactions, ommers, parallelTransactionExecutor);
+    }
+
     private static final Address DAO_REFUND_CONTRACT_ADDRESS =
         Address.fromHexString("0xbf4ed7b27f1d666546e30d74d50d173d20bca754");
 
@@ -235,7 +235,10 @@ public class MainnetTransactionProcessor implements TransactionProcessor {
               .sender(senderAddress)
               .value(transaction.getValue())
               .apparentValue(transaction.getValue())
-              .code(new Code(contract != null ? contract.getCode() : BytesValue.EMPTY))
+              .code(
+                  contract != null
+                      ? new Code(contract.getCode(), contract.getCodeHash())
+                      : new Code(BytesValue.EMPTY))
               .blockHeader(blockHeader)
               .depth(0)
               .completer(c -> {})
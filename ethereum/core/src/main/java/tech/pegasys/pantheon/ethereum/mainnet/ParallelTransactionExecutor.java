@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * The threads a block processor may use to execute the transactions of a block speculatively in
+ * parallel, before committing their results in block order.
+ */
+public class ParallelTransactionExecutor implements AutoCloseable {
+
+  public static final int DEFAULT_WORKER_THREADS = 0;
+
+  private static final ParallelTransactionExecutor DISABLED =
+      new ParallelTransactionExecutor(0, Optional.empty(), new NoOpMetricsSystem());
+
+  private final int workerThreads;
+  private final Optional<ExecutorService> executor;
+  private final Counter appliedCounter;
+  private final Counter reexecutedCounter;
+
+  private ParallelTransactionExecutor(
+      final int workerThreads,
+      final Optional<ExecutorService> executor,
+      final MetricsSystem metricsSystem) {
+    this.workerThreads = workerThreads;
+    this.executor = executor;
+    appliedCounter =
+        metricsSystem.createCounter(
+            MetricCategory.EVM,
+            "parallel_transactions_applied_total",
+            "Total number of transactions whose parallel execution result was applied");
+    reexecutedCounter =
+        metricsSystem.createCounter(
+            MetricCategory.EVM,
+            "parallel_transactions_reexecuted_total",
+            "Total number of transactions executed in block order because the result of their parallel execution couldn't be used");
+  }
+
+  /**
+   * An executor which doesn't execute transactions in parallel.
+   *
+   * @return the executor
+   */
+  public static ParallelTransactionExecutor disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Creates an executor using the given number of worker threads, in addition to the calling
+   * thread.
+   *
+   * @param workerThreads the number of worker threads, 0 to not execute transactions in parallel
+   * @param metricsSystem the metrics system
+   * @return the executor
+   */
+  public static ParallelTransactionExecutor create(
+      final int workerThreads, final MetricsSystem metricsSystem) {
+    checkArgument(workerThreads >= 0, "Worker threads must not be negative");
+    if (workerThreads == 0) {
+      return new ParallelTransactionExecutor(0, Optional.empty(), metricsSystem);
+    }
+    return new ParallelTransactionExecutor(
+        workerThreads,
+        Optional.of(
+            Executors.newFixedThreadPool(
+                workerThreads,
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("ParallelTransactionExecutor-%d")
+                    .build())),
+        metricsSystem);
+  }
+
+  public boolean isEnabled() {
+    return executor.isPresent();
+  }
+
+  /**
+   * Runs a task for each index from 0 to {@code count}, sharing them between the calling thread and
+   * the worker threads.
+   *
+   * @param count the number of tasks
+   * @param task the task to run for each index
+   * @param <T> the type of the task results
+   * @return the task results, by index
+   */
+  <T> List<T> executeAll(final int count, final IntFunction<T> task) {
+    final AtomicInteger nextIndex = new AtomicInteger();
+    final AtomicReferenceArray<T> results = new AtomicReferenceArray<>(count);
+    final Runnable worker =
+        () -> {
+          for (int i = nextIndex.getAndIncrement(); i < count; i = nextIndex.getAndIncrement()) {
+            results.set(i, task.apply(i));
+          }
+        };
+
+    final int workers = executor.isPresent() ? Math.min(workerThreads, count - 1) : 0;
+    final List<Future<?>> futures = new ArrayList<>(workers);
+    for (int i = 0; i < workers; i++) {
+      futures.add(executor.get().submit(worker));
+    }
+    worker.run();
+    for (final Future<?> future : futures) {
+      try {
+        // Every index has been claimed by now, so the results of those still running are needed.
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (final ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException("Failed to execute transactions", e.getCause());
+      }
+    }
+
+    final List<T> resultList = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      resultList.add(results.get(i));
+    }
+    return resultList;
+  }
+
+  void recordApplied() {
+    appliedCounter.inc();
+  }
+
+  void recordReexecuted() {
+    reexecutedCounter.inc();
+  }
+
+  @Override
+  public void close() {
+    executor.ifPresent(ExecutorService::shutdownNow);
+  }
+}
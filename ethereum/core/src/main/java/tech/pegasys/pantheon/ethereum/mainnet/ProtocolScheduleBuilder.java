@@ -14,6 +14,7 @@ package tech.pegasys.pantheon.ethereum.mainnet;
 
 import tech.pegasys.pantheon.config.GenesisConfigOptions;
 import tech.pegasys.pantheon.ethereum.core.PrivacyParameters;
+import tech.pegasys.pantheon.ethereum.vm.CodeCache;
 
 import java.util.OptionalLong;
 import java.util.function.Function;
@@ -27,6 +28,8 @@ public class ProtocolScheduleBuilder<C> {
   private final Function<ProtocolSpecBuilder<Void>, ProtocolSpecBuilder<C>> protocolSpecAdapter;
   private final int defaultChainId;
   private final PrivacyParameters privacyParameters;
+  // Shared by every milestone, since the analysis of code doesn't depend on the milestone.
+  private final CodeCache codeCache = new CodeCache(CodeCache.DEFAULT_CACHE_SIZE_BYTES);
 
   public ProtocolScheduleBuilder(
       final GenesisConfigOptions config,
@@ -110,6 +113,7 @@ public class ProtocolScheduleBuilder<C> {
                 protocolSpecAdapter
                     .apply(definition)
                     .privacyParameters(privacyParameters)
+                    .codeCache(codeCache)
                     .build(protocolSchedule)));
   }
 
@@ -12,6 +12,7 @@
  */
 package tech.pegasys.pantheon.ethereum.mainnet.precompiles;
 
+import tech.pegasys.pantheon.crypto.altbn128.AltBn128Operations;
 import tech.pegasys.pantheon.crypto.altbn128.AltBn128Point;
 import tech.pegasys.pantheon.crypto.altbn128.Fq;
 import tech.pegasys.pantheon.ethereum.core.Gas;
@@ -47,7 +48,7 @@ public class AltBN128AddPrecompiledContract extends AbstractPrecompiledContract
     if (!p1.isOnCurve() || !p2.isOnCurve()) {
       return null;
     }
-    final AltBn128Point sum = p1.add(p2);
+    final AltBn128Point sum = AltBn128Operations.add(p1, p2);
     final BytesValue x = sum.getX().toBytesValue();
     final BytesValue y = sum.getY().toBytesValue();
     final MutableBytesValue result = MutableBytesValue.create(64);
@@ -12,11 +12,10 @@
  */
 package tech.pegasys.pantheon.ethereum.mainnet.precompiles;
 
-import tech.pegasys.pantheon.crypto.altbn128.AltBn128Fq12Pairer;
 import tech.pegasys.pantheon.crypto.altbn128.AltBn128Fq2Point;
+import tech.pegasys.pantheon.crypto.altbn128.AltBn128Operations;
 import tech.pegasys.pantheon.crypto.altbn128.AltBn128Point;
 import tech.pegasys.pantheon.crypto.altbn128.Fq;
-import tech.pegasys.pantheon.crypto.altbn128.Fq12;
 import tech.pegasys.pantheon.crypto.altbn128.Fq2;
 import tech.pegasys.pantheon.ethereum.core.Gas;
 import tech.pegasys.pantheon.ethereum.mainnet.AbstractPrecompiledContract;
@@ -85,12 +84,7 @@ public class AltBN128PairingPrecompiledContract extends AbstractPrecompiledContr
       b.add(p2);
     }
 
-    Fq12 exponent = Fq12.one();
-    for (int i = 0; i < parameters; ++i) {
-      exponent = exponent.multiply(AltBn128Fq12Pairer.pair(a.get(i), b.get(i)));
-    }
-
-    if (AltBn128Fq12Pairer.finalize(exponent).equals(Fq12.one())) {
+    if (AltBn128Operations.pairingProductIsOne(a, b)) {
       return TRUE;
     } else {
       return FALSE;
@@ -13,6 +13,7 @@
 package tech.pegasys.pantheon.ethereum.storage;
 
 import tech.pegasys.pantheon.ethereum.chain.BlockchainStorage;
+import tech.pegasys.pantheon.ethereum.logindex.LogIndexStorage;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.privacy.PrivateStateStorage;
 import tech.pegasys.pantheon.ethereum.privacy.PrivateTransactionStorage;
@@ -29,4 +30,6 @@ public interface StorageProvider extends Closeable {
   PrivateTransactionStorage createPrivateTransactionStorage();
 
   PrivateStateStorage createPrivateStateStorage();
+
+  LogIndexStorage createLogIndexStorage();
 }
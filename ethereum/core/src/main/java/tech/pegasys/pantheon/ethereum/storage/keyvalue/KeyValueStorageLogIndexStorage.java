@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.storage.keyvalue;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.logindex.LogIndexStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import com.google.common.primitives.Longs;
+
+public class KeyValueStorageLogIndexStorage implements LogIndexStorage {
+
+  private static final BytesValue INDEXED_SECTIONS_KEY =
+      BytesValue.wrap("logIndexSections".getBytes(StandardCharsets.UTF_8));
+
+  // Prefixed so the index can share a storage with blockchain and world state data.
+  private static final BytesValue SECTION_HEAD_PREFIX = BytesValue.of(0x20);
+  private static final BytesValue BLOOM_BITS_PREFIX = BytesValue.of(0x21);
+
+  private final KeyValueStorage storage;
+
+  public KeyValueStorageLogIndexStorage(final KeyValueStorage storage) {
+    this.storage = storage;
+  }
+
+  @Override
+  public long getIndexedSectionCount() {
+    return storage.get(INDEXED_SECTIONS_KEY).map(BytesValues::extractLong).orElse(0L);
+  }
+
+  @Override
+  public Optional<Hash> getSectionHead(final long section) {
+    return storage.get(sectionHeadKey(section)).map(bytes -> Hash.wrap(Bytes32.wrap(bytes, 0)));
+  }
+
+  @Override
+  public Optional<BytesValue> getBloomBits(final long section, final int bloomBit) {
+    return storage.get(bloomBitsKey(section, bloomBit));
+  }
+
+  @Override
+  public LogIndexStorage.Updater updater() {
+    return new Updater(storage.startTransaction());
+  }
+
+  private static BytesValue sectionHeadKey(final long section) {
+    return BytesValues.concatenate(SECTION_HEAD_PREFIX, BytesValue.wrap(Longs.toByteArray(section)));
+  }
+
+  private static BytesValue bloomBitsKey(final long section, final int bloomBit) {
+    return BytesValues.concatenate(
+        BLOOM_BITS_PREFIX,
+        BytesValue.wrap(Longs.toByteArray(section)),
+        BytesValues.ofUnsignedShort(bloomBit));
+  }
+
+  public static class Updater implements LogIndexStorage.Updater {
+
+    private final KeyValueStorage.Transaction transaction;
+
+    private Updater(final KeyValueStorage.Transaction transaction) {
+      this.transaction = transaction;
+    }
+
+    @Override
+    public Updater putSectionHead(final long section, final Hash lastBlockHash) {
+      transaction.put(sectionHeadKey(section), lastBlockHash);
+      return this;
+    }
+
+    @Override
+    public Updater putBloomBits(final long section, final int bloomBit, final BytesValue blockBits) {
+      transaction.put(bloomBitsKey(section, bloomBit), blockBits);
+      return this;
+    }
+
+    @Override
+    public Updater setIndexedSectionCount(final long sectionCount) {
+      transaction.put(INDEXED_SECTIONS_KEY, BytesValue.wrap(Longs.toByteArray(sectionCount)));
+      return this;
+    }
+
+    @Override
+    public void commit() {
+      transaction.commit();
+    }
+
+    @Override
+    public void rollback() {
+      transaction.rollback();
+    }
+  }
+}
@@ -42,9 +42,9 @@ public class KeyValueStoragePrefixedKeyBlockchainStorage implements BlockchainSt
       BytesValue.wrap("forkHeads".getBytes(StandardCharsets.UTF_8));
 
   private static final BytesValue CONSTANTS_PREFIX = BytesValue.of(1);
-  private static final BytesValue BLOCK_HEADER_PREFIX = BytesValue.of(2);
-  private static final BytesValue BLOCK_BODY_PREFIX = BytesValue.of(3);
-  private static final BytesValue TRANSACTION_RECEIPTS_PREFIX = BytesValue.of(4);
+  static final BytesValue BLOCK_HEADER_PREFIX = BytesValue.of(2);
+  static final BytesValue BLOCK_BODY_PREFIX = BytesValue.of(3);
+  static final BytesValue TRANSACTION_RECEIPTS_PREFIX = BytesValue.of(4);
   private static final BytesValue BLOCK_HASH_PREFIX = BytesValue.of(5);
   private static final BytesValue TOTAL_DIFFICULTY_PREFIX = BytesValue.of(6);
   private static final BytesValue TRANSACTION_LOCATION_PREFIX = BytesValue.of(7);
@@ -87,6 +87,21 @@ public class KeyValueStoragePrefixedKeyBlockchainStorage implements BlockchainSt
     return get(TRANSACTION_RECEIPTS_PREFIX, blockHash).map(this::rlpDecodeTransactionReceipts);
   }
 
+  @Override
+  public Optional<BytesValue> getBlockHeaderRlp(final Hash blockHash) {
+    return get(BLOCK_HEADER_PREFIX, blockHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getBlockBodyRlp(final Hash blockHash) {
+    return get(BLOCK_BODY_PREFIX, blockHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getTransactionReceiptsRlp(final Hash blockHash) {
+    return get(TRANSACTION_RECEIPTS_PREFIX, blockHash);
+  }
+
   @Override
   public Optional<Hash> getBlockHash(final long blockNumber) {
     return get(BLOCK_HASH_PREFIX, UInt256Bytes.of(blockNumber)).map(this::bytesToHash);
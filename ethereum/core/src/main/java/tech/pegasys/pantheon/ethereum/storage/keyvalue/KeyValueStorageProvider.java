@@ -13,6 +13,7 @@
 package tech.pegasys.pantheon.ethereum.storage.keyvalue;
 
 import tech.pegasys.pantheon.ethereum.chain.BlockchainStorage;
+import tech.pegasys.pantheon.ethereum.logindex.LogIndexStorage;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ScheduleBasedBlockHashFunction;
 import tech.pegasys.pantheon.ethereum.privacy.PrivateKeyValueStorage;
@@ -24,38 +25,71 @@ import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
 
 public class KeyValueStorageProvider implements StorageProvider {
 
-  private final KeyValueStorage keyValueStorage;
+  private final KeyValueStorage blockchainKeyValueStorage;
+  private final KeyValueStorage worldStateKeyValueStorage;
+  private final KeyValueStorage privateKeyValueStorage;
+  private final KeyValueStorage logIndexKeyValueStorage;
 
   public KeyValueStorageProvider(final KeyValueStorage keyValueStorage) {
-    this.keyValueStorage = keyValueStorage;
+    this(keyValueStorage, keyValueStorage, keyValueStorage, keyValueStorage);
+  }
+
+  public KeyValueStorageProvider(
+      final KeyValueStorage blockchainKeyValueStorage,
+      final KeyValueStorage worldStateKeyValueStorage,
+      final KeyValueStorage privateKeyValueStorage,
+      final KeyValueStorage logIndexKeyValueStorage) {
+    this.blockchainKeyValueStorage = blockchainKeyValueStorage;
+    this.worldStateKeyValueStorage = worldStateKeyValueStorage;
+    this.privateKeyValueStorage = privateKeyValueStorage;
+    this.logIndexKeyValueStorage = logIndexKeyValueStorage;
   }
 
   @Override
   public BlockchainStorage createBlockchainStorage(final ProtocolSchedule<?> protocolSchedule) {
     return new KeyValueStoragePrefixedKeyBlockchainStorage(
-        keyValueStorage, ScheduleBasedBlockHashFunction.create(protocolSchedule));
+        blockchainKeyValueStorage, ScheduleBasedBlockHashFunction.create(protocolSchedule));
   }
 
   @Override
   public WorldStateStorage createWorldStateStorage() {
-    return new KeyValueStorageWorldStateStorage(keyValueStorage);
+    return new KeyValueStorageWorldStateStorage(worldStateKeyValueStorage);
   }
 
   @Override
   public PrivateTransactionStorage createPrivateTransactionStorage() {
-    return new PrivateKeyValueStorage(keyValueStorage);
+    return new PrivateKeyValueStorage(privateKeyValueStorage);
   }
 
   @Override
   public PrivateStateStorage createPrivateStateStorage() {
-    return new PrivateStateKeyValueStorage(keyValueStorage);
+    return new PrivateStateKeyValueStorage(privateKeyValueStorage);
+  }
+
+  @Override
+  public LogIndexStorage createLogIndexStorage() {
+    return new KeyValueStorageLogIndexStorage(logIndexKeyValueStorage);
   }
 
   @Override
   public void close() throws IOException {
-    keyValueStorage.close();
+    // The same storage may back several kinds of data but must only be closed once.
+    final Set<KeyValueStorage> storages = Sets.newIdentityHashSet();
+    storages.addAll(
+        Arrays.asList(
+            blockchainKeyValueStorage,
+            worldStateKeyValueStorage,
+            privateKeyValueStorage,
+            logIndexKeyValueStorage));
+    for (final KeyValueStorage storage : storages) {
+      storage.close();
+    }
   }
 }
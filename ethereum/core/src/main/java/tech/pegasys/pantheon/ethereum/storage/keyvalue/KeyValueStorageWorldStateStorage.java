@@ -13,20 +13,79 @@
 package tech.pegasys.pantheon.ethereum.storage.keyvalue;
 
 import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.trie.StoredMerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.worldstate.StateTrieAccountValue;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Entry;
+import tech.pegasys.pantheon.util.Subscribers;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.common.collect.Maps;
 
 public class KeyValueStorageWorldStateStorage implements WorldStateStorage {
 
+  private static final int PRUNE_BATCH_SIZE = 1000;
+
+  private static final BytesValue FLAT_STATE_ROOT_KEY =
+      BytesValue.wrap("flatStateRoot".getBytes(StandardCharsets.UTF_8));
+  private static final BytesValue FLAT_STATE_GENERATION_KEY =
+      BytesValue.wrap("flatStateGeneration".getBytes(StandardCharsets.UTF_8));
+  private static final BytesValue FLAT_ACCOUNT_PREFIX = BytesValue.of(0x10);
+  private static final BytesValue FLAT_ACCOUNT_STORAGE_PREFIX = BytesValue.of(0x11);
+  private static final BytesValue FLAT_STATE_KEYS_END = BytesValue.of(0x12);
+  private static final int FLAT_ACCOUNT_KEY_SIZE = 1 + Bytes32.SIZE;
+  private static final int FLAT_ACCOUNT_STORAGE_KEY_SIZE = 1 + 2 * Bytes32.SIZE;
+  // Persisted states the snapshot doesn't hold are kept so it can follow them if they become
+  // canonical, and the states it held last so it can be rolled back to follow a reorg.
+  private static final int MAX_PENDING_FLAT_STATE_LAYERS = 128;
+  private static final int MAX_APPLIED_FLAT_STATE_LAYERS = 64;
+
   private final KeyValueStorage keyValueStorage;
+  private final Subscribers<NodeAddedListener> nodeAddedListeners = new Subscribers<>();
+  // Updaters hold the read lock while notifying listeners and committing so that pruning, which
+  // holds the write lock while removing entries, can never remove a node that is being re-added.
+  private final ReadWriteLock pruneLock = new ReentrantReadWriteLock();
+  // Flat reads hold the read lock so the snapshot can't move to another state part way through.
+  // The layers and generation progress below are only accessed while holding this lock.
+  private final ReadWriteLock flatStateLock = new ReentrantReadWriteLock();
+  // A missing root means no flat values have been written yet, which is the empty state.
+  private volatile Bytes32 flatStateRoot;
+  private final Map<Bytes32, FlatStateLayer> pendingFlatStateLayers = new LinkedHashMap<>();
+  private final Deque<FlatStateLayer> appliedFlatStateLayers = new ArrayDeque<>();
+  private Optional<FlatStateGeneration> flatStateGeneration;
 
   public KeyValueStorageWorldStateStorage(final KeyValueStorage keyValueStorage) {
     this.keyValueStorage = keyValueStorage;
+    this.flatStateRoot =
+        keyValueStorage
+            .get(FLAT_STATE_ROOT_KEY)
+            .map(value -> Bytes32.wrap(value, 0))
+            .orElse(MerklePatriciaTrie.EMPTY_TRIE_NODE_HASH);
+    this.flatStateGeneration =
+        keyValueStorage.get(FLAT_STATE_GENERATION_KEY).map(FlatStateGeneration::decode);
   }
 
   @Override
@@ -67,21 +126,468 @@ public class KeyValueStorageWorldStateStorage implements WorldStateStorage {
     }
   }
 
+  @Override
+  public List<Optional<BytesValue>> getAllNodeData(final List<? extends Bytes32> hashes) {
+    final List<Optional<BytesValue>> nodeData = keyValueStorage.getAll(new ArrayList<>(hashes));
+    for (int i = 0; i < hashes.size(); i++) {
+      final Bytes32 hash = hashes.get(i);
+      if (hash.equals(MerklePatriciaTrie.EMPTY_TRIE_NODE_HASH) || hash.equals(Hash.EMPTY)) {
+        nodeData.set(i, getNodeData(hash));
+      }
+    }
+    return nodeData;
+  }
+
   @Override
   public boolean isWorldStateAvailable(final Bytes32 rootHash) {
     return getAccountStateTrieNode(rootHash).isPresent();
   }
 
+  @Override
+  public boolean isFlatStateAvailable(final Bytes32 rootHash) {
+    final Lock lock = flatStateLock.readLock();
+    lock.lock();
+    try {
+      Bytes32 layerRootHash = rootHash;
+      for (int depth = 0; !layerRootHash.equals(flatStateRoot); depth++) {
+        final FlatStateLayer layer = pendingFlatStateLayers.get(layerRootHash);
+        if (layer == null || depth >= MAX_PENDING_FLAT_STATE_LAYERS) {
+          return false;
+        }
+        layerRootHash = layer.parentRootHash;
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<BytesValue> getFlatAccount(final Bytes32 rootHash, final Bytes32 accountHash) {
+    return getFlatValue(rootHash, flatAccountKey(accountHash));
+  }
+
+  @Override
+  public Optional<BytesValue> getFlatAccountStorage(
+      final Bytes32 rootHash, final Bytes32 accountHash, final Bytes32 slotHash) {
+    return getFlatValue(rootHash, flatAccountStorageKey(accountHash, slotHash));
+  }
+
+  private Optional<BytesValue> getFlatValue(final Bytes32 rootHash, final BytesValue key) {
+    final Lock lock = flatStateLock.readLock();
+    lock.lock();
+    try {
+      // States persisted on top of the snapshot's state are read through their changes.
+      Bytes32 layerRootHash = rootHash;
+      for (int depth = 0; !layerRootHash.equals(flatStateRoot); depth++) {
+        final FlatStateLayer layer = pendingFlatStateLayers.get(layerRootHash);
+        if (layer == null || depth >= MAX_PENDING_FLAT_STATE_LAYERS) {
+          return Optional.empty();
+        }
+        final BytesValue value = layer.changes.get(key);
+        if (value != null) {
+          return Optional.of(value);
+        }
+        layerRootHash = layer.parentRootHash;
+      }
+      if (!isGenerated(key)) {
+        return Optional.empty();
+      }
+      return Optional.of(keyValueStorage.get(key).orElse(BytesValue.EMPTY));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean isGenerated(final BytesValue flatKey) {
+    return !flatStateGeneration.isPresent() || flatStateGeneration.get().isGenerated(flatKey);
+  }
+
+  @Override
+  public boolean moveFlatState(final Bytes32 rootHash) {
+    final Lock lock = flatStateLock.writeLock();
+    lock.lock();
+    try {
+      // Find the persisted states leading to the requested one from a state the snapshot holds or
+      // can be rolled back to.
+      final List<FlatStateLayer> forwardLayers = new ArrayList<>();
+      Bytes32 layerRootHash = rootHash;
+      while (!layerRootHash.equals(flatStateRoot) && !canRollBackTo(layerRootHash)) {
+        final FlatStateLayer layer = pendingFlatStateLayers.get(layerRootHash);
+        if (layer == null || forwardLayers.size() >= MAX_PENDING_FLAT_STATE_LAYERS) {
+          return false;
+        }
+        forwardLayers.add(layer);
+        layerRootHash = layer.parentRootHash;
+      }
+      Collections.reverse(forwardLayers);
+
+      final List<FlatStateLayer> rollbackLayers = new ArrayList<>();
+      final Iterator<FlatStateLayer> appliedLayers = appliedFlatStateLayers.descendingIterator();
+      while (!layerRootHash.equals(
+          rollbackLayers.isEmpty()
+              ? flatStateRoot
+              : rollbackLayers.get(rollbackLayers.size() - 1).parentRootHash)) {
+        rollbackLayers.add(appliedLayers.next());
+      }
+      if (!rollbackLayers.isEmpty() && flatStateGeneration.isPresent()) {
+        // Values not generated yet when a layer was applied can't be rolled back.
+        return false;
+      }
+
+      final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+      final List<Map<BytesValue, BytesValue>> previousValues =
+          writeFlatStateMove(transaction, rollbackLayers, forwardLayers, rootHash);
+      transaction.commit();
+      completeFlatStateMove(rollbackLayers, forwardLayers, previousValues, rootHash);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean canRollBackTo(final Bytes32 rootHash) {
+    return appliedFlatStateLayers.stream().anyMatch(layer -> layer.parentRootHash.equals(rootHash));
+  }
+
+  /**
+   * Writes the flat values of the state reached by rolling back the given applied layers, most
+   * recent first, and then applying the given layers.
+   *
+   * @return the values each of the forward layers replaces, so that it can be rolled back later
+   */
+  private List<Map<BytesValue, BytesValue>> writeFlatStateMove(
+      final KeyValueStorage.Transaction transaction,
+      final List<FlatStateLayer> rollbackLayers,
+      final List<FlatStateLayer> forwardLayers,
+      final Bytes32 rootHash) {
+    final Map<BytesValue, BytesValue> written = new HashMap<>();
+    rollbackLayers.forEach(layer -> written.putAll(layer.previousValues));
+    final List<Map<BytesValue, BytesValue>> previousValues = new ArrayList<>();
+    for (final FlatStateLayer layer : forwardLayers) {
+      final Map<BytesValue, BytesValue> changes =
+          flatStateGeneration.isPresent()
+              ? Maps.filterKeys(layer.changes, this::isGenerated)
+              : layer.changes;
+      previousValues.add(flatStateGeneration.isPresent() ? null : readValues(changes, written));
+      written.putAll(changes);
+    }
+    written.forEach(
+        (key, value) -> {
+          if (value.isEmpty()) {
+            transaction.remove(key);
+          } else {
+            transaction.put(key, value);
+          }
+        });
+    transaction.put(FLAT_STATE_ROOT_KEY, rootHash);
+    return previousValues;
+  }
+
+  private Map<BytesValue, BytesValue> readValues(
+      final Map<BytesValue, BytesValue> changes, final Map<BytesValue, BytesValue> written) {
+    final Map<BytesValue, BytesValue> values = new HashMap<>();
+    final List<BytesValue> keysToRead = new ArrayList<>();
+    for (final BytesValue key : changes.keySet()) {
+      final BytesValue value = written.get(key);
+      if (value != null) {
+        values.put(key, value);
+      } else {
+        keysToRead.add(key);
+      }
+    }
+    final List<Optional<BytesValue>> storedValues = keyValueStorage.getAll(keysToRead);
+    for (int i = 0; i < keysToRead.size(); i++) {
+      values.put(keysToRead.get(i), storedValues.get(i).orElse(BytesValue.EMPTY));
+    }
+    return values;
+  }
+
+  private void completeFlatStateMove(
+      final List<FlatStateLayer> rollbackLayers,
+      final List<FlatStateLayer> forwardLayers,
+      final List<Map<BytesValue, BytesValue>> previousValues,
+      final Bytes32 rootHash) {
+    for (final FlatStateLayer layer : rollbackLayers) {
+      appliedFlatStateLayers.removeLast();
+      layer.previousValues = null;
+      addPendingFlatStateLayer(layer);
+    }
+    for (int i = 0; i < forwardLayers.size(); i++) {
+      final FlatStateLayer layer = forwardLayers.get(i);
+      pendingFlatStateLayers.remove(layer.rootHash);
+      if (!flatStateGeneration.isPresent()) {
+        layer.previousValues = previousValues.get(i);
+        appliedFlatStateLayers.addLast(layer);
+        if (appliedFlatStateLayers.size() > MAX_APPLIED_FLAT_STATE_LAYERS) {
+          appliedFlatStateLayers.removeFirst();
+        }
+      }
+    }
+    flatStateRoot = rootHash;
+  }
+
+  private void addPendingFlatStateLayer(final FlatStateLayer layer) {
+    pendingFlatStateLayers.remove(layer.rootHash);
+    pendingFlatStateLayers.put(layer.rootHash, layer);
+    if (pendingFlatStateLayers.size() > MAX_PENDING_FLAT_STATE_LAYERS) {
+      final Iterator<FlatStateLayer> eldest = pendingFlatStateLayers.values().iterator();
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  @Override
+  public void startFlatStateGeneration(final Bytes32 rootHash) {
+    final Lock lock = flatStateLock.writeLock();
+    lock.lock();
+    try {
+      final FlatStateGeneration generation = FlatStateGeneration.wiping(Optional.empty());
+      final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+      transaction.put(FLAT_STATE_ROOT_KEY, rootHash);
+      transaction.put(FLAT_STATE_GENERATION_KEY, generation.encode());
+      transaction.commit();
+      flatStateGeneration = Optional.of(generation);
+      flatStateRoot = rootHash;
+      appliedFlatStateLayers.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isFlatStateGenerating() {
+    final Lock lock = flatStateLock.readLock();
+    lock.lock();
+    try {
+      return flatStateGeneration.isPresent();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean generateFlatState(final int batchSize) {
+    final Lock lock = flatStateLock.writeLock();
+    lock.lock();
+    try {
+      if (!flatStateGeneration.isPresent()) {
+        return false;
+      }
+      final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+      final FlatStateGeneration generation = flatStateGeneration.get();
+      final Optional<FlatStateGeneration> nextGeneration =
+          generation.wiping
+              ? removeFlatValues(transaction, generation.removedUpTo, batchSize)
+              : generateFlatAccounts(transaction, generation, batchSize);
+      if (nextGeneration.isPresent()) {
+        transaction.put(FLAT_STATE_GENERATION_KEY, nextGeneration.get().encode());
+      } else {
+        transaction.remove(FLAT_STATE_GENERATION_KEY);
+      }
+      transaction.commit();
+      flatStateGeneration = nextGeneration;
+      return nextGeneration.isPresent();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Optional<FlatStateGeneration> removeFlatValues(
+      final KeyValueStorage.Transaction transaction,
+      final Optional<BytesValue> removedUpTo,
+      final int batchSize) {
+    final List<BytesValue> keys;
+    try (final Stream<Entry> entries =
+        keyValueStorage.entries(removedUpTo.orElse(FLAT_ACCOUNT_PREFIX), FLAT_STATE_KEYS_END)) {
+      // Trie nodes and code are keyed by their hash, which can fall in the range of flat keys too.
+      keys =
+          entries
+              .map(Entry::getKey)
+              .filter(KeyValueStorageWorldStateStorage::isFlatKey)
+              .limit(batchSize)
+              .collect(Collectors.toList());
+    }
+    keys.forEach(transaction::remove);
+    return Optional.of(
+        keys.size() < batchSize
+            ? FlatStateGeneration.generatedUpTo(Optional.empty(), Optional.empty())
+            : FlatStateGeneration.wiping(Optional.of(keys.get(keys.size() - 1))));
+  }
+
+  private static boolean isFlatKey(final BytesValue key) {
+    if (key.get(0) == FLAT_ACCOUNT_PREFIX.get(0)) {
+      return key.size() == FLAT_ACCOUNT_KEY_SIZE;
+    }
+    return key.get(0) == FLAT_ACCOUNT_STORAGE_PREFIX.get(0)
+        && key.size() == FLAT_ACCOUNT_STORAGE_KEY_SIZE;
+  }
+
+  /**
+   * Writes the flat values of the next accounts and their storage, in order of account and slot
+   * hash, counting each account and storage slot towards the batch size so that the storage of a
+   * large contract is spread over several batches.
+   */
+  private Optional<FlatStateGeneration> generateFlatAccounts(
+      final KeyValueStorage.Transaction transaction,
+      final FlatStateGeneration generation,
+      final int batchSize) {
+    final MerklePatriciaTrie<Bytes32, BytesValue> accountStateTrie =
+        new StoredMerklePatriciaTrie<>(
+            this::getAccountStateTrieNode, flatStateRoot, b -> b, b -> b);
+    Optional<Bytes32> lastAccountHash = generation.generatedUpTo;
+    Optional<Bytes32> nextSlotHash = generation.nextSlotHash;
+    int remaining = batchSize;
+    while (remaining > 0) {
+      if (nextSlotHash.isPresent()) {
+        final Bytes32 accountHash = lastAccountHash.get();
+        final Bytes32 startSlotHash = nextSlotHash.get();
+        final int limit = remaining + 1;
+        // The account may have been removed by the states the snapshot moved to since
+        final Map<Bytes32, BytesValue> slots =
+            accountStateTrie
+                .get(accountHash)
+                .map(account -> storageTrie(account).entriesFrom(startSlotHash, limit))
+                .orElse(Collections.emptyMap());
+        nextSlotHash = Optional.empty();
+        for (final Map.Entry<Bytes32, BytesValue> slot : slots.entrySet()) {
+          if (remaining == 0) {
+            nextSlotHash = Optional.of(slot.getKey());
+            break;
+          }
+          transaction.put(flatAccountStorageKey(accountHash, slot.getKey()), slot.getValue());
+          remaining--;
+        }
+        continue;
+      }
+      final int requested = remaining + 1;
+      final Map<Bytes32, BytesValue> accounts =
+          accountStateTrie.entriesFrom(lastAccountHash.orElse(Bytes32.ZERO), requested);
+      boolean hasMoreAccounts = false;
+      for (final Map.Entry<Bytes32, BytesValue> account : accounts.entrySet()) {
+        if (lastAccountHash.isPresent() && account.getKey().equals(lastAccountHash.get())) {
+          continue;
+        }
+        if (remaining == 0 || nextSlotHash.isPresent()) {
+          hasMoreAccounts = true;
+          break;
+        }
+        transaction.put(flatAccountKey(account.getKey()), account.getValue());
+        remaining--;
+        lastAccountHash = Optional.of(account.getKey());
+        if (hasStorage(account.getValue())) {
+          nextSlotHash = Optional.of(Bytes32.ZERO);
+        }
+      }
+      if (!hasMoreAccounts && !nextSlotHash.isPresent() && accounts.size() < requested) {
+        return Optional.empty();
+      }
+    }
+    return Optional.of(FlatStateGeneration.generatedUpTo(lastAccountHash, nextSlotHash));
+  }
+
+  private static boolean hasStorage(final BytesValue account) {
+    return !StateTrieAccountValue.readFrom(RLP.input(account))
+        .getStorageRoot()
+        .equals(Hash.EMPTY_TRIE_HASH);
+  }
+
+  private MerklePatriciaTrie<Bytes32, BytesValue> storageTrie(final BytesValue account) {
+    return new StoredMerklePatriciaTrie<>(
+        this::getAccountStorageTrieNode,
+        StateTrieAccountValue.readFrom(RLP.input(account)).getStorageRoot(),
+        b -> b,
+        b -> b);
+  }
+
+  private static BytesValue flatAccountKey(final Bytes32 accountHash) {
+    return BytesValues.concatenate(FLAT_ACCOUNT_PREFIX, accountHash);
+  }
+
+  private static BytesValue flatAccountStorageKey(
+      final Bytes32 accountHash, final Bytes32 slotHash) {
+    return BytesValues.concatenate(FLAT_ACCOUNT_STORAGE_PREFIX, accountHash, slotHash);
+  }
+
   @Override
   public Updater updater() {
     return new Updater(keyValueStorage.startTransaction());
   }
 
-  public static class Updater implements WorldStateStorage.Updater {
+  @Override
+  public long prune(final Predicate<BytesValue> inUseCheck) {
+    final List<BytesValue> candidates = new ArrayList<>(PRUNE_BATCH_SIZE);
+    long prunedCount = 0;
+    try (final Stream<Entry> entries = keyValueStorage.entries()) {
+      final Iterator<Entry> iterator = entries.iterator();
+      while (iterator.hasNext()) {
+        final Entry entry = iterator.next();
+        if (!inUseCheck.test(entry.getKey()) && isWorldStateEntry(entry)) {
+          candidates.add(entry.getKey());
+        }
+        if (candidates.size() >= PRUNE_BATCH_SIZE) {
+          prunedCount += removeUnused(candidates, inUseCheck);
+          candidates.clear();
+        }
+      }
+    }
+    prunedCount += removeUnused(candidates, inUseCheck);
+    return prunedCount;
+  }
+
+  /**
+   * World state nodes and code share the key space with other data, but are always stored keyed by
+   * the hash of their value.
+   */
+  private boolean isWorldStateEntry(final Entry entry) {
+    return entry.getKey().size() == Bytes32.SIZE
+        && Hash.hash(entry.getValue()).equals(entry.getKey());
+  }
+
+  private long removeUnused(
+      final List<BytesValue> candidates, final Predicate<BytesValue> inUseCheck) {
+    if (candidates.isEmpty()) {
+      return 0;
+    }
+    final Lock lock = pruneLock.writeLock();
+    lock.lock();
+    try {
+      // Nodes may have been re-added since they were selected, so check again under the lock.
+      long removedCount = 0;
+      final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+      for (final BytesValue key : candidates) {
+        if (!inUseCheck.test(key)) {
+          transaction.remove(key);
+          removedCount++;
+        }
+      }
+      transaction.commit();
+      return removedCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long addNodeAddedListener(final NodeAddedListener listener) {
+    return nodeAddedListeners.subscribe(listener);
+  }
+
+  @Override
+  public void removeNodeAddedListener(final long id) {
+    nodeAddedListeners.unsubscribe(id);
+  }
+
+  public class Updater implements WorldStateStorage.Updater {
 
     private final KeyValueStorage.Transaction transaction;
+    private final List<Bytes32> addedNodes = new ArrayList<>();
+    // Removed flat values are recorded as empty values, which are never stored.
+    private final Map<BytesValue, BytesValue> flatUpdates = new LinkedHashMap<>();
+    private Optional<Bytes32> flatParentRootHash = Optional.empty();
+    private Bytes32 flatRootHash;
 
-    public Updater(final KeyValueStorage.Transaction transaction) {
+    Updater(final KeyValueStorage.Transaction transaction) {
       this.transaction = transaction;
     }
 
@@ -91,6 +597,7 @@ public class KeyValueStorageWorldStateStorage implements WorldStateStorage {
         // Don't save empty values
         return this;
       }
+      addedNodes.add(codeHash);
       transaction.put(codeHash, code);
       return this;
     }
@@ -101,6 +608,7 @@ public class KeyValueStorageWorldStateStorage implements WorldStateStorage {
         // Don't save empty nodes
         return this;
       }
+      addedNodes.add(nodeHash);
       transaction.put(nodeHash, node);
       return this;
     }
@@ -111,18 +619,180 @@ public class KeyValueStorageWorldStateStorage implements WorldStateStorage {
         // Don't save empty nodes
         return this;
       }
+      addedNodes.add(nodeHash);
       transaction.put(nodeHash, node);
       return this;
     }
 
+    @Override
+    public Updater putFlatAccount(final Bytes32 accountHash, final BytesValue account) {
+      flatUpdates.put(flatAccountKey(accountHash), account);
+      return this;
+    }
+
+    @Override
+    public Updater removeFlatAccount(final Bytes32 accountHash) {
+      flatUpdates.put(flatAccountKey(accountHash), BytesValue.EMPTY);
+      return this;
+    }
+
+    @Override
+    public Updater putFlatAccountStorage(
+        final Bytes32 accountHash, final Bytes32 slotHash, final BytesValue value) {
+      flatUpdates.put(flatAccountStorageKey(accountHash, slotHash), value);
+      return this;
+    }
+
+    @Override
+    public Updater removeFlatAccountStorage(final Bytes32 accountHash, final Bytes32 slotHash) {
+      flatUpdates.put(flatAccountStorageKey(accountHash, slotHash), BytesValue.EMPTY);
+      return this;
+    }
+
+    @Override
+    public Updater advanceFlatState(final Bytes32 parentRootHash, final Bytes32 rootHash) {
+      this.flatParentRootHash = Optional.of(parentRootHash);
+      this.flatRootHash = rootHash;
+      return this;
+    }
+
     @Override
     public void commit() {
-      transaction.commit();
+      final Lock lock = pruneLock.readLock();
+      lock.lock();
+      try {
+        nodeAddedListeners.forEach(listener -> listener.onNodesAdded(addedNodes));
+        if (flatParentRootHash.isPresent()) {
+          commitWithFlatState(
+              new FlatStateLayer(flatParentRootHash.get(), flatRootHash, flatUpdates));
+        } else {
+          transaction.commit();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void commitWithFlatState(final FlatStateLayer layer) {
+      final Lock lock = flatStateLock.writeLock();
+      lock.lock();
+      try {
+        if (layer.parentRootHash.equals(flatStateRoot)) {
+          final List<FlatStateLayer> forwardLayers = Collections.singletonList(layer);
+          final List<Map<BytesValue, BytesValue>> previousValues =
+              writeFlatStateMove(
+                  transaction, Collections.emptyList(), forwardLayers, layer.rootHash);
+          transaction.commit();
+          completeFlatStateMove(
+              Collections.emptyList(), forwardLayers, previousValues, layer.rootHash);
+        } else {
+          // Keep the changes in case the state becomes canonical and the snapshot moves to it.
+          transaction.commit();
+          addPendingFlatStateLayer(layer);
+        }
+      } finally {
+        lock.unlock();
+      }
     }
 
     @Override
     public void rollback() {
+      addedNodes.clear();
+      flatUpdates.clear();
       transaction.rollback();
     }
   }
+
+  /** The flat changes from one persisted state to another. */
+  private static class FlatStateLayer {
+    private final Bytes32 parentRootHash;
+    private final Bytes32 rootHash;
+    // Removed values are recorded as empty values, which are never stored.
+    private final Map<BytesValue, BytesValue> changes;
+    // The values replaced when the layer was applied to the snapshot, while it is applied.
+    private Map<BytesValue, BytesValue> previousValues;
+
+    private FlatStateLayer(
+        final Bytes32 parentRootHash,
+        final Bytes32 rootHash,
+        final Map<BytesValue, BytesValue> changes) {
+      this.parentRootHash = parentRootHash;
+      this.rootHash = rootHash;
+      this.changes = changes;
+    }
+  }
+
+  /**
+   * The progress of generating the snapshot from the trie, which first removes all flat values and
+   * then writes those of each account in order of account hash, followed by its storage in order of
+   * slot hash.
+   */
+  private static class FlatStateGeneration {
+    private final boolean wiping;
+    // The last flat key removed while wiping, which the next batch starts from.
+    private final Optional<BytesValue> removedUpTo;
+    // The last account written.
+    private final Optional<Bytes32> generatedUpTo;
+    // The first storage slot of the last account written that hasn't been written yet, if any.
+    private final Optional<Bytes32> nextSlotHash;
+
+    private FlatStateGeneration(
+        final boolean wiping,
+        final Optional<BytesValue> removedUpTo,
+        final Optional<Bytes32> generatedUpTo,
+        final Optional<Bytes32> nextSlotHash) {
+      this.wiping = wiping;
+      this.removedUpTo = removedUpTo;
+      this.generatedUpTo = generatedUpTo;
+      this.nextSlotHash = nextSlotHash;
+    }
+
+    static FlatStateGeneration wiping(final Optional<BytesValue> removedUpTo) {
+      return new FlatStateGeneration(true, removedUpTo, Optional.empty(), Optional.empty());
+    }
+
+    static FlatStateGeneration generatedUpTo(
+        final Optional<Bytes32> accountHash, final Optional<Bytes32> nextSlotHash) {
+      return new FlatStateGeneration(false, Optional.empty(), accountHash, nextSlotHash);
+    }
+
+    boolean isGenerated(final BytesValue flatKey) {
+      if (wiping || !generatedUpTo.isPresent()) {
+        return false;
+      }
+      final int comparison = Bytes32.wrap(flatKey, 1).compareTo(generatedUpTo.get());
+      if (comparison != 0 || flatKey.size() == FLAT_ACCOUNT_KEY_SIZE) {
+        return comparison <= 0;
+      }
+      final Bytes32 slotHash = Bytes32.wrap(flatKey, 1 + Bytes32.SIZE);
+      return nextSlotHash.map(next -> slotHash.compareTo(next) < 0).orElse(true);
+    }
+
+    BytesValue encode() {
+      if (wiping) {
+        return removedUpTo
+            .map(key -> BytesValues.concatenate(BytesValue.of(0), key))
+            .orElse(BytesValue.of(0));
+      }
+      BytesValue encoded = BytesValue.of(1);
+      if (generatedUpTo.isPresent()) {
+        encoded = BytesValues.concatenate(encoded, generatedUpTo.get());
+      }
+      if (nextSlotHash.isPresent()) {
+        encoded = BytesValues.concatenate(encoded, nextSlotHash.get());
+      }
+      return encoded;
+    }
+
+    static FlatStateGeneration decode(final BytesValue value) {
+      if (value.get(0) == 0) {
+        return wiping(value.size() > 1 ? Optional.of(value.slice(1)) : Optional.empty());
+      }
+      return generatedUpTo(
+          value.size() > 1 ? Optional.of(Bytes32.wrap(value, 1)) : Optional.empty(),
+          value.size() > 1 + Bytes32.SIZE
+              ? Optional.of(Bytes32.wrap(value, 1 + Bytes32.SIZE))
+              : Optional.empty());
+    }
+  }
 }
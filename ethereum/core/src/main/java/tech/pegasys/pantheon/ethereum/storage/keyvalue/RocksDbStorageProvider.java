@@ -12,22 +12,84 @@
  */
 package tech.pegasys.pantheon.ethereum.storage.keyvalue;
 
+import static tech.pegasys.pantheon.services.kvstore.RocksDbColumnFamily.AccessPattern.APPEND_MOSTLY;
+import static tech.pegasys.pantheon.services.kvstore.RocksDbColumnFamily.AccessPattern.RANDOM_READS;
+
 import tech.pegasys.pantheon.ethereum.storage.StorageProvider;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.RocksDbColumnFamily;
 import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
 import tech.pegasys.pantheon.services.kvstore.RocksDbKeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class RocksDbStorageProvider {
 
+  // Trie nodes and code share a column family as node data requests look both up by hash alone.
+  static final RocksDbColumnFamily WORLD_STATE =
+      new RocksDbColumnFamily("world-state", RANDOM_READS);
+  static final RocksDbColumnFamily FLAT_STATE = new RocksDbColumnFamily("flat-state", RANDOM_READS);
+  static final RocksDbColumnFamily BLOCK_HEADERS =
+      new RocksDbColumnFamily("block-headers", APPEND_MOSTLY);
+  static final RocksDbColumnFamily BLOCK_BODIES =
+      new RocksDbColumnFamily("block-bodies", APPEND_MOSTLY);
+  static final RocksDbColumnFamily TRANSACTION_RECEIPTS =
+      new RocksDbColumnFamily("transaction-receipts", APPEND_MOSTLY);
+  static final RocksDbColumnFamily BLOCKCHAIN_INDEXES =
+      new RocksDbColumnFamily("blockchain-indexes", RANDOM_READS);
+  static final RocksDbColumnFamily LOG_INDEX = new RocksDbColumnFamily("log-index", APPEND_MOSTLY);
+
+  private static final List<RocksDbColumnFamily> WORLD_STATE_COLUMN_FAMILIES =
+      Arrays.asList(WORLD_STATE, FLAT_STATE);
+  private static final List<RocksDbColumnFamily> BLOCKCHAIN_COLUMN_FAMILIES =
+      Arrays.asList(BLOCK_HEADERS, BLOCK_BODIES, TRANSACTION_RECEIPTS, BLOCKCHAIN_INDEXES);
+
   public static StorageProvider create(
       final RocksDbConfiguration rocksDbConfiguration, final MetricsSystem metricsSystem)
       throws IOException {
     Files.createDirectories(rocksDbConfiguration.getDatabaseDir());
-    final KeyValueStorage kv = RocksDbKeyValueStorage.create(rocksDbConfiguration, metricsSystem);
-    return new KeyValueStorageProvider(kv);
+    final RocksDbKeyValueStorage kv =
+        RocksDbKeyValueStorage.create(
+            rocksDbConfiguration,
+            Arrays.asList(
+                WORLD_STATE,
+                FLAT_STATE,
+                BLOCK_HEADERS,
+                BLOCK_BODIES,
+                TRANSACTION_RECEIPTS,
+                BLOCKCHAIN_INDEXES,
+                LOG_INDEX),
+            metricsSystem);
+    return new KeyValueStorageProvider(
+        kv.columnFamilyView(BLOCKCHAIN_COLUMN_FAMILIES, RocksDbStorageProvider::blockchainColumn),
+        kv.columnFamilyView(WORLD_STATE_COLUMN_FAMILIES, RocksDbStorageProvider::worldStateColumn),
+        kv,
+        kv.columnFamilyView(Collections.singletonList(LOG_INDEX), key -> LOG_INDEX));
+  }
+
+  static RocksDbColumnFamily blockchainColumn(final BytesValue key) {
+    final BytesValue prefix = key.slice(0, 1);
+    if (prefix.equals(KeyValueStoragePrefixedKeyBlockchainStorage.BLOCK_HEADER_PREFIX)) {
+      return BLOCK_HEADERS;
+    } else if (prefix.equals(KeyValueStoragePrefixedKeyBlockchainStorage.BLOCK_BODY_PREFIX)) {
+      return BLOCK_BODIES;
+    } else if (prefix.equals(
+        KeyValueStoragePrefixedKeyBlockchainStorage.TRANSACTION_RECEIPTS_PREFIX)) {
+      return TRANSACTION_RECEIPTS;
+    } else {
+      return BLOCKCHAIN_INDEXES;
+    }
+  }
+
+  static RocksDbColumnFamily worldStateColumn(final BytesValue key) {
+    // Trie nodes and code are keyed by their hash, while flat state keys are all longer or shorter.
+    return key.size() == Bytes32.SIZE ? WORLD_STATE : FLAT_STATE;
   }
 }
@@ -12,11 +12,13 @@
  */
 package tech.pegasys.pantheon.ethereum.vm;
 
+import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.vm.operations.JumpDestOperation;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.BitSet;
+import java.util.Optional;
 
 import com.google.common.base.MoreObjects;
 
@@ -26,6 +28,9 @@ public class Code {
   /** The bytes representing the code. */
   private final BytesValue bytes;
 
+  /** The hash of the code, if it is the code of an account. */
+  private final Optional<Hash> codeHash;
+
   /** Used to cache valid jump destinations. */
   private BitSet validJumpDestinations;
 
@@ -36,6 +41,19 @@ public class Code {
    */
   public Code(final BytesValue bytes) {
     this.bytes = bytes;
+    this.codeHash = Optional.empty();
+  }
+
+  /**
+   * Creates the code of an account, whose analysis is shared through the {@link CodeCache} of the
+   * EVM executing it.
+   *
+   * @param bytes The byte representation of the code.
+   * @param codeHash The hash of the code.
+   */
+  public Code(final BytesValue bytes, final Hash codeHash) {
+    this.bytes = bytes;
+    this.codeHash = Optional.of(codeHash);
   }
 
   public Code() {
@@ -82,19 +100,27 @@ public class Code {
     if (jumpDestination > getSize()) return false;
 
     if (validJumpDestinations == null) {
-      // Calculate valid jump destinations
-      validJumpDestinations = new BitSet(getSize());
-      evm.forEachOperation(
-          this,
-          (final Operation op, final Integer offset) -> {
-            if (op.getOpcode() == JumpDestOperation.OPCODE) {
-              validJumpDestinations.set(offset);
-            }
-          });
+      validJumpDestinations =
+          codeHash.isPresent()
+              ? evm.getCodeCache()
+                  .getValidJumpDestinations(codeHash.get(), () -> calculateJumpDestinations(evm))
+              : calculateJumpDestinations(evm);
     }
     return validJumpDestinations.get(jumpDestination);
   }
 
+  private BitSet calculateJumpDestinations(final EVM evm) {
+    final BitSet jumpDestinations = new BitSet(getSize());
+    evm.forEachOperation(
+        this,
+        (final Operation op, final Integer offset) -> {
+          if (op.getOpcode() == JumpDestOperation.OPCODE) {
+            jumpDestinations.set(offset);
+          }
+        });
+    return jumpDestinations;
+  }
+
   public BytesValue getBytes() {
     return bytes;
   }
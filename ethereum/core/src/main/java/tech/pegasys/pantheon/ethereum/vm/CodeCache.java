@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import java.util.BitSet;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the jump destination analysis of contract code by code hash, so contracts called in many
+ * transactions are only analysed once rather than for every message call.
+ *
+ * <p>Code is immutable for a given hash and the analysis only depends on which bytes are PUSH data,
+ * which is the same in every milestone, so a single cache is shared by the EVMs of every milestone
+ * in a protocol schedule.
+ */
+public class CodeCache {
+
+  public static final long DEFAULT_CACHE_SIZE_BYTES = 16 * 1024 * 1024;
+  // Approximate memory used by each cache entry on top of the bit set words.
+  private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+  private final Cache<Hash, BitSet> jumpDestinations;
+  private volatile Counter hitCounter = NoOpMetricsSystem.NO_OP_COUNTER;
+  private volatile Counter missCounter = NoOpMetricsSystem.NO_OP_COUNTER;
+
+  public CodeCache(final long cacheSizeBytes) {
+    jumpDestinations =
+        CacheBuilder.newBuilder()
+            .maximumWeight(cacheSizeBytes)
+            .weigher((final Hash hash, final BitSet bits) -> weigh(bits))
+            .build();
+  }
+
+  public void registerMetrics(final MetricsSystem metricsSystem) {
+    hitCounter =
+        metricsSystem.createCounter(
+            MetricCategory.EVM,
+            "code_cache_hits_total",
+            "Total number of contract code analyses found in the cache");
+    missCounter =
+        metricsSystem.createCounter(
+            MetricCategory.EVM,
+            "code_cache_misses_total",
+            "Total number of contract code analyses computed because they were not cached");
+    metricsSystem.createLongGauge(
+        MetricCategory.EVM,
+        "code_cache_entries",
+        "Number of contract code analyses held by the cache",
+        jumpDestinations::size);
+  }
+
+  /**
+   * Returns the valid jump destinations of the code with the given hash, analysing the code if they
+   * are not cached.
+   *
+   * @param codeHash the hash of the code
+   * @param analyser computes the valid jump destinations of the code
+   * @return the valid jump destinations, which must not be modified
+   */
+  BitSet getValidJumpDestinations(final Hash codeHash, final Supplier<BitSet> analyser) {
+    final BitSet cached = jumpDestinations.getIfPresent(codeHash);
+    if (cached != null) {
+      hitCounter.inc();
+      return cached;
+    }
+    missCounter.inc();
+    final BitSet analysed = analyser.get();
+    jumpDestinations.put(codeHash, analysed);
+    return analysed;
+  }
+
+  private static int weigh(final BitSet bits) {
+    return bits.size() / Byte.SIZE + ENTRY_OVERHEAD_BYTES;
+  }
+}
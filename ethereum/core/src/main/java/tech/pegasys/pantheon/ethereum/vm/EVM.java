@@ -19,6 +19,7 @@ import tech.pegasys.pantheon.ethereum.core.Gas;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame.State;
 import tech.pegasys.pantheon.ethereum.vm.ehalt.ExceptionalHaltException;
 import tech.pegasys.pantheon.ethereum.vm.ehalt.ExceptionalHaltManager;
+import tech.pegasys.pantheon.ethereum.vm.ehalt.StackOverflowExceptionalHaltPredicate;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.EnumSet;
@@ -31,18 +32,53 @@ public class EVM {
   private static final Logger LOG = getLogger();
 
   private static final int STOP_OPCODE = 0x00;
-  private final OperationRegistry operations;
-  private final Operation invalidOperation;
+  private static final int INVALID_OPCODE = 0xfe;
+  private static final int NUM_OPCODES = 256;
+
+  private final Operation stopOperation;
+  private final CodeCache codeCache;
+
+  // Per opcode tables, resolved once so the untraced loop only does array lookups: the operation
+  // (invalidOperation for undefined opcodes), and the stack sizes it can execute with. An opcode
+  // that always halts exceptionally gets an empty stack size range.
+  private final Operation[] operationTable = new Operation[NUM_OPCODES];
+  private final int[] minStackSize = new int[NUM_OPCODES];
+  private final int[] maxStackSize = new int[NUM_OPCODES];
+
+  public EVM(
+      final OperationRegistry operations,
+      final Operation invalidOperation,
+      final CodeCache codeCache) {
+    this.stopOperation = operations.get(STOP_OPCODE);
+    this.codeCache = codeCache;
+    for (int opcode = 0; opcode < NUM_OPCODES; opcode++) {
+      final Operation operation = operations.getOrDefault((byte) opcode, invalidOperation);
+      operationTable[opcode] = operation;
+      if (operation.getOpcode() == INVALID_OPCODE) {
+        minStackSize[opcode] = Integer.MAX_VALUE;
+        maxStackSize[opcode] = Integer.MIN_VALUE;
+      } else {
+        minStackSize[opcode] = operation.getStackItemsConsumed();
+        maxStackSize[opcode] =
+            StackOverflowExceptionalHaltPredicate.MAX_STACK_SIZE - operation.getStackSizeChange();
+      }
+    }
+  }
 
-  public EVM(final OperationRegistry operations, final Operation invalidOperation) {
-    this.operations = operations;
-    this.invalidOperation = invalidOperation;
+  public CodeCache getCodeCache() {
+    return codeCache;
   }
 
   public void runToHalt(final MessageFrame frame, final OperationTracer operationTracer)
       throws ExceptionalHaltException {
-    while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
-      executeNextOperation(frame, operationTracer);
+    if (operationTracer == OperationTracer.NO_TRACING) {
+      while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
+        executeNextOperationUntraced(frame);
+      }
+    } else {
+      while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
+        executeNextOperation(frame, operationTracer);
+      }
     }
   }
 
@@ -75,6 +111,47 @@ public class EVM {
         });
   }
 
+  /**
+   * Executes the next operation without tracing, checking the common case of an operation that
+   * doesn't halt without allocating. Anything that may halt exceptionally, or whose gas cost can't
+   * be computed, goes through {@link #executeNextOperation} so the halt reasons are exactly the
+   * same as when tracing.
+   */
+  private void executeNextOperationUntraced(final MessageFrame frame)
+      throws ExceptionalHaltException {
+    final int opcode = opcodeAtOffset(frame.getCode(), frame.getPC());
+    final Operation operation = operationTable[opcode];
+    final int stackSize = frame.stackSize();
+    if (stackSize < minStackSize[opcode] || stackSize > maxStackSize[opcode]) {
+      executeNextOperation(frame, OperationTracer.NO_TRACING);
+      return;
+    }
+
+    frame.setCurrentOperation(operation);
+    final Gas cost;
+    try {
+      cost = operation.cost(frame);
+    } catch (final IllegalArgumentException e) {
+      executeNextOperation(frame, OperationTracer.NO_TRACING);
+      return;
+    }
+    if (cost == null
+        || frame.getRemainingGas().compareTo(cost) < 0
+        || operation
+            .exceptionalHaltCondition(frame, frame.getExceptionalHaltReasons(), this)
+            .isPresent()) {
+      executeNextOperation(frame, OperationTracer.NO_TRACING);
+      return;
+    }
+
+    if (LOG.isTraceEnabled()) {
+      logState(frame, Optional.of(cost));
+    }
+    frame.decrementRemainingGas(cost);
+    operation.execute(frame);
+    incrementProgramCounter(frame);
+  }
+
   private void evaluateExceptionalHaltReasons(final MessageFrame frame) {
     final EnumSet<ExceptionalHaltReason> haltReasons =
         ExceptionalHaltManager.evaluateAll(frame, this);
@@ -139,9 +216,15 @@ public class EVM {
     final BytesValue bytecode = code.getBytes();
     // If the length of the program code is shorter than the required offset, halt execution.
     if (offset >= bytecode.size()) {
-      return operations.get(STOP_OPCODE);
+      return stopOperation;
     }
 
-    return operations.getOrDefault(bytecode.get(offset), invalidOperation);
+    return operationTable[bytecode.get(offset) & 0xff];
+  }
+
+  private static int opcodeAtOffset(final Code code, final int offset) {
+    final BytesValue bytecode = code.getBytes();
+    // If the length of the program code is shorter than the required offset, halt execution.
+    return offset >= bytecode.size() ? STOP_OPCODE : bytecode.get(offset) & 0xff;
   }
 }
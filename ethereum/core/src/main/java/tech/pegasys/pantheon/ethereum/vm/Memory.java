@@ -15,17 +15,13 @@ package tech.pegasys.pantheon.ethereum.vm;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.bytes.BytesValues;
-import tech.pegasys.pantheon.util.bytes.MutableBytes32;
 import tech.pegasys.pantheon.util.bytes.MutableBytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 import tech.pegasys.pantheon.util.uint.UInt256Value;
 import tech.pegasys.pantheon.util.uint.UInt256s;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.Objects;
-
-import com.google.common.base.Joiner;
+import java.util.Arrays;
 
 /**
  * A EVM memory implementation.
@@ -36,50 +32,29 @@ import com.google.common.base.Joiner;
 public class Memory {
 
   // See below.
-  private static final long MAX_BYTES = 32L * Integer.MAX_VALUE;
+  private static final int MAX_BYTES = (Integer.MAX_VALUE / Bytes32.SIZE) * Bytes32.SIZE;
 
   /**
    * The data stored within the memory.
    *
-   * <p>Note that the current Ethereum spec don't put a limit on memory, so we could theoretically
-   * overflow this. That said we can already store up to 64GB and:
-   *
-   * <ul>
-   *   <li>that's 64GB of underlying bytes, but *a lot* more physical memory use in practice,
-   *       because ... Java; worth testing but I suspect all but the beefiest servers would OOM
-   *       before we come close to his in the first place.
-   *   <li>the price of a transaction needing more than that is likely prohibitive.
-   * </ul>
-   *
-   * So this is likely a reasonable limitation, at least at first (and possibly ever if I'm to bet).
-   */
-  /*
-   * Implementation note: using an array of word have a bunch of advantages: - it can make
-   * expansions cheaper (less bytes to copy on resize). - it makes word-related operations simple. -
-   * it's an easy way to put a higher limit on addressable memory (Integer.MAX_VALUE word is 32
-   * times more capacity than Integer.MAX_VALUE bytes). but it's not without downsides either: -
-   * non-word aligned operations (on more than 1 byte) are currently more expansive (could be
-   * improved, but with more works). - sequential access, even word-aligned, might be slower than if
-   * we allocated larger byte arrays underneath due to cache effects. This is likely good enough
-   * initially, but a page-based design (with a page being X word, X to be determined) could be
-   * worth exploring as a future improvement.
+   * <p>Memory is a single contiguous array, so that reads and writes of any alignment and length
+   * are a single bulk copy. Its capacity grows geometrically ahead of the active bytes, and bytes
+   * past the active ones are always zero.
    *
-   * Lastly note that we may want to share the underlying implementation with the VM Stack: the
-   * stack is really just growable memory that is grown/accessed from the end and on by fully word,
-   * but the same page-based design probably make sense.
+   * <p>Note that the current Ethereum spec don't put a limit on memory, but a single array limits
+   * us to a bit less than 2GB. The memory expansion gas cost of that much memory is far above any
+   * realistic block gas limit, so this is not a limitation in practice.
    */
-  private final ArrayList<MutableBytes32> data;
+  private byte[] data;
 
-  // Really data.size(), but cached as a UInt256 to avoid recomputing it each time.
+  // The number of active bytes, always a multiple of the word size.
+  private int activeBytes;
+
+  // Really activeBytes / 32, but cached as a UInt256 to avoid recomputing it each time.
   private UInt256 activeWords = UInt256.ZERO;
 
   public Memory() {
-    this(new ArrayList<>());
-  }
-
-  private Memory(final ArrayList<MutableBytes32> data) {
-    this.data = data;
-    this.activeWords = UInt256.of(data.size());
+    this.data = new byte[0];
   }
 
   private static RuntimeException overflow(final long v) {
@@ -99,11 +74,11 @@ public class Memory {
     if (v < 0 || v >= MAX_BYTES) throw overflow(v);
   }
 
-  private long asByteIndex(final UInt256 w) {
+  private int asByteIndex(final UInt256 w) {
     try {
       final long v = w.toLong();
       checkByteIndex(v);
-      return v;
+      return (int) v;
     } catch (final IllegalStateException e) {
       throw overflow(w.toString());
     }
@@ -111,25 +86,12 @@ public class Memory {
 
   private static int asByteLength(final UInt256 l) {
     try {
-      // While we can theoretically support up to 32 * Integer.MAX_VALUE due to storing words, and
-      // so an index in memory need to be a long internally, we simply cannot load/store more than
-      // Integer.MAX_VALUE bytes at a time (BytesValue has an int size).
       return l.toInt();
     } catch (final IllegalStateException e) {
       throw overflow(l.toString());
     }
   }
 
-  private int wordForByte(final long byteIndex) {
-    checkByteIndex(byteIndex);
-    return (int) (byteIndex / Bytes32.SIZE);
-  }
-
-  private int indexInWord(final long byteIndex) {
-    checkByteIndex(byteIndex);
-    return (int) (byteIndex - ((byteIndex / Bytes32.SIZE) * Bytes32.SIZE));
-  }
-
   /**
    * For use in memoryExpansionGasCost() of GasCost. Returns the number of new active words that
    * accommodate at least the number of specified bytes from the provide memory offset.
@@ -153,7 +115,7 @@ public class Memory {
       final long byteSize = (long) location.toInt() + (long) numBytes.toInt();
       int wordSize = (int) (byteSize / Bytes32.SIZE);
       if (byteSize % Bytes32.SIZE != 0) wordSize += 1;
-      return wordSize > data.size() ? UInt256.of(wordSize) : activeWords;
+      return wordSize > activeBytes / Bytes32.SIZE ? UInt256.of(wordSize) : activeWords;
     } else {
       // Slow, rare path
 
@@ -183,25 +145,26 @@ public class Memory {
     if (numBytes == 0) {
       return;
     }
-    final int lastWordRequired = wordForByte(address + numBytes - 1);
-    maybeExpandCapacity(lastWordRequired + 1);
+    final long lastByteRequired = address + numBytes - 1;
+    checkByteIndex(lastByteRequired);
+    maybeExpandCapacity((int) (lastByteRequired / Bytes32.SIZE + 1) * Bytes32.SIZE);
   }
 
   /**
-   * Expands the memory to the specified number of active words.
+   * Expands the memory to the specified number of active bytes.
    *
-   * @param newActiveWords The new number of active words to expand to.
+   * @param newActiveBytes The new number of active bytes to expand to, a multiple of the word size.
    */
-  private void maybeExpandCapacity(final int newActiveWords) {
-    if (data.size() >= newActiveWords) return;
-
-    // Require full capacity to guarantee we don't resize more than once.
-    data.ensureCapacity(newActiveWords);
-    final int toAdd = newActiveWords - data.size();
-    for (int i = 0; i < toAdd; i++) {
-      data.add(MutableBytes32.create());
+  private void maybeExpandCapacity(final int newActiveBytes) {
+    if (activeBytes >= newActiveBytes) return;
+
+    if (data.length < newActiveBytes) {
+      // Grow geometrically so a sequence of small expansions doesn't copy memory each time.
+      final long doubled = 2L * data.length;
+      data = Arrays.copyOf(data, (int) Math.min(MAX_BYTES, Math.max(doubled, newActiveBytes)));
     }
-    this.activeWords = UInt256.of(data.size());
+    activeBytes = newActiveBytes;
+    activeWords = UInt256.of(activeBytes / Bytes32.SIZE);
   }
 
   /**
@@ -217,12 +180,16 @@ public class Memory {
     if (!(other instanceof Memory)) return false;
 
     final Memory that = (Memory) other;
-    return this.data.equals(that.data);
+    return this.activeBytes == that.activeBytes && activeData().equals(that.activeData());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(data);
+    return activeData().hashCode();
+  }
+
+  private BytesValue activeData() {
+    return BytesValue.wrap(data, 0, activeBytes);
   }
 
   /**
@@ -231,7 +198,7 @@ public class Memory {
    * @return The current number of active bytes stored in memory.
    */
   public long getActiveBytes() {
-    return (long) data.size() * Bytes32.SIZE;
+    return activeBytes;
   }
 
   /**
@@ -261,40 +228,33 @@ public class Memory {
       return BytesValue.EMPTY;
     }
 
-    final long start = asByteIndex(location);
+    final int start = asByteIndex(location);
 
     ensureCapacityForBytes(start, length);
+    return BytesValue.wrap(Arrays.copyOfRange(data, start, start + length));
+  }
 
-    // Index of last byte to set.
-    final long end = start + length - 1;
-
-    final int startWord = wordForByte(start);
-    final int idxInStart = indexInWord(start);
-    final int endWord = wordForByte(end);
-    final int idxInEnd = indexInWord(end);
-
-    if (startWord == endWord) {
-      // Bytes within a word, fast-path.
-      final MutableBytesValue bytes = data.get(startWord);
-      return idxInStart == 0 && length == Bytes32.SIZE
-          ? bytes.copy()
-          : bytes.slice(idxInStart, length).copy();
+  /**
+   * Returns a view of bytes from memory, without copying them.
+   *
+   * <p>The returned value reflects any later write to the same range of memory and keeps the whole
+   * memory reachable, so this must only be used for bytes that are not kept once read.
+   *
+   * @param location The location in memory to start with.
+   * @param numBytes The number of bytes to get.
+   * @return The bytes from memory starting at {@code location} and extending {@code numBytes}.
+   */
+  public BytesValue getBytesWithoutCopy(final UInt256 location, final UInt256 numBytes) {
+    // See getBytes for why we check length == 0 first, before calling asByteIndex(location).
+    final int length = asByteLength(numBytes);
+    if (length == 0) {
+      return BytesValue.EMPTY;
     }
 
-    // Spans multiple word, slower path.
-    final int bytesInStartWord = Bytes32.SIZE - idxInStart;
-    final int bytesInEndWord = idxInEnd + 1;
-
-    final MutableBytesValue result = MutableBytesValue.create(length);
-    int resultIdx = 0;
-    data.get(startWord).slice(idxInStart).copyTo(result, resultIdx);
-    resultIdx += bytesInStartWord;
-    for (int i = startWord + 1; i < endWord; i++) {
-      data.get(i).copyTo(result, resultIdx);
-      resultIdx += Bytes32.SIZE;
-    }
-    data.get(endWord).slice(0, bytesInEndWord).copyTo(result, resultIdx);
-    return result;
+    final int start = asByteIndex(location);
+
+    ensureCapacityForBytes(start, length);
+    return BytesValue.wrap(data, start, length);
   }
 
   /**
@@ -355,51 +315,22 @@ public class Memory {
       return;
     }
 
-    final long start = asByteIndex(location);
+    final int start = asByteIndex(location);
     final int length = asByteLength(numBytes);
 
     ensureCapacityForBytes(start, length);
 
     // We've properly expanded memory as needed. We now have simply have to copy the
     // min(length, value.size()) first bytes of value and clear any bytes that exceed value's length
-    if (taintedValue.isEmpty()) {
-      clearBytes(location, numBytes);
-      return;
-    }
-    final BytesValue value;
-    if (taintedValue.size() > length) {
-      value = taintedValue.slice(0, length);
-    } else if (taintedValue.size() < length) {
-      value = taintedValue;
-      clearBytes(location.plus(taintedValue.size()), numBytes.minus(taintedValue.size()));
-    } else {
-      value = taintedValue;
-    }
-
-    // Index of last byte to set.
-    final long end = start + value.size() - 1;
-
-    final int startWord = wordForByte(start);
-    final int idxInStart = indexInWord(start);
-    final int endWord = wordForByte(end);
-
-    if (startWord == endWord) {
-      // Bytes within a word, fast-path.
-      value.copyTo(data.get(startWord), idxInStart);
-      return;
+    final int toCopy = Math.min(length, taintedValue.size());
+    if (toCopy > 0) {
+      final BytesValue value =
+          toCopy == taintedValue.size() ? taintedValue : taintedValue.slice(0, toCopy);
+      value.copyTo(MutableBytesValue.wrap(data, start, toCopy), 0);
     }
-
-    // Spans multiple word, slower path.
-    final int bytesInStartWord = Bytes32.SIZE - idxInStart;
-
-    int valueIdx = 0;
-    value.slice(valueIdx, bytesInStartWord).copyTo(data.get(startWord), idxInStart);
-    valueIdx += bytesInStartWord;
-    for (int i = startWord + 1; i < endWord; i++) {
-      value.slice(valueIdx, Bytes32.SIZE).copyTo(data.get(i));
-      valueIdx += Bytes32.SIZE;
+    if (toCopy < length) {
+      Arrays.fill(data, start + toCopy, start + length, (byte) 0);
     }
-    value.slice(valueIdx).copyTo(data.get(endWord), 0);
   }
 
   /**
@@ -429,34 +360,7 @@ public class Memory {
     }
 
     ensureCapacityForBytes(location, numBytes);
-
-    // Index of last byte to set.
-    final long end = location + numBytes - 1;
-
-    final int startWord = wordForByte(location);
-    final int idxInStart = indexInWord(location);
-    final int endWord = wordForByte(end);
-    final int idxInEnd = indexInWord(end);
-
-    if (startWord == endWord) {
-      // Bytes within a word, fast-path.
-      MutableBytesValue bytes = data.get(startWord);
-      if (idxInStart != 0 || numBytes != Bytes32.SIZE) {
-        bytes = bytes.mutableSlice(idxInStart, numBytes);
-      }
-      bytes.clear();
-      return;
-    }
-
-    // Spans multiple word, slower path.
-    final int bytesInStartWord = Bytes32.SIZE - idxInStart;
-    final int bytesInEndWord = idxInEnd + 1;
-
-    data.get(startWord).mutableSlice(idxInStart, bytesInStartWord).clear();
-    for (int i = startWord + 1; i < endWord; i++) {
-      data.get(i).clear();
-    }
-    data.get(endWord).mutableSlice(0, bytesInEndWord).clear();
+    Arrays.fill(data, (int) location, (int) location + numBytes, (byte) 0);
   }
 
   /**
@@ -466,13 +370,10 @@ public class Memory {
    * @param value the value to set for the byte at {@code location}.
    */
   public void setByte(final UInt256 location, final byte value) {
-    final long start = asByteIndex(location);
+    final int start = asByteIndex(location);
     ensureCapacityForBytes(start, 1);
 
-    final int word = wordForByte(start);
-    final int idxInWord = indexInWord(start);
-
-    data.get(word).set(idxInWord, value);
+    data[start] = value;
   }
 
   /**
@@ -482,25 +383,10 @@ public class Memory {
    * @return a copy of the 32-bytes word that begins at the specified memory location.
    */
   public Bytes32 getWord(final UInt256 location) {
-    final long start = asByteIndex(location);
+    final int start = asByteIndex(location);
     ensureCapacityForBytes(start, Bytes32.SIZE);
 
-    final int startWord = wordForByte(start);
-    final int idxInStart = indexInWord(start);
-
-    if (idxInStart == 0) {
-      // Word-aligned. Fast-path.
-      return data.get(startWord).copy();
-    }
-
-    // Spans 2 memory word, slower path.
-    final MutableBytes32 result = MutableBytes32.create();
-    final int sizeInFirstWord = Bytes32.SIZE - idxInStart;
-    data.get(startWord).slice(idxInStart, sizeInFirstWord).copyTo(result, 0);
-    data.get(startWord + 1)
-        .slice(0, Bytes32.SIZE - sizeInFirstWord)
-        .copyTo(result, sizeInFirstWord);
-    return result;
+    return Bytes32.wrap(Arrays.copyOfRange(data, start, start + Bytes32.SIZE));
   }
 
   /**
@@ -513,30 +399,18 @@ public class Memory {
    * @param bytes the 32 bytes to copy at {@code location}.
    */
   public void setWord(final UInt256 location, final Bytes32 bytes) {
-    final long start = asByteIndex(location);
+    final int start = asByteIndex(location);
     ensureCapacityForBytes(start, Bytes32.SIZE);
 
-    final int startWord = wordForByte(start);
-    final int idxInStart = indexInWord(start);
-
-    if (idxInStart == 0) {
-      // Word-aligned. Fast-path.
-      bytes.copyTo(data.get(startWord));
-      return;
-    }
-
-    // Spans 2 memory word, slower path.
-    final int sizeInFirstWord = Bytes32.SIZE - idxInStart;
-    bytes.slice(0, sizeInFirstWord).copyTo(data.get(startWord), idxInStart);
-    bytes.slice(sizeInFirstWord).copyTo(data.get(startWord + 1), 0);
+    bytes.copyTo(MutableBytesValue.wrap(data, start, Bytes32.SIZE), 0);
   }
 
   @Override
   public String toString() {
-    if (data.isEmpty()) {
-      return "";
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < activeBytes; i += Bytes32.SIZE) {
+      builder.append('\n').append(Bytes32.wrap(data, i));
     }
-
-    return '\n' + Joiner.on("\n").join(data);
+    return builder.toString();
   }
 }
@@ -523,6 +523,22 @@ public class MessageFrame {
     return memory.getBytes(offset, length);
   }
 
+  /**
+   * Read bytes in memory without copying them.
+   *
+   * <p>The returned bytes reflect any later write to memory and keep the whole memory of the frame
+   * reachable, so this is only meant for bytes that are used right away and not kept, such as the
+   * input of a hash. Bytes that outlive the operation, such as the output of the frame, must be
+   * read with {@link #readMemory(UInt256, UInt256)}.
+   *
+   * @param offset The offset in memory
+   * @param length The length of the bytes to read
+   * @return The bytes in the specified range
+   */
+  public BytesValue readMemoryWithoutCopy(final UInt256 offset, final UInt256 length) {
+    return memory.getBytesWithoutCopy(offset, length);
+  }
+
   /**
    * Write byte to memory
    *
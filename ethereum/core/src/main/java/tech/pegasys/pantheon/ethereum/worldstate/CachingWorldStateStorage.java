@@ -0,0 +1,310 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+
+/**
+ * A {@link WorldStateStorage} which keeps recently read and written trie nodes in a cache shared by
+ * every world state using this storage, so the upper levels of the tries are not read from the
+ * underlying storage for each new world state.
+ *
+ * <p>The cache is bounded by the approximate number of bytes held rather than the number of nodes.
+ * Nodes are cached in their encoded form because decoded nodes hold on to any children loaded
+ * through them, which would make the memory retained by the cache unbounded.
+ */
+public class CachingWorldStateStorage implements WorldStateStorage {
+
+  public static final long DEFAULT_CACHE_SIZE_BYTES = 64 * 1024 * 1024;
+  // Approximate memory used by each cache entry on top of the node bytes.
+  private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+  private final WorldStateStorage storage;
+  private final Cache<Bytes32, BytesValue> trieNodeCache;
+  private final AtomicLong cachedBytes = new AtomicLong();
+  private final Counter hitCounter;
+  private final Counter missCounter;
+  private final Counter evictionCounter;
+
+  public CachingWorldStateStorage(
+      final WorldStateStorage storage, final MetricsSystem metricsSystem) {
+    this(storage, DEFAULT_CACHE_SIZE_BYTES, metricsSystem);
+  }
+
+  public CachingWorldStateStorage(
+      final WorldStateStorage storage,
+      final long cacheSizeBytes,
+      final MetricsSystem metricsSystem) {
+    this.storage = storage;
+    this.trieNodeCache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(cacheSizeBytes)
+            .weigher((final Bytes32 hash, final BytesValue node) -> weigh(node))
+            .removalListener(this::onRemoval)
+            .build();
+
+    hitCounter =
+        metricsSystem.createCounter(
+            MetricCategory.WORLD_STATE,
+            "trie_node_cache_hits_total",
+            "Total number of trie nodes read from the cache");
+    missCounter =
+        metricsSystem.createCounter(
+            MetricCategory.WORLD_STATE,
+            "trie_node_cache_misses_total",
+            "Total number of trie nodes read from storage because they were not cached");
+    evictionCounter =
+        metricsSystem.createCounter(
+            MetricCategory.WORLD_STATE,
+            "trie_node_cache_evictions_total",
+            "Total number of trie nodes evicted from the cache to stay within its size");
+    metricsSystem.createLongGauge(
+        MetricCategory.WORLD_STATE,
+        "trie_node_cache_size_bytes",
+        "Approximate number of bytes held by the trie node cache",
+        cachedBytes::get);
+    metricsSystem.createLongGauge(
+        MetricCategory.WORLD_STATE,
+        "trie_node_cache_entries",
+        "Number of trie nodes held by the trie node cache",
+        trieNodeCache::size);
+  }
+
+  private static int weigh(final BytesValue node) {
+    return Bytes32.SIZE + node.size() + ENTRY_OVERHEAD_BYTES;
+  }
+
+  private void onRemoval(final RemovalNotification<Bytes32, BytesValue> notification) {
+    cachedBytes.addAndGet(-weigh(notification.getValue()));
+    if (notification.wasEvicted()) {
+      evictionCounter.inc();
+    }
+  }
+
+  private void cacheNode(final Bytes32 hash, final BytesValue node) {
+    cachedBytes.addAndGet(weigh(node));
+    trieNodeCache.put(hash, node);
+  }
+
+  private Optional<BytesValue> getTrieNode(
+      final Bytes32 nodeHash, final Function<Bytes32, Optional<BytesValue>> loader) {
+    final BytesValue cachedNode = trieNodeCache.getIfPresent(nodeHash);
+    if (cachedNode != null) {
+      hitCounter.inc();
+      return Optional.of(cachedNode);
+    }
+    missCounter.inc();
+    final Optional<BytesValue> node = loader.apply(nodeHash);
+    node.ifPresent(value -> cacheNode(nodeHash, value));
+    return node;
+  }
+
+  @Override
+  public Optional<BytesValue> getCode(final Bytes32 codeHash) {
+    return storage.getCode(codeHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getAccountStateTrieNode(final Bytes32 nodeHash) {
+    return getTrieNode(nodeHash, storage::getAccountStateTrieNode);
+  }
+
+  @Override
+  public Optional<BytesValue> getAccountStorageTrieNode(final Bytes32 nodeHash) {
+    return getTrieNode(nodeHash, storage::getAccountStorageTrieNode);
+  }
+
+  @Override
+  public Optional<BytesValue> getNodeData(final Bytes32 hash) {
+    // Node data is requested by peers for arbitrary nodes so isn't added to the cache.
+    final BytesValue cachedNode = trieNodeCache.getIfPresent(hash);
+    return cachedNode != null ? Optional.of(cachedNode) : storage.getNodeData(hash);
+  }
+
+  @Override
+  public List<Optional<BytesValue>> getAllNodeData(final List<? extends Bytes32> hashes) {
+    final List<Optional<BytesValue>> nodeData = new ArrayList<>(hashes.size());
+    final List<Bytes32> missingHashes = new ArrayList<>();
+    final List<Integer> missingIndices = new ArrayList<>();
+    for (final Bytes32 hash : hashes) {
+      final BytesValue cachedNode = trieNodeCache.getIfPresent(hash);
+      if (cachedNode == null) {
+        missingIndices.add(nodeData.size());
+        missingHashes.add(hash);
+      }
+      nodeData.add(Optional.ofNullable(cachedNode));
+    }
+    if (!missingHashes.isEmpty()) {
+      final List<Optional<BytesValue>> storedData = storage.getAllNodeData(missingHashes);
+      for (int i = 0; i < missingIndices.size(); i++) {
+        nodeData.set(missingIndices.get(i), storedData.get(i));
+      }
+    }
+    return nodeData;
+  }
+
+  @Override
+  public boolean isWorldStateAvailable(final Bytes32 rootHash) {
+    return trieNodeCache.getIfPresent(rootHash) != null || storage.isWorldStateAvailable(rootHash);
+  }
+
+  @Override
+  public boolean isFlatStateAvailable(final Bytes32 rootHash) {
+    return storage.isFlatStateAvailable(rootHash);
+  }
+
+  @Override
+  public boolean moveFlatState(final Bytes32 rootHash) {
+    return storage.moveFlatState(rootHash);
+  }
+
+  @Override
+  public void startFlatStateGeneration(final Bytes32 rootHash) {
+    storage.startFlatStateGeneration(rootHash);
+  }
+
+  @Override
+  public boolean isFlatStateGenerating() {
+    return storage.isFlatStateGenerating();
+  }
+
+  @Override
+  public boolean generateFlatState(final int batchSize) {
+    return storage.generateFlatState(batchSize);
+  }
+
+  @Override
+  public Optional<BytesValue> getFlatAccount(final Bytes32 rootHash, final Bytes32 accountHash) {
+    return storage.getFlatAccount(rootHash, accountHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getFlatAccountStorage(
+      final Bytes32 rootHash, final Bytes32 accountHash, final Bytes32 slotHash) {
+    return storage.getFlatAccountStorage(rootHash, accountHash, slotHash);
+  }
+
+  @Override
+  public WorldStateStorage.Updater updater() {
+    return new Updater(storage.updater());
+  }
+
+  @Override
+  public long prune(final Predicate<BytesValue> inUseCheck) {
+    final long prunedCount = storage.prune(inUseCheck);
+    trieNodeCache.asMap().keySet().removeIf(hash -> !inUseCheck.test(hash));
+    return prunedCount;
+  }
+
+  @Override
+  public long addNodeAddedListener(final NodeAddedListener listener) {
+    return storage.addNodeAddedListener(listener);
+  }
+
+  @Override
+  public void removeNodeAddedListener(final long id) {
+    storage.removeNodeAddedListener(id);
+  }
+
+  private class Updater implements WorldStateStorage.Updater {
+
+    private final WorldStateStorage.Updater updater;
+    private final Map<Bytes32, BytesValue> addedNodes = new HashMap<>();
+
+    private Updater(final WorldStateStorage.Updater updater) {
+      this.updater = updater;
+    }
+
+    @Override
+    public Updater putCode(final Bytes32 nodeHash, final BytesValue code) {
+      updater.putCode(nodeHash, code);
+      return this;
+    }
+
+    @Override
+    public Updater putAccountStateTrieNode(final Bytes32 nodeHash, final BytesValue node) {
+      updater.putAccountStateTrieNode(nodeHash, node);
+      addedNodes.put(nodeHash, node);
+      return this;
+    }
+
+    @Override
+    public Updater putAccountStorageTrieNode(final Bytes32 nodeHash, final BytesValue node) {
+      updater.putAccountStorageTrieNode(nodeHash, node);
+      addedNodes.put(nodeHash, node);
+      return this;
+    }
+
+    @Override
+    public Updater putFlatAccount(final Bytes32 accountHash, final BytesValue account) {
+      updater.putFlatAccount(accountHash, account);
+      return this;
+    }
+
+    @Override
+    public Updater removeFlatAccount(final Bytes32 accountHash) {
+      updater.removeFlatAccount(accountHash);
+      return this;
+    }
+
+    @Override
+    public Updater putFlatAccountStorage(
+        final Bytes32 accountHash, final Bytes32 slotHash, final BytesValue value) {
+      updater.putFlatAccountStorage(accountHash, slotHash, value);
+      return this;
+    }
+
+    @Override
+    public Updater removeFlatAccountStorage(final Bytes32 accountHash, final Bytes32 slotHash) {
+      updater.removeFlatAccountStorage(accountHash, slotHash);
+      return this;
+    }
+
+    @Override
+    public Updater advanceFlatState(final Bytes32 parentRootHash, final Bytes32 rootHash) {
+      updater.advanceFlatState(parentRootHash, rootHash);
+      return this;
+    }
+
+    @Override
+    public void commit() {
+      updater.commit();
+      // Newly written nodes are the most likely to be read next.
+      addedNodes.forEach(CachingWorldStateStorage.this::cacheNode);
+      addedNodes.clear();
+    }
+
+    @Override
+    public void rollback() {
+      addedNodes.clear();
+      updater.rollback();
+    }
+  }
+}
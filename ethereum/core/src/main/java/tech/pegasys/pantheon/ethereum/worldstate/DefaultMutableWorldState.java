@@ -32,22 +32,35 @@ import tech.pegasys.pantheon.util.uint.UInt256;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.stream.Stream;
 
 public class DefaultMutableWorldState implements MutableWorldState {
 
+  private static final int FLAT_STORAGE_REMOVAL_BATCH_SIZE = 1000;
+
   private final MerklePatriciaTrie<Bytes32, BytesValue> accountStateTrie;
   private final Map<Address, MerklePatriciaTrie<Bytes32, BytesValue>> updatedStorageTries =
       new HashMap<>();
   private final Map<Address, BytesValue> updatedAccountCode = new HashMap<>();
   private final WorldStateStorage worldStateStorage;
 
+  // Accounts which are unchanged since the last persisted state can be read from the flat snapshot
+  // of that state, if the snapshot holds it. Changes are tracked so the snapshot can follow the
+  // persisted state.
+  private Bytes32 persistedRootHash;
+  private final Set<Address> updatedAccounts = new HashSet<>();
+  private final Set<Address> clearedAccountStorage = new HashSet<>();
+  private final Map<Address, Map<Bytes32, UInt256>> updatedAccountStorage = new HashMap<>();
+
   public DefaultMutableWorldState(final WorldStateStorage storage) {
     this(MerklePatriciaTrie.EMPTY_TRIE_NODE_HASH, storage);
   }
@@ -56,6 +69,7 @@ public class DefaultMutableWorldState implements MutableWorldState {
       final Bytes32 rootHash, final WorldStateStorage worldStateStorage) {
     this.worldStateStorage = worldStateStorage;
     this.accountStateTrie = newAccountStateTrie(rootHash);
+    this.persistedRootHash = rootHash;
   }
 
   public DefaultMutableWorldState(final WorldState worldState) {
@@ -69,6 +83,7 @@ public class DefaultMutableWorldState implements MutableWorldState {
     final DefaultMutableWorldState other = (DefaultMutableWorldState) worldState;
     this.worldStateStorage = other.worldStateStorage;
     this.accountStateTrie = newAccountStateTrie(other.accountStateTrie.getRootHash());
+    this.persistedRootHash = accountStateTrie.getRootHash();
   }
 
   private MerklePatriciaTrie<Bytes32, BytesValue> newAccountStateTrie(final Bytes32 rootHash) {
@@ -94,12 +109,22 @@ public class DefaultMutableWorldState implements MutableWorldState {
   @Override
   public Account get(final Address address) {
     final Hash addressHash = Hash.hash(address);
-    return accountStateTrie
-        .get(Hash.hash(address))
+    return getAccountStateValue(address, addressHash)
         .map(bytes -> deserializeAccount(address, addressHash, bytes))
         .orElse(null);
   }
 
+  private Optional<BytesValue> getAccountStateValue(final Address address, final Hash addressHash) {
+    if (!updatedAccounts.contains(address)) {
+      final Optional<BytesValue> flatValue =
+          worldStateStorage.getFlatAccount(persistedRootHash, addressHash);
+      if (flatValue.isPresent()) {
+        return flatValue.filter(value -> !value.isEmpty());
+      }
+    }
+    return accountStateTrie.get(addressHash);
+  }
+
   private AccountState deserializeAccount(
       final Address address, final Hash addressHash, final BytesValue encoded) throws RLPException {
     final RLPInput in = RLP.input(encoded);
@@ -153,17 +178,80 @@ public class DefaultMutableWorldState implements MutableWorldState {
         updatedStorageTries.values()) {
       updatedStorage.commit(updater::putAccountStorageTrieNode);
     }
+    // Record the flat changes so the snapshot can move to the new state
+    final Bytes32 rootHash = accountStateTrie.getRootHash();
+    if (!rootHash.equals(persistedRootHash)) {
+      updateFlatState(updater);
+      updater.advanceFlatState(persistedRootHash, rootHash);
+    }
     // Commit account updates
     accountStateTrie.commit(updater::putAccountStateTrieNode);
 
     // Clear pending changes that we just flushed
     updatedStorageTries.clear();
     updatedAccountCode.clear();
+    updatedAccounts.clear();
+    clearedAccountStorage.clear();
+    updatedAccountStorage.clear();
+    persistedRootHash = rootHash;
 
     // Push changes to underlying storage
     updater.commit();
   }
 
+  private void updateFlatState(final WorldStateStorage.Updater updater) {
+    for (final Address address : clearedAccountStorage) {
+      removeFlatAccountStorage(updater, Hash.hash(address));
+    }
+    for (final Map.Entry<Address, Map<Bytes32, UInt256>> accountStorage :
+        updatedAccountStorage.entrySet()) {
+      final Hash addressHash = Hash.hash(accountStorage.getKey());
+      for (final Map.Entry<Bytes32, UInt256> slot : accountStorage.getValue().entrySet()) {
+        final UInt256 value = slot.getValue();
+        if (value.isZero()) {
+          updater.removeFlatAccountStorage(addressHash, slot.getKey());
+        } else {
+          updater.putFlatAccountStorage(
+              addressHash, slot.getKey(), RLP.encode(out -> out.writeUInt256Scalar(value)));
+        }
+      }
+    }
+    for (final Address address : updatedAccounts) {
+      final Hash addressHash = Hash.hash(address);
+      final Optional<BytesValue> account = accountStateTrie.get(addressHash);
+      if (account.isPresent()) {
+        updater.putFlatAccount(addressHash, account.get());
+      } else {
+        updater.removeFlatAccount(addressHash);
+      }
+    }
+  }
+
+  private void removeFlatAccountStorage(
+      final WorldStateStorage.Updater updater, final Hash addressHash) {
+    final Optional<Hash> storageRoot =
+        newAccountStateTrie(persistedRootHash)
+            .get(addressHash)
+            .map(value -> StateTrieAccountValue.readFrom(RLP.input(value)).getStorageRoot())
+            .filter(root -> !root.equals(Hash.EMPTY_TRIE_HASH));
+    if (!storageRoot.isPresent()) {
+      return;
+    }
+    // Storage can be arbitrarily large so walk it in batches. Each batch after the first starts
+    // with the last key of the previous one, which is harmlessly removed twice.
+    final MerklePatriciaTrie<Bytes32, BytesValue> storageTrie =
+        newAccountStorageTrie(storageRoot.get());
+    Bytes32 startKeyHash = Bytes32.ZERO;
+    Map<Bytes32, BytesValue> entries;
+    do {
+      entries = storageTrie.entriesFrom(startKeyHash, FLAT_STORAGE_REMOVAL_BATCH_SIZE);
+      for (final Bytes32 slotHash : entries.keySet()) {
+        updater.removeFlatAccountStorage(addressHash, slotHash);
+        startKeyHash = slotHash;
+      }
+    } while (entries.size() == FLAT_STORAGE_REMOVAL_BATCH_SIZE);
+  }
+
   // An immutable class that represents an individual account as stored in
   // in the world state's underlying merkle patricia trie.
   protected class AccountState implements Account {
@@ -245,13 +333,25 @@ public class DefaultMutableWorldState implements MutableWorldState {
 
     @Override
     public UInt256 getStorageValue(final UInt256 key) {
-      final Optional<BytesValue> val = storageTrie().get(Hash.hash(key.getBytes()));
+      final Hash slotHash = Hash.hash(key.getBytes());
+      final Optional<BytesValue> val = getStorageSlotValue(slotHash);
       if (!val.isPresent()) {
         return UInt256.ZERO;
       }
       return convertToUInt256(val.get());
     }
 
+    private Optional<BytesValue> getStorageSlotValue(final Hash slotHash) {
+      if (!updatedAccounts.contains(address)) {
+        final Optional<BytesValue> flatValue =
+            worldStateStorage.getFlatAccountStorage(persistedRootHash, addressHash, slotHash);
+        if (flatValue.isPresent()) {
+          return flatValue.filter(value -> !value.isEmpty());
+        }
+      }
+      return storageTrie().get(slotHash);
+    }
+
     @Override
     public UInt256 getOriginalStorageValue(final UInt256 key) {
       return getStorageValue(key);
@@ -299,8 +399,7 @@ public class DefaultMutableWorldState implements MutableWorldState {
       final DefaultMutableWorldState wrapped = wrappedWorldView();
       final Hash addressHash = Hash.hash(address);
       return wrapped
-          .accountStateTrie
-          .get(addressHash)
+          .getAccountStateValue(address, addressHash)
           .map(bytes -> wrapped.deserializeAccount(address, addressHash, bytes))
           .orElse(null);
     }
@@ -325,22 +424,21 @@ public class DefaultMutableWorldState implements MutableWorldState {
         wrapped.accountStateTrie.remove(addressHash);
         wrapped.updatedStorageTries.remove(address);
         wrapped.updatedAccountCode.remove(address);
+        wrapped.updatedAccounts.add(address);
+        wrapped.clearedAccountStorage.add(address);
+        wrapped.updatedAccountStorage.remove(address);
       }
 
+      // Apply storage updates to every account first so the new storage roots, which are
+      // independent of each other, can be hashed in parallel.
+      final List<MerklePatriciaTrie<Bytes32, BytesValue>> storageTriesToHash = new ArrayList<>();
       for (final UpdateTrackingAccount<AccountState> updated : updatedAccounts()) {
         final AccountState origin = updated.getWrappedAccount();
-
-        // Save the code in key-value storage ...
-        Hash codeHash = origin == null ? Hash.EMPTY : origin.getCodeHash();
-        if (updated.codeWasUpdated()) {
-          codeHash = Hash.hash(updated.getCode());
-          wrapped.updatedAccountCode.put(updated.getAddress(), updated.getCode());
-        }
-        // ...and storage in the account trie first.
         final boolean freshState = origin == null || updated.getStorageWasCleared();
-        Hash storageRoot = freshState ? Hash.EMPTY_TRIE_HASH : origin.getStorageRoot();
         if (freshState) {
           wrapped.updatedStorageTries.remove(updated.getAddress());
+          wrapped.clearedAccountStorage.add(updated.getAddress());
+          wrapped.updatedAccountStorage.remove(updated.getAddress());
         }
         final SortedMap<UInt256, UInt256> updatedStorage = updated.getUpdatedStorage();
         if (!updatedStorage.isEmpty()) {
@@ -350,16 +448,39 @@ public class DefaultMutableWorldState implements MutableWorldState {
                   ? wrapped.newAccountStorageTrie(Hash.EMPTY_TRIE_HASH)
                   : origin.storageTrie();
           wrapped.updatedStorageTries.put(updated.getAddress(), storageTrie);
+          final Map<Bytes32, UInt256> flatStorage =
+              wrapped.updatedAccountStorage.computeIfAbsent(
+                  updated.getAddress(), address -> new HashMap<>());
           for (final Map.Entry<UInt256, UInt256> entry : updatedStorage.entrySet()) {
             final UInt256 value = entry.getValue();
             final Hash keyHash = Hash.hash(entry.getKey().getBytes());
+            flatStorage.put(keyHash, value);
             if (value.isZero()) {
               storageTrie.remove(keyHash);
             } else {
               storageTrie.put(keyHash, RLP.encode(out -> out.writeUInt256Scalar(entry.getValue())));
             }
           }
-          storageRoot = Hash.wrap(storageTrie.getRootHash());
+          storageTriesToHash.add(storageTrie);
+        }
+      }
+      storageTriesToHash.parallelStream().forEach(MerklePatriciaTrie::getRootHash);
+
+      for (final UpdateTrackingAccount<AccountState> updated : updatedAccounts()) {
+        final AccountState origin = updated.getWrappedAccount();
+
+        // Save the code in key-value storage ...
+        Hash codeHash = origin == null ? Hash.EMPTY : origin.getCodeHash();
+        if (updated.codeWasUpdated()) {
+          codeHash = Hash.hash(updated.getCode());
+          wrapped.updatedAccountCode.put(updated.getAddress(), updated.getCode());
+        }
+        // ...and the storage root computed above.
+        final boolean freshState = origin == null || updated.getStorageWasCleared();
+        Hash storageRoot = freshState ? Hash.EMPTY_TRIE_HASH : origin.getStorageRoot();
+        if (!updated.getUpdatedStorage().isEmpty()) {
+          storageRoot =
+              Hash.wrap(wrapped.updatedStorageTries.get(updated.getAddress()).getRootHash());
         }
 
         // Lastly, save the new account.
@@ -367,6 +488,7 @@ public class DefaultMutableWorldState implements MutableWorldState {
             serializeAccount(updated.getNonce(), updated.getBalance(), storageRoot, codeHash);
 
         wrapped.accountStateTrie.put(updated.getAddressHash(), account);
+        wrapped.updatedAccounts.add(updated.getAddress());
       }
     }
   }
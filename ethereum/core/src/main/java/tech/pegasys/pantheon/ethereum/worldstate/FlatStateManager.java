@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps the flat snapshot of the world state at the state of the canonical chain head, following
+ * reorgs. When the snapshot can't follow the chain head, for example after a fast sync or a reorg
+ * deeper than the states it tracks, it is generated again from the trie on the supplied executor so
+ * block import is never blocked for long.
+ */
+public class FlatStateManager {
+  private static final Logger LOG = LogManager.getLogger();
+  static final int GENERATION_BATCH_SIZE = 100;
+
+  private final WorldStateStorage worldStateStorage;
+  private final Blockchain blockchain;
+  private final ExecutorService executorService;
+  private final AtomicBoolean generationScheduled = new AtomicBoolean(false);
+  private long blockAddedObserverId;
+
+  public FlatStateManager(
+      final WorldStateStorage worldStateStorage,
+      final Blockchain blockchain,
+      final ExecutorService executorService) {
+    this.worldStateStorage = worldStateStorage;
+    this.blockchain = blockchain;
+    this.executorService = executorService;
+  }
+
+  public void start() {
+    blockAddedObserverId =
+        blockchain.observeBlockAdded((event, blockchain) -> handleNewBlock(event));
+    moveTo(blockchain.getChainHeadHeader().getStateRoot());
+  }
+
+  public void stop() throws InterruptedException {
+    blockchain.removeObserver(blockAddedObserverId);
+    executorService.shutdownNow();
+    executorService.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  private void handleNewBlock(final BlockAddedEvent event) {
+    if (event.isNewCanonicalHead()) {
+      moveTo(event.getBlock().getHeader().getStateRoot());
+    }
+  }
+
+  private void moveTo(final Hash stateRoot) {
+    // During a fast sync the chain head's state isn't available until it has been downloaded.
+    if (!worldStateStorage.moveFlatState(stateRoot)
+        && worldStateStorage.isWorldStateAvailable(stateRoot)) {
+      LOG.info("Generating flat world state snapshot for state root {}", stateRoot);
+      worldStateStorage.startFlatStateGeneration(stateRoot);
+    }
+    if (worldStateStorage.isFlatStateGenerating()
+        && generationScheduled.compareAndSet(false, true)) {
+      executorService.execute(this::generate);
+    }
+  }
+
+  private void generate() {
+    try {
+      while (!Thread.currentThread().isInterrupted()
+          && worldStateStorage.generateFlatState(GENERATION_BATCH_SIZE)) {
+        // Each batch holds the snapshot lock, so imports can move the snapshot in between.
+      }
+      if (!worldStateStorage.isFlatStateGenerating()) {
+        LOG.info("Completed generating flat world state snapshot");
+      }
+    } catch (final Throwable t) {
+      // The next chain head update will try again.
+      LOG.error("Generating flat world state snapshot failed", t);
+    } finally {
+      generationScheduled.set(false);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.trie.StoredMerklePatriciaTrie;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Entry;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Removes world state nodes which are no longer reachable from recent state roots.
+ *
+ * <p>A pruning cycle consists of {@link #prepare()}, which starts marking every node written from
+ * that point on, {@link #mark(Hash)}, which marks every node reachable from a chosen state root,
+ * and {@link #sweep()}, which removes every node that was not marked. Nodes written by block import
+ * during the cycle are always retained so pruning never blocks or invalidates new state.
+ */
+public class MarkSweepPruner {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final BytesValue IN_USE = BytesValue.of(1);
+  private static final int MARKS_PER_TRANSACTION = 1000;
+
+  private final WorldStateStorage worldStateStorage;
+  private final KeyValueStorage markStorage;
+  private final Counter markedNodesCounter;
+  private final Counter markOperationCounter;
+  private final Counter sweepOperationCounter;
+  private final Counter sweptNodesCounter;
+  private final Set<BytesValue> pendingMarks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private volatile long nodeAddedListenerId;
+
+  public MarkSweepPruner(
+      final WorldStateStorage worldStateStorage,
+      final KeyValueStorage markStorage,
+      final MetricsSystem metricsSystem) {
+    this.worldStateStorage = worldStateStorage;
+    this.markStorage = markStorage;
+
+    markedNodesCounter =
+        metricsSystem.createCounter(
+            MetricCategory.PRUNER, "marked_nodes_total", "Total number of nodes marked as in use");
+    markOperationCounter =
+        metricsSystem.createCounter(
+            MetricCategory.PRUNER, "mark_operations_total", "Total number of mark operations");
+    sweepOperationCounter =
+        metricsSystem.createCounter(
+            MetricCategory.PRUNER, "sweep_operations_total", "Total number of sweep operations");
+    sweptNodesCounter =
+        metricsSystem.createCounter(
+            MetricCategory.PRUNER, "swept_nodes_total", "Total number of unused nodes removed");
+  }
+
+  public void prepare() {
+    worldStateStorage.removeNodeAddedListener(nodeAddedListenerId); // Just in case.
+    clearMarks();
+    nodeAddedListenerId = worldStateStorage.addNodeAddedListener(this::markNewNodes);
+  }
+
+  public void mark(final Hash rootHash) {
+    markOperationCounter.inc();
+    createStateTrie(rootHash)
+        .visitAll(
+            node -> {
+              if (Thread.interrupted()) {
+                // Since we don't expect to abort marking ourselves,
+                // our abort process consists only of handling interrupts
+                throw new RuntimeException("Interrupted while marking");
+              }
+              markNode(node.getHash());
+              node.getValue().ifPresent(this::processAccountState);
+            });
+    flushPendingMarks();
+    LOG.debug("Completed marking used nodes for pruning");
+  }
+
+  public void sweep() {
+    flushPendingMarks();
+    sweepOperationCounter.inc();
+    LOG.debug("Sweeping unused nodes");
+    final long prunedNodeCount = worldStateStorage.prune(this::isMarked);
+    sweptNodesCounter.inc(prunedNodeCount);
+    worldStateStorage.removeNodeAddedListener(nodeAddedListenerId);
+    clearMarks();
+    LOG.debug("Completed sweeping {} unused nodes", prunedNodeCount);
+  }
+
+  public void cleanup() {
+    worldStateStorage.removeNodeAddedListener(nodeAddedListenerId);
+    clearMarks();
+  }
+
+  private boolean isMarked(final BytesValue key) {
+    return pendingMarks.contains(key) || markStorage.get(key).isPresent();
+  }
+
+  private MerklePatriciaTrie<Bytes32, BytesValue> createStateTrie(final Bytes32 rootHash) {
+    return new StoredMerklePatriciaTrie<>(
+        worldStateStorage::getAccountStateTrieNode,
+        rootHash,
+        Function.identity(),
+        Function.identity());
+  }
+
+  private MerklePatriciaTrie<Bytes32, BytesValue> createStorageTrie(final Bytes32 rootHash) {
+    return new StoredMerklePatriciaTrie<>(
+        worldStateStorage::getAccountStorageTrieNode,
+        rootHash,
+        Function.identity(),
+        Function.identity());
+  }
+
+  private void processAccountState(final BytesValue value) {
+    final StateTrieAccountValue accountValue = StateTrieAccountValue.readFrom(RLP.input(value));
+    markNode(accountValue.getCodeHash());
+
+    createStorageTrie(accountValue.getStorageRoot())
+        .visitAll(storageNode -> markNode(storageNode.getHash()));
+  }
+
+  private void markNode(final Bytes32 hash) {
+    markedNodesCounter.inc();
+    pendingMarks.add(hash);
+    if (pendingMarks.size() >= MARKS_PER_TRANSACTION) {
+      flushPendingMarks();
+    }
+  }
+
+  private void markNewNodes(final Collection<Bytes32> nodeHashes) {
+    markedNodesCounter.inc(nodeHashes.size());
+    pendingMarks.addAll(nodeHashes);
+  }
+
+  private synchronized void flushPendingMarks() {
+    final Set<BytesValue> marks = new HashSet<>(pendingMarks);
+    final KeyValueStorage.Transaction transaction = markStorage.startTransaction();
+    marks.forEach(key -> transaction.put(key, IN_USE));
+    transaction.commit();
+    // Only drop the pending marks once they are visible in mark storage
+    pendingMarks.removeAll(marks);
+  }
+
+  private synchronized void clearMarks() {
+    pendingMarks.clear();
+    // The mark set can be as large as the state, so it is removed in batches like it was written.
+    final List<BytesValue> marks = new ArrayList<>(MARKS_PER_TRANSACTION);
+    try (final Stream<Entry> entries = markStorage.entries()) {
+      entries.forEach(
+          mark -> {
+            marks.add(mark.getKey());
+            if (marks.size() >= MARKS_PER_TRANSACTION) {
+              removeMarks(marks);
+            }
+          });
+    }
+    removeMarks(marks);
+  }
+
+  private void removeMarks(final List<BytesValue> marks) {
+    final KeyValueStorage.Transaction transaction = markStorage.startTransaction();
+    marks.forEach(transaction::remove);
+    transaction.commit();
+    marks.clear();
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Drives {@link MarkSweepPruner} from chain head updates so that the world state of at least the
+ * most recent {@link PrunerConfiguration#getBlocksRetained()} blocks is always available. Each step
+ * of pruning runs on the supplied executor so block import is never blocked.
+ *
+ * <p>The state marked in each cycle is that of the first canonical block added once tracking new
+ * nodes has started. That block's nodes are retained by marking, and the nodes of every later block
+ * are written after tracking started, so none of them can be swept.
+ */
+public class Pruner {
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final MarkSweepPruner pruningStrategy;
+  private final Blockchain blockchain;
+  private final ExecutorService executorService;
+  private final long blocksRetained;
+  private final long blockConfirmations;
+
+  private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+  private volatile long markBlockNumber = 0;
+  private volatile BlockHeader markedBlockHeader;
+  private long blockAddedObserverId;
+
+  public Pruner(
+      final MarkSweepPruner pruningStrategy,
+      final Blockchain blockchain,
+      final ExecutorService executorService,
+      final PrunerConfiguration pruningConfiguration) {
+    this.pruningStrategy = pruningStrategy;
+    this.executorService = executorService;
+    this.blockchain = blockchain;
+    this.blocksRetained = pruningConfiguration.getBlocksRetained();
+    this.blockConfirmations = pruningConfiguration.getBlockConfirmations();
+    checkArgument(
+        blockConfirmations >= 0 && blockConfirmations < blocksRetained,
+        "blockConfirmations must be non-negative and less than blocksRetained");
+  }
+
+  public void start() {
+    LOG.info("Starting Pruner.");
+    blockAddedObserverId =
+        blockchain.observeBlockAdded((event, blockchain) -> handleNewBlock(event));
+  }
+
+  public void stop() throws InterruptedException {
+    LOG.info("Stopping Pruner.");
+    blockchain.removeObserver(blockAddedObserverId);
+    executorService.shutdownNow();
+    executorService.awaitTermination(10, TimeUnit.SECONDS);
+    pruningStrategy.cleanup();
+  }
+
+  private void handleNewBlock(final BlockAddedEvent event) {
+    if (!event.isNewCanonicalHead()) {
+      return;
+    }
+
+    final long blockNumber = event.getBlock().getHeader().getNumber();
+    if (state.compareAndSet(State.IDLE, State.PREPARING)) {
+      execute(this::prepare);
+    } else if (state.compareAndSet(State.PREPARED, State.MARK_BLOCK_CONFIRMATIONS_AWAITING)) {
+      markBlockNumber = blockNumber;
+    } else if (blockNumber >= markBlockNumber + blockConfirmations
+        && state.compareAndSet(State.MARK_BLOCK_CONFIRMATIONS_AWAITING, State.MARKING)) {
+      markedBlockHeader = blockchain.getBlockHeader(markBlockNumber).get();
+      LOG.debug(
+          "Begin marking used nodes for pruning. Block number: {} State root: {}",
+          markBlockNumber,
+          markedBlockHeader.getStateRoot());
+      execute(this::markBlockState);
+    } else if (blockNumber >= markBlockNumber + blocksRetained
+        && state.compareAndSet(State.MARKING_COMPLETE, State.SWEEPING)) {
+      if (blockchain.blockIsOnCanonicalChain(markedBlockHeader.getHash())) {
+        LOG.debug("Begin sweeping unused nodes for pruning. Retention period: {}", blocksRetained);
+        execute(this::sweepUnusedNodes);
+      } else {
+        // Nodes of the new canonical chain may not have been marked, so start again.
+        pruningStrategy.cleanup();
+        state.set(State.IDLE);
+      }
+    }
+  }
+
+  private void prepare() {
+    pruningStrategy.prepare();
+    state.compareAndSet(State.PREPARING, State.PREPARED);
+  }
+
+  private void markBlockState() {
+    pruningStrategy.mark(markedBlockHeader.getStateRoot());
+    state.compareAndSet(State.MARKING, State.MARKING_COMPLETE);
+  }
+
+  private void sweepUnusedNodes() {
+    pruningStrategy.sweep();
+    state.compareAndSet(State.SWEEPING, State.IDLE);
+  }
+
+  private void execute(final Runnable action) {
+    executorService.execute(() -> runSafely(action));
+  }
+
+  private void runSafely(final Runnable action) {
+    try {
+      action.run();
+    } catch (final Throwable t) {
+      LOG.error("Pruning failed", t);
+      pruningStrategy.cleanup();
+      state.set(State.IDLE);
+    }
+  }
+
+  private enum State {
+    IDLE,
+    PREPARING,
+    PREPARED,
+    MARK_BLOCK_CONFIRMATIONS_AWAITING,
+    MARKING,
+    MARKING_COMPLETE,
+    SWEEPING;
+  }
+}
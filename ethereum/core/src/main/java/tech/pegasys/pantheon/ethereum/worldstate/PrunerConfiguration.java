@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+public class PrunerConfiguration {
+  public static final long DEFAULT_PRUNING_BLOCKS_RETAINED = 1024;
+  public static final long DEFAULT_PRUNING_BLOCK_CONFIRMATIONS = 10;
+
+  private final long blocksRetained;
+  private final long blockConfirmations;
+
+  public PrunerConfiguration(final long blockConfirmations, final long blocksRetained) {
+    this.blockConfirmations = blockConfirmations;
+    this.blocksRetained = blocksRetained;
+  }
+
+  public static PrunerConfiguration getDefault() {
+    return new PrunerConfiguration(
+        DEFAULT_PRUNING_BLOCK_CONFIRMATIONS, DEFAULT_PRUNING_BLOCKS_RETAINED);
+  }
+
+  public long getBlocksRetained() {
+    return blocksRetained;
+  }
+
+  public long getBlockConfirmations() {
+    return blockConfirmations;
+  }
+}
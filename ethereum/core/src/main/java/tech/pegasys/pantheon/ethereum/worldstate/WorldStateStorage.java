@@ -16,7 +16,11 @@ import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 public interface WorldStateStorage {
 
@@ -28,14 +32,108 @@ public interface WorldStateStorage {
 
   Optional<BytesValue> getNodeData(Bytes32 hash);
 
+  /**
+   * Looks up several nodes or code entries at once.
+   *
+   * @param hashes the hashes of the requested data.
+   * @return the data for each hash, in the same order as the hashes.
+   */
+  default List<Optional<BytesValue>> getAllNodeData(final List<? extends Bytes32> hashes) {
+    final List<Optional<BytesValue>> nodeData = new ArrayList<>(hashes.size());
+    hashes.forEach(hash -> nodeData.add(getNodeData(hash)));
+    return nodeData;
+  }
+
   boolean isWorldStateAvailable(Bytes32 rootHash);
 
+  /**
+   * Returns true if the flat snapshot of account and storage values can serve reads of the state
+   * with the given root. The snapshot holds a single state, and also serves the recently persisted
+   * states built on top of it.
+   *
+   * @param rootHash the root hash of the world state.
+   * @return true if flat reads are available for the given state.
+   */
+  boolean isFlatStateAvailable(Bytes32 rootHash);
+
+  /**
+   * Moves the flat snapshot to the state with the given root, which is expected to be the state of
+   * the canonical chain head. This applies the changes of the recently persisted states leading to
+   * it, after rolling back the states most recently applied if needed to follow a reorg.
+   *
+   * @param rootHash the root hash of the world state.
+   * @return true if the snapshot now holds the given state, or false if it can't be reached from
+   *     the states the snapshot has tracked, in which case it has to be generated again.
+   */
+  boolean moveFlatState(Bytes32 rootHash);
+
+  /**
+   * Starts generating the flat snapshot from the trie of the state with the given root, discarding
+   * the current snapshot. The snapshot is then generated by calling {@link #generateFlatState(int)}
+   * until it completes. Meanwhile, flat reads of accounts that haven't been generated yet return
+   * empty, and the snapshot keeps moving along with persisted states.
+   *
+   * @param rootHash the root hash of the world state.
+   */
+  void startFlatStateGeneration(Bytes32 rootHash);
+
+  boolean isFlatStateGenerating();
+
+  /**
+   * Performs the next step of generating the flat snapshot.
+   *
+   * @param batchSize the maximum number of values to remove or accounts to generate.
+   * @return true if the snapshot is still being generated.
+   */
+  boolean generateFlatState(int batchSize);
+
+  /**
+   * Reads an account from the flat snapshot.
+   *
+   * @param rootHash the root hash of the world state to read from.
+   * @param accountHash the hash of the account address.
+   * @return empty if the snapshot does not hold the requested state, otherwise the RLP encoded
+   *     account, or {@link BytesValue#EMPTY} if the account does not exist.
+   */
+  Optional<BytesValue> getFlatAccount(Bytes32 rootHash, Bytes32 accountHash);
+
+  /**
+   * Reads an account storage slot from the flat snapshot.
+   *
+   * @param rootHash the root hash of the world state to read from.
+   * @param accountHash the hash of the account address.
+   * @param slotHash the hash of the storage slot key.
+   * @return empty if the snapshot does not hold the requested state, otherwise the RLP encoded
+   *     storage value, or {@link BytesValue#EMPTY} if the slot is not set.
+   */
+  Optional<BytesValue> getFlatAccountStorage(
+      Bytes32 rootHash, Bytes32 accountHash, Bytes32 slotHash);
+
   default boolean contains(final Bytes32 hash) {
     return getNodeData(hash).isPresent();
   }
 
   Updater updater();
 
+  /**
+   * Removes every stored node and code entry whose hash is not accepted by {@code inUseCheck}.
+   *
+   * @param inUseCheck returns true for hashes which must be retained.
+   * @return the number of entries removed.
+   */
+  long prune(Predicate<BytesValue> inUseCheck);
+
+  /**
+   * Registers a listener which is notified of the hashes of nodes and code about to be written by
+   * each updater, before the write becomes visible.
+   *
+   * @param listener the listener to notify.
+   * @return the ID to use when removing the listener.
+   */
+  long addNodeAddedListener(NodeAddedListener listener);
+
+  void removeNodeAddedListener(long id);
+
   interface Updater {
 
     Updater putCode(Bytes32 nodeHash, BytesValue code);
@@ -50,8 +148,32 @@ public interface WorldStateStorage {
 
     Updater putAccountStorageTrieNode(Bytes32 nodeHash, BytesValue node);
 
+    Updater putFlatAccount(Bytes32 accountHash, BytesValue account);
+
+    Updater removeFlatAccount(Bytes32 accountHash);
+
+    Updater putFlatAccountStorage(Bytes32 accountHash, Bytes32 slotHash, BytesValue value);
+
+    Updater removeFlatAccountStorage(Bytes32 accountHash, Bytes32 slotHash);
+
+    /**
+     * Moves the flat snapshot from the state with {@code parentRootHash} to the state with {@code
+     * rootHash} on commit, applying the flat account and storage changes of this updater. If the
+     * snapshot doesn't hold the parent state when committing, the flat changes are kept so that the
+     * snapshot can move to the state later, see {@link #moveFlatState(Bytes32)}.
+     *
+     * @param parentRootHash the root hash of the state the flat changes apply to.
+     * @param rootHash the root hash of the state resulting from the flat changes.
+     * @return this updater.
+     */
+    Updater advanceFlatState(Bytes32 parentRootHash, Bytes32 rootHash);
+
     void commit();
 
     void rollback();
   }
+
+  interface NodeAddedListener {
+    void onNodesAdded(Collection<Bytes32> nodeHashes);
+  }
 }
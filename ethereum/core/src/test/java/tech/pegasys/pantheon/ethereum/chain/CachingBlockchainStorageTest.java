@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.chain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator.BlockOptions;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.mainnet.MainnetBlockHashFunction;
+import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStoragePrefixedKeyBlockchainStorage;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class CachingBlockchainStorageTest {
+
+  private final BlockDataGenerator gen = new BlockDataGenerator(1);
+  private final KeyValueStorage kvStore = new InMemoryKeyValueStorage();
+  private final List<Block> chain = gen.blockSequence(4);
+  private final List<List<TransactionReceipt>> receipts =
+      chain.stream().map(gen::receipts).collect(Collectors.toList());
+
+  @Test
+  public void appendedBlocksAreReadFromTheCache() {
+    final BlockchainStorage storage = storedBlockchain();
+    final MutableBlockchain blockchain = createBlockchain(storage);
+    final Block block = chain.get(1);
+    blockchain.appendBlock(block, receipts.get(1));
+
+    assertThat(blockchain.getBlockHashByNumber(1)).contains(block.getHash());
+    assertThat(blockchain.getBlockHeader(block.getHash())).contains(block.getHeader());
+    assertThat(blockchain.getBlockBody(block.getHash())).contains(block.getBody());
+    assertThat(blockchain.getTxReceipts(block.getHash())).contains(receipts.get(1));
+    assertThat(blockchain.getChainHeadHash()).isEqualTo(block.getHash());
+
+    verify(storage, times(0)).getBlockHash(1);
+    // Only looked up once, when checking whether the block was already known.
+    verify(storage, times(1)).getBlockHeader(block.getHash());
+    verify(storage, times(0)).getBlockBody(block.getHash());
+    verify(storage, times(0)).getTransactionReceipts(block.getHash());
+    // Only read once, when initialising the blockchain.
+    verify(storage, times(1)).getChainHead();
+  }
+
+  @Test
+  public void storedBlocksAreOnlyReadFromStorageOnce() {
+    final MutableBlockchain original = createBlockchain(storedBlockchain());
+    for (int i = 1; i < chain.size(); i++) {
+      original.appendBlock(chain.get(i), receipts.get(i));
+    }
+
+    final BlockchainStorage storage = storedBlockchain();
+    final MutableBlockchain blockchain = createBlockchain(storage);
+    final Block block = chain.get(2);
+    for (int i = 0; i < 2; i++) {
+      assertThat(blockchain.getBlockHeader(2)).contains(block.getHeader());
+      assertThat(blockchain.getBlockBody(block.getHash())).contains(block.getBody());
+      assertThat(blockchain.getTxReceipts(block.getHash())).contains(receipts.get(2));
+      assertThat(blockchain.getTotalDifficultyByHash(block.getHash())).isPresent();
+    }
+
+    verify(storage).getBlockHash(2);
+    verify(storage).getBlockHeader(block.getHash());
+    verify(storage).getBlockBody(block.getHash());
+    verify(storage).getTransactionReceipts(block.getHash());
+    verify(storage).getTotalDifficulty(block.getHash());
+  }
+
+  @Test
+  public void chainReorgUpdatesCachedCanonicalHashes() {
+    final MutableBlockchain blockchain = createBlockchain(storedBlockchain());
+    for (int i = 1; i < chain.size(); i++) {
+      blockchain.appendBlock(chain.get(i), receipts.get(i));
+    }
+    for (int i = 0; i < chain.size(); i++) {
+      assertThat(blockchain.getBlockHashByNumber(i)).contains(chain.get(i).getHash());
+    }
+
+    // Replace blocks 1 to 3 with a heavier fork of 2 blocks.
+    final Block fork1 =
+        gen.block(
+            new BlockOptions()
+                .setParentHash(chain.get(0).getHash())
+                .setBlockNumber(1)
+                .setDifficulty(chain.get(1).getHeader().getDifficulty().minus(1L)));
+    final Block fork2 =
+        gen.block(
+            new BlockOptions()
+                .setParentHash(fork1.getHash())
+                .setBlockNumber(2)
+                .setDifficulty(blockchain.getChainHead().getTotalDifficulty()));
+    blockchain.appendBlock(fork1, gen.receipts(fork1));
+    assertThat(blockchain.getBlockHashByNumber(1)).contains(chain.get(1).getHash());
+    blockchain.appendBlock(fork2, gen.receipts(fork2));
+
+    assertThat(blockchain.getChainHeadHash()).isEqualTo(fork2.getHash());
+    assertThat(blockchain.getChainHeadBlockNumber()).isEqualTo(2L);
+    assertThat(blockchain.getBlockHashByNumber(0)).contains(chain.get(0).getHash());
+    assertThat(blockchain.getBlockHashByNumber(1)).contains(fork1.getHash());
+    assertThat(blockchain.getBlockHashByNumber(2)).contains(fork2.getHash());
+    assertThat(blockchain.getBlockHashByNumber(3)).isEqualTo(Optional.<Hash>empty());
+
+    // The cached values match what a blockchain without cache reads.
+    final Blockchain uncached =
+        new DefaultMutableBlockchain(chain.get(0), storedBlockchain(), new NoOpMetricsSystem());
+    for (int i = 0; i < chain.size(); i++) {
+      assertThat(blockchain.getBlockHashByNumber(i)).isEqualTo(uncached.getBlockHashByNumber(i));
+    }
+    assertThat(blockchain.getChainHeadHash()).isEqualTo(uncached.getChainHeadHash());
+    assertThat(blockchain.getChainHead().getTotalDifficulty())
+        .isEqualTo(uncached.getChainHead().getTotalDifficulty());
+  }
+
+  private BlockchainStorage storedBlockchain() {
+    return spy(
+        new KeyValueStoragePrefixedKeyBlockchainStorage(
+            kvStore, MainnetBlockHashFunction::createHash));
+  }
+
+  private MutableBlockchain createBlockchain(final BlockchainStorage storage) {
+    return new DefaultMutableBlockchain(
+        chain.get(0),
+        new CachingBlockchainStorage(storage, 16, new NoOpMetricsSystem()),
+        new NoOpMetricsSystem());
+  }
+}
@@ -23,6 +23,7 @@ import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
 import tech.pegasys.pantheon.ethereum.mainnet.MainnetBlockHashFunction;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStoragePrefixedKeyBlockchainStorage;
 import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
@@ -105,6 +106,32 @@ public class DefaultMutableBlockchainTest {
     assertThat(blockchain.getForks()).isEmpty();
   }
 
+  @Test
+  public void storedBlockDataCanBeReadEncoded() {
+    final BlockDataGenerator gen = new BlockDataGenerator();
+
+    final KeyValueStorage kvStore = new InMemoryKeyValueStorage();
+    final Block genesisBlock = gen.genesisBlock();
+    final DefaultMutableBlockchain blockchain = createBlockchain(kvStore, genesisBlock);
+
+    final BlockOptions options =
+        new BlockOptions().setBlockNumber(1L).setParentHash(genesisBlock.getHash());
+    final Block newBlock = gen.block(options);
+    final List<TransactionReceipt> receipts = gen.receipts(newBlock);
+    blockchain.appendBlock(newBlock, receipts);
+
+    final Hash hash = newBlock.getHash();
+    assertThat(blockchain.getBlockHeaderRlp(hash))
+        .contains(RLP.encode(newBlock.getHeader()::writeTo));
+    assertThat(blockchain.getBlockBodyRlp(hash)).contains(RLP.encode(newBlock.getBody()::writeTo));
+    assertThat(blockchain.getTxReceiptsRlp(hash))
+        .contains(RLP.encode(out -> out.writeList(receipts, TransactionReceipt::writeTo)));
+    assertThat(blockchain.getBlockHeaderRlp(1L))
+        .contains(RLP.encode(newBlock.getHeader()::writeTo));
+    assertThat(blockchain.getBlockHeaderRlp(gen.hash())).isEmpty();
+    assertThat(blockchain.getBlockHeaderRlp(2L)).isEmpty();
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void appendUnconnectedBlock() {
     final BlockDataGenerator gen = new BlockDataGenerator();
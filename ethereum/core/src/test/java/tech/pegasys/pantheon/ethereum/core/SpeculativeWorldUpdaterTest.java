@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.SpeculativeWorldUpdater.WriteSet;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpeculativeWorldUpdaterTest {
+
+  private static final Address CONTRACT = Address.fromHexString("0x1000");
+  private static final Address ACCOUNT = Address.fromHexString("0x2000");
+  private static final Address FEE_RECIPIENT = Address.fromHexString("0x3000");
+
+  private final MutableWorldState worldState =
+      InMemoryStorageProvider.createInMemoryWorldStateArchive().getMutable();
+
+  @Before
+  public void setUp() {
+    final WorldUpdater updater = worldState.updater();
+    final MutableAccount contract = updater.createAccount(CONTRACT);
+    contract.setCode(BytesValue.of(0x00));
+    contract.setStorageValue(UInt256.ONE, UInt256.of(10));
+    updater.createAccount(ACCOUNT).setBalance(Wei.of(100));
+    updater.createAccount(FEE_RECIPIENT).setBalance(Wei.of(1000));
+    updater.commit();
+  }
+
+  @Test
+  public void storageReadConflictsWithWriteToSameSlotOnly() {
+    final SpeculativeWorldUpdater writer = speculativeUpdater();
+    writer.getMutable(CONTRACT).setStorageValue(UInt256.ONE, UInt256.of(11));
+    final WriteSet writes = new WriteSet();
+    writer.addWritesTo(writes);
+
+    final SpeculativeWorldUpdater sameSlotReader = speculativeUpdater();
+    sameSlotReader.get(CONTRACT).getStorageValue(UInt256.ONE);
+    final SpeculativeWorldUpdater otherSlotReader = speculativeUpdater();
+    otherSlotReader.get(CONTRACT).getStorageValue(UInt256.of(2));
+
+    assertThat(sameSlotReader.readsAnyOf(writes)).isTrue();
+    assertThat(otherSlotReader.readsAnyOf(writes)).isFalse();
+  }
+
+  @Test
+  public void balanceUpdateConflictsWithAccountRead() {
+    final SpeculativeWorldUpdater writer = speculativeUpdater();
+    writer.getMutable(ACCOUNT).incrementBalance(Wei.of(1));
+    final WriteSet writes = new WriteSet();
+    writer.addWritesTo(writes);
+
+    final SpeculativeWorldUpdater reader = speculativeUpdater();
+    reader.get(ACCOUNT);
+
+    assertThat(reader.readsAnyOf(writes)).isTrue();
+  }
+
+  @Test
+  public void accountDeletionConflictsWithStorageRead() {
+    final SpeculativeWorldUpdater writer = speculativeUpdater();
+    writer.deleteAccount(CONTRACT);
+    final WriteSet writes = new WriteSet();
+    writer.addWritesTo(writes);
+
+    final SpeculativeWorldUpdater reader = speculativeUpdater();
+    reader.get(CONTRACT).getStorageValue(UInt256.of(2));
+
+    assertThat(reader.readsAnyOf(writes)).isTrue();
+  }
+
+  @Test
+  public void storageUpdateDoesNotConflictWithCodeRead() {
+    final SpeculativeWorldUpdater writer = speculativeUpdater();
+    writer.getMutable(CONTRACT).setStorageValue(UInt256.ONE, UInt256.of(11));
+    final WriteSet writes = new WriteSet();
+    writer.addWritesTo(writes);
+
+    final SpeculativeWorldUpdater reader = speculativeUpdater();
+    reader.get(CONTRACT).getCode();
+
+    assertThat(reader.readsAnyOf(writes)).isFalse();
+  }
+
+  @Test
+  public void updatesAreAppliedOnTopOfNonConflictingWrites() {
+    final SpeculativeWorldUpdater first = speculativeUpdater();
+    first.getMutable(CONTRACT).setStorageValue(UInt256.ONE, UInt256.of(11));
+    final SpeculativeWorldUpdater second = speculativeUpdater();
+    second.getMutable(CONTRACT).setStorageValue(UInt256.of(2), UInt256.of(12));
+    second.getMutable(ACCOUNT).decrementBalance(Wei.of(40));
+
+    final WriteSet writes = new WriteSet();
+    apply(first, writes);
+    assertThat(second.canApplyTo(worldState, writes)).isTrue();
+    apply(second, writes);
+
+    assertThat(worldState.get(CONTRACT).getStorageValue(UInt256.ONE)).isEqualTo(UInt256.of(11));
+    assertThat(worldState.get(CONTRACT).getStorageValue(UInt256.of(2))).isEqualTo(UInt256.of(12));
+    assertThat(worldState.get(ACCOUNT).getBalance()).isEqualTo(Wei.of(60));
+  }
+
+  @Test
+  public void feeRecipientCreditsAreAppliedOnTopOfEachOther() {
+    final SpeculativeWorldUpdater first = speculativeUpdater(FEE_RECIPIENT);
+    first.getOrCreate(FEE_RECIPIENT).incrementBalance(Wei.of(5));
+    final SpeculativeWorldUpdater second = speculativeUpdater(FEE_RECIPIENT);
+    second.getOrCreate(FEE_RECIPIENT).incrementBalance(Wei.of(7));
+
+    final WriteSet writes = new WriteSet();
+    apply(first, writes);
+    assertThat(second.canApplyTo(worldState, writes)).isTrue();
+    apply(second, writes);
+
+    assertThat(worldState.get(FEE_RECIPIENT).getBalance()).isEqualTo(Wei.of(1012));
+  }
+
+  @Test
+  public void feeRecipientReadOtherwiseConflictsWithCredits() {
+    final SpeculativeWorldUpdater first = speculativeUpdater(FEE_RECIPIENT);
+    first.getOrCreate(FEE_RECIPIENT).incrementBalance(Wei.of(5));
+    final SpeculativeWorldUpdater second = speculativeUpdater(FEE_RECIPIENT);
+    second.get(FEE_RECIPIENT).getBalance();
+    second.getOrCreate(FEE_RECIPIENT).incrementBalance(Wei.of(7));
+
+    final WriteSet writes = new WriteSet();
+    apply(first, writes);
+
+    assertThat(second.canApplyTo(worldState, writes)).isFalse();
+  }
+
+  private SpeculativeWorldUpdater speculativeUpdater() {
+    return new SpeculativeWorldUpdater(worldState, Optional.empty());
+  }
+
+  private SpeculativeWorldUpdater speculativeUpdater(final Address feeRecipient) {
+    return new SpeculativeWorldUpdater(worldState, Optional.of(feeRecipient));
+  }
+
+  private void apply(final SpeculativeWorldUpdater speculativeUpdater, final WriteSet writes) {
+    final WorldUpdater updater = worldState.updater();
+    speculativeUpdater.applyTo(updater);
+    updater.commit();
+    speculativeUpdater.addWritesTo(writes);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import tech.pegasys.pantheon.crypto.SignatureRecoveryService;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TransactionSenderRecoveryTest {
+
+  private final BlockDataGenerator generator = new BlockDataGenerator();
+  private final SignatureRecoveryService recoveryService = spy(SignatureRecoveryService.create(2));
+  private final TransactionSenderRecovery senderRecovery =
+      new TransactionSenderRecovery(recoveryService, TransactionSenderRecovery.DEFAULT_CACHE_SIZE);
+
+  @After
+  public void tearDown() {
+    recoveryService.close();
+  }
+
+  @Test
+  public void shouldRecoverSendersOfBatch() {
+    final List<Transaction> signed = transactions(40);
+    final List<Transaction> received = withoutSenders(signed);
+
+    senderRecovery.recoverSenders(received);
+
+    for (int i = 0; i < signed.size(); i++) {
+      assertThat(received.get(i).hasSender()).isTrue();
+      assertThat(received.get(i).getSender()).isEqualTo(signed.get(i).getSender());
+    }
+  }
+
+  @Test
+  public void shouldUseCachedSendersForKnownTransactions() {
+    final List<Transaction> signed = transactions(10);
+    senderRecovery.recoverSenders(withoutSenders(signed));
+
+    final List<Transaction> receivedAgain = withoutSenders(signed);
+    senderRecovery.recoverSenders(receivedAgain);
+
+    // Only the first batch needed its signatures recovered.
+    verify(recoveryService, times(1)).recoverPublicKeys(any(), any());
+    for (int i = 0; i < signed.size(); i++) {
+      assertThat(receivedAgain.get(i).getSender()).isEqualTo(signed.get(i).getSender());
+    }
+  }
+
+  private List<Transaction> transactions(final int count) {
+    final List<Transaction> transactions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      transactions.add(generator.transaction());
+    }
+    return transactions;
+  }
+
+  private static List<Transaction> withoutSenders(final List<Transaction> transactions) {
+    return transactions.stream()
+        .map(transaction -> Transaction.readFrom(RLP.input(RLP.encode(transaction::writeTo))))
+        .collect(Collectors.toList());
+  }
+}
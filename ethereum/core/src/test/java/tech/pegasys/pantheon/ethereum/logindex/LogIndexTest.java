@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.logindex;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedObserver;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.Log;
+import tech.pegasys.pantheon.ethereum.core.LogsBloomFilter;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageLogIndexStorage;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LogIndexTest {
+
+  private static final Address LOGGER = Address.fromHexString("0x0f572e5295c57f15886f9b263e2f6d2d6c7b5ec6");
+  private static final Address OTHER_LOGGER = Address.fromHexString("0x0000000000000000000000000000000000000001");
+  private static final List<Integer> LOGGING_BLOCKS = Arrays.asList(10, 1000, LogIndex.SECTION_SIZE - 1);
+
+  private final Blockchain blockchain = mock(Blockchain.class);
+  private final LogIndexStorage storage =
+      new KeyValueStorageLogIndexStorage(new InMemoryKeyValueStorage());
+  private final List<BlockHeader> headers = new ArrayList<>();
+  private final AtomicReference<BlockAddedObserver> observer = new AtomicReference<>();
+
+  @Before
+  public void setUp() {
+    when(blockchain.getBlockHeader(anyLong()))
+        .thenAnswer(invocation -> header(invocation.getArgument(0)));
+    when(blockchain.getBlockHashByNumber(anyLong()))
+        .thenAnswer(invocation -> header(invocation.getArgument(0)).map(BlockHeader::getHash));
+    when(blockchain.observeBlockAdded(any()))
+        .thenAnswer(
+            invocation -> {
+              observer.set(invocation.getArgument(0));
+              return 1L;
+            });
+  }
+
+  @Test
+  public void shouldIndexConfirmedSectionsOnStart() {
+    createChain(LogIndex.SECTION_SIZE + LogIndex.CONFIRMATIONS);
+    final LogIndex logIndex = createLogIndex();
+
+    logIndex.start();
+
+    assertThat(logIndex.getIndexedBlockCount()).isEqualTo(LogIndex.SECTION_SIZE);
+    assertThat(matchingBlocks(logIndex, LOGGER)).containsExactlyElementsOf(LOGGING_BLOCKS);
+    assertThat(matchingBlocks(logIndex, OTHER_LOGGER)).isEmpty();
+  }
+
+  @Test
+  public void shouldMatchEveryBlockWithoutCriteria() {
+    createChain(LogIndex.SECTION_SIZE + LogIndex.CONFIRMATIONS);
+    final LogIndex logIndex = createLogIndex();
+    logIndex.start();
+
+    assertThat(logIndex.matchingBlocks(0, Collections.emptyList()).get().cardinality())
+        .isEqualTo(LogIndex.SECTION_SIZE);
+  }
+
+  @Test
+  public void shouldNotIndexSectionBeforeItIsConfirmed() {
+    createChain(LogIndex.SECTION_SIZE + LogIndex.CONFIRMATIONS - 1);
+    final LogIndex logIndex = createLogIndex();
+
+    logIndex.start();
+
+    assertThat(logIndex.getIndexedBlockCount()).isZero();
+    assertThat(logIndex.matchingBlocks(0, criteria(LOGGER))).isEmpty();
+  }
+
+  @Test
+  public void shouldIndexSectionOnceNewBlocksConfirmIt() {
+    createChain(LogIndex.SECTION_SIZE + LogIndex.CONFIRMATIONS - 1);
+    final LogIndex logIndex = createLogIndex();
+    logIndex.start();
+
+    notifyBlockAdded(
+        (block, added, removed) -> BlockAddedEvent.createForHeadAdvancement(block),
+        BytesValue.EMPTY);
+
+    assertThat(logIndex.getIndexedBlockCount()).isEqualTo(LogIndex.SECTION_SIZE);
+    assertThat(matchingBlocks(logIndex, LOGGER)).containsExactlyElementsOf(LOGGING_BLOCKS);
+  }
+
+  @Test
+  public void shouldResumeFromPersistedSections() {
+    createChain(LogIndex.SECTION_SIZE + LogIndex.CONFIRMATIONS);
+    createLogIndex().start();
+
+    final LogIndex restartedIndex = createLogIndex();
+
+    assertThat(restartedIndex.getIndexedBlockCount()).isEqualTo(LogIndex.SECTION_SIZE);
+    assertThat(matchingBlocks(restartedIndex, LOGGER)).containsExactlyElementsOf(LOGGING_BLOCKS);
+  }
+
+  @Test
+  public void shouldDropSectionsReplacedByChainReorg() {
+    createChain(LogIndex.SECTION_SIZE + LogIndex.CONFIRMATIONS);
+    final LogIndex logIndex = createLogIndex();
+    logIndex.start();
+
+    // Replace the chain from the last block of the indexed section with a shorter, heavier one.
+    headers.subList(LogIndex.SECTION_SIZE - 1, headers.size()).clear();
+    notifyBlockAdded(BlockAddedEvent::createForChainReorg, BytesValue.of(1));
+
+    assertThat(logIndex.getIndexedBlockCount()).isZero();
+    assertThat(logIndex.matchingBlocks(0, criteria(LOGGER))).isEmpty();
+  }
+
+  private LogIndex createLogIndex() {
+    return new LogIndex(blockchain, storage, MoreExecutors.newDirectExecutorService());
+  }
+
+  private void createChain(final long blockCount) {
+    for (int i = 0; i < blockCount; i++) {
+      headers.add(createHeader(i, BytesValue.EMPTY));
+    }
+    when(blockchain.getChainHeadBlockNumber()).thenAnswer(invocation -> headers.size() - 1L);
+  }
+
+  private void notifyBlockAdded(final EventFactory eventFactory, final BytesValue extraData) {
+    final BlockHeader header = createHeader(headers.size(), extraData);
+    headers.add(header);
+    final Block block = new Block(header, BlockBody.empty());
+    observer
+        .get()
+        .onBlockAdded(
+            eventFactory.create(block, Collections.emptyList(), Collections.emptyList()),
+            blockchain);
+  }
+
+  private BlockHeader createHeader(final int number, final BytesValue extraData) {
+    final LogsBloomFilter bloom = new LogsBloomFilter();
+    if (LOGGING_BLOCKS.contains(number)) {
+      bloom.insertLog(new Log(LOGGER, BytesValue.EMPTY, Collections.emptyList()));
+    }
+    final BlockHeaderTestFixture fixture = new BlockHeaderTestFixture().number(number).logsBloom(bloom).extraData(extraData);
+    if (number > 0) {
+      fixture.parentHash(headers.get(number - 1).getHash());
+    }
+    return fixture.buildHeader();
+  }
+
+  private Optional<BlockHeader> header(final long number) {
+    return number < headers.size() ? Optional.of(headers.get((int) number)) : Optional.empty();
+  }
+
+  private static List<List<BytesValue>> criteria(final Address address) {
+    return singletonList(singletonList(address));
+  }
+
+  private static List<Integer> matchingBlocks(final LogIndex logIndex, final Address address) {
+    final BitSet blocks = logIndex.matchingBlocks(0, criteria(address)).get();
+    final List<Integer> blockNumbers = new ArrayList<>();
+    blocks.stream().forEach(blockNumbers::add);
+    return blockNumbers;
+  }
+
+  @FunctionalInterface
+  private interface EventFactory {
+    BlockAddedEvent create(Block block, List<Transaction> added, List<Transaction> removed);
+  }
+}
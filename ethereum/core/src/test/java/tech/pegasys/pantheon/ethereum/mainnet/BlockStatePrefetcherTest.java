@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.config.GenesisConfigFile;
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.Util;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageWorldStateStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateArchive;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockStatePrefetcherTest {
+
+  private static final Address COINBASE = Address.fromHexString("0xc0");
+  private static final Address RECIPIENT = Address.fromHexString("0x2000");
+  // SSTORE(0, SLOAD(0) + 1)
+  private static final Address COUNTER = Address.fromHexString("0x1001");
+
+  private final KeyPair sender = KeyPair.generate();
+  private final WorldStateStorage worldStateStorage =
+      spy(new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage()));
+  private final WorldStateArchive worldStateArchive = new WorldStateArchive(worldStateStorage);
+  private final MutableBlockchain blockchain = mock(MutableBlockchain.class);
+  private final ProtocolSchedule<Void> protocolSchedule =
+      MainnetProtocolSchedule.fromConfig(GenesisConfigFile.development().getConfigOptions());
+  private final BlockStatePrefetcher<Void> prefetcher =
+      new BlockStatePrefetcher<>(
+          protocolSchedule, new ProtocolContext<>(blockchain, worldStateArchive, null));
+
+  private BlockHeader parentHeader;
+
+  @Before
+  public void setUp() {
+    final MutableWorldState worldState = worldStateArchive.getMutable();
+    final WorldUpdater updater = worldState.updater();
+    updater
+        .createAccount(Util.publicKeyToAddress(sender.getPublicKey()))
+        .setBalance(Wei.fromEth(1));
+    final MutableAccount counter = updater.createAccount(COUNTER);
+    counter.setCode(BytesValue.fromHexString("0x600054600101600055"));
+    counter.setStorageValue(UInt256.ZERO, UInt256.of(5));
+    updater.createAccount(RECIPIENT).setBalance(Wei.of(1));
+    updater.commit();
+    worldState.persist();
+
+    parentHeader = new BlockHeaderTestFixture().stateRoot(worldState.rootHash()).buildHeader();
+    when(blockchain.getBlockHeader(parentHeader.getHash())).thenReturn(Optional.of(parentHeader));
+    clearInvocations(worldStateStorage);
+  }
+
+  @Test
+  public void readsTrieNodesOfAccountsAndStorageSlotsReadByTransactions() {
+    assertThat(prefetcher.prefetch(block(transaction(0, COUNTER)))).isTrue();
+
+    verify(worldStateStorage, atLeastOnce()).getAccountStateTrieNode(parentHeader.getStateRoot());
+    verify(worldStateStorage, atLeastOnce()).getAccountStorageTrieNode(any());
+  }
+
+  @Test
+  public void doesNotReadStorageTrieWhenNoStorageIsRead() {
+    assertThat(prefetcher.prefetch(block(transaction(0, RECIPIENT)))).isTrue();
+
+    verify(worldStateStorage, atLeastOnce()).getAccountStateTrieNode(parentHeader.getStateRoot());
+    verify(worldStateStorage, never()).getAccountStorageTrieNode(any());
+  }
+
+  @Test
+  public void readsAccountsOfInvalidTransactions() {
+    assertThat(prefetcher.prefetch(block(transaction(5, COUNTER)))).isTrue();
+
+    verify(worldStateStorage, atLeastOnce()).getAccountStateTrieNode(parentHeader.getStateRoot());
+    verify(worldStateStorage, never()).getAccountStorageTrieNode(any());
+  }
+
+  @Test
+  public void readsStateOfChainHeadWhenParentIsUnknown() {
+    when(blockchain.getChainHeadHeader()).thenReturn(parentHeader);
+    final BlockHeader header =
+        new BlockHeaderTestFixture()
+            .number(2)
+            .parentHash(Hash.EMPTY_TRIE_HASH)
+            .coinbase(COINBASE)
+            .gasLimit(10_000_000L)
+            .buildHeader();
+
+    assertThat(prefetcher.prefetch(new Block(header, body(transaction(0, COUNTER))))).isTrue();
+
+    verify(worldStateStorage, atLeastOnce()).getAccountStorageTrieNode(any());
+  }
+
+  @Test
+  public void returnsFalseWhenNoStateIsAvailable() {
+    when(blockchain.getBlockHeader(parentHeader.getHash()))
+        .thenReturn(Optional.of(new BlockHeaderTestFixture().stateRoot(Hash.ZERO).buildHeader()));
+
+    assertThat(prefetcher.prefetch(block(transaction(0, COUNTER)))).isFalse();
+
+    verify(worldStateStorage, never()).getAccountStorageTrieNode(any());
+  }
+
+  private Block block(final Transaction transaction) {
+    final BlockHeader header =
+        new BlockHeaderTestFixture()
+            .number(1)
+            .parentHash(parentHeader.getHash())
+            .coinbase(COINBASE)
+            .gasLimit(10_000_000L)
+            .buildHeader();
+    return new Block(header, body(transaction));
+  }
+
+  private static BlockBody body(final Transaction transaction) {
+    return new BlockBody(Collections.singletonList(transaction), emptyList());
+  }
+
+  private Transaction transaction(final long nonce, final Address to) {
+    return Transaction.builder()
+        .nonce(nonce)
+        .gasPrice(Wei.of(1))
+        .gasLimit(100_000L)
+        .to(to)
+        .value(Wei.ZERO)
+        .payload(BytesValue.EMPTY)
+        .signAndBuild(sender);
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.config.GenesisConfigFile;
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.crypto.SECP256K1.PrivateKey;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.core.Util;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.vm.TestBlockchain;
+import tech.pegasys.pantheon.ethereum.vm.WorldStateMock;
+import tech.pegasys.pantheon.ethereum.vm.WorldStateMock.AccountMock;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelTransactionExecutorTest {
+
+  private static final String SENDER_BALANCE = "0x0de0b6b3a7640000";
+  private static final Address COINBASE = Address.fromHexString("0xc0");
+  // SSTORE(CALLER, CALLER)
+  private static final Address CALLER_STORE = Address.fromHexString("0x1000");
+  // SSTORE(0, SLOAD(0) + 1)
+  private static final Address COUNTER = Address.fromHexString("0x1001");
+  // SSTORE(CALLER, BALANCE(COINBASE))
+  private static final Address COINBASE_BALANCE_STORE = Address.fromHexString("0x1002");
+
+  private final MetricsSystem metricsSystem = mock(MetricsSystem.class);
+  private final Counter appliedCounter = mock(Counter.class);
+  private final Counter reexecutedCounter = mock(Counter.class);
+  private final ProtocolSchedule<Void> frontierSchedule = MainnetProtocolSchedule.create();
+  private final ProtocolSchedule<Void> constantinopleSchedule =
+      MainnetProtocolSchedule.fromConfig(GenesisConfigFile.development().getConfigOptions());
+  private final List<KeyPair> senders = new ArrayList<>();
+
+  private ParallelTransactionExecutor executor;
+
+  @Before
+  public void setUp() {
+    when(metricsSystem.createCounter(
+            any(MetricCategory.class), eq("parallel_transactions_applied_total"), anyString()))
+        .thenReturn(appliedCounter);
+    when(metricsSystem.createCounter(
+            any(MetricCategory.class), eq("parallel_transactions_reexecuted_total"), anyString()))
+        .thenReturn(reexecutedCounter);
+    executor = ParallelTransactionExecutor.create(3, metricsSystem);
+    for (int i = 1; i <= 8; i++) {
+      senders.add(KeyPair.create(PrivateKey.create(BigInteger.valueOf(i))));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    executor.close();
+  }
+
+  @Test
+  public void executeAllReturnsResultsInIndexOrder() {
+    final List<Integer> results = executor.executeAll(1000, i -> i * 2);
+
+    assertThat(results).hasSize(1000);
+    for (int i = 0; i < results.size(); i++) {
+      assertThat(results.get(i)).isEqualTo(i * 2);
+    }
+  }
+
+  @Test
+  public void disabledExecutorIsNotEnabled() {
+    assertThat(ParallelTransactionExecutor.disabled().isEnabled()).isFalse();
+    assertThat(ParallelTransactionExecutor.create(0, metricsSystem).isEnabled()).isFalse();
+    assertThat(executor.isEnabled()).isTrue();
+  }
+
+  @Test
+  public void independentTransfersAreAppliedFromParallelExecution() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < senders.size(); i++) {
+      transactions.add(transaction(senders.get(i), 0, Address.fromHexString("0x2" + i), 1, 1));
+    }
+
+    assertSameResultAsSequentialExecution(frontierSchedule, transactions);
+    assertSameResultAsSequentialExecution(constantinopleSchedule, transactions);
+
+    verify(appliedCounter, times(transactions.size() * 2)).inc();
+    verify(reexecutedCounter, times(0)).inc();
+  }
+
+  @Test
+  public void transactionsWritingDistinctStorageSlotsAreAppliedFromParallelExecution() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (final KeyPair sender : senders) {
+      transactions.add(transaction(sender, 0, CALLER_STORE, 0, 1));
+    }
+
+    assertSameResultAsSequentialExecution(constantinopleSchedule, transactions);
+
+    verify(appliedCounter, times(transactions.size())).inc();
+    verify(reexecutedCounter, times(0)).inc();
+  }
+
+  @Test
+  public void transactionsFromTheSameSenderAreReexecuted() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int nonce = 0; nonce < 4; nonce++) {
+      transactions.add(transaction(senders.get(0), nonce, Address.fromHexString("0x20"), 1, 1));
+    }
+
+    assertSameResultAsSequentialExecution(frontierSchedule, transactions);
+
+    verify(appliedCounter, times(1)).inc();
+    verify(reexecutedCounter, times(3)).inc();
+  }
+
+  @Test
+  public void transactionsReadingAnUpdatedStorageSlotAreReexecuted() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (final KeyPair sender : senders) {
+      transactions.add(transaction(sender, 0, COUNTER, 0, 1));
+    }
+
+    assertSameResultAsSequentialExecution(constantinopleSchedule, transactions);
+
+    verify(appliedCounter, times(1)).inc();
+    verify(reexecutedCounter, times(senders.size() - 1)).inc();
+  }
+
+  @Test
+  public void transactionsReadingTheMiningBeneficiaryAreReexecuted() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (final KeyPair sender : senders) {
+      transactions.add(transaction(sender, 0, COINBASE_BALANCE_STORE, 0, 1));
+    }
+
+    assertSameResultAsSequentialExecution(frontierSchedule, transactions);
+
+    verify(appliedCounter, times(1)).inc();
+    verify(reexecutedCounter, times(senders.size() - 1)).inc();
+  }
+
+  @Test
+  public void transactionsPayingNoFeeToAnEmptyMiningBeneficiaryAreApplied() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (final KeyPair sender : senders) {
+      transactions.add(transaction(sender, 0, CALLER_STORE, 0, 0));
+    }
+
+    // Whether the beneficiary is left empty or cleared depends on the protocol spec.
+    assertSameResultAsSequentialExecution(frontierSchedule, transactions);
+    assertSameResultAsSequentialExecution(constantinopleSchedule, transactions);
+
+    verify(appliedCounter, times(transactions.size() * 2)).inc();
+    verify(reexecutedCounter, times(0)).inc();
+  }
+
+  @Test
+  public void transactionSentByTheMiningBeneficiaryGivesSameResultAsSequentialExecution() {
+    final KeyPair beneficiary = senders.get(0);
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int i = 1; i < senders.size(); i++) {
+      transactions.add(transaction(senders.get(i), 0, CALLER_STORE, 0, 1));
+    }
+    transactions.add(transaction(beneficiary, 0, CALLER_STORE, 0, 1));
+
+    final BlockHeader header = blockHeader(Util.publicKeyToAddress(beneficiary.getPublicKey()));
+    assertSameResultAsSequentialExecution(constantinopleSchedule, header, transactions);
+
+    verify(appliedCounter, times(senders.size() - 1)).inc();
+    verify(reexecutedCounter, times(1)).inc();
+  }
+
+  private void assertSameResultAsSequentialExecution(
+      final ProtocolSchedule<Void> protocolSchedule, final List<Transaction> transactions) {
+    assertSameResultAsSequentialExecution(protocolSchedule, blockHeader(COINBASE), transactions);
+  }
+
+  private void assertSameResultAsSequentialExecution(
+      final ProtocolSchedule<Void> protocolSchedule,
+      final BlockHeader header,
+      final List<Transaction> transactions) {
+    final BlockProcessor blockProcessor =
+        protocolSchedule.getByBlockNumber(header.getNumber()).getBlockProcessor();
+
+    final MutableWorldState sequentialWorldState = createWorldState();
+    final BlockProcessor.Result sequentialResult =
+        blockProcessor.processBlock(
+            new TestBlockchain(), sequentialWorldState, header, transactions, emptyList());
+    final MutableWorldState parallelWorldState = createWorldState();
+    final BlockProcessor.Result parallelResult =
+        blockProcessor.processBlock(
+            new TestBlockchain(), parallelWorldState, header, transactions, emptyList(), executor);
+
+    assertThat(sequentialResult.isSuccessful()).isTrue();
+    assertThat(parallelResult.isSuccessful()).isTrue();
+    assertThat(encoded(parallelResult.getReceipts()))
+        .isEqualTo(encoded(sequentialResult.getReceipts()));
+    assertThat(parallelWorldState.rootHash()).isEqualTo(sequentialWorldState.rootHash());
+  }
+
+  private static List<BytesValue> encoded(final List<TransactionReceipt> receipts) {
+    return receipts.stream().map(r -> RLP.encode(r::writeTo)).collect(Collectors.toList());
+  }
+
+  private MutableWorldState createWorldState() {
+    final Map<String, AccountMock> accounts = new HashMap<>();
+    for (final KeyPair sender : senders) {
+      accounts.put(
+          Util.publicKeyToAddress(sender.getPublicKey()).toString(),
+          new AccountMock("0", SENDER_BALANCE, emptyMap(), "0x"));
+    }
+    accounts.put(CALLER_STORE.toString(), new AccountMock("0", "0x0", emptyMap(), "0x333355"));
+    accounts.put(
+        COUNTER.toString(), new AccountMock("0", "0x0", emptyMap(), "0x600054600101600055"));
+    accounts.put(
+        COINBASE_BALANCE_STORE.toString(), new AccountMock("0", "0x0", emptyMap(), "0x41313355"));
+    return WorldStateMock.create(accounts);
+  }
+
+  private static BlockHeader blockHeader(final Address coinbase) {
+    return new BlockHeaderTestFixture()
+        .number(1)
+        .coinbase(coinbase)
+        .gasLimit(10_000_000L)
+        .buildHeader();
+  }
+
+  private static Transaction transaction(
+      final KeyPair sender,
+      final long nonce,
+      final Address to,
+      final long value,
+      final long gasPrice) {
+    return Transaction.builder()
+        .nonce(nonce)
+        .gasPrice(Wei.of(gasPrice))
+        .gasLimit(100_000L)
+        .to(to)
+        .value(Wei.of(value))
+        .payload(BytesValue.EMPTY)
+        .signAndBuild(sender);
+  }
+}
@@ -18,8 +18,15 @@ import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageWorldStateStorage.Updater;
 import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
 import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 
 import org.junit.Test;
 
@@ -153,6 +160,33 @@ public class KeyValueStorageWorldStateStorageTest {
     assertThat(storage.getNodeData(Hash.hash(bytes))).contains(bytes);
   }
 
+  @Test
+  public void getAllNodeData_returnsValuesInRequestOrder() {
+    final BytesValue bytes = BytesValue.fromHexString("0x123456");
+    final BytesValue code = BytesValue.fromHexString("0x60");
+    final KeyValueStorageWorldStateStorage storage = emptyStorage();
+    storage
+        .updater()
+        .putAccountStateTrieNode(Hash.hash(bytes), bytes)
+        .putCode(Hash.hash(code), code)
+        .commit();
+
+    assertThat(
+            storage.getAllNodeData(
+                Arrays.asList(
+                    Hash.hash(code),
+                    Hash.EMPTY,
+                    Hash.hash(BytesValue.of(1)),
+                    MerklePatriciaTrie.EMPTY_TRIE_NODE_HASH,
+                    Hash.hash(bytes))))
+        .containsExactly(
+            Optional.of(code),
+            Optional.of(BytesValue.EMPTY),
+            Optional.empty(),
+            Optional.of(MerklePatriciaTrie.EMPTY_TRIE_NODE),
+            Optional.of(bytes));
+  }
+
   @Test
   public void reconcilesNonConflictingUpdaters() {
     final BytesValue bytesA = BytesValue.fromHexString("0x12");
@@ -186,6 +220,92 @@ public class KeyValueStorageWorldStateStorageTest {
     assertThat(emptyStorage().isWorldStateAvailable(Hash.EMPTY_TRIE_HASH)).isTrue();
   }
 
+  @Test
+  public void isFlatStateAvailable_emptyTrieStateByDefault() {
+    assertThat(emptyStorage().isFlatStateAvailable(Hash.EMPTY_TRIE_HASH)).isTrue();
+    assertThat(emptyStorage().isFlatStateAvailable(Bytes32.TRUE)).isFalse();
+  }
+
+  @Test
+  public void advanceFlatState_appliesFlatChangesFromCurrentState() {
+    final BytesValue account = BytesValue.fromHexString("0x12");
+    final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+    final KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(keyValueStorage);
+
+    storage
+        .updater()
+        .putFlatAccount(Bytes32.FALSE, account)
+        .advanceFlatState(Hash.EMPTY_TRIE_HASH, Bytes32.TRUE)
+        .commit();
+
+    assertThat(storage.isFlatStateAvailable(Bytes32.TRUE)).isTrue();
+    assertThat(storage.getFlatAccount(Bytes32.TRUE, Bytes32.FALSE)).contains(account);
+    assertThat(storage.getFlatAccount(Bytes32.TRUE, Bytes32.TRUE)).contains(BytesValue.EMPTY);
+    assertThat(storage.getFlatAccount(Hash.EMPTY_TRIE_HASH, Bytes32.FALSE)).isEmpty();
+    assertThat(
+            new KeyValueStorageWorldStateStorage(keyValueStorage)
+                .isFlatStateAvailable(Bytes32.TRUE))
+        .isTrue();
+  }
+
+  @Test
+  public void advanceFlatState_discardsFlatChangesFromOtherStates() {
+    final BytesValue bytes = BytesValue.fromHexString("0x12");
+    final KeyValueStorageWorldStateStorage storage = emptyStorage();
+
+    storage
+        .updater()
+        .putCode(bytes)
+        .putFlatAccount(Bytes32.FALSE, bytes)
+        .advanceFlatState(Bytes32.FALSE, Bytes32.TRUE)
+        .commit();
+
+    assertThat(storage.getCode(Hash.hash(bytes))).contains(bytes);
+    assertThat(storage.isFlatStateAvailable(Hash.EMPTY_TRIE_HASH)).isTrue();
+    assertThat(storage.getFlatAccount(Hash.EMPTY_TRIE_HASH, Bytes32.FALSE))
+        .contains(BytesValue.EMPTY);
+  }
+
+  @Test
+  public void startFlatStateGeneration_wipesFlatValuesButNotTrieNodesInTheirKeyRange() {
+    final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+    final KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(keyValueStorage);
+    // Find nodes whose hashes start with the same byte as flat account or storage keys
+    final List<BytesValue> nodes = new ArrayList<>();
+    for (int i = 0; nodes.size() < 10; i++) {
+      final BytesValue node = BytesValues.toMinimalBytes(i);
+      final int firstByte = Hash.hash(node).get(0);
+      if (firstByte == 0x10 || firstByte == 0x11) {
+        nodes.add(node);
+      }
+    }
+    final Updater updater = storage.updater();
+    nodes.forEach(node -> updater.putAccountStateTrieNode(Hash.hash(node), node));
+    for (int i = 0; i < 5; i++) {
+      final Bytes32 accountHash = Hash.hash(BytesValue.of(i));
+      updater
+          .putFlatAccount(accountHash, BytesValue.of(1))
+          .putFlatAccountStorage(accountHash, Bytes32.TRUE, BytesValue.of(2));
+    }
+    updater.advanceFlatState(Hash.EMPTY_TRIE_HASH, Bytes32.TRUE).commit();
+
+    storage.startFlatStateGeneration(Hash.EMPTY_TRIE_HASH);
+    while (storage.generateFlatState(2)) {}
+
+    for (final BytesValue node : nodes) {
+      assertThat(storage.getAccountStateTrieNode(Hash.hash(node))).contains(node);
+    }
+    for (int i = 0; i < 5; i++) {
+      final Bytes32 accountHash = Hash.hash(BytesValue.of(i));
+      assertThat(storage.getFlatAccount(Hash.EMPTY_TRIE_HASH, accountHash))
+          .contains(BytesValue.EMPTY);
+      assertThat(storage.getFlatAccountStorage(Hash.EMPTY_TRIE_HASH, accountHash, Bytes32.TRUE))
+          .contains(BytesValue.EMPTY);
+    }
+  }
+
   private KeyValueStorageWorldStateStorage emptyStorage() {
     return new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
   }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.storage.keyvalue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockchainStorage;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.mainnet.MainnetProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.storage.StorageProvider;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RocksDbStorageProviderTest {
+
+  private final ProtocolSchedule<Void> protocolSchedule = MainnetProtocolSchedule.create();
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldRouteKeysToColumnFamilies() {
+    final Hash hash = Hash.hash(BytesValue.of(1));
+    assertThat(RocksDbStorageProvider.blockchainColumn(concatenate(2, hash)))
+        .isEqualTo(RocksDbStorageProvider.BLOCK_HEADERS);
+    assertThat(RocksDbStorageProvider.blockchainColumn(concatenate(3, hash)))
+        .isEqualTo(RocksDbStorageProvider.BLOCK_BODIES);
+    assertThat(RocksDbStorageProvider.blockchainColumn(concatenate(4, hash)))
+        .isEqualTo(RocksDbStorageProvider.TRANSACTION_RECEIPTS);
+    assertThat(RocksDbStorageProvider.blockchainColumn(concatenate(6, hash)))
+        .isEqualTo(RocksDbStorageProvider.BLOCKCHAIN_INDEXES);
+    assertThat(RocksDbStorageProvider.worldStateColumn(hash))
+        .isEqualTo(RocksDbStorageProvider.WORLD_STATE);
+    assertThat(RocksDbStorageProvider.worldStateColumn(concatenate(0x10, hash)))
+        .isEqualTo(RocksDbStorageProvider.FLAT_STATE);
+  }
+
+  @Test
+  public void shouldReadDataBackAfterReopening() throws Exception {
+    final Path databaseDir = folder.newFolder().toPath();
+    final BlockHeader header = new BlockDataGenerator().header();
+    final BytesValue node = BytesValue.fromHexString("0x123456");
+
+    try (final StorageProvider storageProvider = createStorageProvider(databaseDir)) {
+      final BlockchainStorage.Updater blockchainUpdater =
+          storageProvider.createBlockchainStorage(protocolSchedule).updater();
+      blockchainUpdater.putBlockHeader(header.getHash(), header);
+      blockchainUpdater.putBlockHash(header.getNumber(), header.getHash());
+      blockchainUpdater.putTotalDifficulty(header.getHash(), UInt256.ONE);
+      blockchainUpdater.commit();
+      storageProvider
+          .createWorldStateStorage()
+          .updater()
+          .putAccountStateTrieNode(Hash.hash(node), node)
+          .commit();
+    }
+
+    try (final StorageProvider storageProvider = createStorageProvider(databaseDir)) {
+      final BlockchainStorage blockchainStorage =
+          storageProvider.createBlockchainStorage(protocolSchedule);
+      assertThat(blockchainStorage.getBlockHeader(header.getHash())).contains(header);
+      assertThat(blockchainStorage.getBlockHash(header.getNumber())).contains(header.getHash());
+      assertThat(blockchainStorage.getTotalDifficulty(header.getHash())).contains(UInt256.ONE);
+      final WorldStateStorage worldStateStorage = storageProvider.createWorldStateStorage();
+      assertThat(worldStateStorage.getNodeData(Hash.hash(node))).contains(node);
+    }
+  }
+
+  private StorageProvider createStorageProvider(final Path databaseDir) throws Exception {
+    return RocksDbStorageProvider.create(
+        new RocksDbConfiguration.Builder().databaseDir(databaseDir).build(),
+        new NoOpMetricsSystem());
+  }
+
+  private static BytesValue concatenate(final int prefix, final Bytes32 key) {
+    return BytesValue.wrap(BytesValue.of(prefix), key);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class CodeCacheTest {
+
+  private final AtomicInteger analyses = new AtomicInteger();
+
+  @Test
+  public void shouldOnlyAnalyseCodeOnce() {
+    final CodeCache cache = new CodeCache(CodeCache.DEFAULT_CACHE_SIZE_BYTES);
+    final Hash codeHash = Hash.hash(BytesValue.fromHexString("0x5b"));
+
+    final BitSet first = cache.getValidJumpDestinations(codeHash, analyser(0));
+    final BitSet second = cache.getValidJumpDestinations(codeHash, analyser(0));
+
+    assertThat(second).isSameAs(first);
+    assertThat(second.get(0)).isTrue();
+    assertThat(analyses).hasValue(1);
+  }
+
+  @Test
+  public void shouldCacheCodeSeparatelyByHash() {
+    final CodeCache cache = new CodeCache(CodeCache.DEFAULT_CACHE_SIZE_BYTES);
+    final Hash firstHash = Hash.hash(BytesValue.fromHexString("0x5b"));
+    final Hash secondHash = Hash.hash(BytesValue.fromHexString("0x005b"));
+
+    final BitSet first = cache.getValidJumpDestinations(firstHash, analyser(0));
+    final BitSet second = cache.getValidJumpDestinations(secondHash, analyser(1));
+
+    assertThat(first.get(0)).isTrue();
+    assertThat(second.get(0)).isFalse();
+    assertThat(second.get(1)).isTrue();
+    assertThat(analyses).hasValue(2);
+  }
+
+  @Test
+  public void shouldEvictAnalysesWhenCacheIsFull() {
+    final CodeCache cache = new CodeCache(1);
+    final Hash codeHash = Hash.hash(BytesValue.fromHexString("0x5b"));
+
+    cache.getValidJumpDestinations(codeHash, analyser(0));
+    cache.getValidJumpDestinations(codeHash, analyser(0));
+
+    assertThat(analyses).hasValue(2);
+  }
+
+  private Supplier<BitSet> analyser(final int jumpDestination) {
+    return () -> {
+      analyses.incrementAndGet();
+      final BitSet bits = new BitSet();
+      bits.set(jumpDestination);
+      return bits;
+    };
+  }
+}
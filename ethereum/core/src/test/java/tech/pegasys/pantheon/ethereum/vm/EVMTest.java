@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.ExecutionContextTestFixture;
+import tech.pegasys.pantheon.ethereum.core.Gas;
+import tech.pegasys.pantheon.ethereum.core.MessageFrameTestFixture;
+import tech.pegasys.pantheon.ethereum.mainnet.ConstantinopleGasCalculator;
+import tech.pegasys.pantheon.ethereum.mainnet.MainnetEvmRegistries;
+import tech.pegasys.pantheon.ethereum.vm.ehalt.ExceptionalHaltException;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.EnumSet;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+public class EVMTest {
+
+  // Runs operations through the traced path, as debug RPCs do.
+  private static final OperationTracer PASS_THROUGH_TRACER =
+      (frame, currentGasCost, executeOperation) -> executeOperation.execute();
+
+  private final EVM evm =
+      MainnetEvmRegistries.constantinople(
+          new ConstantinopleGasCalculator(), new CodeCache(CodeCache.DEFAULT_CACHE_SIZE_BYTES));
+  private final ExecutionContextTestFixture executionContext = ExecutionContextTestFixture.create();
+
+  @Test
+  public void shouldRunLoopToCompletion() {
+    final MessageFrame frame = assertSameAsTraced("0x600a5b6001900380600257", 10_000);
+
+    assertThat(frame.getState()).isEqualTo(MessageFrame.State.CODE_SUCCESS);
+    assertThat(frame.getRemainingGas().compareTo(Gas.of(10_000))).isLessThan(0);
+  }
+
+  @Test
+  public void shouldReturnMemory() {
+    final MessageFrame frame = assertSameAsTraced("0x602a60005260206000f3", 10_000);
+
+    assertThat(frame.getState()).isEqualTo(MessageFrame.State.CODE_SUCCESS);
+    assertThat(frame.getOutputData())
+        .isEqualTo(BytesValue.fromHexString(Strings.padStart("2a", 64, '0')));
+  }
+
+  @Test
+  public void shouldHaltOnStackUnderflow() {
+    assertHaltsWith("0x01", ExceptionalHaltReason.INSUFFICIENT_STACK_ITEMS);
+  }
+
+  @Test
+  public void shouldHaltOnStackOverflow() {
+    assertHaltsWith(
+        "0x" + Strings.repeat("6001", 1025), ExceptionalHaltReason.TOO_MANY_STACK_ITEMS);
+  }
+
+  @Test
+  public void shouldHaltOnInvalidOperation() {
+    assertHaltsWith("0xfe", ExceptionalHaltReason.INVALID_OPERATION);
+  }
+
+  @Test
+  public void shouldHaltOnUndefinedOpcode() {
+    assertHaltsWith("0x0c", ExceptionalHaltReason.INVALID_OPERATION);
+  }
+
+  @Test
+  public void shouldHaltOnInvalidJumpDestination() {
+    assertHaltsWith("0x600556", ExceptionalHaltReason.INVALID_JUMP_DESTINATION);
+  }
+
+  @Test
+  public void shouldHaltWhenRunningOutOfGas() {
+    final MessageFrame frame = assertSameAsTraced("0x600a5b6001900380600257", 30);
+
+    assertThat(frame.getExceptionalHaltReasons())
+        .containsExactly(ExceptionalHaltReason.INSUFFICIENT_GAS);
+  }
+
+  private void assertHaltsWith(final String code, final ExceptionalHaltReason reason) {
+    final MessageFrame frame = assertSameAsTraced(code, 1_000_000);
+
+    assertThat(frame.getState()).isEqualTo(MessageFrame.State.EXCEPTIONAL_HALT);
+    assertThat(frame.getExceptionalHaltReasons()).contains(reason);
+  }
+
+  private MessageFrame assertSameAsTraced(final String code, final long gas) {
+    final MessageFrame untraced = run(code, gas, OperationTracer.NO_TRACING);
+    final MessageFrame traced = run(code, gas, PASS_THROUGH_TRACER);
+
+    assertThat(untraced.getState()).isEqualTo(traced.getState());
+    assertThat(untraced.getRemainingGas()).isEqualTo(traced.getRemainingGas());
+    assertThat(untraced.getExceptionalHaltReasons()).isEqualTo(traced.getExceptionalHaltReasons());
+    assertThat(untraced.getOutputData()).isEqualTo(traced.getOutputData());
+    assertThat(untraced.getPC()).isEqualTo(traced.getPC());
+    return untraced;
+  }
+
+  private MessageFrame run(final String code, final long gas, final OperationTracer tracer) {
+    final MessageFrame frame =
+        new MessageFrameTestFixture()
+            .executionContextTestFixture(executionContext)
+            .code(new Code(BytesValue.fromHexString(code)))
+            .initialGas(Gas.of(gas))
+            .build();
+    frame.setState(MessageFrame.State.CODE_EXECUTING);
+    try {
+      evm.runToHalt(frame, tracer);
+    } catch (final ExceptionalHaltException e) {
+      assertThat(e.getReasons()).isEqualTo(EnumSet.copyOf(frame.getExceptionalHaltReasons()));
+    }
+    return frame;
+  }
+}
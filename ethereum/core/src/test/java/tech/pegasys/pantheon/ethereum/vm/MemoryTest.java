@@ -147,6 +147,51 @@ public class MemoryTest {
     assertThat(memory.getWord(UInt256.of(64))).isEqualTo(Bytes32.ZERO);
   }
 
+  @Test
+  public void shouldSetAndGetUnalignedBytesSpanningWords() {
+    final BytesValue value = BytesValues.concatenate(WORD1, WORD2, WORD3).slice(5, 80);
+    memory.setBytes(UInt256.of(7), UInt256.of(80), value);
+
+    assertThat(memory.getActiveWords()).isEqualTo(UInt256.of(3));
+    assertThat(memory.getBytes(UInt256.of(7), UInt256.of(80))).isEqualTo(value);
+    assertThat(memory.getBytes(UInt256.ZERO, UInt256.of(7))).isEqualTo(BytesValue.of(new byte[7]));
+  }
+
+  @Test
+  public void shouldKeepContentWhenExpanding() {
+    memory.setWord(UInt256.of(3), WORD1);
+    memory.setWord(UInt256.of(4096), WORD2);
+
+    assertThat(memory.getActiveWords()).isEqualTo(UInt256.of(129));
+    assertThat(memory.getWord(UInt256.of(3))).isEqualTo(WORD1);
+    assertThat(memory.getWord(UInt256.of(4096))).isEqualTo(WORD2);
+    assertThat(memory.getWord(UInt256.of(2048))).isEqualTo(Bytes32.ZERO);
+  }
+
+  @Test
+  public void shouldReturnCopiesWhenGettingBytes() {
+    memory.setWord(UInt256.ZERO, WORD1);
+    final BytesValue copy = memory.getBytes(UInt256.ZERO, UInt256.of(32));
+    final BytesValue view = memory.getBytesWithoutCopy(UInt256.ZERO, UInt256.of(32));
+
+    memory.setWord(UInt256.ZERO, WORD2);
+
+    assertThat(copy).isEqualTo(WORD1);
+    assertThat(view).isEqualTo(WORD2);
+  }
+
+  @Test
+  public void shouldCompareActiveContent() {
+    final Memory other = new Memory();
+    memory.setWord(UInt256.ZERO, WORD1);
+    other.setWord(UInt256.ZERO, WORD1);
+    assertThat(memory).isEqualTo(other);
+    assertThat(memory.hashCode()).isEqualTo(other.hashCode());
+
+    other.setByte(UInt256.of(32), (byte) 0);
+    assertThat(memory).isNotEqualTo(other);
+  }
+
   private static Bytes32 fillBytes32(final long value) {
     return Bytes32.fromHexString(Strings.repeat(Long.toString(value), 64));
   }
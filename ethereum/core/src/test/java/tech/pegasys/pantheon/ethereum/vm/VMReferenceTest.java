@@ -119,6 +119,7 @@ public class VMReferenceTest extends AbstractRetryingTest {
     final ProtocolSpec<Void> protocolSpec =
         MainnetProtocolSpecs.frontierDefinition(OptionalInt.empty())
             .privacyParameters(PrivacyParameters.DEFAULT)
+            .codeCache(new CodeCache(CodeCache.DEFAULT_CACHE_SIZE_BYTES))
             .build(new MutableProtocolSchedule<>(CHAIN_ID));
 
     final TestBlockchain blockchain = new TestBlockchain(execEnv.getBlockHeader().getNumber());
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageWorldStateStorage;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Test;
+
+public class CachingWorldStateStorageTest {
+
+  private static final BytesValue NODE = BytesValue.fromHexString("0x1234");
+  private static final Hash NODE_HASH = Hash.hash(NODE);
+
+  private final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+  private final CachingWorldStateStorage storage =
+      new CachingWorldStateStorage(
+          new KeyValueStorageWorldStateStorage(keyValueStorage), new NoOpMetricsSystem());
+
+  @Test
+  public void shouldCacheNodesWhenWritten() {
+    storage.updater().putAccountStateTrieNode(NODE_HASH, NODE).commit();
+    removeFromUnderlyingStorage(NODE_HASH);
+
+    assertThat(storage.getAccountStateTrieNode(NODE_HASH)).contains(NODE);
+    assertThat(storage.isWorldStateAvailable(NODE_HASH)).isTrue();
+  }
+
+  @Test
+  public void shouldCacheNodesWhenRead() {
+    final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+    transaction.put(NODE_HASH, NODE);
+    transaction.commit();
+
+    assertThat(storage.getAccountStorageTrieNode(NODE_HASH)).contains(NODE);
+    removeFromUnderlyingStorage(NODE_HASH);
+
+    assertThat(storage.getAccountStorageTrieNode(NODE_HASH)).contains(NODE);
+    assertThat(storage.getNodeData(NODE_HASH)).contains(NODE);
+  }
+
+  @Test
+  public void shouldCombineCachedAndStoredNodesWhenReadTogether() {
+    final BytesValue storedNode = BytesValue.fromHexString("0x5678");
+    storage.updater().putAccountStateTrieNode(NODE_HASH, NODE).commit();
+    removeFromUnderlyingStorage(NODE_HASH);
+    final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+    transaction.put(Hash.hash(storedNode), storedNode);
+    transaction.commit();
+
+    assertThat(storage.getAllNodeData(Arrays.asList(Hash.hash(storedNode), Hash.ZERO, NODE_HASH)))
+        .containsExactly(Optional.of(storedNode), Optional.empty(), Optional.of(NODE));
+  }
+
+  @Test
+  public void shouldNotCacheNodesWhenRolledBack() {
+    final WorldStateStorage.Updater updater = storage.updater();
+    updater.putAccountStateTrieNode(NODE_HASH, NODE);
+    updater.rollback();
+
+    assertThat(storage.getAccountStateTrieNode(NODE_HASH)).isEmpty();
+  }
+
+  @Test
+  public void shouldEvictNodesWhenCacheIsFull() {
+    final CachingWorldStateStorage smallStorage =
+        new CachingWorldStateStorage(
+            new KeyValueStorageWorldStateStorage(keyValueStorage), 1024, new NoOpMetricsSystem());
+    final WorldStateStorage.Updater updater = smallStorage.updater();
+    for (int i = 0; i < 100; i++) {
+      final BytesValue node = BytesValue.of(i);
+      updater.putAccountStateTrieNode(Hash.hash(node), node);
+    }
+    updater.commit();
+    for (int i = 0; i < 100; i++) {
+      removeFromUnderlyingStorage(Hash.hash(BytesValue.of(i)));
+    }
+
+    long cachedCount = 0;
+    for (int i = 0; i < 100; i++) {
+      if (smallStorage.getAccountStateTrieNode(Hash.hash(BytesValue.of(i))).isPresent()) {
+        cachedCount++;
+      }
+    }
+    assertThat(cachedCount).isGreaterThan(0).isLessThan(100);
+  }
+
+  @Test
+  public void shouldRemovePrunedNodesFromCache() {
+    storage.updater().putAccountStateTrieNode(NODE_HASH, NODE).commit();
+
+    assertThat(storage.prune(hash -> false)).isEqualTo(1);
+
+    assertThat(storage.getAccountStateTrieNode(NODE_HASH)).isEmpty();
+    assertThat(storage.isWorldStateAvailable(NODE_HASH)).isFalse();
+  }
+
+  private void removeFromUnderlyingStorage(final Hash hash) {
+    final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+    transaction.remove(hash);
+    transaction.commit();
+  }
+}
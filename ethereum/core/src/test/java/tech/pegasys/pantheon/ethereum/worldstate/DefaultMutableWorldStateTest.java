@@ -25,16 +25,20 @@ import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.core.WorldState;
 import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageWorldStateStorage;
 import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
 import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Entry;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.TreeMap;
+import java.util.stream.Stream;
 
 import org.junit.Test;
 
@@ -557,6 +561,280 @@ public class DefaultMutableWorldStateTest {
     assertThat(storage).isEqualTo(expected);
   }
 
+  @Test
+  public void flatStateFollowsPersistedState() {
+    final KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+    final MutableWorldState worldState = createEmpty(storage);
+    WorldUpdater updater = worldState.updater();
+    final MutableAccount account = updater.createAccount(ADDRESS);
+    account.setBalance(Wei.of(100000));
+    account.setStorageValue(UInt256.ONE, UInt256.of(2));
+    updater.commit();
+    worldState.persist();
+
+    final Hash addressHash = Hash.hash(ADDRESS);
+    final Hash rootHash = worldState.rootHash();
+    assertThat(storage.isFlatStateAvailable(rootHash)).isTrue();
+    assertThat(storage.getFlatAccount(rootHash, addressHash))
+        .isNotEqualTo(Optional.of(BytesValue.EMPTY));
+    assertThat(storage.getFlatAccountStorage(rootHash, addressHash, hash(UInt256.ONE)))
+        .contains(RLP.encode(out -> out.writeUInt256Scalar(UInt256.of(2))));
+
+    updater = worldState.updater();
+    updater.deleteAccount(ADDRESS);
+    updater.commit();
+    worldState.persist();
+
+    final Hash newRootHash = worldState.rootHash();
+    assertThat(storage.isFlatStateAvailable(rootHash)).isFalse();
+    assertThat(storage.getFlatAccount(rootHash, addressHash)).isEmpty();
+    assertThat(storage.getFlatAccount(newRootHash, addressHash)).contains(BytesValue.EMPTY);
+    assertThat(storage.getFlatAccountStorage(newRootHash, addressHash, hash(UInt256.ONE)))
+        .contains(BytesValue.EMPTY);
+  }
+
+  @Test
+  public void flatStateIgnoresStatesNotBuiltOnIt() {
+    final KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+    final MutableWorldState worldState = createEmpty(storage);
+    WorldUpdater updater = worldState.updater();
+    updater.createAccount(ADDRESS).setBalance(Wei.of(100000));
+    updater.commit();
+    worldState.persist();
+
+    final MutableWorldState otherWorldState = createEmpty(storage);
+    updater = otherWorldState.updater();
+    updater.createAccount(ADDRESS).setBalance(Wei.of(200000));
+    updater.commit();
+    otherWorldState.persist();
+
+    assertThat(storage.isFlatStateAvailable(worldState.rootHash())).isTrue();
+    assertThat(storage.isFlatStateAvailable(otherWorldState.rootHash())).isFalse();
+    assertThat(otherWorldState.get(ADDRESS).getBalance()).isEqualTo(Wei.of(200000));
+  }
+
+  @Test
+  public void readsUnchangedAccountsFromFlatState() {
+    final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+    final KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(keyValueStorage);
+    final MutableWorldState worldState = createEmpty(storage);
+    final WorldUpdater updater = worldState.updater();
+    final MutableAccount account = updater.createAccount(ADDRESS);
+    account.setBalance(Wei.of(100000));
+    account.setStorageValue(UInt256.ONE, UInt256.of(2));
+    updater.commit();
+    worldState.persist();
+
+    // Remove the trie root so reads can only be served from the flat state
+    final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+    transaction.remove(worldState.rootHash());
+    transaction.commit();
+
+    final MutableWorldState copy = new DefaultMutableWorldState(worldState.rootHash(), storage);
+    assertThat(copy.get(ADDRESS).getBalance()).isEqualTo(Wei.of(100000));
+    assertThat(copy.get(ADDRESS).getStorageValue(UInt256.ONE)).isEqualTo(UInt256.of(2));
+    assertThat(copy.get(ADDRESS).getStorageValue(UInt256.of(2))).isEqualTo(UInt256.ZERO);
+    assertThat(copy.get(Address.fromHexString("0x01"))).isNull();
+  }
+
+  @Test
+  public void flatStateRemovesClearedStorage() {
+    final KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+    final MutableWorldState worldState = createEmpty(storage);
+    WorldUpdater updater = worldState.updater();
+    MutableAccount account = updater.createAccount(ADDRESS);
+    account.setBalance(Wei.of(100000));
+    account.setStorageValue(UInt256.ONE, UInt256.of(2));
+    account.setStorageValue(UInt256.of(2), UInt256.of(3));
+    updater.commit();
+    worldState.persist();
+
+    updater = worldState.updater();
+    account = updater.getMutable(ADDRESS);
+    account.clearStorage();
+    account.setStorageValue(UInt256.of(3), UInt256.of(4));
+    updater.commit();
+    worldState.persist();
+
+    final MutableWorldState copy = new DefaultMutableWorldState(worldState.rootHash(), storage);
+    assertThat(storage.isFlatStateAvailable(worldState.rootHash())).isTrue();
+    assertThat(copy.get(ADDRESS).getStorageValue(UInt256.ONE)).isEqualTo(UInt256.ZERO);
+    assertThat(copy.get(ADDRESS).getStorageValue(UInt256.of(2))).isEqualTo(UInt256.ZERO);
+    assertThat(copy.get(ADDRESS).getStorageValue(UInt256.of(3))).isEqualTo(UInt256.of(4));
+  }
+
+  @Test
+  public void flatStateFollowsCanonicalStateAfterForkIsPersisted() {
+    final KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+    final Hash genesisRoot = persistAccount(storage, Hash.EMPTY_TRIE_HASH, 1);
+
+    // A sibling of the next canonical state is persisted first and moves the snapshot
+    final Hash forkRoot = persistAccount(storage, genesisRoot, 2);
+    final Hash canonicalRoot = persistAccount(storage, genesisRoot, 3);
+    assertThat(storage.isFlatStateAvailable(forkRoot)).isTrue();
+    assertThat(storage.isFlatStateAvailable(canonicalRoot)).isFalse();
+
+    // The canonical chain head moves the snapshot back on the canonical chain
+    assertThat(storage.moveFlatState(canonicalRoot)).isTrue();
+    assertThat(storage.isFlatStateAvailable(canonicalRoot)).isTrue();
+    assertThat(storage.isFlatStateAvailable(forkRoot)).isFalse();
+    assertFlatAccount(storage, canonicalRoot, 3);
+
+    // The next canonical state is built on the snapshot's state again
+    final Hash nextCanonicalRoot = persistAccount(storage, canonicalRoot, 4);
+    assertThat(storage.isFlatStateAvailable(nextCanonicalRoot)).isTrue();
+    assertFlatAccount(storage, nextCanonicalRoot, 4);
+  }
+
+  @Test
+  public void flatStateFollowsReorg() {
+    final KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+    final Hash genesisRoot = persistAccount(storage, Hash.EMPTY_TRIE_HASH, 1);
+    final Hash canonicalRoot = persistAccount(storage, genesisRoot, 2);
+    final Hash nextCanonicalRoot = persistAccount(storage, canonicalRoot, 3);
+    final Hash forkRoot = persistAccount(storage, genesisRoot, 4);
+    final Hash nextForkRoot = persistAccount(storage, forkRoot, 5);
+    assertThat(storage.isFlatStateAvailable(nextCanonicalRoot)).isTrue();
+    assertThat(storage.isFlatStateAvailable(nextForkRoot)).isFalse();
+
+    assertThat(storage.moveFlatState(nextForkRoot)).isTrue();
+    assertFlatAccount(storage, nextForkRoot, 5);
+    assertThat(storage.isFlatStateAvailable(nextCanonicalRoot)).isFalse();
+
+    assertThat(storage.moveFlatState(nextCanonicalRoot)).isTrue();
+    assertFlatAccount(storage, nextCanonicalRoot, 3);
+  }
+
+  @Test
+  public void flatStateIsGeneratedForStateWithoutSnapshot() {
+    // Fast sync downloads the trie nodes of a state without writing its flat snapshot
+    final KeyValueStorage sourceStorage = new InMemoryKeyValueStorage();
+    final Hash rootHash =
+        persistAccount(
+            new KeyValueStorageWorldStateStorage(sourceStorage), Hash.EMPTY_TRIE_HASH, 7);
+    final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+    final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+    try (final Stream<Entry> entries = sourceStorage.entries()) {
+      entries
+          .filter(entry -> entry.getKey().size() == Bytes32.SIZE)
+          .forEach(entry -> transaction.put(entry.getKey(), entry.getValue()));
+    }
+    transaction.commit();
+
+    KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(keyValueStorage);
+    assertThat(storage.isFlatStateAvailable(rootHash)).isFalse();
+    assertThat(storage.moveFlatState(rootHash)).isFalse();
+
+    storage.startFlatStateGeneration(rootHash);
+    assertThat(storage.isFlatStateGenerating()).isTrue();
+    assertThat(storage.getFlatAccount(rootHash, Hash.hash(ADDRESS))).isEmpty();
+    assertThat(storage.generateFlatState(1)).isTrue();
+
+    // Generation resumes after a restart
+    storage = new KeyValueStorageWorldStateStorage(keyValueStorage);
+    assertThat(storage.isFlatStateGenerating()).isTrue();
+    while (storage.generateFlatState(1)) {}
+
+    assertThat(storage.isFlatStateGenerating()).isFalse();
+    assertFlatAccount(storage, rootHash, 7);
+    assertThat(storage.getFlatAccountStorage(rootHash, Hash.hash(ADDRESS), hash(UInt256.ONE)))
+        .contains(RLP.encode(out -> out.writeUInt256Scalar(UInt256.of(7))));
+  }
+
+  @Test
+  public void flatStorageIsGeneratedInBatches() {
+    final KeyValueStorage sourceStorage = new InMemoryKeyValueStorage();
+    final MutableWorldState worldState =
+        createEmpty(new KeyValueStorageWorldStateStorage(sourceStorage));
+    WorldUpdater updater = worldState.updater();
+    final MutableAccount account = updater.createAccount(ADDRESS);
+    account.setBalance(Wei.of(100000));
+    for (int i = 1; i <= 5; i++) {
+      account.setStorageValue(UInt256.of(i), UInt256.of(i));
+    }
+    updater.commit();
+    worldState.persist();
+    final Hash rootHash = worldState.rootHash();
+    final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+    final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+    try (final Stream<Entry> entries = sourceStorage.entries()) {
+      entries
+          .filter(entry -> entry.getKey().size() == Bytes32.SIZE)
+          .forEach(entry -> transaction.put(entry.getKey(), entry.getValue()));
+    }
+    transaction.commit();
+
+    KeyValueStorageWorldStateStorage storage =
+        new KeyValueStorageWorldStateStorage(keyValueStorage);
+    storage.startFlatStateGeneration(rootHash);
+    while (countFlatValues(keyValueStorage) == 0) {
+      assertThat(storage.generateFlatState(2)).isTrue();
+    }
+    // The account and its first storage slot
+    assertThat(countFlatValues(keyValueStorage)).isEqualTo(2);
+    assertThat(storage.generateFlatState(2)).isTrue();
+    assertThat(countFlatValues(keyValueStorage)).isEqualTo(4);
+
+    // Changes to slots on either side of the generation progress are kept after a restart
+    storage = new KeyValueStorageWorldStateStorage(keyValueStorage);
+    assertThat(storage.isFlatStateGenerating()).isTrue();
+    final MutableWorldState nextWorldState = new DefaultMutableWorldState(rootHash, storage);
+    updater = nextWorldState.updater();
+    for (int i = 1; i <= 5; i++) {
+      updater.getMutable(ADDRESS).setStorageValue(UInt256.of(i), UInt256.of(10 * i));
+    }
+    updater.commit();
+    nextWorldState.persist();
+    final Hash nextRootHash = nextWorldState.rootHash();
+
+    while (storage.generateFlatState(2)) {}
+    assertThat(storage.isFlatStateGenerating()).isFalse();
+    assertThat(storage.isFlatStateAvailable(nextRootHash)).isTrue();
+    assertThat(countFlatValues(keyValueStorage)).isEqualTo(6);
+    for (int i = 1; i <= 5; i++) {
+      final long value = 10 * i;
+      assertThat(
+              storage.getFlatAccountStorage(nextRootHash, Hash.hash(ADDRESS), hash(UInt256.of(i))))
+          .contains(RLP.encode(out -> out.writeUInt256Scalar(UInt256.of(value))));
+    }
+  }
+
+  private static long countFlatValues(final KeyValueStorage keyValueStorage) {
+    try (final Stream<Entry> entries = keyValueStorage.entries()) {
+      return entries
+          .map(Entry::getKey)
+          .filter(key -> key.size() == 1 + Bytes32.SIZE || key.size() == 1 + 2 * Bytes32.SIZE)
+          .count();
+    }
+  }
+
+  private static Hash persistAccount(
+      final KeyValueStorageWorldStateStorage storage, final Hash parentRoot, final long value) {
+    final MutableWorldState worldState = new DefaultMutableWorldState(parentRoot, storage);
+    final WorldUpdater updater = worldState.updater();
+    final MutableAccount account = updater.getOrCreate(ADDRESS);
+    account.setBalance(Wei.of(value));
+    account.setStorageValue(UInt256.ONE, UInt256.of(value));
+    updater.commit();
+    worldState.persist();
+    return worldState.rootHash();
+  }
+
+  private static void assertFlatAccount(
+      final KeyValueStorageWorldStateStorage storage, final Hash rootHash, final long balance) {
+    final Optional<BytesValue> account = storage.getFlatAccount(rootHash, Hash.hash(ADDRESS));
+    assertThat(account).isPresent();
+    assertThat(StateTrieAccountValue.readFrom(RLP.input(account.get())).getBalance())
+        .isEqualTo(Wei.of(balance));
+  }
+
   private Hash hash(final UInt256 key) {
     return Hash.hash(key.getBytes());
   }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedObserver;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class FlatStateManagerTest {
+
+  private final BlockDataGenerator gen = new BlockDataGenerator();
+  private final WorldStateStorage worldStateStorage = mock(WorldStateStorage.class);
+  private final Blockchain blockchain = mock(Blockchain.class);
+  private final BlockHeader chainHead = gen.header();
+  private final FlatStateManager flatStateManager =
+      new FlatStateManager(worldStateStorage, blockchain, MoreExecutors.newDirectExecutorService());
+
+  @Before
+  public void setUp() {
+    when(blockchain.getChainHeadHeader()).thenReturn(chainHead);
+  }
+
+  @Test
+  public void movesSnapshotToChainHeadOnStart() {
+    when(worldStateStorage.moveFlatState(chainHead.getStateRoot())).thenReturn(true);
+
+    flatStateManager.start();
+
+    verify(worldStateStorage).moveFlatState(chainHead.getStateRoot());
+    verify(worldStateStorage, never()).startFlatStateGeneration(any());
+  }
+
+  @Test
+  public void generatesSnapshotWhenChainHeadIsUnreachable() {
+    when(worldStateStorage.isWorldStateAvailable(chainHead.getStateRoot())).thenReturn(true);
+    when(worldStateStorage.isFlatStateGenerating()).thenReturn(true, false);
+
+    flatStateManager.start();
+
+    verify(worldStateStorage).startFlatStateGeneration(chainHead.getStateRoot());
+    verify(worldStateStorage).generateFlatState(FlatStateManager.GENERATION_BATCH_SIZE);
+  }
+
+  @Test
+  public void doesNotGenerateSnapshotForUnavailableState() {
+    flatStateManager.start();
+
+    verify(worldStateStorage, never()).startFlatStateGeneration(any());
+    verify(worldStateStorage, never()).generateFlatState(FlatStateManager.GENERATION_BATCH_SIZE);
+  }
+
+  @Test
+  public void movesSnapshotToNewCanonicalHeadOnly() {
+    final ArgumentCaptor<BlockAddedObserver> observer =
+        ArgumentCaptor.forClass(BlockAddedObserver.class);
+    when(worldStateStorage.moveFlatState(any())).thenReturn(true);
+    flatStateManager.start();
+    verify(blockchain).observeBlockAdded(observer.capture());
+
+    final Block fork = gen.block();
+    observer.getValue().onBlockAdded(BlockAddedEvent.createForFork(fork), blockchain);
+    verify(worldStateStorage, never()).moveFlatState(fork.getHeader().getStateRoot());
+
+    final Block head = gen.block();
+    observer.getValue().onBlockAdded(BlockAddedEvent.createForHeadAdvancement(head), blockchain);
+    verify(worldStateStorage).moveFlatState(head.getHeader().getStateRoot());
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Account;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.WorldState;
+import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageWorldStateStorage;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class MarkSweepPrunerTest {
+
+  private final BlockDataGenerator gen = new BlockDataGenerator();
+  private final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+  private final WorldStateStorage worldStateStorage =
+      new KeyValueStorageWorldStateStorage(keyValueStorage);
+  private final WorldStateArchive worldStateArchive = new WorldStateArchive(worldStateStorage);
+  private final KeyValueStorage markStorage = new InMemoryKeyValueStorage();
+  private final MarkSweepPruner pruner =
+      new MarkSweepPruner(worldStateStorage, markStorage, new NoOpMetricsSystem());
+
+  @Test
+  public void shouldRemoveStatesNotReachableFromMarkedRoot() {
+    final MutableWorldState worldState = worldStateArchive.getMutable();
+    gen.createRandomContractAccountsWithNonEmptyStorage(worldState, 10);
+    final Hash oldRoot = worldState.rootHash();
+    gen.createRandomContractAccountsWithNonEmptyStorage(worldState, 10);
+    final List<Account> accounts =
+        gen.createRandomContractAccountsWithNonEmptyStorage(worldState, 10);
+    final Hash markedRoot = worldState.rootHash();
+
+    pruner.prepare();
+    pruner.mark(markedRoot);
+    pruner.sweep();
+
+    assertThat(worldStateArchive.isWorldStateAvailable(oldRoot)).isFalse();
+    assertThat(worldStateArchive.isWorldStateAvailable(markedRoot)).isTrue();
+    assertStateIsComplete(markedRoot, accounts);
+  }
+
+  @Test
+  public void shouldClearMarksAfterSweep() {
+    final MutableWorldState worldState = worldStateArchive.getMutable();
+    gen.createRandomContractAccountsWithNonEmptyStorage(worldState, 200);
+    final Hash markedRoot = worldState.rootHash();
+
+    pruner.prepare();
+    pruner.mark(markedRoot);
+    assertThat(markStorage.entries().count()).isGreaterThan(1000);
+    pruner.sweep();
+
+    assertThat(markStorage.entries().count()).isZero();
+    assertThat(worldStateArchive.isWorldStateAvailable(markedRoot)).isTrue();
+  }
+
+  @Test
+  public void shouldRetainNodesAddedAfterPrepare() {
+    final MutableWorldState worldState = worldStateArchive.getMutable();
+    gen.createRandomContractAccountsWithNonEmptyStorage(worldState, 10);
+    final Hash markedRoot = worldState.rootHash();
+
+    pruner.prepare();
+    final List<Account> accounts =
+        gen.createRandomContractAccountsWithNonEmptyStorage(worldState, 10);
+    final Hash newRoot = worldState.rootHash();
+    pruner.mark(markedRoot);
+    pruner.sweep();
+
+    assertThat(worldStateArchive.isWorldStateAvailable(markedRoot)).isTrue();
+    assertStateIsComplete(newRoot, accounts);
+  }
+
+  @Test
+  public void shouldNotRemoveEntriesWhichAreNotWorldStateNodes() {
+    final BytesValue key = BytesValue.fromHexString("0x01020304");
+    final KeyValueStorage.Transaction transaction = keyValueStorage.startTransaction();
+    transaction.put(key, BytesValue.of(1));
+    transaction.commit();
+
+    final MutableWorldState worldState = worldStateArchive.getMutable();
+    gen.createRandomContractAccountsWithNonEmptyStorage(worldState, 10);
+    pruner.prepare();
+    pruner.mark(worldState.rootHash());
+    pruner.sweep();
+
+    assertThat(keyValueStorage.get(key)).contains(BytesValue.of(1));
+  }
+
+  private void assertStateIsComplete(final Hash rootHash, final List<Account> accounts) {
+    final WorldState state = worldStateArchive.get(rootHash).get();
+    for (final Account expected : accounts) {
+      final Account actual = state.get(expected.getAddress());
+      assertThat(actual.getBalance()).isEqualTo(expected.getBalance());
+      assertThat(actual.getCode()).isEqualTo(expected.getCode());
+      assertThat(actual.storageEntriesFrom(Hash.ZERO, Integer.MAX_VALUE))
+          .isEqualTo(expected.storageEntriesFrom(Hash.ZERO, Integer.MAX_VALUE));
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedObserver;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator.BlockOptions;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+public class PrunerTest {
+
+  private final BlockDataGenerator gen = new BlockDataGenerator();
+  private final MarkSweepPruner markSweepPruner = mock(MarkSweepPruner.class);
+  private final Blockchain blockchain = mock(Blockchain.class);
+  private final ExecutorService executorService = mock(ExecutorService.class);
+  private final Queue<Runnable> pendingTasks = new ArrayDeque<>();
+
+  private final Pruner pruner =
+      new Pruner(markSweepPruner, blockchain, executorService, new PrunerConfiguration(1, 2));
+  private BlockAddedObserver blockAddedObserver;
+
+  @Before
+  public void setUp() {
+    doAnswer(invocation -> pendingTasks.add(invocation.getArgument(0)))
+        .when(executorService)
+        .execute(any());
+    pruner.start();
+    final ArgumentCaptor<BlockAddedObserver> observerCaptor =
+        ArgumentCaptor.forClass(BlockAddedObserver.class);
+    verify(blockchain).observeBlockAdded(observerCaptor.capture());
+    blockAddedObserver = observerCaptor.getValue();
+  }
+
+  @Test
+  public void shouldPrepareOnExecutorRatherThanImportThread() {
+    addChainHead(1);
+
+    verify(markSweepPruner, never()).prepare();
+    assertThat(pendingTasks).hasSize(1);
+
+    runPendingTasks();
+    verify(markSweepPruner).prepare();
+  }
+
+  @Test
+  public void shouldMarkFirstBlockAddedAfterPrepareCompletes() {
+    addChainHead(1);
+    // Nodes of this block may be written before tracking starts, so it can't be the one marked.
+    addChainHead(2);
+    runPendingTasks();
+
+    final Block markBlock = addChainHead(3);
+    addChainHead(4);
+    runPendingTasks();
+
+    verify(markSweepPruner).mark(markBlock.getHeader().getStateRoot());
+  }
+
+  @Test
+  public void shouldSweepOnceBlocksRetainedHaveBeenAddedAfterMarkBlock() {
+    addChainHead(1);
+    runPendingTasks();
+    final Block markBlock = addChainHead(2);
+    addChainHead(3);
+    runPendingTasks();
+    when(blockchain.blockIsOnCanonicalChain(markBlock.getHash())).thenReturn(true);
+
+    addChainHead(4);
+    runPendingTasks();
+
+    final InOrder inOrder = inOrder(markSweepPruner);
+    inOrder.verify(markSweepPruner).prepare();
+    inOrder.verify(markSweepPruner).mark(markBlock.getHeader().getStateRoot());
+    inOrder.verify(markSweepPruner).sweep();
+  }
+
+  private Block addChainHead(final long number) {
+    final Block block = gen.block(BlockOptions.create().setBlockNumber(number));
+    when(blockchain.getBlockHeader(number)).thenReturn(Optional.of(block.getHeader()));
+    blockAddedObserver.onBlockAdded(BlockAddedEvent.createForHeadAdvancement(block), blockchain);
+    return block;
+  }
+
+  private void runPendingTasks() {
+    while (!pendingTasks.isEmpty()) {
+      pendingTasks.remove().run();
+    }
+  }
+}
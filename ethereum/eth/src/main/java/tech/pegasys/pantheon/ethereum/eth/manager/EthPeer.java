@@ -46,6 +46,8 @@ import org.apache.logging.log4j.Logger;
 
 public class EthPeer {
   private static final Logger LOG = LogManager.getLogger();
+  static final int DEFAULT_MAX_OUTSTANDING_REQUESTS = 5;
+  static final int MAX_OUTSTANDING_REQUESTS = 16;
   private final PeerConnection connection;
 
   private final int maxTrackedSeenBlocks = 300;
@@ -64,6 +66,8 @@ public class EthPeer {
   private final AtomicReference<Consumer<EthPeer>> onStatusesExchanged = new AtomicReference<>();
   private final PeerReputation reputation = new PeerReputation();
   private final Subscribers<DisconnectCallback> disconnectCallbacks = new Subscribers<>();
+  // Grows by one for each round of responses and halves on timeouts.
+  private double maxOutstandingRequests = DEFAULT_MAX_OUTSTANDING_REQUESTS;
 
   EthPeer(
       final PeerConnection connection,
@@ -98,6 +102,10 @@ public class EthPeer {
 
   public void recordRequestTimeout(final int requestCode) {
     LOG.debug("Timed out while waiting for response from peer {}", this);
+    requestManager(requestCode).throughput().recordTimeout();
+    synchronized (this) {
+      maxOutstandingRequests = Math.max(1, maxOutstandingRequests / 2);
+    }
     reputation.recordRequestTimeout(requestCode).ifPresent(this::disconnect);
   }
 
@@ -231,24 +239,100 @@ public class EthPeer {
       case EthPV62.BLOCK_HEADERS:
         reputation.resetTimeoutCount(EthPV62.GET_BLOCK_HEADERS);
         headersRequestManager.dispatchResponse(message);
+        recordResponse();
         break;
       case EthPV62.BLOCK_BODIES:
         reputation.resetTimeoutCount(EthPV62.GET_BLOCK_BODIES);
         bodiesRequestManager.dispatchResponse(message);
+        recordResponse();
         break;
       case EthPV63.RECEIPTS:
         reputation.resetTimeoutCount(EthPV63.GET_RECEIPTS);
         receiptsRequestManager.dispatchResponse(message);
+        recordResponse();
         break;
       case EthPV63.NODE_DATA:
         reputation.resetTimeoutCount(EthPV63.GET_NODE_DATA);
         nodeDataRequestManager.dispatchResponse(message);
+        recordResponse();
         break;
       default:
         // Nothing to do
     }
   }
 
+  private synchronized void recordResponse() {
+    maxOutstandingRequests =
+        Math.min(MAX_OUTSTANDING_REQUESTS, maxOutstandingRequests + 1 / maxOutstandingRequests);
+  }
+
+  private RequestManager requestManager(final int requestCode) {
+    switch (requestCode) {
+      case EthPV62.GET_BLOCK_HEADERS:
+        return headersRequestManager;
+      case EthPV62.GET_BLOCK_BODIES:
+        return bodiesRequestManager;
+      case EthPV63.GET_RECEIPTS:
+        return receiptsRequestManager;
+      case EthPV63.GET_NODE_DATA:
+        return nodeDataRequestManager;
+      default:
+        throw new IllegalArgumentException("Not a request message code: " + requestCode);
+    }
+  }
+
+  /**
+   * Returns how quickly this peer has been serving requests of the given type.
+   *
+   * @param requestCode the message code of the requests
+   * @return the measured throughput of the peer for these requests
+   */
+  public PeerThroughput throughput(final int requestCode) {
+    return requestManager(requestCode).throughput();
+  }
+
+  /**
+   * Returns the number of items to request from this peer at a time, based on how quickly it has
+   * been serving requests of the given type.
+   *
+   * @param requestCode the message code of the requests
+   * @param maxSize the maximum number of items to request
+   * @return the number of items to request, between 1 and {@code maxSize}
+   */
+  public int requestSize(final int requestCode, final int maxSize) {
+    return throughput(requestCode).requestSize(maxSize);
+  }
+
+  /**
+   * Returns the number of items per second a new request of the given type can expect from this
+   * peer, sharing it with the requests already outstanding.
+   *
+   * @param requestCode the message code of the request
+   * @return the expected rate, or {@link Double#POSITIVE_INFINITY} if the peer hasn't responded to
+   *     or timed out on such requests yet, so that it gets measured
+   */
+  public double expectedItemsPerSecond(final int requestCode) {
+    final PeerThroughput throughput = throughput(requestCode);
+    return throughput.hasSamples()
+        ? throughput.getItemsPerSecond() / (1 + outstandingRequests())
+        : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the number of requests this peer may have outstanding at once. This starts at {@value
+   * #DEFAULT_MAX_OUTSTANDING_REQUESTS}, grows as the peer keeps responding and halves each time it
+   * fails to respond in time.
+   *
+   * @return the maximum number of outstanding requests
+   */
+  public synchronized int maxOutstandingRequests() {
+    return (int) maxOutstandingRequests;
+  }
+
+  public boolean hasAvailableRequestCapacity() {
+    return outstandingRequests() < maxOutstandingRequests();
+  }
+
   public Map<Integer, AtomicInteger> timeoutCounts() {
     return reputation.timeoutCounts();
   }
@@ -321,11 +405,17 @@ public class EthPeer {
     chainHeadState.update(blockHash, height);
   }
 
+  /**
+   * Returns the number of requests awaiting a response from this peer. Requests that timed out
+   * aren't counted, so that they don't use up the peer's capacity if it never responds to them.
+   *
+   * @return the number of outstanding requests
+   */
   public int outstandingRequests() {
-    return headersRequestManager.outstandingRequests()
-        + bodiesRequestManager.outstandingRequests()
-        + receiptsRequestManager.outstandingRequests()
-        + nodeDataRequestManager.outstandingRequests();
+    return headersRequestManager.pendingRequests()
+        + bodiesRequestManager.pendingRequests()
+        + receiptsRequestManager.pendingRequests()
+        + nodeDataRequestManager.pendingRequests();
   }
 
   public BytesValue nodeId() {
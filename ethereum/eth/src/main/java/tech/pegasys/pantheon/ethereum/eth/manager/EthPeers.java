@@ -38,7 +38,6 @@ public class EthPeers {
   public static final Comparator<EthPeer> LEAST_TO_MOST_BUSY =
       Comparator.comparing(EthPeer::outstandingRequests);
 
-  private final int maxOutstandingRequests = 5;
   private final Map<PeerConnection, EthPeer> connections = new ConcurrentHashMap<>();
   private final String protocolName;
   private final Subscribers<ConnectCallback> connectCallbacks = new Subscribers<>();
@@ -99,9 +98,7 @@ public class EthPeers {
 
   private Stream<EthPeer> idlePeers() {
     final List<EthPeer> peers =
-        availablePeers()
-            .filter(p -> p.outstandingRequests() < maxOutstandingRequests)
-            .collect(Collectors.toList());
+        availablePeers().filter(EthPeer::hasAvailableRequestCapacity).collect(Collectors.toList());
     Collections.shuffle(peers);
     return peers.stream();
   }
@@ -110,6 +107,25 @@ public class EthPeers {
     return idlePeers().filter(p -> p.chainState().getEstimatedHeight() >= withBlocksUpTo).findAny();
   }
 
+  /**
+   * Selects the idle peer expected to serve a request of the given type the fastest, based on the
+   * rate at which it has been serving these requests and the requests it already has outstanding.
+   * Peers that haven't served such requests yet are selected first, so they get measured.
+   *
+   * @param withBlocksUpTo the block number the peer must have
+   * @param requestCode the message code of the request
+   * @return the selected peer, if any peer with the required blocks is idle
+   */
+  public Optional<EthPeer> idlePeer(final long withBlocksUpTo, final int requestCode) {
+    return idlePeers()
+        .filter(p -> p.chainState().getEstimatedHeight() >= withBlocksUpTo)
+        .max(fastestFor(requestCode));
+  }
+
+  public static Comparator<EthPeer> fastestFor(final int requestCode) {
+    return Comparator.comparingDouble(p -> p.expectedItemsPerSecond(requestCode));
+  }
+
   @FunctionalInterface
   public interface ConnectCallback {
     void onPeerConnected(EthPeer newPeer);
@@ -13,10 +13,8 @@
 package tech.pegasys.pantheon.ethereum.eth.manager;
 
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
-import tech.pegasys.pantheon.ethereum.core.BlockBody;
 import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.Hash;
-import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
 import tech.pegasys.pantheon.ethereum.eth.EthereumWireProtocolConfiguration;
 import tech.pegasys.pantheon.ethereum.eth.messages.BlockBodiesMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.BlockHeadersMessage;
@@ -31,17 +29,15 @@ import tech.pegasys.pantheon.ethereum.eth.messages.ReceiptsMessage;
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection.PeerNotConnected;
 import tech.pegasys.pantheon.ethereum.p2p.wire.messages.DisconnectMessage.DisconnectReason;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.ethereum.rlp.RLPException;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateArchive;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import com.google.common.collect.Lists;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -152,34 +148,41 @@ class EthServer {
     final int skip = getHeaders.skip();
     final int maxHeaders = Math.min(requestLimit, getHeaders.maxHeaders());
     final boolean reversed = getHeaders.reverse();
-    final BlockHeader firstHeader;
+    // Headers are served as they are stored, only the header found by hash needs to be decoded to
+    // find the numbers of the headers following it.
+    final long firstNumber;
+    final BytesValue firstHeader;
     if (hash.isPresent()) {
-      final Hash startHash = hash.get();
-      firstHeader = blockchain.getBlockHeader(startHash).orElse(null);
+      final Optional<BlockHeader> maybeHeader = blockchain.getBlockHeader(hash.get());
+      if (!maybeHeader.isPresent()) {
+        return BlockHeadersMessage.create();
+      }
+      firstNumber = maybeHeader.get().getNumber();
+      firstHeader = RLP.encode(maybeHeader.get()::writeTo);
     } else {
-      final long firstNumber = getHeaders.blockNumber().getAsLong();
-      firstHeader = blockchain.getBlockHeader(firstNumber).orElse(null);
+      firstNumber = getHeaders.blockNumber().getAsLong();
+      final Optional<BytesValue> maybeHeader = blockchain.getBlockHeaderRlp(firstNumber);
+      if (!maybeHeader.isPresent()) {
+        return BlockHeadersMessage.create();
+      }
+      firstHeader = maybeHeader.get();
     }
-    final Collection<BlockHeader> resp;
-    if (firstHeader == null) {
-      resp = Collections.emptyList();
-    } else {
-      resp = Lists.newArrayList(firstHeader);
-      final long numberDelta = reversed ? -(skip + 1) : (skip + 1);
-      for (int i = 1; i < maxHeaders; i++) {
-        final long blockNumber = firstHeader.getNumber() + i * numberDelta;
-        if (blockNumber < BlockHeader.GENESIS_BLOCK_NUMBER) {
-          break;
-        }
-        final Optional<BlockHeader> maybeHeader = blockchain.getBlockHeader(blockNumber);
-        if (maybeHeader.isPresent()) {
-          resp.add(maybeHeader.get());
-        } else {
-          break;
-        }
+    final List<BytesValue> resp = new ArrayList<>();
+    resp.add(firstHeader);
+    final long numberDelta = reversed ? -(skip + 1) : (skip + 1);
+    for (int i = 1; i < maxHeaders; i++) {
+      final long blockNumber = firstNumber + i * numberDelta;
+      if (blockNumber < BlockHeader.GENESIS_BLOCK_NUMBER) {
+        break;
+      }
+      final Optional<BytesValue> maybeHeader = blockchain.getBlockHeaderRlp(blockNumber);
+      if (maybeHeader.isPresent()) {
+        resp.add(maybeHeader.get());
+      } else {
+        break;
       }
     }
-    return BlockHeadersMessage.create(resp);
+    return BlockHeadersMessage.createFromRlp(resp);
   }
 
   static MessageData constructGetBodiesResponse(
@@ -187,20 +190,20 @@ class EthServer {
     final GetBlockBodiesMessage getBlockBodiesMessage = GetBlockBodiesMessage.readFrom(message);
     final Iterable<Hash> hashes = getBlockBodiesMessage.hashes();
 
-    final Collection<BlockBody> bodies = new ArrayList<>();
+    final List<BytesValue> bodies = new ArrayList<>();
     int count = 0;
     for (final Hash hash : hashes) {
       if (count >= requestLimit) {
         break;
       }
       count++;
-      final Optional<BlockBody> maybeBody = blockchain.getBlockBody(hash);
+      final Optional<BytesValue> maybeBody = blockchain.getBlockBodyRlp(hash);
       if (!maybeBody.isPresent()) {
         continue;
       }
       bodies.add(maybeBody.get());
     }
-    return BlockBodiesMessage.create(bodies);
+    return BlockBodiesMessage.createFromRlp(bodies);
   }
 
   static MessageData constructGetReceiptsResponse(
@@ -208,20 +211,20 @@ class EthServer {
     final GetReceiptsMessage getReceipts = GetReceiptsMessage.readFrom(message);
     final Iterable<Hash> hashes = getReceipts.hashes();
 
-    final List<List<TransactionReceipt>> receipts = new ArrayList<>();
+    final List<BytesValue> receipts = new ArrayList<>();
     int count = 0;
     for (final Hash hash : hashes) {
       if (count >= requestLimit) {
         break;
       }
       count++;
-      final Optional<List<TransactionReceipt>> maybeReceipts = blockchain.getTxReceipts(hash);
+      final Optional<BytesValue> maybeReceipts = blockchain.getTxReceiptsRlp(hash);
       if (!maybeReceipts.isPresent()) {
         continue;
       }
       receipts.add(maybeReceipts.get());
     }
-    return ReceiptsMessage.create(receipts);
+    return ReceiptsMessage.createFromRlp(receipts);
   }
 
   static MessageData constructGetNodeDataResponse(
@@ -231,16 +234,18 @@ class EthServer {
     final GetNodeDataMessage getNodeDataMessage = GetNodeDataMessage.readFrom(message);
     final Iterable<Hash> hashes = getNodeDataMessage.hashes();
 
-    final List<BytesValue> nodeData = new ArrayList<>();
-    int count = 0;
+    final List<Hash> requestedHashes = new ArrayList<>();
     for (final Hash hash : hashes) {
-      if (count >= requestLimit) {
+      if (requestedHashes.size() >= requestLimit) {
         break;
       }
-      count++;
-
-      worldStateArchive.getNodeData(hash).ifPresent(nodeData::add);
+      requestedHashes.add(hash);
     }
+
+    final List<BytesValue> nodeData = new ArrayList<>(requestedHashes.size());
+    worldStateArchive
+        .getNodeData(requestedHashes)
+        .forEach(maybeNodeData -> maybeNodeData.ifPresent(nodeData::add));
     return NodeDataMessage.create(nodeData);
   }
 }
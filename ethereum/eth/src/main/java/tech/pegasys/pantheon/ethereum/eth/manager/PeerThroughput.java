@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.manager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how quickly a peer serves one type of request, as exponential moving averages of the
+ * latency of its responses and the rate at which it delivers items (headers, bodies, receipts or
+ * node data) and bytes.
+ *
+ * <p>Empty responses, where the peer doesn't have the requested data, count as delivering no items,
+ * so that peers which keep answering empty are selected after those which deliver. Requests are
+ * sized from the item rate of the non-empty responses only, so that the peer can be expected to
+ * respond within {@link #TARGET_RESPONSE_TIME}. Since that rate includes the latency of each
+ * response, sizing requests this way converges towards the largest requests the peer serves in that
+ * time.
+ */
+public class PeerThroughput {
+  static final Duration TARGET_RESPONSE_TIME = Duration.ofSeconds(1);
+  // Weight of the latest sample in the moving averages.
+  private static final double SMOOTHING_FACTOR = 0.25;
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long MIN_ELAPSED_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private int samples;
+  private double latencyMillis;
+  private double itemsPerSecond;
+  private double bytesPerSecond;
+  private int nonEmptySamples;
+  private double nonEmptyItemsPerSecond;
+
+  /**
+   * Records a response from the peer.
+   *
+   * @param items the number of items in the response
+   * @param bytes the size of the response
+   * @param elapsedNanos the time between sending the request and receiving the response
+   */
+  public synchronized void recordResponse(
+      final int items, final int bytes, final long elapsedNanos) {
+    final double seconds = Math.max(elapsedNanos, MIN_ELAPSED_NANOS) / NANOS_PER_SECOND;
+    latencyMillis = average(samples, latencyMillis, seconds * 1000);
+    itemsPerSecond = average(samples, itemsPerSecond, items / seconds);
+    bytesPerSecond = average(samples, bytesPerSecond, bytes / seconds);
+    samples++;
+    if (items > 0) {
+      nonEmptyItemsPerSecond = average(nonEmptySamples, nonEmptyItemsPerSecond, items / seconds);
+      nonEmptySamples++;
+    }
+  }
+
+  /**
+   * Records that the peer didn't respond to a request in time, halving its measured rates. A peer
+   * that hasn't been measured yet is counted as delivering nothing, so that it stops being selected
+   * ahead of the peers that do respond.
+   */
+  public synchronized void recordTimeout() {
+    itemsPerSecond /= 2;
+    bytesPerSecond /= 2;
+    nonEmptyItemsPerSecond /= 2;
+    if (samples == 0) {
+      samples = 1;
+    }
+  }
+
+  private static double average(final int samples, final double current, final double sample) {
+    return samples == 0 ? sample : current + SMOOTHING_FACTOR * (sample - current);
+  }
+
+  public synchronized boolean hasSamples() {
+    return samples > 0;
+  }
+
+  public synchronized double getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  public synchronized double getItemsPerSecond() {
+    return itemsPerSecond;
+  }
+
+  public synchronized double getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  /**
+   * Returns the number of items to request from the peer at a time.
+   *
+   * @param maxSize the maximum number of items to request, which is also requested from peers that
+   *     haven't delivered any items yet
+   * @return the number of items the peer is expected to deliver within the target response time,
+   *     between 1 and {@code maxSize}
+   */
+  public synchronized int requestSize(final int maxSize) {
+    if (nonEmptySamples == 0) {
+      return maxSize;
+    }
+    final double expectedItems = nonEmptyItemsPerSecond * TARGET_RESPONSE_TIME.toMillis() / 1000;
+    return (int) Math.max(1, Math.min(maxSize, expectedItems));
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format(
+        "PeerThroughput{latencyMillis=%.0f, itemsPerSecond=%.1f, bytesPerSecond=%.0f}",
+        latencyMillis, itemsPerSecond, bytesPerSecond);
+  }
+}
@@ -14,6 +14,8 @@ package tech.pegasys.pantheon.ethereum.eth.manager;
 
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection.PeerNotConnected;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.rlp.RLPException;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -21,8 +23,13 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.google.common.annotations.VisibleForTesting;
 
 public class RequestManager {
   private final AtomicLong responseStreamId = new AtomicLong(0L);
@@ -30,25 +37,66 @@ public class RequestManager {
   private final EthPeer peer;
 
   private final AtomicInteger outstandingRequests = new AtomicInteger(0);
+  // Send times of the requests awaiting a response, by the ID of their stream. Peers respond in
+  // order, so each response is matched to the oldest. Requests that are given up on are removed
+  // when their stream is closed.
+  private final ConcurrentNavigableMap<Long, Long> pendingRequestTimes =
+      new ConcurrentSkipListMap<>();
+  private final PeerThroughput throughput = new PeerThroughput();
+  private final LongSupplier nanoTime;
 
   public RequestManager(final EthPeer peer) {
+    this(peer, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  RequestManager(final EthPeer peer, final LongSupplier nanoTime) {
     this.peer = peer;
+    this.nanoTime = nanoTime;
   }
 
+  /**
+   * Returns the number of requests the peer hasn't responded to, including requests that timed out
+   * but may still be responded to.
+   *
+   * @return the number of outstanding requests
+   */
   public int outstandingRequests() {
     return outstandingRequests.get();
   }
 
+  /**
+   * Returns the number of requests still awaiting a response, not counting requests that were given
+   * up on.
+   *
+   * @return the number of pending requests
+   */
+  public int pendingRequests() {
+    return pendingRequestTimes.size();
+  }
+
+  public PeerThroughput throughput() {
+    return throughput;
+  }
+
   public ResponseStream dispatchRequest(final RequestSender sender) throws PeerNotConnected {
     outstandingRequests.incrementAndGet();
-    final ResponseStream stream = createStream();
-    sender.send();
+    final long streamId = nextStreamId();
+    final ResponseStream stream = createStream(streamId);
+    pendingRequestTimes.put(streamId, nanoTime.getAsLong());
+    try {
+      sender.send();
+    } catch (final PeerNotConnected e) {
+      pendingRequestTimes.remove(streamId);
+      throw e;
+    }
     return stream;
   }
 
   public void dispatchResponse(final EthMessage message) {
     final Collection<ResponseStream> streams = new ArrayList<>(responseStreams.values());
     final int count = outstandingRequests.decrementAndGet();
+    recordResponse(message.getData());
 
     streams.forEach(s -> s.processMessage(message.getData()));
     if (count == 0) {
@@ -57,12 +105,29 @@ public class RequestManager {
     }
   }
 
+  private void recordResponse(final MessageData response) {
+    final Map.Entry<Long, Long> request = pendingRequestTimes.pollFirstEntry();
+    if (request == null) {
+      // The request was given up on
+      return;
+    }
+    int items;
+    try {
+      items = RLP.input(response.getData()).enterList();
+    } catch (final RLPException e) {
+      // Malformed responses are dealt with by whoever requested them.
+      items = 0;
+    }
+    // An empty response means the peer doesn't have the data. It is measured like any other so that
+    // peers which never have the data are selected last.
+    throughput.recordResponse(items, response.getSize(), nanoTime.getAsLong() - request.getValue());
+  }
+
   public void close() {
     closeOutstandingStreams(responseStreams.values());
   }
 
-  private ResponseStream createStream() {
-    final long listenerId = nextStreamId();
+  private ResponseStream createStream(final long listenerId) {
     final ResponseStream stream = new ResponseStream(peer, () -> deregisterStream(listenerId));
     responseStreams.put(listenerId, stream);
     return stream;
@@ -75,6 +140,8 @@ public class RequestManager {
 
   private void deregisterStream(final long id) {
     responseStreams.remove(id);
+    // Closing a stream before its response arrives means the request was given up on
+    pendingRequestTimes.remove(id);
   }
 
   private long nextStreamId() {
@@ -108,7 +108,7 @@ public abstract class AbstractGetHeadersFromPeerTask
 
   @Override
   protected Optional<EthPeer> findSuitablePeer() {
-    return ethContext.getEthPeers().idlePeer(minimumRequiredBlockNumber);
+    return ethContext.getEthPeers().idlePeer(minimumRequiredBlockNumber, EthPV62.GET_BLOCK_HEADERS);
   }
 
   protected abstract boolean matchesFirstHeader(BlockHeader firstHeader);
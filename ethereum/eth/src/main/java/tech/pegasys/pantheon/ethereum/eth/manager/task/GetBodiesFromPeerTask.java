@@ -125,7 +125,9 @@ public class GetBodiesFromPeerTask<C> extends AbstractPeerRequestTask<List<Block
 
   @Override
   protected Optional<EthPeer> findSuitablePeer() {
-    return this.ethContext.getEthPeers().idlePeer(headers.get(headers.size() - 1).getNumber());
+    return this.ethContext
+        .getEthPeers()
+        .idlePeer(headers.get(headers.size() - 1).getNumber(), EthPV62.GET_BLOCK_BODIES);
   }
 
   private static class BodyIdentifier {
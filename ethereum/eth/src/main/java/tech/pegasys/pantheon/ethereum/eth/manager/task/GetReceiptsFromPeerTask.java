@@ -116,6 +116,6 @@ public class GetReceiptsFromPeerTask
             .mapToLong(BlockHeader::getNumber)
             .max()
             .orElse(BlockHeader.GENESIS_BLOCK_NUMBER);
-    return this.ethContext.getEthPeers().idlePeer(maximumRequiredBlockNumber);
+    return this.ethContext.getEthPeers().idlePeer(maximumRequiredBlockNumber, EthPV63.GET_RECEIPTS);
   }
 }
@@ -15,6 +15,7 @@ package tech.pegasys.pantheon.ethereum.eth.manager.task;
 import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
@@ -24,6 +25,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public class RetryingGetNodeDataFromPeerTask
     extends AbstractRetryingPeerTask<Map<Hash, BytesValue>> {
@@ -56,9 +58,22 @@ public class RetryingGetNodeDataFromPeerTask
   @Override
   protected CompletableFuture<Map<Hash, BytesValue>> executePeerTask(
       final Optional<EthPeer> assignedPeer) {
+    // Hashes left out of a smaller request are reported as missing and requested again later.
+    final Optional<EthPeer> peer =
+        assignedPeer.isPresent()
+            ? assignedPeer
+            : ethContext.getEthPeers().idlePeer(pivotBlockNumber, EthPV63.GET_NODE_DATA);
+    final Collection<Hash> requestedHashes =
+        peer.<Collection<Hash>>map(
+                p ->
+                    hashes.stream()
+                        .limit(p.requestSize(EthPV63.GET_NODE_DATA, hashes.size()))
+                        .collect(Collectors.toList()))
+            .orElse(hashes);
     final GetNodeDataFromPeerTask task =
-        GetNodeDataFromPeerTask.forHashes(ethContext, hashes, pivotBlockNumber, metricsSystem);
-    assignedPeer.ifPresent(task::assignPeer);
+        GetNodeDataFromPeerTask.forHashes(
+            ethContext, requestedHashes, pivotBlockNumber, metricsSystem);
+    peer.ifPresent(task::assignPeer);
     return executeSubTask(task::run)
         .thenApply(
             peerResult -> {
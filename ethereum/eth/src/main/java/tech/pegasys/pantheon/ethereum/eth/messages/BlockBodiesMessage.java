@@ -46,6 +46,20 @@ public final class BlockBodiesMessage extends AbstractMessageData {
     return new BlockBodiesMessage(tmp.encoded());
   }
 
+  /**
+   * Create a message from block bodies that are already RLP encoded.
+   *
+   * @param encodedBodies the RLP encoded block bodies
+   * @return the message containing the bodies as they are
+   */
+  public static BlockBodiesMessage createFromRlp(final Iterable<BytesValue> encodedBodies) {
+    final BytesValueRLPOutput tmp = new BytesValueRLPOutput();
+    tmp.startList();
+    encodedBodies.forEach(tmp::writeRLPUnsafe);
+    tmp.endList();
+    return new BlockBodiesMessage(tmp.encoded());
+  }
+
   private BlockBodiesMessage(final BytesValue data) {
     super(data);
   }
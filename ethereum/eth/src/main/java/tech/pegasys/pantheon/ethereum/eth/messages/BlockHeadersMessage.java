@@ -53,6 +53,20 @@ public final class BlockHeadersMessage extends AbstractMessageData {
     return new BlockHeadersMessage(tmp.encoded());
   }
 
+  /**
+   * Create a message from block headers that are already RLP encoded.
+   *
+   * @param encodedHeaders the RLP encoded block headers
+   * @return the message containing the headers as they are
+   */
+  public static BlockHeadersMessage createFromRlp(final Iterable<BytesValue> encodedHeaders) {
+    final BytesValueRLPOutput tmp = new BytesValueRLPOutput();
+    tmp.startList();
+    encodedHeaders.forEach(tmp::writeRLPUnsafe);
+    tmp.endList();
+    return new BlockHeadersMessage(tmp.encoded());
+  }
+
   private BlockHeadersMessage(final BytesValue data) {
     super(data);
   }
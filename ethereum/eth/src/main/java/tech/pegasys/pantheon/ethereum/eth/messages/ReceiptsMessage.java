@@ -50,6 +50,20 @@ public final class ReceiptsMessage extends AbstractMessageData {
     return new ReceiptsMessage(tmp.encoded());
   }
 
+  /**
+   * Create a message from the receipts of blocks that are already RLP encoded.
+   *
+   * @param encodedReceipts the RLP encoded list of the receipts of each block
+   * @return the message containing the receipts as they are
+   */
+  public static ReceiptsMessage createFromRlp(final Iterable<BytesValue> encodedReceipts) {
+    final BytesValueRLPOutput tmp = new BytesValueRLPOutput();
+    tmp.startList();
+    encodedReceipts.forEach(tmp::writeRLPUnsafe);
+    tmp.endList();
+    return new ReceiptsMessage(tmp.encoded());
+  }
+
   private ReceiptsMessage(final BytesValue data) {
     super(data);
   }
@@ -18,8 +18,11 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.task.AbstractGetHeadersFromPeerTask;
 import tech.pegasys.pantheon.ethereum.eth.manager.task.AbstractPeerTask.PeerTaskResult;
 import tech.pegasys.pantheon.ethereum.eth.manager.task.GetHeadersFromPeerByHashTask;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.eth.sync.tasks.DownloadHeaderSequenceTask;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
@@ -27,6 +30,7 @@ import tech.pegasys.pantheon.util.FutureUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
@@ -89,15 +93,20 @@ public class DownloadHeadersStep<C>
           .run();
     } else {
       LOG.debug("Downloading headers starting from {}", checkpointRange.getStart().getNumber());
-      return GetHeadersFromPeerByHashTask.startingAtHash(
+      final long startNumber = checkpointRange.getStart().getNumber();
+      final Optional<EthPeer> peer =
+          ethContext.getEthPeers().idlePeer(startNumber, EthPV62.GET_BLOCK_HEADERS);
+      final AbstractGetHeadersFromPeerTask task =
+          GetHeadersFromPeerByHashTask.startingAtHash(
               protocolSchedule,
               ethContext,
               checkpointRange.getStart().getHash(),
-              checkpointRange.getStart().getNumber(),
-              headerRequestSize,
-              metricsSystem)
-          .run()
-          .thenApply(PeerTaskResult::getResult);
+              startNumber,
+              peer.map(p -> p.requestSize(EthPV62.GET_BLOCK_HEADERS, headerRequestSize))
+                  .orElse(headerRequestSize),
+              metricsSystem);
+      peer.ifPresent(task::assignPeer);
+      return task.run().thenApply(PeerTaskResult::getResult);
     }
   }
 
@@ -14,20 +14,29 @@ package tech.pegasys.pantheon.ethereum.eth.sync.fullsync;
 
 import tech.pegasys.pantheon.ethereum.core.Block;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.TransactionSenderRecovery;
 
 import java.util.List;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class ExtractTxSignaturesTask implements Function<List<Block>, Stream<Block>> {
 
-  @Override
-  public Stream<Block> apply(final List<Block> blocks) {
-    return blocks.stream().map(this::extractSignatures);
+  private final TransactionSenderRecovery transactionSenderRecovery;
+
+  public ExtractTxSignaturesTask(final TransactionSenderRecovery transactionSenderRecovery) {
+    this.transactionSenderRecovery = transactionSenderRecovery;
   }
 
-  private Block extractSignatures(final Block block) {
-    block.getBody().getTransactions().forEach(Transaction::getSender);
-    return block;
+  @Override
+  public Stream<Block> apply(final List<Block> blocks) {
+    // Recover the whole batch at once so it is spread across the recovery threads.
+    final List<Transaction> transactions =
+        blocks.stream()
+            .flatMap(block -> block.getBody().getTransactions().stream())
+            .collect(Collectors.toList());
+    transactionSenderRecovery.recoverSenders(transactions);
+    return blocks.stream();
   }
 }
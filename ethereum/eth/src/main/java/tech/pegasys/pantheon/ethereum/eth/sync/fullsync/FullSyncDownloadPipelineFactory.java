@@ -25,6 +25,7 @@ import tech.pegasys.pantheon.ethereum.eth.sync.DownloadPipelineFactory;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
 import tech.pegasys.pantheon.ethereum.eth.sync.ValidationPolicy;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncTarget;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockStatePrefetcher;
 import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.metrics.MetricCategory;
@@ -36,6 +37,8 @@ import java.util.Optional;
 
 public class FullSyncDownloadPipelineFactory<C> implements DownloadPipelineFactory {
 
+  private static final int STATE_PREFETCH_BLOCKS_AHEAD = 4;
+
   private final SynchronizerConfiguration syncConfig;
   private final ProtocolSchedule<C> protocolSchedule;
   private final ProtocolContext<C> protocolContext;
@@ -44,6 +47,7 @@ public class FullSyncDownloadPipelineFactory<C> implements DownloadPipelineFacto
   private final ValidationPolicy detachedValidationPolicy =
       () -> HeaderValidationMode.DETACHED_ONLY;
   private final BetterSyncTargetEvaluator betterSyncTargetEvaluator;
+  private final PrefetchBlockStateStep<C> prefetchBlockStateStep;
 
   public FullSyncDownloadPipelineFactory(
       final SynchronizerConfiguration syncConfig,
@@ -57,6 +61,13 @@ public class FullSyncDownloadPipelineFactory<C> implements DownloadPipelineFacto
     this.ethContext = ethContext;
     this.metricsSystem = metricsSystem;
     betterSyncTargetEvaluator = new BetterSyncTargetEvaluator(syncConfig, ethContext.getEthPeers());
+    prefetchBlockStateStep =
+        new PrefetchBlockStateStep<>(
+            new BlockStatePrefetcher<>(protocolSchedule, protocolContext),
+            protocolContext.getBlockchain(),
+            ethContext.getScheduler(),
+            STATE_PREFETCH_BLOCKS_AHEAD,
+            metricsSystem);
   }
 
   @Override
@@ -86,7 +97,8 @@ public class FullSyncDownloadPipelineFactory<C> implements DownloadPipelineFacto
             protocolSchedule, protocolContext, detachedValidationPolicy);
     final DownloadBodiesStep<C> downloadBodiesStep =
         new DownloadBodiesStep<>(protocolSchedule, ethContext, metricsSystem);
-    final ExtractTxSignaturesTask extractTxSignaturesTask = new ExtractTxSignaturesTask();
+    final ExtractTxSignaturesTask extractTxSignaturesTask =
+        new ExtractTxSignaturesTask(protocolContext.getTransactionSenderRecovery());
     final FullImportBlockStep<C> importBlockStep =
         new FullImportBlockStep<>(protocolSchedule, protocolContext);
 
@@ -105,6 +117,8 @@ public class FullSyncDownloadPipelineFactory<C> implements DownloadPipelineFacto
         .inBatches(headerRequestSize)
         .thenProcessAsyncOrdered("downloadBodies", downloadBodiesStep, downloaderParallelism)
         .thenFlatMap("extractTxSignatures", extractTxSignaturesTask, singleHeaderBufferSize)
+        .thenProcessAsyncOrdered(
+            "prefetchState", prefetchBlockStateStep, STATE_PREFETCH_BLOCKS_AHEAD)
         .andFinishWith("importBlock", importBlockStep);
   }
 
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.fullsync;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthScheduler;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockStatePrefetcher;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads the state each block is likely to touch before passing it on to be imported, so that the
+ * state of upcoming blocks is read while earlier blocks are being executed.
+ *
+ * <p>Reading the state of a block only starts once a block at most {@code maxBlocksAhead} blocks
+ * behind it has been imported, so that what is read is still cached when the block is imported.
+ * Imported blocks count whether or not they are on the canonical chain, since a fork being synced
+ * may not be canonical yet. Reading the state is only a cache warm-up, so it never holds up import:
+ * blocks are passed on without it if importing doesn't catch up within {@link #MAX_WAIT}, or if it
+ * fails.
+ *
+ * <p>The state is read through a world state of its own, which is never persisted, rather than the
+ * one import commits to. Reads from the world state storage are safe while import and pruning write
+ * to it: trie nodes and code are immutable and keyed by their hash, and flat snapshot reads are
+ * consistent with the state they are made for. A node removed by pruning only makes reading the
+ * state of that block fail.
+ */
+public class PrefetchBlockStateStep<C> implements Function<Block, CompletableFuture<Block>> {
+  private static final Logger LOG = LogManager.getLogger();
+  static final Duration MAX_WAIT = Duration.ofSeconds(10);
+
+  private final BlockStatePrefetcher<C> blockStatePrefetcher;
+  private final Blockchain blockchain;
+  private final EthScheduler scheduler;
+  private final int maxBlocksAhead;
+  private final Counter prefetchedCounter;
+  private final Counter unavailableCounter;
+  private final Counter failedCounter;
+  private final Counter skippedCounter;
+  // Completed with true once a block close enough has been imported, or false on timeout.
+  private final NavigableMap<Long, CompletableFuture<Boolean>> waitingForImport = new TreeMap<>();
+  private long highestImportedBlockNumber;
+
+  public PrefetchBlockStateStep(
+      final BlockStatePrefetcher<C> blockStatePrefetcher,
+      final Blockchain blockchain,
+      final EthScheduler scheduler,
+      final int maxBlocksAhead,
+      final MetricsSystem metricsSystem) {
+    this.blockStatePrefetcher = blockStatePrefetcher;
+    this.blockchain = blockchain;
+    this.scheduler = scheduler;
+    this.maxBlocksAhead = maxBlocksAhead;
+    final LabelledMetric<Counter> prefetchCounter =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.SYNCHRONIZER,
+            "block_state_prefetch_total",
+            "Number of blocks the state was read for ahead of their import",
+            "result");
+    prefetchedCounter = prefetchCounter.labels("prefetched");
+    unavailableCounter = prefetchCounter.labels("unavailable");
+    failedCounter = prefetchCounter.labels("failed");
+    skippedCounter = prefetchCounter.labels("skipped");
+    highestImportedBlockNumber = blockchain.getChainHeadBlockNumber();
+    blockchain.observeBlockAdded(this::onBlockAdded);
+  }
+
+  @Override
+  public CompletableFuture<Block> apply(final Block block) {
+    return waitForImport(block.getHeader().getNumber() - maxBlocksAhead)
+        .thenCompose(
+            imported -> {
+              if (!imported) {
+                skippedCounter.inc();
+                return completedFuture(block);
+              }
+              return scheduler.scheduleComputationTask(() -> prefetch(block));
+            });
+  }
+
+  private Block prefetch(final Block block) {
+    try {
+      if (blockStatePrefetcher.prefetch(block)) {
+        prefetchedCounter.inc();
+      } else {
+        unavailableCounter.inc();
+      }
+    } catch (final RuntimeException e) {
+      LOG.debug("Failed to prefetch state for block {}", block.getHeader().getNumber(), e);
+      failedCounter.inc();
+    }
+    return block;
+  }
+
+  private synchronized CompletableFuture<Boolean> waitForImport(final long blockNumber) {
+    if (highestImportedBlockNumber >= blockNumber) {
+      return completedFuture(true);
+    }
+    final CompletableFuture<Boolean> existing = waitingForImport.get(blockNumber);
+    if (existing != null) {
+      return existing;
+    }
+    final CompletableFuture<Boolean> imported = new CompletableFuture<>();
+    waitingForImport.put(blockNumber, imported);
+    scheduler.scheduleFutureTask(() -> stopWaiting(blockNumber, imported), MAX_WAIT);
+    return imported;
+  }
+
+  private void stopWaiting(final long blockNumber, final CompletableFuture<Boolean> imported) {
+    synchronized (this) {
+      waitingForImport.remove(blockNumber, imported);
+    }
+    imported.complete(false);
+  }
+
+  private void onBlockAdded(final BlockAddedEvent event, final Blockchain blockchain) {
+    final List<CompletableFuture<Boolean>> reached;
+    synchronized (this) {
+      highestImportedBlockNumber =
+          Math.max(highestImportedBlockNumber, event.getBlock().getHeader().getNumber());
+      final NavigableMap<Long, CompletableFuture<Boolean>> reachedByNumber =
+          waitingForImport.headMap(highestImportedBlockNumber, true);
+      reached = new ArrayList<>(reachedByNumber.values());
+      reachedByNumber.clear();
+    }
+    reached.forEach(future -> future.complete(true));
+  }
+}
@@ -26,6 +26,7 @@ import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.manager.task.AbstractPeerTask.PeerTaskResult;
 import tech.pegasys.pantheon.ethereum.eth.manager.task.AbstractRetryingPeerTask;
 import tech.pegasys.pantheon.ethereum.eth.manager.task.GetBodiesFromPeerTask;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 
@@ -109,16 +110,33 @@ public class CompleteBlocksTask<C> extends AbstractRetryingPeerTask<List<Block>>
     if (incompleteHeaders.isEmpty()) {
       return completedFuture(emptyList());
     }
+    // Only request as many bodies as the peer is expected to deliver in time, the remaining ones
+    // are requested by the next attempt, possibly from another peer.
+    final Optional<EthPeer> peer =
+        assignedPeer.isPresent()
+            ? assignedPeer
+            : ethContext
+                .getEthPeers()
+                .idlePeer(
+                    incompleteHeaders.get(incompleteHeaders.size() - 1).getNumber(),
+                    EthPV62.GET_BLOCK_BODIES);
+    final List<BlockHeader> requestedHeaders =
+        peer.map(
+                p ->
+                    incompleteHeaders.subList(
+                        0, p.requestSize(EthPV62.GET_BLOCK_BODIES, incompleteHeaders.size())))
+            .orElse(incompleteHeaders);
     LOG.debug(
-        "Requesting bodies to complete {} blocks, starting with {}.",
+        "Requesting bodies to complete {} of {} blocks, starting with {}.",
+        requestedHeaders.size(),
         incompleteHeaders.size(),
         incompleteHeaders.get(0).getNumber());
     return executeSubTask(
         () -> {
           final GetBodiesFromPeerTask<C> task =
               GetBodiesFromPeerTask.forHeaders(
-                  protocolSchedule, ethContext, incompleteHeaders, metricsSystem);
-          assignedPeer.ifPresent(task::assignPeer);
+                  protocolSchedule, ethContext, requestedHeaders, metricsSystem);
+          peer.ifPresent(task::assignPeer);
           return task.run().thenApply(PeerTaskResult::getResult);
         });
   }
@@ -24,6 +24,7 @@ import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.manager.task.AbstractPeerTask.PeerTaskResult;
 import tech.pegasys.pantheon.ethereum.eth.manager.task.AbstractRetryingPeerTask;
 import tech.pegasys.pantheon.ethereum.eth.manager.task.GetReceiptsFromPeerTask;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 
 import java.util.HashMap;
@@ -96,15 +97,32 @@ public class GetReceiptsForHeadersTask
     if (incompleteHeaders.isEmpty()) {
       return CompletableFuture.completedFuture(emptyMap());
     }
+    // Only request as many receipts as the peer is expected to deliver in time, the remaining
+    // ones are requested by the next attempt, possibly from another peer.
+    final Optional<EthPeer> peer =
+        assignedPeer.isPresent()
+            ? assignedPeer
+            : ethContext
+                .getEthPeers()
+                .idlePeer(
+                    incompleteHeaders.stream().mapToLong(BlockHeader::getNumber).max().getAsLong(),
+                    EthPV63.GET_RECEIPTS);
+    final List<BlockHeader> requestedHeaders =
+        peer.map(
+                p ->
+                    incompleteHeaders.subList(
+                        0, p.requestSize(EthPV63.GET_RECEIPTS, incompleteHeaders.size())))
+            .orElse(incompleteHeaders);
     LOG.debug(
-        "Requesting bodies to complete {} blocks, starting with {}.",
+        "Requesting receipts to complete {} of {} blocks, starting with {}.",
+        requestedHeaders.size(),
         incompleteHeaders.size(),
         incompleteHeaders.get(0).getNumber());
     return executeSubTask(
         () -> {
           final GetReceiptsFromPeerTask task =
-              GetReceiptsFromPeerTask.forHeaders(ethContext, incompleteHeaders, metricsSystem);
-          assignedPeer.ifPresent(task::assignPeer);
+              GetReceiptsFromPeerTask.forHeaders(ethContext, requestedHeaders, metricsSystem);
+          peer.ifPresent(task::assignPeer);
           return task.run().thenApply(PeerTaskResult::getResult);
         });
   }
@@ -14,10 +14,11 @@ package tech.pegasys.pantheon.ethereum.eth.transactions;
 
 import static java.util.Comparator.comparing;
 
-import tech.pegasys.pantheon.ethereum.core.AccountTransactionOrder;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.metrics.Counter;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
 import tech.pegasys.pantheon.metrics.MetricCategory;
@@ -27,36 +28,55 @@ import tech.pegasys.pantheon.util.Subscribers;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.SortedSet;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
 /**
  * Holds the current set of pending transactions with the ability to iterate them based on priority
  * for mining or look-up by hash.
  *
- * <p>This class is safe for use across multiple threads.
+ * <p>Local transactions take priority over remote ones, then transactions paying a higher gas price
+ * over those paying less, and then the most recently added transactions.
+ *
+ * <p>This class is safe for use across multiple threads. Changes to the pool are made one at a
+ * time, but reads, including the selection of transactions for a block, don't wait for them and
+ * don't hold up changes while they run.
+ *
+ * <p>The pool is limited both in the number of transactions it holds and in their total encoded
+ * size. When either limit is exceeded, the transactions with the lowest priority are dropped.
  */
 public class PendingTransactions {
   public static final int MAX_PENDING_TRANSACTIONS = 4096;
-
-  private final Map<Hash, TransactionInfo> pendingTransactions = new HashMap<>();
-  private final SortedSet<TransactionInfo> prioritizedTransactions =
-      new TreeSet<>(
-          comparing(TransactionInfo::isReceivedFromLocalSource)
-              .thenComparing(TransactionInfo::getSequence)
-              .reversed());
-  private final Map<Address, SortedMap<Long, TransactionInfo>> transactionsBySender =
-      new HashMap<>();
+  public static final long MAX_PENDING_TRANSACTIONS_BYTES = 64L * 1024 * 1024;
+
+  private static final Comparator<TransactionInfo> HIGHEST_PRIORITY_FIRST =
+      comparing(TransactionInfo::isReceivedFromLocalSource)
+          .thenComparing(TransactionInfo::getGasPrice)
+          .thenComparing(TransactionInfo::getSequence)
+          .reversed();
+
+  private final Map<Hash, TransactionInfo> pendingTransactions = new ConcurrentHashMap<>();
+  private final NavigableSet<TransactionInfo> prioritizedTransactions =
+      new ConcurrentSkipListSet<>(HIGHEST_PRIORITY_FIRST);
+  private final Map<Address, NavigableMap<Long, TransactionInfo>> transactionsBySender =
+      new ConcurrentHashMap<>();
+  private final Object lock = new Object();
+  private long pendingTransactionsBytes;
 
   private final Subscribers<PendingTransactionListener> listeners = new Subscribers<>();
 
@@ -64,6 +84,7 @@ public class PendingTransactions {
       new Subscribers<>();
 
   private final int maxPendingTransactions;
+  private final long maxPendingTransactionsBytes;
   private final Clock clock;
 
   private final LabelledMetric<Counter> transactionRemovedCounter;
@@ -72,7 +93,16 @@ public class PendingTransactions {
 
   public PendingTransactions(
       final int maxPendingTransactions, final Clock clock, final MetricsSystem metricsSystem) {
+    this(maxPendingTransactions, MAX_PENDING_TRANSACTIONS_BYTES, clock, metricsSystem);
+  }
+
+  public PendingTransactions(
+      final int maxPendingTransactions,
+      final long maxPendingTransactionsBytes,
+      final Clock clock,
+      final MetricsSystem metricsSystem) {
     this.maxPendingTransactions = maxPendingTransactions;
+    this.maxPendingTransactionsBytes = maxPendingTransactionsBytes;
     this.clock = clock;
     final LabelledMetric<Counter> transactionAddedCounter =
         metricsSystem.createLabelledCounter(
@@ -93,15 +123,13 @@ public class PendingTransactions {
   }
 
   List<Transaction> getLocalTransactions() {
-    synchronized (pendingTransactions) {
-      List<Transaction> localTransactions = new ArrayList<>();
-      for (Map.Entry<Hash, TransactionInfo> transaction : pendingTransactions.entrySet()) {
-        if (transaction.getValue().isReceivedFromLocalSource()) {
-          localTransactions.add(transaction.getValue().getTransaction());
-        }
+    List<Transaction> localTransactions = new ArrayList<>();
+    for (Map.Entry<Hash, TransactionInfo> transaction : pendingTransactions.entrySet()) {
+      if (transaction.getValue().isReceivedFromLocalSource()) {
+        localTransactions.add(transaction.getValue().getTransaction());
       }
-      return localTransactions;
     }
+    return localTransactions;
   }
 
   public boolean addRemoteTransaction(final Transaction transaction) {
@@ -129,10 +157,11 @@ public class PendingTransactions {
   }
 
   private void doRemoveTransaction(final Transaction transaction, final boolean addedToBlock) {
-    synchronized (pendingTransactions) {
+    synchronized (lock) {
       final TransactionInfo removedTransactionInfo = pendingTransactions.remove(transaction.hash());
       if (removedTransactionInfo != null) {
         prioritizedTransactions.remove(removedTransactionInfo);
+        pendingTransactionsBytes -= removedTransactionInfo.getSize();
         Optional.ofNullable(transactionsBySender.get(transaction.getSender()))
             .ifPresent(
                 transactionsForSender -> {
@@ -155,48 +184,52 @@ public class PendingTransactions {
   }
 
   /*
-   * The BlockTransaction selection process (part of block mining) requires synchronised access to
-   * all pendingTransactions - this allows it to iterate over the available transactions without
-   * releasing the lock in between items.
+   * The BlockTransaction selection process (part of block mining) iterates over the pending
+   * transactions as they change, so it doesn't hold up transactions being added while the selected
+   * transactions are executed. Transactions added or removed during the selection may or may not
+   * be seen by it.
    *
+   * Each sender's transactions can only be included in nonce order, so the senders are ranked by
+   * the priority of their transaction with the lowest nonce not yet selected. A sender's
+   * transactions with a higher priority than that are delayed until it is reached.
    */
   public void selectTransactions(final TransactionSelector selector) {
-    synchronized (pendingTransactions) {
-      final Map<Address, AccountTransactionOrder> accountTransactions = new HashMap<>();
-      final List<Transaction> transactionsToRemove = new ArrayList<>();
-      for (final TransactionInfo transactionInfo : prioritizedTransactions) {
-        final AccountTransactionOrder accountTransactionOrder =
-            accountTransactions.computeIfAbsent(
-                transactionInfo.getSender(), this::createSenderTransactionOrder);
-
-        for (final Transaction transactionToProcess :
-            accountTransactionOrder.transactionsToProcess(transactionInfo.getTransaction())) {
-          final TransactionSelectionResult result =
-              selector.evaluateTransaction(transactionToProcess);
-          switch (result) {
-            case DELETE_TRANSACTION_AND_CONTINUE:
-              transactionsToRemove.add(transactionToProcess);
-              break;
-            case CONTINUE:
-              break;
-            case COMPLETE_OPERATION:
-              return;
-            default:
-              throw new RuntimeException("Illegal value for TransactionSelectionResult.");
-          }
-        }
+    final PriorityQueue<PeekingIterator<TransactionInfo>> sendersByPriority =
+        new PriorityQueue<>(comparing(PeekingIterator::peek, HIGHEST_PRIORITY_FIRST));
+    for (final NavigableMap<Long, TransactionInfo> transactionsForSender :
+        transactionsBySender.values()) {
+      final PeekingIterator<TransactionInfo> senderTransactions =
+          Iterators.peekingIterator(transactionsForSender.values().iterator());
+      if (senderTransactions.hasNext()) {
+        sendersByPriority.add(senderTransactions);
       }
-      transactionsToRemove.forEach(this::removeTransaction);
     }
-  }
 
-  private AccountTransactionOrder createSenderTransactionOrder(final Address address) {
-    return new AccountTransactionOrder(
-        transactionsBySender.get(address).values().stream().map(TransactionInfo::getTransaction));
+    final List<Transaction> transactionsToRemove = new ArrayList<>();
+    while (!sendersByPriority.isEmpty()) {
+      final PeekingIterator<TransactionInfo> senderTransactions = sendersByPriority.poll();
+      final Transaction transactionToProcess = senderTransactions.next().getTransaction();
+      final TransactionSelectionResult result = selector.evaluateTransaction(transactionToProcess);
+      switch (result) {
+        case DELETE_TRANSACTION_AND_CONTINUE:
+          transactionsToRemove.add(transactionToProcess);
+          break;
+        case CONTINUE:
+          break;
+        case COMPLETE_OPERATION:
+          return;
+        default:
+          throw new RuntimeException("Illegal value for TransactionSelectionResult.");
+      }
+      if (senderTransactions.hasNext()) {
+        sendersByPriority.add(senderTransactions);
+      }
+    }
+    transactionsToRemove.forEach(this::removeTransaction);
   }
 
   private boolean addTransaction(final TransactionInfo transactionInfo) {
-    synchronized (pendingTransactions) {
+    synchronized (lock) {
       if (pendingTransactions.containsKey(transactionInfo.getHash())) {
         return false;
       }
@@ -206,9 +239,11 @@ public class PendingTransactions {
       }
       prioritizedTransactions.add(transactionInfo);
       pendingTransactions.put(transactionInfo.getHash(), transactionInfo);
+      pendingTransactionsBytes += transactionInfo.getSize();
 
       notifyTransactionAdded(transactionInfo.getTransaction());
-      if (pendingTransactions.size() > maxPendingTransactions) {
+      while (pendingTransactions.size() > maxPendingTransactions
+          || pendingTransactionsBytes > maxPendingTransactionsBytes) {
         final TransactionInfo toRemove = prioritizedTransactions.last();
         removeTransaction(toRemove.getTransaction());
       }
@@ -217,17 +252,20 @@ public class PendingTransactions {
   }
 
   private boolean addTransactionForSenderAndNonce(final TransactionInfo transactionInfo) {
-    final Map<Long, TransactionInfo> transactionsForSender =
-        transactionsBySender.computeIfAbsent(transactionInfo.getSender(), key -> new TreeMap<>());
     final TransactionInfo existingTransaction =
-        transactionsForSender.get(transactionInfo.getNonce());
+        Optional.ofNullable(transactionsBySender.get(transactionInfo.getSender()))
+            .map(transactionsForSender -> transactionsForSender.get(transactionInfo.getNonce()))
+            .orElse(null);
     if (existingTransaction != null) {
       if (!shouldReplace(existingTransaction, transactionInfo)) {
         return false;
       }
       removeTransaction(existingTransaction.getTransaction());
     }
-    transactionsForSender.put(transactionInfo.getNonce(), transactionInfo);
+    // Removing the replaced transaction drops the sender's map if it was the only one left
+    transactionsBySender
+        .computeIfAbsent(transactionInfo.getSender(), key -> new ConcurrentSkipListMap<>())
+        .put(transactionInfo.getNonce(), transactionInfo);
     return true;
   }
 
@@ -252,23 +290,27 @@ public class PendingTransactions {
     return maxPendingTransactions;
   }
 
+  public long maxSizeInBytes() {
+    return maxPendingTransactionsBytes;
+  }
+
   public int size() {
-    synchronized (pendingTransactions) {
-      return pendingTransactions.size();
+    return pendingTransactions.size();
+  }
+
+  public long sizeInBytes() {
+    synchronized (lock) {
+      return pendingTransactionsBytes;
     }
   }
 
   public Optional<Transaction> getTransactionByHash(final Hash transactionHash) {
-    synchronized (pendingTransactions) {
-      return Optional.ofNullable(pendingTransactions.get(transactionHash))
-          .map(TransactionInfo::getTransaction);
-    }
+    return Optional.ofNullable(pendingTransactions.get(transactionHash))
+        .map(TransactionInfo::getTransaction);
   }
 
   public Set<TransactionInfo> getTransactionInfo() {
-    synchronized (pendingTransactions) {
-      return new HashSet<>(pendingTransactions.values());
-    }
+    return new HashSet<>(pendingTransactions.values());
   }
 
   void addTransactionListener(final PendingTransactionListener listener) {
@@ -280,14 +322,16 @@ public class PendingTransactions {
   }
 
   public OptionalLong getNextNonceForSender(final Address sender) {
-    synchronized (pendingTransactions) {
-      final SortedMap<Long, TransactionInfo> transactionsForSender =
-          transactionsBySender.get(sender);
-      if (transactionsForSender == null) {
-        return OptionalLong.empty();
-      }
-      return OptionalLong.of(transactionsForSender.lastKey() + 1);
+    final NavigableMap<Long, TransactionInfo> transactionsForSender =
+        transactionsBySender.get(sender);
+    if (transactionsForSender == null) {
+      return OptionalLong.empty();
     }
+    // The sender's transactions may all be removed while we look.
+    final Map.Entry<Long, TransactionInfo> lastTransaction = transactionsForSender.lastEntry();
+    return lastTransaction == null
+        ? OptionalLong.empty()
+        : OptionalLong.of(lastTransaction.getKey() + 1);
   }
 
   /**
@@ -301,6 +345,7 @@ public class PendingTransactions {
     private final boolean receivedFromLocalSource;
     private final Instant addedToPoolAt;
     private final long sequence; // Allows prioritization based on order transactions are added
+    private final int size;
 
     TransactionInfo(
         final Transaction transaction,
@@ -310,6 +355,7 @@ public class PendingTransactions {
       this.receivedFromLocalSource = receivedFromLocalSource;
       this.addedToPoolAt = addedToPoolAt;
       this.sequence = TRANSACTIONS_ADDED.getAndIncrement();
+      this.size = RLP.encode(transaction::writeTo).size();
     }
 
     public Transaction getTransaction() {
@@ -324,6 +370,10 @@ public class PendingTransactions {
       return transaction.getNonce();
     }
 
+    public Wei getGasPrice() {
+      return transaction.getGasPrice();
+    }
+
     public Address getSender() {
       return transaction.getSender();
     }
@@ -339,6 +389,10 @@ public class PendingTransactions {
     public Instant getAddedToPoolAt() {
       return addedToPoolAt;
     }
+
+    public int getSize() {
+      return size;
+    }
   }
 
   public enum TransactionSelectionResult {
@@ -29,10 +29,12 @@ public class TransactionPoolFactory {
       final EthContext ethContext,
       final Clock clock,
       final int maxPendingTransactions,
+      final long maxPendingTransactionsBytes,
       final MetricsSystem metricsSystem,
       final SyncState syncState) {
     final PendingTransactions pendingTransactions =
-        new PendingTransactions(maxPendingTransactions, clock, metricsSystem);
+        new PendingTransactions(
+            maxPendingTransactions, maxPendingTransactionsBytes, clock, metricsSystem);
 
     final PeerTransactionTracker transactionTracker = new PeerTransactionTracker();
     final TransactionsMessageSender transactionsMessageSender =
@@ -51,7 +53,10 @@ public class TransactionPoolFactory {
     final TransactionsMessageHandler transactionsMessageHandler =
         new TransactionsMessageHandler(
             ethContext.getScheduler(),
-            new TransactionsMessageProcessor(transactionTracker, transactionPool));
+            new TransactionsMessageProcessor(
+                transactionTracker,
+                transactionPool,
+                protocolContext.getTransactionSenderRecovery()));
 
     ethContext.getEthMessages().subscribe(EthPV62.TRANSACTIONS, transactionsMessageHandler);
     protocolContext.getBlockchain().observeBlockAdded(transactionPool);
@@ -15,6 +15,7 @@ package tech.pegasys.pantheon.ethereum.eth.transactions;
 import static org.apache.logging.log4j.LogManager.getLogger;
 
 import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.TransactionSenderRecovery;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.messages.TransactionsMessage;
 import tech.pegasys.pantheon.ethereum.p2p.wire.messages.DisconnectMessage.DisconnectReason;
@@ -31,11 +32,15 @@ class TransactionsMessageProcessor {
   private static final Logger LOG = getLogger();
   private final PeerTransactionTracker transactionTracker;
   private final TransactionPool transactionPool;
+  private final TransactionSenderRecovery transactionSenderRecovery;
 
   public TransactionsMessageProcessor(
-      final PeerTransactionTracker transactionTracker, final TransactionPool transactionPool) {
+      final PeerTransactionTracker transactionTracker,
+      final TransactionPool transactionPool,
+      final TransactionSenderRecovery transactionSenderRecovery) {
     this.transactionTracker = transactionTracker;
     this.transactionPool = transactionPool;
+    this.transactionSenderRecovery = transactionSenderRecovery;
   }
 
   void processTransactionsMessage(
@@ -46,6 +51,7 @@ class TransactionsMessageProcessor {
       final Iterator<Transaction> readTransactions =
           transactionsMessage.transactions(Transaction::readFrom);
       final Set<Transaction> transactions = Sets.newHashSet(readTransactions);
+      transactionSenderRecovery.recoverSenders(transactions);
       transactionTracker.markTransactionsAsSeen(peer, transactions);
       transactionPool.addRemoteTransactions(transactions);
     } catch (final RLPException ex) {
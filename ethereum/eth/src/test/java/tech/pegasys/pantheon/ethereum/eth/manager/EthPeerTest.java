@@ -22,6 +22,7 @@ import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseCallbac
 import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseStream;
 import tech.pegasys.pantheon.ethereum.eth.messages.BlockBodiesMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.BlockHeadersMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.eth.messages.NodeDataMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.ReceiptsMessage;
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
@@ -29,7 +30,9 @@ import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection.PeerNotConnected;
 import tech.pegasys.pantheon.ethereum.p2p.wire.Capability;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -135,6 +138,38 @@ public class EthPeerTest {
     assertThat(nodeDataClosedCount.get()).isEqualTo(1);
   }
 
+  @Test
+  public void halvesMaxOutstandingRequestsOnTimeout() {
+    final EthPeer peer = createPeer();
+    final int initialMaxOutstandingRequests = peer.maxOutstandingRequests();
+
+    peer.recordRequestTimeout(EthPV62.GET_BLOCK_HEADERS);
+    assertThat(peer.maxOutstandingRequests()).isEqualTo(initialMaxOutstandingRequests / 2);
+
+    for (int i = 0; i < 10; i++) {
+      peer.recordRequestTimeout(EthPV62.GET_BLOCK_HEADERS);
+    }
+    assertThat(peer.maxOutstandingRequests()).isEqualTo(1);
+    assertThat(peer.hasAvailableRequestCapacity()).isTrue();
+  }
+
+  @Test
+  public void regainsRequestCapacityWhenTimedOutRequestsAreGivenUpOn() throws PeerNotConnected {
+    final EthPeer peer = createPeer();
+    final List<ResponseStream> streams = new ArrayList<>();
+    while (peer.hasAvailableRequestCapacity()) {
+      streams.add(peer.getHeadersByHash(gen.hash(), 5, 0, false));
+    }
+
+    streams.forEach(stream -> peer.recordRequestTimeout(EthPV62.GET_BLOCK_HEADERS));
+    assertThat(peer.hasAvailableRequestCapacity()).isFalse();
+
+    streams.forEach(ResponseStream::close);
+
+    assertThat(peer.outstandingRequests()).isZero();
+    assertThat(peer.hasAvailableRequestCapacity()).isTrue();
+  }
+
   @Test
   public void listenForMultipleStreams() throws PeerNotConnected {
     // Setup peer and messages
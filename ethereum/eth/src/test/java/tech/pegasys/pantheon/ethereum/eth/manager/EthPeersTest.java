@@ -12,10 +12,16 @@
  */
 package tech.pegasys.pantheon.ethereum.eth.manager;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -64,4 +70,78 @@ public class EthPeersTest {
     assertThat(EthPeers.BEST_CHAIN.compare(peerA, peerA)).isEqualTo(0);
     assertThat(EthPeers.BEST_CHAIN.compare(peerB, peerB)).isEqualTo(0);
   }
+
+  @Test
+  public void idlePeerForRequestPrefersFastestPeer() {
+    final EthPeer slowPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20).getEthPeer();
+    final EthPeer fastPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20).getEthPeer();
+    slowPeer.throughput(EthPV62.GET_BLOCK_BODIES).recordResponse(10, 1000, oneSecond());
+    fastPeer.throughput(EthPV62.GET_BLOCK_BODIES).recordResponse(100, 10000, oneSecond());
+
+    assertThat(ethProtocolManager.ethContext().getEthPeers().idlePeer(10, EthPV62.GET_BLOCK_BODIES))
+        .contains(fastPeer);
+  }
+
+  @Test
+  public void idlePeerForRequestPrefersUnmeasuredPeer() {
+    final EthPeer measuredPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20).getEthPeer();
+    final EthPeer unmeasuredPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20).getEthPeer();
+    measuredPeer.throughput(EthPV62.GET_BLOCK_BODIES).recordResponse(100, 10000, oneSecond());
+
+    assertThat(ethProtocolManager.ethContext().getEthPeers().idlePeer(10, EthPV62.GET_BLOCK_BODIES))
+        .contains(unmeasuredPeer);
+  }
+
+  @Test
+  public void idlePeerForRequestSkipsPeerThatOnlyRespondsEmpty() throws Exception {
+    final RespondingEthPeer emptyPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20);
+    final EthPeer slowPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20).getEthPeer();
+    slowPeer.throughput(EthPV63.GET_NODE_DATA).recordResponse(1, 100, oneSecond());
+
+    for (int i = 0; i < 3; i++) {
+      emptyPeer.getEthPeer().getNodeData(singletonList(Hash.EMPTY_TRIE_HASH));
+      assertThat(emptyPeer.respond(RespondingEthPeer.emptyResponder())).isTrue();
+
+      assertThat(ethProtocolManager.ethContext().getEthPeers().idlePeer(10, EthPV63.GET_NODE_DATA))
+          .contains(slowPeer);
+    }
+  }
+
+  @Test
+  public void idlePeerForRequestSkipsUnmeasuredPeerThatTimedOut() {
+    final EthPeer timedOutPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20).getEthPeer();
+    final EthPeer slowPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20).getEthPeer();
+    slowPeer.throughput(EthPV63.GET_NODE_DATA).recordResponse(1, 100, oneSecond());
+
+    timedOutPeer.recordRequestTimeout(EthPV63.GET_NODE_DATA);
+
+    assertThat(ethProtocolManager.ethContext().getEthPeers().idlePeer(10, EthPV63.GET_NODE_DATA))
+        .contains(slowPeer);
+  }
+
+  @Test
+  public void idlePeerForRequestRequiresBlocks() {
+    final EthPeer shortPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 5).getEthPeer();
+    final EthPeer longPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, UInt256.of(100), 20).getEthPeer();
+    longPeer.throughput(EthPV62.GET_BLOCK_BODIES).recordResponse(10, 1000, oneSecond());
+
+    assertThat(shortPeer.expectedItemsPerSecond(EthPV62.GET_BLOCK_BODIES))
+        .isGreaterThan(longPeer.expectedItemsPerSecond(EthPV62.GET_BLOCK_BODIES));
+    assertThat(ethProtocolManager.ethContext().getEthPeers().idlePeer(10, EthPV62.GET_BLOCK_BODIES))
+        .contains(longPeer);
+  }
+
+  private long oneSecond() {
+    return TimeUnit.SECONDS.toNanos(1);
+  }
 }
@@ -1055,6 +1055,7 @@ public final class EthProtocolManagerTest {
           ethManager.ethContext(),
           TestClock.fixed(),
           PendingTransactions.MAX_PENDING_TRANSACTIONS,
+          PendingTransactions.MAX_PENDING_TRANSACTIONS_BYTES,
           metricsSystem,
           mock(SyncState.class));
 
@@ -19,13 +19,26 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
 import tech.pegasys.pantheon.ethereum.eth.EthereumWireProtocolConfiguration;
+import tech.pegasys.pantheon.ethereum.eth.messages.BlockBodiesMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.BlockHeadersMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetBlockBodiesMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetBlockHeadersMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.GetNodeDataMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetReceiptsMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.NodeDataMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.ReceiptsMessage;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateArchive;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.Before;
@@ -43,6 +56,7 @@ public class EthServerTest {
   private final WorldStateArchive worldStateArchive = mock(WorldStateArchive.class);
   private final EthPeer ethPeer = mock(EthPeer.class);
   private final EthMessages ethMessages = new EthMessages();
+  private final BlockDataGenerator gen = new BlockDataGenerator(1);
 
   @Before
   public void setUp() {
@@ -55,8 +69,8 @@ public class EthServerTest {
 
   @Test
   public void shouldRespondToNodeDataRequests() throws Exception {
-    when(worldStateArchive.getNodeData(HASH1)).thenReturn(Optional.of(VALUE1));
-    when(worldStateArchive.getNodeData(HASH2)).thenReturn(Optional.of(VALUE2));
+    when(worldStateArchive.getNodeData(asList(HASH1, HASH2)))
+        .thenReturn(asList(Optional.of(VALUE1), Optional.of(VALUE2)));
     ethMessages.dispatch(new EthMessage(ethPeer, GetNodeDataMessage.create(asList(HASH1, HASH2))));
 
     verify(ethPeer).send(NodeDataMessage.create(asList(VALUE1, VALUE2)));
@@ -64,8 +78,8 @@ public class EthServerTest {
 
   @Test
   public void shouldHandleDataBeingUnavailableWhenRespondingToNodeDataRequests() throws Exception {
-    when(worldStateArchive.getNodeData(HASH1)).thenReturn(Optional.of(VALUE1));
-    when(worldStateArchive.getNodeData(HASH2)).thenReturn(Optional.empty());
+    when(worldStateArchive.getNodeData(asList(HASH1, HASH2)))
+        .thenReturn(asList(Optional.of(VALUE1), Optional.empty()));
     ethMessages.dispatch(new EthMessage(ethPeer, GetNodeDataMessage.create(asList(HASH1, HASH2))));
 
     verify(ethPeer).send(NodeDataMessage.create(singletonList(VALUE1)));
@@ -73,8 +87,8 @@ public class EthServerTest {
 
   @Test
   public void shouldLimitNumberOfResponsesToNodeDataRequests() throws Exception {
-    when(worldStateArchive.getNodeData(HASH1)).thenReturn(Optional.of(VALUE1));
-    when(worldStateArchive.getNodeData(HASH2)).thenReturn(Optional.of(VALUE2));
+    when(worldStateArchive.getNodeData(asList(HASH1, HASH2)))
+        .thenReturn(asList(Optional.of(VALUE1), Optional.of(VALUE2)));
     ethMessages.dispatch(
         new EthMessage(ethPeer, GetNodeDataMessage.create(asList(HASH1, HASH2, HASH3))));
 
@@ -84,12 +98,45 @@ public class EthServerTest {
   @Test
   public void shouldLimitTheNumberOfNodeDataResponsesLookedUpNotTheNumberReturned()
       throws Exception {
-    when(worldStateArchive.getNodeData(HASH1)).thenReturn(Optional.of(VALUE1));
-    when(worldStateArchive.getNodeData(HASH2)).thenReturn(Optional.empty());
-    when(worldStateArchive.getNodeData(HASH3)).thenReturn(Optional.of(VALUE3));
+    when(worldStateArchive.getNodeData(asList(HASH1, HASH2)))
+        .thenReturn(asList(Optional.of(VALUE1), Optional.empty()));
     ethMessages.dispatch(
         new EthMessage(ethPeer, GetNodeDataMessage.create(asList(HASH1, HASH2, HASH3))));
 
     verify(ethPeer).send(NodeDataMessage.create(singletonList(VALUE1)));
   }
+
+  @Test
+  public void shouldRespondToBlockHeadersRequestsWithStoredHeaders() throws Exception {
+    final BlockHeader header1 = gen.header(1);
+    final BlockHeader header2 = gen.header(2);
+    when(blockchain.getBlockHeaderRlp(1)).thenReturn(Optional.of(RLP.encode(header1::writeTo)));
+    when(blockchain.getBlockHeaderRlp(2)).thenReturn(Optional.of(RLP.encode(header2::writeTo)));
+    ethMessages.dispatch(new EthMessage(ethPeer, GetBlockHeadersMessage.create(1, 3, 0, false)));
+
+    verify(ethPeer).send(BlockHeadersMessage.create(header1, header2));
+  }
+
+  @Test
+  public void shouldRespondToBlockBodiesRequestsWithStoredBodies() throws Exception {
+    final BlockBody body1 = gen.body();
+    when(blockchain.getBlockBodyRlp(HASH1)).thenReturn(Optional.of(RLP.encode(body1::writeTo)));
+    when(blockchain.getBlockBodyRlp(HASH2)).thenReturn(Optional.empty());
+    ethMessages.dispatch(
+        new EthMessage(ethPeer, GetBlockBodiesMessage.create(asList(HASH1, HASH2))));
+
+    verify(ethPeer).send(BlockBodiesMessage.create(singletonList(body1)));
+  }
+
+  @Test
+  public void shouldRespondToReceiptsRequestsWithStoredReceipts() throws Exception {
+    final Block block = gen.block();
+    final List<TransactionReceipt> receipts = gen.receipts(block);
+    when(blockchain.getTxReceiptsRlp(HASH1))
+        .thenReturn(
+            Optional.of(RLP.encode(out -> out.writeList(receipts, TransactionReceipt::writeTo))));
+    ethMessages.dispatch(new EthMessage(ethPeer, GetReceiptsMessage.create(asList(HASH1))));
+
+    verify(ethPeer).send(ReceiptsMessage.create(singletonList(receipts)));
+  }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PeerThroughputTest {
+
+  private static final long HALF_A_SECOND = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private final PeerThroughput throughput = new PeerThroughput();
+
+  @Test
+  public void requestsMaxSizeBeforeAnyResponse() {
+    assertThat(throughput.hasSamples()).isFalse();
+    assertThat(throughput.requestSize(192)).isEqualTo(192);
+  }
+
+  @Test
+  public void sizesRequestsToTargetResponseTime() {
+    throughput.recordResponse(50, 5000, HALF_A_SECOND);
+
+    assertThat(throughput.getItemsPerSecond()).isEqualTo(100);
+    assertThat(throughput.getBytesPerSecond()).isEqualTo(10000);
+    assertThat(throughput.getLatencyMillis()).isEqualTo(500);
+    assertThat(throughput.requestSize(192)).isEqualTo(100);
+  }
+
+  @Test
+  public void clampsRequestSize() {
+    throughput.recordResponse(1000, 5000, HALF_A_SECOND);
+    assertThat(throughput.requestSize(192)).isEqualTo(192);
+
+    final PeerThroughput slowThroughput = new PeerThroughput();
+    slowThroughput.recordResponse(1, 100, 4 * HALF_A_SECOND);
+    assertThat(slowThroughput.requestSize(192)).isEqualTo(1);
+  }
+
+  @Test
+  public void movesTowardsLatestResponses() {
+    throughput.recordResponse(50, 5000, HALF_A_SECOND);
+    throughput.recordResponse(150, 5000, HALF_A_SECOND);
+
+    assertThat(throughput.getItemsPerSecond()).isEqualTo(150);
+  }
+
+  @Test
+  public void halvesRatesOnTimeout() {
+    throughput.recordResponse(50, 5000, HALF_A_SECOND);
+    throughput.recordTimeout();
+
+    assertThat(throughput.getItemsPerSecond()).isEqualTo(50);
+    assertThat(throughput.getBytesPerSecond()).isEqualTo(5000);
+    assertThat(throughput.requestSize(192)).isEqualTo(50);
+  }
+
+  @Test
+  public void countsTimeoutBeforeAnyResponseAsDeliveringNothing() {
+    throughput.recordTimeout();
+
+    assertThat(throughput.hasSamples()).isTrue();
+    assertThat(throughput.getItemsPerSecond()).isZero();
+  }
+
+  @Test
+  public void countsEmptyResponsesAsDeliveringNothingWithoutShrinkingRequests() {
+    throughput.recordResponse(50, 5000, HALF_A_SECOND);
+    throughput.recordResponse(0, 10, HALF_A_SECOND);
+
+    assertThat(throughput.getItemsPerSecond()).isEqualTo(75);
+    assertThat(throughput.requestSize(192)).isEqualTo(100);
+  }
+}
@@ -12,12 +12,15 @@
  */
 package tech.pegasys.pantheon.ethereum.eth.manager;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
 import tech.pegasys.pantheon.ethereum.eth.EthProtocol;
 import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.RequestSender;
 import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseCallback;
 import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseStream;
+import tech.pegasys.pantheon.ethereum.eth.messages.BlockHeadersMessage;
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection;
 import tech.pegasys.pantheon.ethereum.p2p.wire.Capability;
@@ -29,12 +32,15 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.junit.Test;
 
 public class RequestManagerTest {
+  private static final BlockDataGenerator gen = new BlockDataGenerator();
 
   @Test
   public void dispatchesMessagesReceivedAfterRegisteringCallback() throws Exception {
@@ -211,6 +217,53 @@ public class RequestManagerTest {
     assertThat(closedCountB.get()).isEqualTo(1);
   }
 
+  @Test
+  public void measuresResponseFromSendTimeOfItsOwnRequestWhenEarlierRequestTimedOut()
+      throws Exception {
+    final EthPeer peer = createPeer();
+    final AtomicLong nanoTime = new AtomicLong(0);
+    final RequestManager requestManager = new RequestManager(peer, nanoTime::get);
+
+    final ResponseStream timedOutStream = requestManager.dispatchRequest(() -> {});
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    timedOutStream.close();
+
+    requestManager.dispatchRequest(() -> {});
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+    requestManager.dispatchResponse(
+        new EthMessage(peer, BlockHeadersMessage.create(singletonList(gen.header()))));
+
+    assertThat(requestManager.throughput().getLatencyMillis()).isEqualTo(500);
+  }
+
+  @Test
+  public void stopsCountingRequestAsPendingWhenItIsGivenUpOn() throws Exception {
+    final EthPeer peer = createPeer();
+    final RequestManager requestManager = new RequestManager(peer);
+
+    final ResponseStream stream = requestManager.dispatchRequest(() -> {});
+    assertThat(requestManager.pendingRequests()).isEqualTo(1);
+
+    stream.close();
+
+    assertThat(requestManager.pendingRequests()).isZero();
+    // The peer may still respond to the request
+    assertThat(requestManager.outstandingRequests()).isEqualTo(1);
+  }
+
+  @Test
+  public void doesNotMeasureLateResponseToRequestThatWasGivenUpOn() throws Exception {
+    final EthPeer peer = createPeer();
+    final RequestManager requestManager = new RequestManager(peer);
+
+    requestManager.dispatchRequest(() -> {}).close();
+    requestManager.dispatchResponse(
+        new EthMessage(peer, BlockHeadersMessage.create(singletonList(gen.header()))));
+
+    assertThat(requestManager.throughput().hasSamples()).isFalse();
+    assertThat(requestManager.outstandingRequests()).isZero();
+  }
+
   private EthMessage mockMessage(final EthPeer peer) {
     return new EthMessage(peer, new RawMessage(1, BytesValue.EMPTY));
   }
@@ -19,6 +19,7 @@ import static org.mockito.Mockito.when;
 import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
 import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManager;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManagerTestUtil;
@@ -26,6 +27,7 @@ import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer;
 import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer.Responder;
 import tech.pegasys.pantheon.ethereum.eth.manager.ethtaskutils.BlockchainSetupUtil;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
@@ -161,13 +163,14 @@ public class PivotBlockRetrieverTest {
 
   private Responder responderForFakeBlock() {
     final Blockchain mockBlockchain = mock(Blockchain.class);
-    when(mockBlockchain.getBlockHeader(PIVOT_BLOCK_NUMBER))
-        .thenReturn(
-            Optional.of(
-                new BlockHeaderTestFixture()
-                    .number(PIVOT_BLOCK_NUMBER)
-                    .extraData(BytesValue.of(1))
-                    .buildHeader()));
+    final BlockHeader fakeHeader =
+        new BlockHeaderTestFixture()
+            .number(PIVOT_BLOCK_NUMBER)
+            .extraData(BytesValue.of(1))
+            .buildHeader();
+    when(mockBlockchain.getBlockHeader(PIVOT_BLOCK_NUMBER)).thenReturn(Optional.of(fakeHeader));
+    when(mockBlockchain.getBlockHeaderRlp(PIVOT_BLOCK_NUMBER))
+        .thenReturn(Optional.of(RLP.encode(fakeHeader::writeTo)));
     return RespondingEthPeer.blockchainResponder(mockBlockchain);
   }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.fullsync;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedObserver;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator.BlockOptions;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthScheduler;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockStatePrefetcher;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class PrefetchBlockStateStepTest {
+
+  private static final int MAX_BLOCKS_AHEAD = 2;
+
+  @SuppressWarnings("unchecked")
+  private final BlockStatePrefetcher<Void> blockStatePrefetcher = mock(BlockStatePrefetcher.class);
+
+  private final Blockchain blockchain = mock(Blockchain.class);
+  private final EthScheduler scheduler = mock(EthScheduler.class);
+  private final BlockDataGenerator gen = new BlockDataGenerator();
+
+  private final List<Runnable> timeouts = new ArrayList<>();
+  private BlockAddedObserver blockAddedObserver;
+  private PrefetchBlockStateStep<Void> prefetchBlockStateStep;
+
+  @Before
+  public void setUp() {
+    when(blockchain.getChainHeadBlockNumber()).thenReturn(10L);
+    when(scheduler.scheduleComputationTask(any()))
+        .thenAnswer(invocation -> completedFuture(invocation.<Supplier<?>>getArgument(0).get()));
+    when(scheduler.scheduleFutureTask(any(Runnable.class), eq(PrefetchBlockStateStep.MAX_WAIT)))
+        .thenAnswer(
+            invocation -> {
+              timeouts.add(invocation.getArgument(0));
+              return new CompletableFuture<>();
+            });
+    prefetchBlockStateStep =
+        new PrefetchBlockStateStep<>(
+            blockStatePrefetcher, blockchain, scheduler, MAX_BLOCKS_AHEAD, new NoOpMetricsSystem());
+    final ArgumentCaptor<BlockAddedObserver> observerCaptor =
+        ArgumentCaptor.forClass(BlockAddedObserver.class);
+    verify(blockchain).observeBlockAdded(observerCaptor.capture());
+    blockAddedObserver = observerCaptor.getValue();
+  }
+
+  @Test
+  public void shouldPrefetchBlockWithinMaxBlocksAheadOfChainHead() {
+    final Block block = block(12);
+
+    final CompletableFuture<Block> result = prefetchBlockStateStep.apply(block);
+
+    assertThat(result).isCompletedWithValue(block);
+    verify(blockStatePrefetcher).prefetch(block);
+  }
+
+  @Test
+  public void shouldWaitForChainHeadBeforePrefetchingBlockTooFarAhead() {
+    final Block block = block(14);
+
+    final CompletableFuture<Block> result = prefetchBlockStateStep.apply(block);
+
+    assertThat(result).isNotDone();
+    verify(blockStatePrefetcher, never()).prefetch(any());
+
+    addChainHead(11);
+    assertThat(result).isNotDone();
+
+    addChainHead(12);
+    assertThat(result).isCompletedWithValue(block);
+    verify(blockStatePrefetcher).prefetch(block);
+  }
+
+  @Test
+  public void shouldStartPrefetchingWhenForkBlockIsImported() {
+    final Block block = block(14);
+    final CompletableFuture<Block> result = prefetchBlockStateStep.apply(block);
+
+    blockAddedObserver.onBlockAdded(BlockAddedEvent.createForFork(block(12)), blockchain);
+
+    assertThat(result).isCompletedWithValue(block);
+    verify(blockStatePrefetcher).prefetch(block);
+  }
+
+  @Test
+  public void shouldPassBlockOnWithoutPrefetchingWhenImportDoesNotCatchUp() {
+    final Block block = block(14);
+    final CompletableFuture<Block> result = prefetchBlockStateStep.apply(block);
+    assertThat(result).isNotDone();
+
+    assertThat(timeouts).hasSize(1);
+    timeouts.get(0).run();
+
+    assertThat(result).isCompletedWithValue(block);
+    verify(blockStatePrefetcher, never()).prefetch(any());
+
+    // A later import doesn't prefetch the block after all
+    addChainHead(12);
+    verify(blockStatePrefetcher, never()).prefetch(any());
+  }
+
+  @Test
+  public void shouldPassBlockOnWhenPrefetchingFails() {
+    final Block block = block(11);
+    when(blockStatePrefetcher.prefetch(block)).thenThrow(new IllegalStateException("Missing"));
+
+    assertThat(prefetchBlockStateStep.apply(block)).isCompletedWithValue(block);
+  }
+
+  private void addChainHead(final long number) {
+    blockAddedObserver.onBlockAdded(
+        BlockAddedEvent.createForHeadAdvancement(block(number)), blockchain);
+  }
+
+  private Block block(final long number) {
+    return gen.block(BlockOptions.create().setBlockNumber(number));
+  }
+}
@@ -25,6 +25,7 @@ import tech.pegasys.pantheon.ethereum.core.TransactionTestFixture;
 import tech.pegasys.pantheon.ethereum.core.Util;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.eth.transactions.PendingTransactions.TransactionSelectionResult;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.testutil.TestClock;
@@ -32,6 +33,8 @@ import tech.pegasys.pantheon.testutil.TestClock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.Lists;
 import org.junit.Test;
@@ -104,6 +107,58 @@ public class PendingTransactionsTest {
     assertTransactionNotPending(oldestTransaction);
   }
 
+  @Test
+  public void shouldDropOldestTransactionWhenByteLimitExceeded() {
+    final Transaction oldestTransaction = createTransaction(0);
+    final int transactionSize = RLP.encode(oldestTransaction::writeTo).size();
+    final PendingTransactions transactions =
+        new PendingTransactions(
+            MAX_TRANSACTIONS, 3L * transactionSize, TestClock.fixed(), metricsSystem);
+    transactions.addRemoteTransaction(oldestTransaction);
+    transactions.addRemoteTransaction(createTransaction(1));
+    transactions.addRemoteTransaction(createTransaction(2));
+    assertThat(transactions.size()).isEqualTo(3);
+
+    transactions.addRemoteTransaction(createTransaction(3));
+    assertThat(transactions.size()).isEqualTo(3);
+    assertThat(transactions.sizeInBytes()).isEqualTo(3L * transactionSize);
+    assertTransactionNotPending(oldestTransaction);
+  }
+
+  @Test
+  public void shouldTrackEncodedSizeOfPendingTransactions() {
+    transactions.addRemoteTransaction(transaction1);
+    transactions.addRemoteTransaction(transaction2);
+    assertThat(transactions.sizeInBytes())
+        .isEqualTo(
+            RLP.encode(transaction1::writeTo).size() + RLP.encode(transaction2::writeTo).size());
+
+    transactions.removeTransaction(transaction1);
+    transactions.transactionAddedToBlock(transaction2);
+    assertThat(transactions.sizeInBytes()).isZero();
+  }
+
+  @Test
+  public void shouldAddTransactionsWhileSelectingTransactions() {
+    transactions.addRemoteTransaction(transaction1);
+
+    final List<Transaction> parsedTransactions = Lists.newArrayList();
+    transactions.selectTransactions(
+        transaction -> {
+          parsedTransactions.add(transaction);
+          try {
+            CompletableFuture.runAsync(() -> transactions.addRemoteTransaction(transaction2))
+                .get(10, TimeUnit.SECONDS);
+          } catch (final Exception e) {
+            throw new AssertionError("Adding a transaction was blocked by the selection", e);
+          }
+          return TransactionSelectionResult.COMPLETE_OPERATION;
+        });
+
+    assertThat(parsedTransactions).containsExactly(transaction1);
+    assertTransactionPending(transaction2);
+  }
+
   @Test
   public void shouldHandleMaximumTransactionLimitCorrectlyWhenSameTransactionAddedMultipleTimes() {
     transactions.addRemoteTransaction(createTransaction(0));
@@ -286,6 +341,25 @@ public class PendingTransactionsTest {
     assertThat(transactions.size()).isEqualTo(1);
   }
 
+  @Test
+  public void shouldKeepTrackingSenderWhenItsOnlyTransactionIsReplaced() {
+    final Transaction transaction1 = transactionWithNonceSenderAndGasPrice(0, KEYS1, 1);
+    final Transaction transaction1b = transactionWithNonceSenderAndGasPrice(0, KEYS1, 2);
+    assertThat(transactions.addRemoteTransaction(transaction1)).isTrue();
+    assertThat(transactions.addRemoteTransaction(transaction1b)).isTrue();
+
+    assertMaximumNonceForSender(SENDER1, 1);
+
+    final List<Transaction> iterationOrder = new ArrayList<>();
+    transactions.selectTransactions(
+        transaction -> {
+          iterationOrder.add(transaction);
+          return TransactionSelectionResult.CONTINUE;
+        });
+
+    assertThat(iterationOrder).containsExactly(transaction1b);
+  }
+
   @Test
   public void shouldNotReplaceTransactionWithSameSenderAndNonceWhenGasPriceIsLower() {
     final Transaction transaction1 = transactionWithNonceSenderAndGasPrice(1, KEYS1, 2);
@@ -379,6 +453,60 @@ public class PendingTransactionsTest {
         .containsExactly(transaction4, transaction1, transaction2, transaction3);
   }
 
+  @Test
+  public void shouldSelectTransactionsWithHigherGasPriceFirst() {
+    final Transaction transaction1 = transactionWithNonceSenderAndGasPrice(0, KEYS1, 2);
+    final Transaction transaction2 = transactionWithNonceSenderAndGasPrice(0, KEYS2, 5);
+
+    transactions.addRemoteTransaction(transaction2);
+    transactions.addRemoteTransaction(transaction1);
+
+    final List<Transaction> iterationOrder = new ArrayList<>();
+    transactions.selectTransactions(
+        transaction -> {
+          iterationOrder.add(transaction);
+          return TransactionSelectionResult.CONTINUE;
+        });
+
+    assertThat(iterationOrder).containsExactly(transaction2, transaction1);
+  }
+
+  @Test
+  public void shouldDelayHigherGasPriceTransactionUntilSenderReachesItsNonce() {
+    final Transaction transaction1 = transactionWithNonceSenderAndGasPrice(0, KEYS1, 1);
+    final Transaction transaction2 = transactionWithNonceSenderAndGasPrice(1, KEYS1, 10);
+    final Transaction transaction3 = transactionWithNonceSenderAndGasPrice(0, KEYS2, 5);
+
+    transactions.addRemoteTransaction(transaction1);
+    transactions.addRemoteTransaction(transaction2);
+    transactions.addRemoteTransaction(transaction3);
+
+    final List<Transaction> iterationOrder = new ArrayList<>();
+    transactions.selectTransactions(
+        transaction -> {
+          iterationOrder.add(transaction);
+          return TransactionSelectionResult.CONTINUE;
+        });
+
+    assertThat(iterationOrder).containsExactly(transaction3, transaction1, transaction2);
+  }
+
+  @Test
+  public void shouldEvictTransactionWithLowestGasPriceWhenFull() {
+    for (int i = 0; i < MAX_TRANSACTIONS - 1; i++) {
+      transactions.addRemoteTransaction(transactionWithNonceSenderAndGasPrice(i, KEYS1, 5));
+    }
+    final Transaction cheapTransaction = transactionWithNonceSenderAndGasPrice(0, KEYS2, 1);
+    transactions.addRemoteTransaction(cheapTransaction);
+    assertThat(transactions.size()).isEqualTo(MAX_TRANSACTIONS);
+
+    transactions.addRemoteTransaction(
+        transactionWithNonceSenderAndGasPrice(MAX_TRANSACTIONS - 1, KEYS1, 5));
+
+    assertThat(transactions.size()).isEqualTo(MAX_TRANSACTIONS);
+    assertTransactionNotPending(cheapTransaction);
+  }
+
   private void assertMaximumNonceForSender(final Address sender1, final int i) {
     assertThat(transactions.getNextNonceForSender(sender1)).isEqualTo(OptionalLong.of(i));
   }
@@ -153,6 +153,7 @@ public class TestNode implements Closeable {
             ethContext,
             TestClock.fixed(),
             PendingTransactions.MAX_PENDING_TRANSACTIONS,
+            PendingTransactions.MAX_PENDING_TRANSACTIONS_BYTES,
             metricsSystem,
             syncState);
     networkRunner.start();
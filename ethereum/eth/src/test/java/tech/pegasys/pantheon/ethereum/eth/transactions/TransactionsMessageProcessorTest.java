@@ -18,6 +18,7 @@ import static org.mockito.Mockito.verify;
 
 import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.TransactionSenderRecovery;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.messages.TransactionsMessage;
 
@@ -36,7 +37,8 @@ public class TransactionsMessageProcessorTest {
   private final Transaction transaction3 = generator.transaction();
 
   private final TransactionsMessageProcessor messageHandler =
-      new TransactionsMessageProcessor(transactionTracker, transactionPool);
+      new TransactionsMessageProcessor(
+          transactionTracker, transactionPool, TransactionSenderRecovery.sequential());
 
   @Test
   public void shouldMarkAllReceivedTransactionsAsSeen() {
@@ -24,6 +24,8 @@ import com.google.common.collect.Lists;
 public class JsonRpcConfiguration {
   private static final String DEFAULT_JSON_RPC_HOST = "127.0.0.1";
   public static final int DEFAULT_JSON_RPC_PORT = 8545;
+  public static final int DEFAULT_BATCH_WORKER_POOL_SIZE = 16;
+  public static final int DEFAULT_MAX_BATCH_CONCURRENCY = 8;
 
   private boolean enabled;
   private int port;
@@ -33,6 +35,8 @@ public class JsonRpcConfiguration {
   private Collection<String> hostsWhitelist = Arrays.asList("localhost", "127.0.0.1");;
   private boolean authenticationEnabled = false;
   private String authenticationCredentialsFile;
+  private int batchWorkerPoolSize = DEFAULT_BATCH_WORKER_POOL_SIZE;
+  private int maxBatchConcurrency = DEFAULT_MAX_BATCH_CONCURRENCY;
 
   public static JsonRpcConfiguration createDefault() {
     final JsonRpcConfiguration config = new JsonRpcConfiguration();
@@ -111,6 +115,8 @@ public class JsonRpcConfiguration {
         .add("rpcApis", rpcApis)
         .add("authenticationEnabled", authenticationEnabled)
         .add("authenticationCredentialsFile", authenticationCredentialsFile)
+        .add("batchWorkerPoolSize", batchWorkerPoolSize)
+        .add("maxBatchConcurrency", maxBatchConcurrency)
         .toString();
   }
 
@@ -153,4 +159,20 @@ public class JsonRpcConfiguration {
   public String getAuthenticationCredentialsFile() {
     return authenticationCredentialsFile;
   }
+
+  public int getBatchWorkerPoolSize() {
+    return batchWorkerPoolSize;
+  }
+
+  public void setBatchWorkerPoolSize(final int batchWorkerPoolSize) {
+    this.batchWorkerPoolSize = batchWorkerPoolSize;
+  }
+
+  public int getMaxBatchConcurrency() {
+    return maxBatchConcurrency;
+  }
+
+  public void setMaxBatchConcurrency(final int maxBatchConcurrency) {
+    this.maxBatchConcurrency = maxBatchConcurrency;
+  }
 }
@@ -14,7 +14,6 @@ package tech.pegasys.pantheon.ethereum.jsonrpc;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Streams.stream;
-import static java.util.stream.Collectors.toList;
 import static tech.pegasys.pantheon.util.NetworkUtility.urlForSocketAddress;
 
 import tech.pegasys.pantheon.ethereum.jsonrpc.authentication.AuthenticationService;
@@ -39,7 +38,6 @@ import tech.pegasys.pantheon.util.NetworkUtility;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.nio.file.Path;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.StringJoiner;
@@ -49,10 +47,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import io.vertx.core.CompositeFuture;
-import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
@@ -87,6 +84,7 @@ public class JsonRpcHttpService {
   @VisibleForTesting public final Optional<AuthenticationService> authenticationService;
 
   private HttpServer httpServer;
+  private WorkerExecutor batchExecutor;
 
   /**
    * Construct a JsonRpcHttpService handler
@@ -138,6 +136,10 @@ public class JsonRpcHttpService {
         config.getPort() == 0 || NetworkUtility.isValidPort(config.getPort()),
         "Invalid port configuration.");
     checkArgument(config.getHost() != null, "Required host is not configured.");
+    checkArgument(
+        config.getBatchWorkerPoolSize() > 0, "Batch worker pool size must be greater than 0.");
+    checkArgument(
+        config.getMaxBatchConcurrency() > 0, "Max batch concurrency must be greater than 0.");
   }
 
   public CompletableFuture<?> start() {
@@ -146,6 +148,8 @@ public class JsonRpcHttpService {
     httpServer =
         vertx.createHttpServer(
             new HttpServerOptions().setHost(config.getHost()).setPort(config.getPort()));
+    batchExecutor =
+        vertx.createSharedWorkerExecutor("jsonrpc-batch", config.getBatchWorkerPoolSize());
 
     // Handle json rpc requests
     final Router router = Router.router(vertx);
@@ -265,6 +269,7 @@ public class JsonRpcHttpService {
             resultFuture.completeExceptionally(res.cause());
           } else {
             httpServer = null;
+            batchExecutor.close();
             resultFuture.complete(null);
           }
         });
@@ -369,56 +374,23 @@ public class JsonRpcHttpService {
       return EMPTY_RESPONSE;
     }
 
-    return Json.encodePrettily(response);
+    return Json.encode(response);
   }
 
-  @SuppressWarnings("rawtypes")
   private void handleJsonBatchRequest(
       final RoutingContext routingContext, final JsonArray jsonArray, final Optional<User> user) {
-    // Interpret json as rpc request
-    final List<Future> responses =
-        jsonArray.stream()
-            .map(
-                obj -> {
-                  if (!(obj instanceof JsonObject)) {
-                    return Future.succeededFuture(
-                        errorResponse(null, JsonRpcError.INVALID_REQUEST));
-                  }
-
-                  final JsonObject req = (JsonObject) obj;
-                  final Future<JsonRpcResponse> fut = Future.future();
-                  vertx.executeBlocking(
-                      future -> future.complete(process(req, user)),
-                      false,
-                      ar -> {
-                        if (ar.failed()) {
-                          fut.fail(ar.cause());
-                        } else {
-                          fut.complete((JsonRpcResponse) ar.result());
-                        }
-                      });
-                  return fut;
-                })
-            .collect(toList());
-
-    CompositeFuture.all(responses)
-        .setHandler(
-            (res) -> {
-              if (res.failed()) {
-                routingContext
-                    .response()
-                    .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code())
-                    .end();
-                return;
-              }
-              final JsonRpcResponse[] completed =
-                  res.result().list().stream()
-                      .map(JsonRpcResponse.class::cast)
-                      .filter(this::isNonEmptyResponses)
-                      .toArray(JsonRpcResponse[]::new);
+    final HttpServerResponse response = routingContext.response();
+    response.setChunked(true);
+    response.putHeader("Content-Type", APPLICATION_JSON);
+    new BatchExecution(response, jsonArray, user).start();
+  }
 
-              routingContext.response().end(Json.encode(completed));
-            });
+  private Object requestId(final JsonObject request) {
+    try {
+      return new JsonRpcRequestId(request.getValue("id")).getValue();
+    } catch (final IllegalArgumentException e) {
+      return null;
+    }
   }
 
   private boolean isNonEmptyResponses(final JsonRpcResponse result) {
@@ -487,6 +459,85 @@ public class JsonRpcHttpService {
     return new JsonRpcUnauthorizedResponse(id, error);
   }
 
+  /**
+   * Executes the requests of a batch on the batch worker pool, at most {@link
+   * JsonRpcConfiguration#getMaxBatchConcurrency()} at a time, and streams each response to the
+   * client as soon as the responses to all earlier requests have been written. All methods run on
+   * the context of the HTTP request so no synchronisation is needed.
+   */
+  private class BatchExecution {
+    private final HttpServerResponse response;
+    private final JsonArray requests;
+    private final Optional<User> user;
+    private final JsonRpcResponse[] responses;
+    private int nextToExecute = 0;
+    private int nextToWrite = 0;
+    private int executing = 0;
+    private boolean hasWrittenResponse = false;
+
+    private BatchExecution(
+        final HttpServerResponse response, final JsonArray requests, final Optional<User> user) {
+      this.response = response;
+      this.requests = requests;
+      this.user = user;
+      this.responses = new JsonRpcResponse[requests.size()];
+    }
+
+    private void start() {
+      response.write("[");
+      executeNext();
+    }
+
+    private void executeNext() {
+      while (executing < config.getMaxBatchConcurrency()
+          && nextToExecute < requests.size()
+          && !response.closed()) {
+        if (response.writeQueueFull()) {
+          // Let the client catch up before producing more responses.
+          response.drainHandler(ignored -> executeNext());
+          return;
+        }
+        final int index = nextToExecute++;
+        final Object request = requests.getValue(index);
+        if (!(request instanceof JsonObject)) {
+          complete(index, errorResponse(null, JsonRpcError.INVALID_REQUEST));
+          continue;
+        }
+        executing++;
+        batchExecutor.<JsonRpcResponse>executeBlocking(
+            future -> future.complete(process((JsonObject) request, user)),
+            false,
+            result -> {
+              executing--;
+              complete(
+                  index,
+                  result.succeeded()
+                      ? result.result()
+                      : errorResponse(requestId((JsonObject) request), JsonRpcError.INTERNAL_ERROR));
+              executeNext();
+            });
+      }
+    }
+
+    private void complete(final int index, final JsonRpcResponse jsonRpcResponse) {
+      if (response.closed()) {
+        return;
+      }
+      responses[index] = jsonRpcResponse;
+      while (nextToWrite < responses.length && responses[nextToWrite] != null) {
+        final JsonRpcResponse next = responses[nextToWrite];
+        responses[nextToWrite++] = null;
+        if (isNonEmptyResponses(next)) {
+          response.write(hasWrittenResponse ? "," + Json.encode(next) : Json.encode(next));
+          hasWrittenResponse = true;
+        }
+      }
+      if (nextToWrite == responses.length) {
+        response.end("]");
+      }
+    }
+  }
+
   private String buildCorsRegexFromConfig() {
     if (config.getCorsAllowedDomains().isEmpty()) {
       return "";
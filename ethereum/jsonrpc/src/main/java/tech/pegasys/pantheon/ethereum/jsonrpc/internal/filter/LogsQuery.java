@@ -16,9 +16,12 @@ import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.Log;
 import tech.pegasys.pantheon.ethereum.core.LogTopic;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.parameters.TopicsParameter;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 import com.google.common.collect.Lists;
 
@@ -36,6 +39,26 @@ public class LogsQuery {
     return matchesAddresses(log.getLogger()) && matchesTopics(log.getTopics());
   }
 
+  /**
+   * Returns the values a log must contain to match this query, for use against logs blooms. Each
+   * group lists alternatives of which at least one must match, and topic positions which match any
+   * topic are left out.
+   *
+   * @return the address group followed by the topic groups of this query
+   */
+  public List<List<BytesValue>> getBloomCriteria() {
+    final List<List<BytesValue>> criteria = new ArrayList<>();
+    if (!queryAddresses.isEmpty()) {
+      criteria.add(new ArrayList<>(queryAddresses));
+    }
+    for (final List<LogTopic> topics : queryTopics) {
+      if (topics.stream().noneMatch(Objects::isNull)) {
+        criteria.add(new ArrayList<>(topics));
+      }
+    }
+    return criteria;
+  }
+
   private boolean matchesAddresses(final Address address) {
     return queryAddresses.isEmpty() || queryAddresses.contains(address);
   }
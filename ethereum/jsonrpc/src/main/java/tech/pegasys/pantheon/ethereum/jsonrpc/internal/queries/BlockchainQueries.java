@@ -28,11 +28,13 @@ import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.core.WorldState;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.filter.LogsQuery;
+import tech.pegasys.pantheon.ethereum.logindex.LogIndex;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateArchive;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
@@ -44,10 +46,19 @@ public class BlockchainQueries {
 
   private final WorldStateArchive worldStateArchive;
   private final Blockchain blockchain;
+  private final Optional<LogIndex> logIndex;
 
   public BlockchainQueries(final Blockchain blockchain, final WorldStateArchive worldStateArchive) {
+    this(blockchain, worldStateArchive, Optional.empty());
+  }
+
+  public BlockchainQueries(
+      final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
+      final Optional<LogIndex> logIndex) {
     this.blockchain = blockchain;
     this.worldStateArchive = worldStateArchive;
+    this.logIndex = logIndex;
   }
 
   public Blockchain getBlockchain() {
@@ -485,26 +496,43 @@ public class BlockchainQueries {
     if (fromBlockNumber > toBlockNumber || toBlockNumber > headBlockNumber()) {
       return Lists.newArrayList();
     }
-    List<LogWithMetadata> matchingLogs = Lists.newArrayList();
-    for (long blockNumber = fromBlockNumber; blockNumber <= toBlockNumber; blockNumber++) {
-      final Hash blockhash = blockchain.getBlockHashByNumber(blockNumber).get();
-      final boolean logHasBeenRemoved = !blockchain.blockIsOnCanonicalChain(blockhash);
-      final List<TransactionReceipt> receipts = blockchain.getTxReceipts(blockhash).get();
-      final List<Transaction> transaction =
-          blockchain.getBlockBody(blockhash).get().getTransactions();
-      matchingLogs =
-          generateLogWithMetadata(
-              receipts,
-              blockNumber,
-              query,
-              blockhash,
-              matchingLogs,
-              transaction,
-              logHasBeenRemoved);
+    final List<List<BytesValue>> bloomCriteria = query.getBloomCriteria();
+    final List<LogWithMetadata> matchingLogs = Lists.newArrayList();
+    long blockNumber = fromBlockNumber;
+    while (blockNumber <= toBlockNumber) {
+      final long section = blockNumber / LogIndex.SECTION_SIZE;
+      final Optional<BitSet> candidateBlocks =
+          logIndex.flatMap(index -> index.matchingBlocks(section, bloomCriteria));
+      if (candidateBlocks.isPresent()) {
+        // Only blocks whose logs bloom may match have to be read from the indexed section.
+        final long sectionStart = section * LogIndex.SECTION_SIZE;
+        final long sectionEnd = Math.min(sectionStart + LogIndex.SECTION_SIZE - 1, toBlockNumber);
+        final BitSet blocks = candidateBlocks.get();
+        for (int offset = blocks.nextSetBit((int) (blockNumber - sectionStart));
+            offset >= 0 && sectionStart + offset <= sectionEnd;
+            offset = blocks.nextSetBit(offset + 1)) {
+          addMatchingLogs(sectionStart + offset, query, matchingLogs);
+        }
+        blockNumber = sectionEnd + 1;
+      } else {
+        addMatchingLogs(blockNumber, query, matchingLogs);
+        blockNumber++;
+      }
     }
     return matchingLogs;
   }
 
+  private void addMatchingLogs(
+      final long blockNumber, final LogsQuery query, final List<LogWithMetadata> matchingLogs) {
+    final Hash blockhash = blockchain.getBlockHashByNumber(blockNumber).get();
+    final boolean logHasBeenRemoved = !blockchain.blockIsOnCanonicalChain(blockhash);
+    final List<TransactionReceipt> receipts = blockchain.getTxReceipts(blockhash).get();
+    final List<Transaction> transaction =
+        blockchain.getBlockBody(blockhash).get().getTransactions();
+    generateLogWithMetadata(
+        receipts, blockNumber, query, blockhash, matchingLogs, transaction, logHasBeenRemoved);
+  }
+
   public List<LogWithMetadata> matchingLogs(final Hash blockhash, final LogsQuery query) {
     final List<LogWithMetadata> matchingLogs = Lists.newArrayList();
     Optional<BlockHeader> blockHeader = blockchain.getBlockHeader(blockhash);
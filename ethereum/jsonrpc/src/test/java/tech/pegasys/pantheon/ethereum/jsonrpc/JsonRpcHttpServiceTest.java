@@ -64,6 +64,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
 import io.vertx.core.Vertx;
@@ -1493,7 +1494,15 @@ public class JsonRpcHttpServiceTest {
                 + "{\"jsonrpc\":\"2.0\",\"id\":\"222\",\"method\":\"net_version\"}]");
 
     try (final Response resp = client.newCall(buildPostRequest(body)).execute()) {
-      assertThat(resp.code()).isEqualTo(500);
+      // Responses are streamed, so a failed request is reported in its own response.
+      assertThat(resp.code()).isEqualTo(200);
+      final JsonArray json = new JsonArray(resp.body().string());
+      assertThat(json.size()).isEqualTo(3);
+      testHelper.assertValidJsonRpcResult(json.getJsonObject(0), "000");
+      final JsonRpcError expectedError = JsonRpcError.INTERNAL_ERROR;
+      testHelper.assertValidJsonRpcError(
+          json.getJsonObject(1), "111", expectedError.getCode(), expectedError.getMessage());
+      testHelper.assertValidJsonRpcResult(json.getJsonObject(2), "222");
     }
   }
 
@@ -1545,6 +1554,25 @@ public class JsonRpcHttpServiceTest {
     }
   }
 
+  @Test
+  public void largeBatchRequestRespondsInRequestOrder() throws Exception {
+    final int requestCount = 100;
+    final StringJoiner requests = new StringJoiner(",", "[", "]");
+    for (int id = 0; id < requestCount; id++) {
+      requests.add("{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"net_version\"}");
+    }
+    final RequestBody body = RequestBody.create(JSON, requests.toString());
+
+    try (final Response resp = client.newCall(buildPostRequest(body)).execute()) {
+      assertThat(resp.code()).isEqualTo(200);
+      final JsonArray json = new JsonArray(resp.body().string());
+      assertThat(json.size()).isEqualTo(requestCount);
+      for (int id = 0; id < requestCount; id++) {
+        testHelper.assertValidJsonRpcResult(json.getJsonObject(id), id);
+      }
+    }
+  }
+
   @Test
   public void batchRequestContainingInvalidRequest() throws Exception {
     final int clientVersionRequestId = 2;
@@ -17,6 +17,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static tech.pegasys.pantheon.ethereum.core.InMemoryStorageProvider.createInMemoryBlockchain;
 import static tech.pegasys.pantheon.ethereum.core.InMemoryStorageProvider.createInMemoryWorldStateArchive;
 
@@ -33,11 +38,13 @@ import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.core.WorldState;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.filter.LogsQuery;
+import tech.pegasys.pantheon.ethereum.logindex.LogIndex;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateArchive;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -342,6 +349,41 @@ public class BlockchainQueriesTest {
     assertThat(logs).allMatch(LogWithMetadata::isRemoved);
   }
 
+  @Test
+  public void matchingLogsShouldOnlyReadBlocksSelectedByLogIndex() {
+    final BlockchainWithData data = setupBlockchain(5);
+    final LogIndex logIndex = mock(LogIndex.class);
+    final BitSet candidateBlocks = new BitSet();
+    candidateBlocks.set(2);
+    candidateBlocks.set(3);
+    when(logIndex.matchingBlocks(eq(0L), any())).thenReturn(Optional.of(candidateBlocks));
+    final BlockchainQueries queries =
+        new BlockchainQueries(data.blockchain, data.worldStateArchive, Optional.of(logIndex));
+    final LogsQuery query = new LogsQuery.Builder().build();
+
+    final List<LogWithMetadata> logs = queries.matchingLogs(1, 3, query);
+
+    final List<LogWithMetadata> expectedLogs = data.blockchainQueries.matchingLogs(2, 3, query);
+    assertThat(expectedLogs).isNotEmpty();
+    assertThat(logs).usingFieldByFieldElementComparator().isEqualTo(expectedLogs);
+  }
+
+  @Test
+  public void matchingLogsShouldReadEveryBlockOfSectionsNotInLogIndex() {
+    final BlockchainWithData data = setupBlockchain(5);
+    final LogIndex logIndex = mock(LogIndex.class);
+    when(logIndex.matchingBlocks(anyLong(), any())).thenReturn(Optional.empty());
+    final BlockchainQueries queries =
+        new BlockchainQueries(data.blockchain, data.worldStateArchive, Optional.of(logIndex));
+    final LogsQuery query = new LogsQuery.Builder().build();
+
+    final List<LogWithMetadata> logs = queries.matchingLogs(0, 4, query);
+
+    assertThat(logs)
+        .usingFieldByFieldElementComparator()
+        .isEqualTo(data.blockchainQueries.matchingLogs(0, 4, query));
+  }
+
   @Test
   public void matchingLogsShouldReturnAnEmptyListWhenGivenAnInvalidBlockHash() {
     final BlockchainWithData data = setupBlockchain(3);
@@ -15,10 +15,15 @@ package tech.pegasys.pantheon.ethereum.p2p.config;
 import java.util.Objects;
 
 public class RlpxConfiguration {
+  public static final int DEFAULT_WORKER_THREADS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
   private String clientId = "TestClient/1.0.0";
   private String bindHost = "0.0.0.0";
   private int bindPort = 30303;
   private int maxPeers = 25;
+  private int workerThreads = DEFAULT_WORKER_THREADS;
+  private boolean nativeTransportEnabled = false;
   private WireProtocolConfig wire = new WireProtocolConfig();
 
   public static RlpxConfiguration create() {
@@ -61,6 +66,24 @@ public class RlpxConfiguration {
     return maxPeers;
   }
 
+  public int getWorkerThreads() {
+    return workerThreads;
+  }
+
+  public RlpxConfiguration setWorkerThreads(final int workerThreads) {
+    this.workerThreads = workerThreads;
+    return this;
+  }
+
+  public boolean isNativeTransportEnabled() {
+    return nativeTransportEnabled;
+  }
+
+  public RlpxConfiguration setNativeTransportEnabled(final boolean nativeTransportEnabled) {
+    this.nativeTransportEnabled = nativeTransportEnabled;
+    return this;
+  }
+
   public String getClientId() {
     return clientId;
   }
@@ -79,13 +102,15 @@ public class RlpxConfiguration {
     }
     final RlpxConfiguration that = (RlpxConfiguration) o;
     return bindPort == that.bindPort
+        && workerThreads == that.workerThreads
+        && nativeTransportEnabled == that.nativeTransportEnabled
         && Objects.equals(bindHost, that.bindHost)
         && Objects.equals(wire, that.wire);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(bindHost, bindPort, wire);
+    return Objects.hash(bindHost, bindPort, workerThreads, nativeTransportEnabled, wire);
   }
 
   @Override
@@ -93,6 +118,8 @@ public class RlpxConfiguration {
     final StringBuilder sb = new StringBuilder("RlpxConfiguration{");
     sb.append("bindHost='").append(bindHost).append('\'');
     sb.append(", bindPort=").append(bindPort);
+    sb.append(", workerThreads=").append(workerThreads);
+    sb.append(", nativeTransportEnabled=").append(nativeTransportEnabled);
     sb.append(", wire=").append(wire);
     sb.append('}');
     return sb.toString();
@@ -44,6 +44,8 @@ import tech.pegasys.pantheon.metrics.Counter;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
 import tech.pegasys.pantheon.metrics.MetricCategory;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
 import tech.pegasys.pantheon.util.Subscribers;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.enode.EnodeURL;
@@ -77,10 +79,17 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
 import io.vertx.core.Vertx;
 import org.apache.logging.log4j.LogManager;
@@ -120,6 +129,12 @@ import org.apache.logging.log4j.Logger;
  * <p>The RLPx wire protocol dispatches messages to subprotocols based on the capabilities agreed by
  * each of the two peers during the protocol handshake.
  *
+ * <p>Connections are spread across a configurable number of worker event loops. Each connection
+ * stays on the event loop it was first assigned for its lifetime, so the framing, decryption and
+ * decompression for a peer all happen on a single thread, while different peers are handled in
+ * parallel. The native transport (epoll on Linux) is used instead of NIO if it is enabled and
+ * available.
+ *
  * @see <a href="https://pdos.csail.mit.edu/~petar/papers/maymounkov-kademlia-lncs.pdf">Kademlia DHT
  *     paper</a>
  * @see <a href="https://github.com/ethereum/wiki/wiki/Kademlia-Peer-Selection">Kademlia Peer
@@ -130,6 +145,8 @@ public class NettyP2PNetwork implements P2PNetwork {
 
   private static final Logger LOG = LogManager.getLogger();
   private static final int TIMEOUT_SECONDS = 30;
+  private static final int EVENT_LOOP_IO_RATIO = 50;
+  private static final long WORKER_LATENCY_PROBE_INTERVAL_MILLIS = 1000;
 
   private final ScheduledExecutorService peerConnectionScheduler =
       Executors.newSingleThreadScheduledExecutor();
@@ -157,9 +174,13 @@ public class NettyP2PNetwork implements P2PNetwork {
   public final Map<Peer, CompletableFuture<PeerConnection>> pendingConnections =
       new ConcurrentHashMap<>();
 
-  private final EventLoopGroup boss = new NioEventLoopGroup(1);
+  private final EventLoopGroup boss;
+
+  private final EventLoopGroup workers;
+
+  private final Class<? extends SocketChannel> channelClass;
 
-  private final EventLoopGroup workers = new NioEventLoopGroup(1);
+  private final LabelledMetric<OperationTimer> workerTaskLatency;
 
   private volatile PeerInfo ourPeerInfo;
 
@@ -232,6 +253,12 @@ public class NettyP2PNetwork implements P2PNetwork {
 
     this.config = config;
     maxPeers = config.getRlpx().getMaxPeers();
+    final boolean useEpoll = useEpoll(config.getRlpx().isNativeTransportEnabled());
+    boss = createEventLoopGroup(useEpoll, 1, "nettyBoss");
+    workers = createEventLoopGroup(useEpoll, config.getRlpx().getWorkerThreads(), "nettyWorkers");
+    channelClass = useEpoll ? EpollSocketChannel.class : NioSocketChannel.class;
+    final Class<? extends ServerChannel> serverChannelClass =
+        useEpoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
     connections = new PeerConnectionRegistry(metricsSystem);
     this.peerBlacklist = peerBlacklist;
     this.peerMaintainConnectionList = new HashSet<>();
@@ -261,6 +288,13 @@ public class NettyP2PNetwork implements P2PNetwork {
         "The number of pending tasks in the Netty workers event loop",
         pendingTaskCounter(workers));
 
+    workerTaskLatency =
+        metricsSystem.createLabelledTimer(
+            MetricCategory.NETWORK,
+            "netty_workers_task_latency_seconds",
+            "Time tasks wait before running in each Netty workers event loop",
+            "loop");
+
     metricsSystem.createIntegerGauge(
         MetricCategory.NETWORK,
         "netty_boss_pending_tasks",
@@ -283,7 +317,7 @@ public class NettyP2PNetwork implements P2PNetwork {
     server =
         new ServerBootstrap()
             .group(boss, workers)
-            .channel(NioServerSocketChannel.class)
+            .channel(serverChannelClass)
             .childHandler(inboundChannelInitializer())
             .bind(config.getRlpx().getBindHost(), config.getRlpx().getBindPort());
     final CountDownLatch latch = new CountDownLatch(1);
@@ -327,6 +361,41 @@ public class NettyP2PNetwork implements P2PNetwork {
         c -> c.subscribeToUpdates(this::checkCurrentConnections));
   }
 
+  private static boolean useEpoll(final boolean nativeTransportEnabled) {
+    if (!nativeTransportEnabled) {
+      return false;
+    }
+    if (!Epoll.isAvailable()) {
+      LOG.warn(
+          "Native transport is not available, falling back to NIO for the P2P network",
+          Epoll.unavailabilityCause());
+      return false;
+    }
+    return true;
+  }
+
+  private static EventLoopGroup createEventLoopGroup(
+      final boolean useEpoll, final int threads, final String name) {
+    final DefaultThreadFactory threadFactory = new DefaultThreadFactory(name);
+    if (useEpoll) {
+      final EpollEventLoopGroup eventLoopGroup = new EpollEventLoopGroup(threads, threadFactory);
+      eventLoopGroup.setIoRatio(EVENT_LOOP_IO_RATIO);
+      return eventLoopGroup;
+    }
+    final NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(threads, threadFactory);
+    eventLoopGroup.setIoRatio(EVENT_LOOP_IO_RATIO);
+    return eventLoopGroup;
+  }
+
+  private void probeWorkerLatency() {
+    int loop = 0;
+    for (final EventExecutor eventExecutor : workers) {
+      final TimingContext timingContext =
+          workerTaskLatency.labels(Integer.toString(loop++)).startTimer();
+      eventExecutor.execute(timingContext::stopTimer);
+    }
+  }
+
   private Supplier<Integer> pendingTaskCounter(final EventLoopGroup eventLoopGroup) {
     return () ->
         StreamSupport.stream(eventLoopGroup.spliterator(), false)
@@ -474,7 +543,7 @@ public class NettyP2PNetwork implements P2PNetwork {
 
     new Bootstrap()
         .group(workers)
-        .channel(NioSocketChannel.class)
+        .channel(channelClass)
         .remoteAddress(new InetSocketAddress(endpoint.getHost(), endpoint.getFunctionalTcpPort()))
         .option(ChannelOption.TCP_NODELAY, true)
         .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, TIMEOUT_SECONDS * 1000)
@@ -576,6 +645,11 @@ public class NettyP2PNetwork implements P2PNetwork {
         this::checkMaintainedConnectionPeers, 60, 60, TimeUnit.SECONDS);
     peerConnectionScheduler.scheduleWithFixedDelay(
         this::attemptPeerConnections, 30, 30, TimeUnit.SECONDS);
+    peerConnectionScheduler.scheduleWithFixedDelay(
+        this::probeWorkerLatency,
+        WORKER_LATENCY_PROBE_INTERVAL_MILLIS,
+        WORKER_LATENCY_PROBE_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
   }
 
   @VisibleForTesting
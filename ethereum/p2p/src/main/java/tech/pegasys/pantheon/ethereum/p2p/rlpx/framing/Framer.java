@@ -13,13 +13,12 @@
 package tech.pegasys.pantheon.ethereum.p2p.rlpx.framing;
 
 import static io.netty.buffer.ByteBufUtil.hexDump;
-import static io.netty.buffer.Unpooled.wrappedBuffer;
-import static org.bouncycastle.pqc.math.linearalgebra.ByteUtils.xor;
 
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
 import tech.pegasys.pantheon.ethereum.p2p.rlpx.handshake.HandshakeSecrets;
 import tech.pegasys.pantheon.ethereum.p2p.wire.RawMessage;
 import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.Arrays;
@@ -54,6 +53,7 @@ public class Framer {
   private static final int LENGTH_FRAME_SIZE = 3;
   private static final int LENGTH_MESSAGE_ID = 1;
   private static final int LENGTH_MAX_MESSAGE_FRAME = 0xFFFFFF;
+  private static final int MAX_RETAINED_FRAME_BUFFER = 64 * 1024;
 
   private static final byte[] IV = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
   private static final byte[] PROTOCOL_HEADER =
@@ -75,6 +75,13 @@ public class Framer {
   private int frameSize;
   private boolean compressionEnabled = false;
 
+  // Scratch space reused across frames; all access happens while holding this instance's lock.
+  private final byte[] header = new byte[LENGTH_HEADER_DATA];
+  private final byte[] receivedMac = new byte[LENGTH_MAC];
+  private final byte[] mac = new byte[Bytes32.SIZE];
+  private final byte[] macBlock = new byte[LENGTH_MAC];
+  private byte[] frameBuffer = new byte[1024];
+
   /**
    * Creates a new framer out of the handshake secrets derived during the cryptographic handshake.
    *
@@ -142,7 +149,6 @@ public class Framer {
       }
       frameSize = processHeader(buf.readSlice(LENGTH_FULL_HEADER));
       headerProcessed = true;
-      buf.discardReadBytes();
     }
 
     final int size = frameSize + padding16(frameSize) + LENGTH_MAC;
@@ -151,7 +157,6 @@ public class Framer {
     }
 
     final MessageData msg = processFrame(buf.readSlice(size), frameSize);
-    buf.discardReadBytes();
     headerProcessed = false;
     return msg;
   }
@@ -173,50 +178,41 @@ public class Framer {
           LENGTH_FULL_HEADER, encryptedHeader.readableBytes());
     }
 
-    // Decrypt the header.
-    final byte[] hCipher = new byte[LENGTH_HEADER_DATA];
-    final byte[] hMac = new byte[LENGTH_MAC];
-    encryptedHeader.readBytes(hCipher).readBytes(hMac);
+    encryptedHeader.readBytes(header).readBytes(receivedMac);
 
     // Header MAC validation.
-    byte[] expectedMac = new byte[16];
-    macEncryptor.processBlock(secrets.getIngressMac(), 0, expectedMac, 0);
-    expectedMac = secrets.updateIngress(xor(expectedMac, hCipher)).getIngressMac();
-    expectedMac = Arrays.copyOf(expectedMac, LENGTH_MAC);
-
-    validateMac(hMac, expectedMac);
+    secrets.getIngressMac(mac);
+    updateIngressMac(header);
+    validateMac(receivedMac);
 
     // Perform the header decryption.
-    decryptor.processBytes(hCipher, 0, hCipher.length, hCipher, 0);
-    final ByteBuf h = wrappedBuffer(hCipher);
+    decryptor.processBytes(header, 0, LENGTH_HEADER_DATA, header, 0);
 
     // Read the frame length.
-    final byte[] length = new byte[3];
-    h.readBytes(length);
-    int frameSize = length[0] & 0xff;
-    frameSize = (frameSize << 8) + (length[1] & 0xff);
-    frameSize = (frameSize << 8) + (length[2] & 0xff);
+    int frameSize = header[0] & 0xff;
+    frameSize = (frameSize << 8) + (header[1] & 0xff);
+    frameSize = (frameSize << 8) + (header[2] & 0xff);
 
     // Discard the header data (RLP): being set to fixed value 0xc28080 (list of two null
     // elements) by other clients.
-    final int headerDataLength = RLP.calculateSize(BytesValue.wrapBuffer(h.nioBuffer()));
-    if (h.readableBytes() < headerDataLength) {
+    final int remaining = LENGTH_HEADER_DATA - LENGTH_FRAME_SIZE;
+    final int headerDataLength =
+        RLP.calculateSize(BytesValue.wrap(header, LENGTH_FRAME_SIZE, remaining));
+    if (remaining < headerDataLength) {
       throw error(
           "Expected at least %d readable bytes while processing header, remaining: %s",
-          headerDataLength, h.readableBytes());
+          headerDataLength, remaining);
     }
-    h.skipBytes(headerDataLength);
 
     // Discard padding in header (= zero-fill to 16-byte boundary).
-    h.skipBytes(padding16(LENGTH_FRAME_SIZE + headerDataLength));
-
-    if (h.readableBytes() != 0) {
+    final int padded =
+        LENGTH_FRAME_SIZE + headerDataLength + padding16(LENGTH_FRAME_SIZE + headerDataLength);
+    if (padded != LENGTH_HEADER_DATA) {
       throw error(
           "Expected no more readable bytes while processing header, remaining: %s",
-          h.readableBytes());
+          LENGTH_HEADER_DATA - padded);
     }
 
-    h.discardReadBytes();
     return frameSize;
   }
 
@@ -236,50 +232,77 @@ public class Framer {
       throw error("Expected %s bytes in header, got %s", expectedSize, f.readableBytes());
     }
 
-    final byte[] frameData = new byte[frameSize + pad];
-    final byte[] fMac = new byte[LENGTH_MAC];
-    f.readBytes(frameData).readBytes(fMac);
+    // Uncompressed frames are handed up as they are, so they need their own array, while
+    // compressed ones are only needed until they have been decompressed.
+    final byte[] frameData =
+        compressionEnabled ? frameBuffer(frameSize + pad) : new byte[frameSize + pad];
+    f.readBytes(frameData, 0, frameSize + pad).readBytes(receivedMac);
 
     // Validate the frame's MAC.
-    final byte[] fMacSeed = secrets.updateIngress(frameData).getIngressMac();
-    final byte[] fMacSeedEnc = new byte[16];
-    macEncryptor.processBlock(fMacSeed, 0, fMacSeedEnc, 0);
-    byte[] expectedMac = secrets.updateIngress(xor(fMacSeedEnc, fMacSeed)).getIngressMac();
-    expectedMac = Arrays.copyOf(expectedMac, LENGTH_MAC);
-
-    validateMac(fMac, expectedMac);
+    secrets.updateIngress(frameData, 0, frameSize + pad).getIngressMac(mac);
+    updateIngressMac(mac);
+    validateMac(receivedMac);
 
     // Decrypt frame data.
-    decryptor.processBytes(frameData, 0, frameData.length, frameData, 0);
+    decryptor.processBytes(frameData, 0, frameSize + pad, frameData, 0);
 
     // Read the id.
     final BytesValue idbv = RLP.decodeOne(BytesValue.of(frameData[0]));
     final int id = idbv.isZero() || idbv.size() == 0 ? 0 : idbv.get(0);
 
     // Write message data to ByteBuf, decompressing as necessary
+    final int messageLength = frameSize - LENGTH_MESSAGE_ID;
     final BytesValue data;
     if (compressionEnabled) {
-      final byte[] compressedMessageData = Arrays.copyOfRange(frameData, 1, frameData.length - pad);
-      final int uncompressedLength = compressor.uncompressedLength(compressedMessageData);
+      final int uncompressedLength =
+          compressor.uncompressedLength(frameData, LENGTH_MESSAGE_ID, messageLength);
       if (uncompressedLength >= LENGTH_MAX_MESSAGE_FRAME) {
         throw error("Message size %s in excess of maximum length.", uncompressedLength);
       }
-      final byte[] decompressedMessageData = compressor.decompress(compressedMessageData);
+      final byte[] decompressedMessageData = new byte[uncompressedLength];
+      compressor.decompress(
+          frameData, LENGTH_MESSAGE_ID, messageLength, decompressedMessageData, 0);
       data = BytesValue.wrap(decompressedMessageData);
     } else {
-      // Move data to a ByteBuf
-      final int messageLength = frameSize - LENGTH_MESSAGE_ID;
-      data = BytesValue.wrap(frameData, 1, messageLength);
+      data = BytesValue.wrap(frameData, LENGTH_MESSAGE_ID, messageLength);
     }
 
     return new RawMessage(id, data);
   }
 
-  private void validateMac(final byte[] candidateMac, final byte[] expectedMac) {
-    if (!Arrays.equals(expectedMac, candidateMac)) {
+  /**
+   * Completes an ingress MAC update: the MAC snapshot held in {@link #mac} is encrypted, xor-ed
+   * with the seed and fed to the ingress MAC, whose updated snapshot is then stored in {@link
+   * #mac}.
+   */
+  private void updateIngressMac(final byte[] seed) {
+    macEncryptor.processBlock(mac, 0, macBlock, 0);
+    xor(macBlock, seed);
+    secrets.updateIngress(macBlock, 0, LENGTH_MAC).getIngressMac(mac);
+  }
+
+  /** The egress counterpart of {@link #updateIngressMac(byte[])}. */
+  private void updateEgressMac(final byte[] seed) {
+    macEncryptor.processBlock(mac, 0, macBlock, 0);
+    xor(macBlock, seed);
+    secrets.updateEgress(macBlock, 0, LENGTH_MAC).getEgressMac(mac);
+  }
+
+  private static void xor(final byte[] target, final byte[] other) {
+    for (int i = 0; i < LENGTH_MAC; i++) {
+      target[i] ^= other[i];
+    }
+  }
+
+  private void validateMac(final byte[] candidateMac) {
+    int diff = 0;
+    for (int i = 0; i < LENGTH_MAC; i++) {
+      diff |= mac[i] ^ candidateMac[i];
+    }
+    if (diff != 0) {
       throw error(
           "Frame MAC did not match expected MAC; expected: %s, received: %s",
-          hexDump(expectedMac), hexDump(candidateMac));
+          hexDump(mac, 0, LENGTH_MAC), hexDump(candidateMac));
     }
   }
 
@@ -295,11 +318,13 @@ public class Framer {
         message.getSize() < LENGTH_MAX_MESSAGE_FRAME, "Message size in excess of maximum length.");
     // Compress message
     if (compressionEnabled) {
-      // Extract data from message
-      // Compress data
-      final byte[] compressed = compressor.compress(message.getData().getArrayUnsafe());
-      // Construct new, compressed message
-      frameMessage(new RawMessage(message.getCode(), BytesValue.wrap(compressed)), output);
+      // Compress the data straight into the frame, after the message id.
+      final BytesValue data = message.getData();
+      final int maxFrameSize = LENGTH_MESSAGE_ID + compressor.maxCompressedLength(data.size());
+      final byte[] f = frameBuffer(maxFrameSize + padding16(maxFrameSize));
+      final int compressedSize =
+          compressor.compress(data.getArrayUnsafe(), 0, data.size(), f, LENGTH_MESSAGE_ID);
+      writeFrame(message.getCode(), f, LENGTH_MESSAGE_ID + compressedSize, output);
     } else {
       frameMessage(message, output);
     }
@@ -308,44 +333,68 @@ public class Framer {
   @VisibleForTesting
   void frameMessage(final MessageData message, final ByteBuf buf) {
     final int frameSize = message.getSize() + LENGTH_MESSAGE_ID;
-    final int pad = padding16(frameSize);
+    final byte[] f = frameBuffer(frameSize + padding16(frameSize));
+    message.getData().copyTo(f, 0, LENGTH_MESSAGE_ID);
+    writeFrame(message.getCode(), f, frameSize, buf);
+  }
 
-    final byte id = (byte) message.getCode();
+  /**
+   * Encrypts and writes out a frame whose message data has already been written to the given array,
+   * after the message id.
+   *
+   * @param code The message code.
+   * @param f The array holding the message data, large enough to be padded to a 16-byte boundary.
+   * @param frameSize The size of the frame, including the message id.
+   * @param buf The {@link ByteBuf} to write the framed data to.
+   */
+  private void writeFrame(final int code, final byte[] f, final int frameSize, final ByteBuf buf) {
+    final int pad = padding16(frameSize);
+    buf.ensureWritable(LENGTH_FULL_HEADER + frameSize + pad + LENGTH_MAC);
 
     // Generate the header data.
-    final byte[] h = new byte[LENGTH_HEADER_DATA];
-    h[0] = (byte) ((frameSize >> 16) & 0xff);
-    h[1] = (byte) ((frameSize >> 8) & 0xff);
-    h[2] = (byte) (frameSize & 0xff);
-    System.arraycopy(PROTOCOL_HEADER, 0, h, LENGTH_FRAME_SIZE, PROTOCOL_HEADER.length);
-    Arrays.fill(h, LENGTH_FRAME_SIZE + PROTOCOL_HEADER.length, h.length - 1, (byte) 0x00);
-    encryptor.processBytes(h, 0, LENGTH_HEADER_DATA, h, 0);
+    header[0] = (byte) ((frameSize >> 16) & 0xff);
+    header[1] = (byte) ((frameSize >> 8) & 0xff);
+    header[2] = (byte) (frameSize & 0xff);
+    System.arraycopy(PROTOCOL_HEADER, 0, header, LENGTH_FRAME_SIZE, PROTOCOL_HEADER.length);
+    Arrays.fill(header, LENGTH_FRAME_SIZE + PROTOCOL_HEADER.length, header.length, (byte) 0x00);
+    encryptor.processBytes(header, 0, LENGTH_HEADER_DATA, header, 0);
 
     // Generate the header MAC.
-    byte[] hMac = Arrays.copyOf(secrets.getEgressMac(), LENGTH_MAC);
-    macEncryptor.processBlock(hMac, 0, hMac, 0);
-    hMac = secrets.updateEgress(xor(h, hMac)).getEgressMac();
-    hMac = Arrays.copyOf(hMac, LENGTH_MAC);
-    buf.writeBytes(h).writeBytes(hMac);
+    secrets.getEgressMac(mac);
+    updateEgressMac(header);
+    buf.writeBytes(header).writeBytes(mac, 0, LENGTH_MAC);
 
     // Encrypt payload.
-    final byte[] f = new byte[frameSize + pad];
-
+    final byte id = (byte) code;
     final BytesValue bv = id == 0 ? RLP.NULL : RLP.encodeOne(BytesValue.of(id));
     assert bv.size() == 1;
     f[0] = bv.get(0);
 
     // Zero-padded to 16-byte boundary.
-    message.getData().copyTo(f, 0, 1);
-    encryptor.processBytes(f, 0, f.length, f, 0);
+    Arrays.fill(f, frameSize, frameSize + pad, (byte) 0x00);
+    encryptor.processBytes(f, 0, frameSize + pad, f, 0);
 
     // Calculate the frame MAC.
-    final byte[] fMacSeed = Arrays.copyOf(secrets.updateEgress(f).getEgressMac(), LENGTH_MAC);
-    byte[] fMac = new byte[16];
-    macEncryptor.processBlock(fMacSeed, 0, fMac, 0);
-    fMac = Arrays.copyOf(secrets.updateEgress(xor(fMac, fMacSeed)).getEgressMac(), LENGTH_MAC);
+    secrets.updateEgress(f, 0, frameSize + pad).getEgressMac(mac);
+    updateEgressMac(mac);
 
-    buf.writeBytes(f).writeBytes(fMac);
+    buf.writeBytes(f, 0, frameSize + pad).writeBytes(mac, 0, LENGTH_MAC);
+  }
+
+  /**
+   * Returns an array of at least the given size to assemble a frame in. Arrays up to {@link
+   * #MAX_RETAINED_FRAME_BUFFER} bytes long are reused across frames, larger ones are allocated
+   * every time so that idle connections don't hold on to them.
+   */
+  private byte[] frameBuffer(final int size) {
+    if (size > MAX_RETAINED_FRAME_BUFFER) {
+      return new byte[size];
+    }
+    if (frameBuffer.length < size) {
+      frameBuffer =
+          new byte[Math.min(MAX_RETAINED_FRAME_BUFFER, Math.max(size, frameBuffer.length * 2))];
+    }
+    return frameBuffer;
   }
 
   private static int padding16(final int size) {
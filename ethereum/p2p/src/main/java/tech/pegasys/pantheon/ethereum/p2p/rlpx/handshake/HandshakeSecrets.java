@@ -44,8 +44,10 @@ public class HandshakeSecrets {
   private final byte[] aesSecret;
   private final byte[] macSecret;
   private final byte[] token;
-  private final KeccakDigest egressMac = new KeccakDigest(Bytes32.SIZE * 8);
-  private final KeccakDigest ingressMac = new KeccakDigest(Bytes32.SIZE * 8);
+  private final MacDigest egressMac = new MacDigest();
+  private final MacDigest ingressMac = new MacDigest();
+  private final MacDigest egressSnapshot = new MacDigest();
+  private final MacDigest ingressSnapshot = new MacDigest();
 
   /**
    * Creates an instance with empty MACs.
@@ -71,7 +73,19 @@ public class HandshakeSecrets {
    * @return Returns this instance for fluent chaining.
    */
   public HandshakeSecrets updateEgress(final byte[] bytes) {
-    egressMac.update(bytes, 0, bytes.length);
+    return updateEgress(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Updates the egress mac with a range of the provided bytes.
+   *
+   * @param bytes The bytes of the outgoing message.
+   * @param offset The offset of the first byte to update the mac with.
+   * @param length The number of bytes to update the mac with.
+   * @return Returns this instance for fluent chaining.
+   */
+  public HandshakeSecrets updateEgress(final byte[] bytes, final int offset, final int length) {
+    egressMac.update(bytes, offset, length);
     return this;
   }
 
@@ -82,7 +96,19 @@ public class HandshakeSecrets {
    * @return Returns this instance for fluent chaining.
    */
   public HandshakeSecrets updateIngress(final byte[] bytes) {
-    ingressMac.update(bytes, 0, bytes.length);
+    return updateIngress(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Updates the ingress mac with a range of the provided bytes.
+   *
+   * @param bytes The bytes of the incoming message.
+   * @param offset The offset of the first byte to update the mac with.
+   * @param length The number of bytes to update the mac with.
+   * @return Returns this instance for fluent chaining.
+   */
+  public HandshakeSecrets updateIngress(final byte[] bytes, final int offset, final int length) {
+    ingressMac.update(bytes, offset, length);
     return this;
   }
 
@@ -131,6 +157,28 @@ public class HandshakeSecrets {
     return snapshot(ingressMac);
   }
 
+  /**
+   * Writes a snapshot of the current egress MAC to the provided array, without finalising the
+   * underlying digest nor allocating a copy of it.
+   *
+   * @param out The array to write the 32 bytes of the snapshot to.
+   */
+  public void getEgressMac(final byte[] out) {
+    egressSnapshot.copyFrom(egressMac);
+    egressSnapshot.doFinal(out, 0);
+  }
+
+  /**
+   * Writes a snapshot of the current ingress MAC to the provided array, without finalising the
+   * underlying digest nor allocating a copy of it.
+   *
+   * @param out The array to write the 32 bytes of the snapshot to.
+   */
+  public void getIngressMac(final byte[] out) {
+    ingressSnapshot.copyFrom(ingressMac);
+    ingressSnapshot.doFinal(out, 0);
+  }
+
   /**
    * TODO: It's not wise to print secrets. Maybe print only the first and last 8 bytes (ellipsize
    * the middle). That might be enough for testing.
@@ -197,4 +245,21 @@ public class HandshakeSecrets {
         egressMac,
         ingressMac);
   }
+
+  /** A Keccak-256 digest whose state can be copied into an existing instance. */
+  private static class MacDigest extends KeccakDigest {
+
+    private MacDigest() {
+      super(Bytes32.SIZE * 8);
+    }
+
+    private void copyFrom(final MacDigest source) {
+      System.arraycopy(source.state, 0, state, 0, state.length);
+      System.arraycopy(source.dataQueue, 0, dataQueue, 0, dataQueue.length);
+      rate = source.rate;
+      bitsInQueue = source.bitsInQueue;
+      fixedOutputLength = source.fixedOutputLength;
+      squeezing = source.squeezing;
+    }
+  }
 }
@@ -163,6 +163,69 @@ public final class NettyP2PNetworkTest {
     }
   }
 
+  @Test
+  public void handshakingWithMultipleWorkersAndNativeTransportRequested() throws Exception {
+    final DiscoveryConfiguration noDiscovery = DiscoveryConfiguration.create().setActive(false);
+    final SECP256K1.KeyPair listenKp = SECP256K1.KeyPair.generate();
+    final Capability cap = Capability.create("eth", 63);
+    // The native transport is used where available and NIO otherwise, either way peers connect.
+    try (final P2PNetwork listener =
+            new NettyP2PNetwork(
+                vertx,
+                listenKp,
+                NetworkingConfiguration.create()
+                    .setDiscovery(noDiscovery)
+                    .setSupportedProtocols(subProtocol())
+                    .setRlpx(
+                        RlpxConfiguration.create()
+                            .setBindPort(0)
+                            .setWorkerThreads(4)
+                            .setNativeTransportEnabled(true)),
+                singletonList(cap),
+                new PeerBlacklist(),
+                new NoOpMetricsSystem(),
+                Optional.empty(),
+                Optional.empty());
+        final P2PNetwork connector =
+            new NettyP2PNetwork(
+                vertx,
+                SECP256K1.KeyPair.generate(),
+                NetworkingConfiguration.create()
+                    .setSupportedProtocols(subProtocol())
+                    .setRlpx(
+                        RlpxConfiguration.create()
+                            .setBindPort(0)
+                            .setWorkerThreads(2)
+                            .setNativeTransportEnabled(true))
+                    .setDiscovery(noDiscovery),
+                singletonList(cap),
+                new PeerBlacklist(),
+                new NoOpMetricsSystem(),
+                Optional.empty(),
+                Optional.empty())) {
+
+      listener.start();
+      connector.start();
+      final EnodeURL listenerEnode = listener.getLocalEnode().get();
+      final BytesValue listenId = listenerEnode.getNodeId();
+      final int listenPort = listenerEnode.getListeningPort();
+
+      assertThat(
+              connector
+                  .connect(
+                      new DefaultPeer(
+                          listenId,
+                          new Endpoint(
+                              InetAddress.getLoopbackAddress().getHostAddress(),
+                              listenPort,
+                              OptionalInt.of(listenPort))))
+                  .get(30L, TimeUnit.SECONDS)
+                  .getPeerInfo()
+                  .getNodeId())
+          .isEqualTo(listenId);
+    }
+  }
+
   @Test
   public void preventMultipleConnections() throws Exception {
 
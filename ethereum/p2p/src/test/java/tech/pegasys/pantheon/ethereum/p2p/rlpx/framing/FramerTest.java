@@ -240,6 +240,45 @@ public class FramerTest {
     assertThatThrownBy(() -> receivingFramer.deframe(out)).isInstanceOf(FramingException.class);
   }
 
+  @Test
+  public void framesOfVaryingSizesRoundTrip() {
+    final HandshakeSecrets secrets =
+        new HandshakeSecrets(
+            BytesValue.fromHexString(
+                    "0x75b3ee95adff0c529a05efd7612aa1dbe5057eb9facdde0dfc837ad143da1d43")
+                .extractArray(),
+            BytesValue.fromHexString(
+                    "0x030dfd1566f4800c4842c177f7d476b64ae2b99a2aa0ab5600aa2f41a8710575")
+                .extractArray(),
+            BytesValue.fromHexString(
+                    "0xc9d3385b1588a5969cba312f8c29bedb4cb9d56ec0cf825436addc1ec644f1d6")
+                .extractArray());
+    final Framer sendingFramer = new Framer(secrets);
+    final Framer receivingFramer = new Framer(secrets);
+
+    final Random random = new Random(1);
+    final ByteBuf out = Unpooled.buffer();
+    for (final boolean compressed : new boolean[] {false, true}) {
+      if (compressed) {
+        sendingFramer.enableCompression();
+        receivingFramer.enableCompression();
+      }
+      // Sizes on both sides of the frame buffers being reused, in either order.
+      for (final int size : new int[] {0, 1, 17, 100_000, 31, 70_000, 5}) {
+        final byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        final MessageData message = new RawMessage(size % 16, BytesValue.wrap(bytes));
+
+        sendingFramer.frame(message, out);
+        final MessageData received = receivingFramer.deframe(out);
+
+        assertThat(received.getCode()).isEqualTo(message.getCode());
+        assertThat(received.getData()).isEqualTo(message.getData());
+        assertThat(out.readableBytes()).isZero();
+      }
+    }
+  }
+
   private HandshakeSecrets secretsFrom(final JsonNode td, final boolean swap) {
     final byte[] aes = decodeHexDump(td.get("aes_secret").asText());
     final byte[] mac = decodeHexDump(td.get("mac_secret").asText());
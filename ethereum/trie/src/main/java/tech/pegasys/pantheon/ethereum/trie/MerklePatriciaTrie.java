@@ -20,6 +20,7 @@ import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /** An Merkle Patricial Trie. */
 public interface MerklePatriciaTrie<K, V> {
@@ -74,4 +75,12 @@ public interface MerklePatriciaTrie<K, V> {
    * @return the requested storage entries as a map of key hash to value.
    */
   Map<Bytes32, V> entriesFrom(Bytes32 startKeyHash, int limit);
+
+  /**
+   * Visits every node in the trie, loading stored nodes as required. Loaded nodes are released once
+   * visited so that walking a large trie does not retain it in memory.
+   *
+   * @param visitor the handler to invoke for each node.
+   */
+  void visitAll(Consumer<Node<V>> visitor);
 }
@@ -55,5 +55,8 @@ public interface Node<V> {
   /** @return True if the node needs to be persisted. */
   boolean isDirty();
 
+  /** Release any cached data that can be reloaded from storage when next accessed. */
+  default void unload() {}
+
   String print();
 }
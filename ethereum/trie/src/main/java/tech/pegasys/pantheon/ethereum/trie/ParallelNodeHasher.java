@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the hash of a node, hashing the dirty subtrees below the upper branch levels in
+ * parallel. Nodes memoize their hashes, so hashing them here leaves nothing but storing for a
+ * following {@link CommitVisitor} walk, and produces exactly the same hashes as hashing serially.
+ *
+ * <p>Only branches with enough dirty subtrees are split up, so that small updates, such as those of
+ * most storage tries, are hashed on the calling thread without handing any work over.
+ */
+class ParallelNodeHasher {
+
+  // Forking below the second level gives up to 256 subtrees, which is plenty to spread over the
+  // available cores without creating tasks for trivially small subtrees.
+  private static final int MAX_PARALLEL_DEPTH = 2;
+  // Fewer dirty subtrees than this are cheaper to hash serially than to hand over to other threads.
+  private static final int MIN_PARALLEL_SUBTREES = 4;
+
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(
+          Runtime.getRuntime().availableProcessors(),
+          pool -> {
+            final ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("TrieHasher-" + thread.getPoolIndex());
+            return thread;
+          },
+          null,
+          false);
+
+  private ParallelNodeHasher() {}
+
+  static <V> Bytes32 hash(final Node<V> node) {
+    if (node.isDirty() && dirtySubtrees(node).size() >= MIN_PARALLEL_SUBTREES) {
+      POOL.invoke(new HashTask<>(node, 0));
+    }
+    return node.getHash();
+  }
+
+  // The dirty children of the branch at the top of the node, which are worth hashing separately.
+  private static <V> List<Node<V>> dirtySubtrees(final Node<V> node) {
+    Node<V> top = node;
+    while (top instanceof ExtensionNode) {
+      top = ((ExtensionNode<V>) top).getChild();
+    }
+    final List<Node<V>> subtrees = new ArrayList<>();
+    if (top instanceof BranchNode && top.isDirty()) {
+      for (byte i = 0; i < BranchNode.RADIX; ++i) {
+        final Node<V> child = ((BranchNode<V>) top).child(i);
+        if (child.isDirty() && (child instanceof BranchNode || child instanceof ExtensionNode)) {
+          subtrees.add(child);
+        }
+      }
+    }
+    return subtrees;
+  }
+
+  private static class HashTask<V> extends RecursiveAction {
+
+    private final Node<V> node;
+    private final int depth;
+
+    private HashTask(final Node<V> node, final int depth) {
+      this.node = node;
+      this.depth = depth;
+    }
+
+    @Override
+    protected void compute() {
+      if (depth < MAX_PARALLEL_DEPTH) {
+        final List<Node<V>> subtrees = dirtySubtrees(node);
+        if (subtrees.size() >= MIN_PARALLEL_SUBTREES) {
+          final List<HashTask<V>> subtasks = new ArrayList<>(subtrees.size());
+          subtrees.forEach(subtree -> subtasks.add(new HashTask<>(subtree, depth + 1)));
+          invokeAll(subtasks);
+        }
+      }
+      // Computes the hash of any dirty nodes below which are still unhashed.
+      node.getRlpRef();
+    }
+  }
+}
@@ -20,6 +20,7 @@ import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -90,6 +91,8 @@ public class StoredMerklePatriciaTrie<K extends BytesValue, V> implements Merkle
 
   @Override
   public void commit(final NodeUpdater nodeUpdater) {
+    // Hash dirty nodes in parallel first so the commit walk only has to store them
+    ParallelNodeHasher.hash(root);
     final CommitVisitor<V> commitVisitor = new CommitVisitor<>(nodeUpdater);
     root.accept(commitVisitor);
     // Make sure root node was stored
@@ -109,9 +112,14 @@ public class StoredMerklePatriciaTrie<K extends BytesValue, V> implements Merkle
     return StorageEntriesCollector.collectEntries(root, startKeyHash, limit);
   }
 
+  @Override
+  public void visitAll(final Consumer<Node<V>> visitor) {
+    root.accept(new AllNodesVisitor<>(visitor));
+  }
+
   @Override
   public Bytes32 getRootHash() {
-    return root.getHash();
+    return ParallelNodeHasher.hash(root);
   }
 
   @Override
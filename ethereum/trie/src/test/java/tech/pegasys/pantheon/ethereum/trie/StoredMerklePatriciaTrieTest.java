@@ -14,11 +14,13 @@ package tech.pegasys.pantheon.ethereum.trie;
 
 import static junit.framework.TestCase.assertFalse;
 import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.crypto.Hash.keccak256;
 
 import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256Bytes;
 
 import java.nio.charset.Charset;
 import java.util.Optional;
@@ -417,4 +419,37 @@ public class StoredMerklePatriciaTrieTest {
 
     newTrie.get(BytesValue.fromHexString("0x0401"));
   }
+
+  @Test
+  public void rootHashOfLargeTrieMatchesSerialHashing() {
+    final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+    final MerkleStorage merkleStorage = new KeyValueMerkleStorage(keyValueStorage);
+    final StoredMerklePatriciaTrie<BytesValue, BytesValue> trie =
+        new StoredMerklePatriciaTrie<>(merkleStorage::get, b -> b, b -> b);
+    final SimpleMerklePatriciaTrie<BytesValue, BytesValue> serialTrie =
+        new SimpleMerklePatriciaTrie<>(b -> b);
+
+    for (int i = 0; i < 5000; i++) {
+      final BytesValue key = keccak256(UInt256Bytes.of(i));
+      trie.put(key, UInt256Bytes.of(i));
+      serialTrie.put(key, UInt256Bytes.of(i));
+    }
+    assertThat(trie.getRootHash()).isEqualTo(serialTrie.getRootHash());
+    trie.commit(merkleStorage::put);
+
+    final StoredMerklePatriciaTrie<BytesValue, BytesValue> storedTrie =
+        new StoredMerklePatriciaTrie<>(merkleStorage::get, trie.getRootHash(), b -> b, b -> b);
+    for (int i = 0; i < 5000; i += 7) {
+      final BytesValue key = keccak256(UInt256Bytes.of(i));
+      storedTrie.put(key, UInt256Bytes.of(i + 1));
+      serialTrie.put(key, UInt256Bytes.of(i + 1));
+    }
+    storedTrie.commit(merkleStorage::put);
+    assertThat(storedTrie.getRootHash()).isEqualTo(serialTrie.getRootHash());
+    assertThat(
+            new StoredMerklePatriciaTrie<BytesValue, BytesValue>(
+                    merkleStorage::get, storedTrie.getRootHash(), b -> b, b -> b)
+                .get(keccak256(UInt256Bytes.of(7))))
+        .contains(UInt256Bytes.of(8));
+  }
 }
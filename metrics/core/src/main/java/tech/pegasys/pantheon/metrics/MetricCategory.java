@@ -18,16 +18,19 @@ import java.util.Set;
 public enum MetricCategory {
   BIG_QUEUE("big_queue"),
   BLOCKCHAIN("blockchain"),
+  EVM("evm"),
   EXECUTORS("executors"),
   JVM("jvm", false),
   NETWORK("network"),
   PEERS("peers"),
   PROCESS("process", false),
+  PRUNER("pruner"),
   KVSTORE_ROCKSDB("rocksdb"),
   KVSTORE_ROCKSDB_STATS("rocksdb", false),
   RPC("rpc"),
   SYNCHRONIZER("synchronizer"),
-  TRANSACTION_POOL("transaction_pool");
+  TRANSACTION_POOL("transaction_pool"),
+  WORLD_STATE("world_state");
 
   // Why not BIG_QUEUE and ROCKSDB?  They hurt performance under load.
   public static final Set<MetricCategory> DEFAULT_METRIC_CATEGORIES =
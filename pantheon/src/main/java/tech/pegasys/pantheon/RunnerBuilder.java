@@ -101,6 +101,8 @@ public class RunnerBuilder {
   private String p2pAdvertisedHost;
   private int p2pListenPort;
   private int maxPeers;
+  private int p2pWorkerThreads = RlpxConfiguration.DEFAULT_WORKER_THREADS;
+  private boolean p2pNativeTransportEnabled = false;
   private JsonRpcConfiguration jsonRpcConfiguration;
   private WebSocketConfiguration webSocketConfiguration;
   private GraphQLRpcConfiguration graphQLRpcConfiguration;
@@ -160,6 +162,16 @@ public class RunnerBuilder {
     return this;
   }
 
+  public RunnerBuilder p2pWorkerThreads(final int p2pWorkerThreads) {
+    this.p2pWorkerThreads = p2pWorkerThreads;
+    return this;
+  }
+
+  public RunnerBuilder p2pNativeTransportEnabled(final boolean p2pNativeTransportEnabled) {
+    this.p2pNativeTransportEnabled = p2pNativeTransportEnabled;
+    return this;
+  }
+
   public RunnerBuilder jsonRpcConfiguration(final JsonRpcConfiguration jsonRpcConfiguration) {
     this.jsonRpcConfiguration = jsonRpcConfiguration;
     return this;
@@ -245,7 +257,12 @@ public class RunnerBuilder {
 
     final NetworkingConfiguration networkConfig =
         new NetworkingConfiguration()
-            .setRlpx(RlpxConfiguration.create().setBindPort(p2pListenPort).setMaxPeers(maxPeers))
+            .setRlpx(
+                RlpxConfiguration.create()
+                    .setBindPort(p2pListenPort)
+                    .setMaxPeers(maxPeers)
+                    .setWorkerThreads(p2pWorkerThreads)
+                    .setNativeTransportEnabled(p2pNativeTransportEnabled))
             .setDiscovery(discoveryConfiguration)
             .setClientId(PantheonInfo.version())
             .setSupportedProtocols(subProtocols);
@@ -324,7 +341,13 @@ public class RunnerBuilder {
                 });
 
     final PrivacyParameters privacyParameters = pantheonController.getPrivacyParameters();
-    final FilterManager filterManager = createFilterManager(vertx, context, transactionPool);
+    final BlockchainQueries blockchainQueries =
+        new BlockchainQueries(
+            context.getBlockchain(),
+            context.getWorldStateArchive(),
+            pantheonController.getLogIndex());
+    final FilterManager filterManager =
+        createFilterManager(vertx, blockchainQueries, transactionPool);
 
     final P2PNetwork peerNetwork = networkRunner.getNetwork();
 
@@ -341,7 +364,7 @@ public class RunnerBuilder {
     if (jsonRpcConfiguration.isEnabled()) {
       final Map<String, JsonRpcMethod> jsonRpcMethods =
           jsonRpcMethods(
-              context,
+              blockchainQueries,
               protocolSchedule,
               pantheonController,
               peerNetwork,
@@ -368,7 +391,7 @@ public class RunnerBuilder {
     if (webSocketConfiguration.isEnabled()) {
       final Map<String, JsonRpcMethod> webSocketsJsonRpcMethods =
           jsonRpcMethods(
-              context,
+              blockchainQueries,
               protocolSchedule,
               pantheonController,
               peerNetwork,
@@ -467,10 +490,12 @@ public class RunnerBuilder {
   }
 
   private FilterManager createFilterManager(
-      final Vertx vertx, final ProtocolContext<?> context, final TransactionPool transactionPool) {
+      final Vertx vertx,
+      final BlockchainQueries blockchainQueries,
+      final TransactionPool transactionPool) {
     final FilterManager filterManager =
         new FilterManager(
-            new BlockchainQueries(context.getBlockchain(), context.getWorldStateArchive()),
+            blockchainQueries,
             transactionPool,
             new FilterIdGenerator(),
             new FilterRepository());
@@ -479,7 +504,7 @@ public class RunnerBuilder {
   }
 
   private Map<String, JsonRpcMethod> jsonRpcMethods(
-      final ProtocolContext<?> context,
+      final BlockchainQueries blockchainQueries,
       final ProtocolSchedule<?> protocolSchedule,
       final PantheonController<?> pantheonController,
       final P2PNetwork network,
@@ -503,18 +528,17 @@ public class RunnerBuilder {
                 ethNetworkConfig.getNetworkId(),
                 pantheonController.getGenesisConfigOptions(),
                 network,
-                context.getBlockchain(),
-                context.getWorldStateArchive(),
+                blockchainQueries,
                 synchronizer,
-                transactionPool,
                 protocolSchedule,
+                filterManager,
+                transactionPool,
                 miningCoordinator,
                 metricsSystem,
                 supportedCapabilities,
-                jsonRpcApis,
-                filterManager,
                 accountWhitelistController,
                 nodeWhitelistController,
+                jsonRpcApis,
                 privacyParameters,
                 jsonRpcConfiguration,
                 webSocketConfiguration,
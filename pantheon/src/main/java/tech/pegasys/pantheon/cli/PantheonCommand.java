@@ -41,6 +41,8 @@ import tech.pegasys.pantheon.cli.rlp.RLPSubCommand;
 import tech.pegasys.pantheon.config.GenesisConfigFile;
 import tech.pegasys.pantheon.controller.KeyPairUtil;
 import tech.pegasys.pantheon.controller.PantheonController;
+import tech.pegasys.pantheon.crypto.SignatureRecoveryService;
+import tech.pegasys.pantheon.ethereum.chain.CachingBlockchainStorage;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.MiningParameters;
 import tech.pegasys.pantheon.ethereum.core.PrivacyParameters;
@@ -55,11 +57,15 @@ import tech.pegasys.pantheon.ethereum.jsonrpc.JsonRpcConfiguration;
 import tech.pegasys.pantheon.ethereum.jsonrpc.RpcApi;
 import tech.pegasys.pantheon.ethereum.jsonrpc.RpcApis;
 import tech.pegasys.pantheon.ethereum.jsonrpc.websocket.WebSocketConfiguration;
+import tech.pegasys.pantheon.ethereum.mainnet.ParallelTransactionExecutor;
+import tech.pegasys.pantheon.ethereum.p2p.config.RlpxConfiguration;
 import tech.pegasys.pantheon.ethereum.p2p.peers.StaticNodesParser;
 import tech.pegasys.pantheon.ethereum.permissioning.LocalPermissioningConfiguration;
 import tech.pegasys.pantheon.ethereum.permissioning.PermissioningConfiguration;
 import tech.pegasys.pantheon.ethereum.permissioning.PermissioningConfigurationBuilder;
 import tech.pegasys.pantheon.ethereum.permissioning.SmartContractPermissioningConfiguration;
+import tech.pegasys.pantheon.ethereum.worldstate.CachingWorldStateStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
 import tech.pegasys.pantheon.metrics.MetricCategory;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.metrics.prometheus.MetricsConfiguration;
@@ -296,6 +302,26 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
           "Require authentication for the JSON-RPC HTTP service (default: ${DEFAULT-VALUE})")
   private final Boolean isRpcHttpAuthenticationEnabled = false;
 
+  @Option(
+      names = {"--rpc-http-batch-worker-pool-size"},
+      hidden = true,
+      paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+      description =
+          "Number of threads executing the requests of JSON-RPC HTTP batches (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Integer rpcHttpBatchWorkerPoolSize =
+      JsonRpcConfiguration.DEFAULT_BATCH_WORKER_POOL_SIZE;
+
+  @Option(
+      names = {"--rpc-http-max-batch-concurrency"},
+      hidden = true,
+      paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+      description =
+          "Maximum number of requests of a single JSON-RPC HTTP batch executed concurrently (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Integer rpcHttpMaxBatchConcurrency =
+      JsonRpcConfiguration.DEFAULT_MAX_BATCH_CONCURRENCY;
+
   @Option(
       names = {"--rpc-ws-enabled"},
       description = "Set to start the JSON-RPC WebSocket service (default: ${DEFAULT-VALUE})")
@@ -528,6 +554,96 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
       arity = "1")
   private final Integer txPoolMaxSize = PendingTransactions.MAX_PENDING_TRANSACTIONS;
 
+  @Option(
+      names = {"--tx-pool-max-bytes"},
+      hidden = true,
+      paramLabel = MANDATORY_LONG_FORMAT_HELP,
+      description =
+          "Maximum total size in bytes of the encoded pending transactions kept in the transaction pool (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Long txPoolMaxBytes = PendingTransactions.MAX_PENDING_TRANSACTIONS_BYTES;
+
+  @Option(
+      names = {"--pruning-enabled"},
+      hidden = true,
+      description =
+          "Enable pruning of world state of blocks older than the retention period (default: ${DEFAULT-VALUE})")
+  private final Boolean isPruningEnabled = false;
+
+  @Option(
+      names = {"--pruning-blocks-retained"},
+      hidden = true,
+      paramLabel = "<LONG>",
+      description =
+          "Minimum number of recent blocks for which to keep entire world state (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Long pruningBlocksRetained = PrunerConfiguration.DEFAULT_PRUNING_BLOCKS_RETAINED;
+
+  @Option(
+      names = {"--pruning-block-confirmations"},
+      hidden = true,
+      paramLabel = "<LONG>",
+      description =
+          "Minimum number of confirmations on a block before marking begins (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Long pruningBlockConfirmations =
+      PrunerConfiguration.DEFAULT_PRUNING_BLOCK_CONFIRMATIONS;
+
+  @Option(
+      names = {"--log-index-enabled"},
+      hidden = true,
+      description =
+          "Enable indexing of block logs blooms to speed up log queries over large block ranges (default: ${DEFAULT-VALUE})")
+  private final Boolean isLogIndexEnabled = false;
+
+  @Option(
+      names = {"--sender-recovery-threads"},
+      hidden = true,
+      paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+      description =
+          "Number of threads recovering transaction senders from their signatures, in addition to the thread requesting them (default: ${DEFAULT-VALUE})")
+  private final Integer senderRecoveryThreads = SignatureRecoveryService.DEFAULT_WORKER_THREADS;
+
+  @Option(
+      names = {"--parallel-transaction-threads"},
+      hidden = true,
+      paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+      description =
+          "Number of threads executing the transactions of a block in parallel, in addition to the block processing thread, or 0 to execute them one after the other (default: ${DEFAULT-VALUE})")
+  private final Integer parallelTransactionThreads =
+      ParallelTransactionExecutor.DEFAULT_WORKER_THREADS;
+
+  @Option(
+      names = {"--blockchain-cache-size"},
+      hidden = true,
+      paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+      description =
+          "Number of recent blocks whose decoded data is kept in memory, or 0 to always read blocks from storage (default: ${DEFAULT-VALUE})")
+  private final Integer blockchainCacheSize = CachingBlockchainStorage.DEFAULT_CACHE_SIZE;
+
+  @Option(
+      names = {"--world-state-cache-size"},
+      hidden = true,
+      paramLabel = MANDATORY_LONG_FORMAT_HELP,
+      description =
+          "Maximum number of bytes of world state trie nodes kept in memory, or 0 to always read nodes from storage (default: ${DEFAULT-VALUE})")
+  private final Long worldStateCacheSizeBytes = CachingWorldStateStorage.DEFAULT_CACHE_SIZE_BYTES;
+
+  @Option(
+      names = {"--p2p-worker-threads"},
+      hidden = true,
+      paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+      description =
+          "Number of event loop threads handling the P2P connections with peers (default: ${DEFAULT-VALUE})")
+  private final Integer p2pWorkerThreads = RlpxConfiguration.DEFAULT_WORKER_THREADS;
+
+  @Option(
+      names = {"--p2p-native-transport-enabled"},
+      hidden = true,
+      description =
+          "Use the native transport (epoll on Linux) for P2P connections where available (default: ${DEFAULT-VALUE})")
+  private final Boolean isP2pNativeTransportEnabled = false;
+
   // Inner class so we can get to loggingLevel.
   public class PantheonExceptionHandler
       extends CommandLine.AbstractHandler<List<Object>, PantheonExceptionHandler>
@@ -664,6 +780,13 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
         !isMiningEnabled,
         asList("--miner-coinbase", "--min-gas-price", "--miner-extra-data"));
 
+    checkOptionDependencies(
+        logger,
+        commandLine,
+        "--pruning-enabled",
+        !isPruningEnabled,
+        asList("--pruning-block-confirmations", "--pruning-blocks-retained"));
+
     checkOptionDependencies(
         logger,
         commandLine,
@@ -748,6 +871,14 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
           .miningParameters(
               new MiningParameters(coinbase, minTransactionGasPrice, extraData, isMiningEnabled))
           .maxPendingTransactions(txPoolMaxSize)
+          .maxPendingTransactionsBytes(txPoolMaxBytes)
+          .isPruningEnabled(isPruningEnabled)
+          .pruningConfiguration(buildPruningConfiguration())
+          .isLogIndexEnabled(isLogIndexEnabled)
+          .senderRecoveryThreads(senderRecoveryThreads)
+          .parallelTransactionThreads(parallelTransactionThreads)
+          .blockchainCacheSize(blockchainCacheSize)
+          .worldStateCacheSizeBytes(worldStateCacheSizeBytes)
           .nodePrivateKeyFile(nodePrivateKeyFile())
           .metricsSystem(metricsSystem.get())
           .privacyParameters(privacyParameters())
@@ -774,7 +905,9 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
             "--rpc-http-host",
             "--rpc-http-port",
             "--rpc-http-authentication-enabled",
-            "--rpc-http-authentication-credentials-file"));
+            "--rpc-http-authentication-credentials-file",
+            "--rpc-http-batch-worker-pool-size",
+            "--rpc-http-max-batch-concurrency"));
 
     if (isRpcHttpAuthenticationEnabled && rpcHttpAuthenticationCredentialsFile() == null) {
       throw new ParameterException(
@@ -791,6 +924,8 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
     jsonRpcConfiguration.setHostsWhitelist(hostsWhitelist);
     jsonRpcConfiguration.setAuthenticationEnabled(isRpcHttpAuthenticationEnabled);
     jsonRpcConfiguration.setAuthenticationCredentialsFile(rpcHttpAuthenticationCredentialsFile());
+    jsonRpcConfiguration.setBatchWorkerPoolSize(rpcHttpBatchWorkerPoolSize);
+    jsonRpcConfiguration.setMaxBatchConcurrency(rpcHttpMaxBatchConcurrency);
     return jsonRpcConfiguration;
   }
 
@@ -1014,6 +1149,10 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
         .build();
   }
 
+  private PrunerConfiguration buildPruningConfiguration() {
+    return new PrunerConfiguration(pruningBlockConfirmations, pruningBlocksRetained);
+  }
+
   private RocksDbConfiguration buildRocksDbConfiguration() {
     return rocksDbConfigurationBuilder.databaseDir(dataDir().resolve(DATABASE_PATH)).build();
   }
@@ -1049,6 +1188,8 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
             .p2pAdvertisedHost(p2pAdvertisedHost)
             .p2pListenPort(p2pListenPort)
             .maxPeers(maxPeers)
+            .p2pWorkerThreads(p2pWorkerThreads)
+            .p2pNativeTransportEnabled(isP2pNativeTransportEnabled)
             .jsonRpcConfiguration(jsonRpcConfiguration)
             .webSocketConfiguration(webSocketConfiguration)
             .graphQLRpcConfiguration(graphQLRpcConfiguration)
@@ -24,15 +24,18 @@ import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPool;
 import tech.pegasys.pantheon.ethereum.jsonrpc.RpcApi;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.JsonRpcMethod;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.JsonRpcMethodFactory;
+import tech.pegasys.pantheon.ethereum.logindex.LogIndex;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.p2p.config.SubProtocolConfiguration;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 
 public class PantheonController<C> implements java.io.Closeable {
 
   public static final String DATABASE_PATH = "database";
+  public static final String PRUNING_DATABASE_PATH = "pruning";
   private final ProtocolSchedule<C> protocolSchedule;
   private final ProtocolContext<C> protocolContext;
   private final GenesisConfigOptions genesisConfigOptions;
@@ -44,6 +47,7 @@ public class PantheonController<C> implements java.io.Closeable {
   private final TransactionPool transactionPool;
   private final MiningCoordinator miningCoordinator;
   private final PrivacyParameters privacyParameters;
+  private final Optional<LogIndex> logIndex;
   private final Runnable close;
 
   PantheonController(
@@ -57,6 +61,7 @@ public class PantheonController<C> implements java.io.Closeable {
       final TransactionPool transactionPool,
       final MiningCoordinator miningCoordinator,
       final PrivacyParameters privacyParameters,
+      final Optional<LogIndex> logIndex,
       final Runnable close) {
     this.protocolSchedule = protocolSchedule;
     this.protocolContext = protocolContext;
@@ -68,6 +73,7 @@ public class PantheonController<C> implements java.io.Closeable {
     this.transactionPool = transactionPool;
     this.miningCoordinator = miningCoordinator;
     this.privacyParameters = privacyParameters;
+    this.logIndex = logIndex;
     this.close = close;
   }
 
@@ -112,6 +118,10 @@ public class PantheonController<C> implements java.io.Closeable {
     return privacyParameters;
   }
 
+  public Optional<LogIndex> getLogIndex() {
+    return logIndex;
+  }
+
   public Map<String, JsonRpcMethod> getAdditionalJsonRpcMethods(
       final Collection<RpcApi> enabledRpcApis) {
     return additionalJsonRpcMethodsFactory.createJsonRpcMethods(enabledRpcApis);
@@ -18,14 +18,18 @@ import static tech.pegasys.pantheon.controller.KeyPairUtil.loadKeyPair;
 
 import tech.pegasys.pantheon.config.GenesisConfigFile;
 import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.crypto.SignatureRecoveryService;
 import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.blockcreation.MiningCoordinator;
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.chain.CachingBlockchainStorage;
 import tech.pegasys.pantheon.ethereum.chain.GenesisState;
 import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.MiningParameters;
 import tech.pegasys.pantheon.ethereum.core.PrivacyParameters;
 import tech.pegasys.pantheon.ethereum.core.Synchronizer;
+import tech.pegasys.pantheon.ethereum.core.TransactionSenderRecovery;
 import tech.pegasys.pantheon.ethereum.eth.EthProtocol;
 import tech.pegasys.pantheon.ethereum.eth.EthereumWireProtocolConfiguration;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
@@ -36,26 +40,42 @@ import tech.pegasys.pantheon.ethereum.eth.sync.DefaultSynchronizer;
 import tech.pegasys.pantheon.ethereum.eth.sync.SyncMode;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
+import tech.pegasys.pantheon.ethereum.eth.transactions.PendingTransactions;
 import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPool;
 import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolFactory;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.JsonRpcMethodFactory;
+import tech.pegasys.pantheon.ethereum.logindex.LogIndex;
+import tech.pegasys.pantheon.ethereum.mainnet.ParallelTransactionExecutor;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.p2p.config.SubProtocolConfiguration;
 import tech.pegasys.pantheon.ethereum.storage.StorageProvider;
 import tech.pegasys.pantheon.ethereum.storage.keyvalue.RocksDbStorageProvider;
+import tech.pegasys.pantheon.ethereum.worldstate.CachingWorldStateStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.FlatStateManager;
+import tech.pegasys.pantheon.ethereum.worldstate.MarkSweepPruner;
+import tech.pegasys.pantheon.ethereum.worldstate.Pruner;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateArchive;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
+import tech.pegasys.pantheon.services.kvstore.RocksDbKeyValueStorage;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.Executors;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -72,7 +92,15 @@ public abstract class PantheonControllerBuilder<C> {
   protected Path dataDirectory;
   protected Clock clock;
   protected Integer maxPendingTransactions;
+  protected long maxPendingTransactionsBytes = PendingTransactions.MAX_PENDING_TRANSACTIONS_BYTES;
   protected KeyPair nodeKeys;
+  protected boolean isPruningEnabled;
+  protected PrunerConfiguration pruningConfiguration = PrunerConfiguration.getDefault();
+  protected boolean isLogIndexEnabled;
+  protected int senderRecoveryThreads = SignatureRecoveryService.DEFAULT_WORKER_THREADS;
+  protected int parallelTransactionThreads = ParallelTransactionExecutor.DEFAULT_WORKER_THREADS;
+  protected int blockchainCacheSize = CachingBlockchainStorage.DEFAULT_CACHE_SIZE;
+  protected long worldStateCacheSizeBytes = CachingWorldStateStorage.DEFAULT_CACHE_SIZE_BYTES;
   private StorageProvider storageProvider;
   private final List<Runnable> shutdownActions = new ArrayList<>();
   private RocksDbConfiguration rocksdDbConfiguration;
@@ -151,6 +179,50 @@ public abstract class PantheonControllerBuilder<C> {
     return this;
   }
 
+  public PantheonControllerBuilder<C> maxPendingTransactionsBytes(
+      final long maxPendingTransactionsBytes) {
+    this.maxPendingTransactionsBytes = maxPendingTransactionsBytes;
+    return this;
+  }
+
+  public PantheonControllerBuilder<C> isPruningEnabled(final boolean pruningEnabled) {
+    this.isPruningEnabled = pruningEnabled;
+    return this;
+  }
+
+  public PantheonControllerBuilder<C> pruningConfiguration(
+      final PrunerConfiguration pruningConfiguration) {
+    this.pruningConfiguration = pruningConfiguration;
+    return this;
+  }
+
+  public PantheonControllerBuilder<C> isLogIndexEnabled(final boolean logIndexEnabled) {
+    this.isLogIndexEnabled = logIndexEnabled;
+    return this;
+  }
+
+  public PantheonControllerBuilder<C> senderRecoveryThreads(final int senderRecoveryThreads) {
+    this.senderRecoveryThreads = senderRecoveryThreads;
+    return this;
+  }
+
+  public PantheonControllerBuilder<C> parallelTransactionThreads(
+      final int parallelTransactionThreads) {
+    this.parallelTransactionThreads = parallelTransactionThreads;
+    return this;
+  }
+
+  public PantheonControllerBuilder<C> blockchainCacheSize(final int blockchainCacheSize) {
+    this.blockchainCacheSize = blockchainCacheSize;
+    return this;
+  }
+
+  public PantheonControllerBuilder<C> worldStateCacheSizeBytes(
+      final long worldStateCacheSizeBytes) {
+    this.worldStateCacheSizeBytes = worldStateCacheSizeBytes;
+    return this;
+  }
+
   public PantheonController<C> build() throws IOException {
     checkNotNull(genesisConfig, "Missing genesis config");
     checkNotNull(syncConfig, "Missing sync config");
@@ -178,16 +250,44 @@ public abstract class PantheonControllerBuilder<C> {
     prepForBuild();
 
     final ProtocolSchedule<C> protocolSchedule = createProtocolSchedule();
+    // Every milestone of the schedule shares the same code cache
+    protocolSchedule
+        .getByBlockNumber(BlockHeader.GENESIS_BLOCK_NUMBER)
+        .getEvm()
+        .getCodeCache()
+        .registerMetrics(metricsSystem);
     final GenesisState genesisState = GenesisState.fromConfig(genesisConfig, protocolSchedule);
+    final SignatureRecoveryService signatureRecoveryService =
+        SignatureRecoveryService.create(senderRecoveryThreads);
+    addShutdownAction(signatureRecoveryService::close);
+    final ParallelTransactionExecutor parallelTransactionExecutor =
+        createParallelTransactionExecutor();
+    addShutdownAction(parallelTransactionExecutor::close);
     final ProtocolContext<C> protocolContext =
         ProtocolContext.init(
             storageProvider,
             genesisState,
             protocolSchedule,
             metricsSystem,
+            blockchainCacheSize,
+            worldStateCacheSizeBytes,
+            new TransactionSenderRecovery(
+                signatureRecoveryService, TransactionSenderRecovery.DEFAULT_CACHE_SIZE),
+            parallelTransactionExecutor,
             this::createConsensusContext);
     final MutableBlockchain blockchain = protocolContext.getBlockchain();
 
+    final Optional<Pruner> maybePruner = createPruner(protocolContext);
+    maybePruner.ifPresent(Pruner::start);
+
+    final FlatStateManager flatStateManager = createFlatStateManager(protocolContext);
+    flatStateManager.start();
+    addShutdownAction(() -> stopFlatStateManager(flatStateManager));
+
+    final Optional<LogIndex> maybeLogIndex = createLogIndex(blockchain);
+    maybeLogIndex.ifPresent(LogIndex::start);
+    addShutdownAction(() -> maybeLogIndex.ifPresent(this::stopLogIndex));
+
     final boolean fastSyncEnabled = syncConfig.syncMode().equals(SyncMode.FAST);
     final EthProtocolManager ethProtocolManager =
         createEthProtocolManager(protocolContext, fastSyncEnabled);
@@ -222,6 +322,7 @@ public abstract class PantheonControllerBuilder<C> {
             ethProtocolManager.ethContext(),
             clock,
             maxPendingTransactions,
+            maxPendingTransactionsBytes,
             metricsSystem,
             syncState);
 
@@ -250,6 +351,7 @@ public abstract class PantheonControllerBuilder<C> {
         transactionPool,
         miningCoordinator,
         privacyParameters,
+        maybeLogIndex,
         () -> {
           shutdownActions.forEach(Runnable::run);
           try {
@@ -263,6 +365,127 @@ public abstract class PantheonControllerBuilder<C> {
         });
   }
 
+  private ParallelTransactionExecutor createParallelTransactionExecutor() {
+    if (parallelTransactionThreads > 0 && privacyParameters.isEnabled()) {
+      // The privacy precompile persists private state as it executes, which can't be undone if a
+      // parallel execution of the transaction calling it is discarded.
+      LOG.warn("Parallel transaction execution is not supported with privacy enabled");
+      return ParallelTransactionExecutor.disabled();
+    }
+    return ParallelTransactionExecutor.create(parallelTransactionThreads, metricsSystem);
+  }
+
+  private Optional<Pruner> createPruner(final ProtocolContext<C> protocolContext)
+      throws IOException {
+    if (!isPruningEnabled) {
+      return Optional.empty();
+    }
+    final KeyValueStorage markStorage = createMarkStorage();
+    final MarkSweepPruner markSweepPruner =
+        new MarkSweepPruner(
+            protocolContext.getWorldStateArchive().getStorage(), markStorage, metricsSystem);
+    final Pruner pruner =
+        new Pruner(
+            markSweepPruner,
+            protocolContext.getBlockchain(),
+            Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setPriority(Thread.MIN_PRIORITY)
+                    .setNameFormat("StatePruning-%d")
+                    .build()),
+            pruningConfiguration);
+    addShutdownAction(
+        () -> {
+          stopPruner(pruner);
+          closeMarkStorage(markStorage);
+        });
+    return Optional.of(pruner);
+  }
+
+  private KeyValueStorage createMarkStorage() throws IOException {
+    if (rocksdDbConfiguration == null) {
+      // A storage provider supplied directly keeps its state in memory, so the marks can be too.
+      return new InMemoryKeyValueStorage();
+    }
+    // The mark set grows with the size of the state so is kept on disk, in its own database as the
+    // main database may predate column families and the marks are cleared by removing every key.
+    final Path markDatabaseDir = dataDirectory.resolve(PantheonController.PRUNING_DATABASE_PATH);
+    Files.createDirectories(markDatabaseDir);
+    return RocksDbKeyValueStorage.create(
+        new RocksDbConfiguration(
+            markDatabaseDir,
+            rocksdDbConfiguration.getMaxOpenFiles(),
+            rocksdDbConfiguration.getMaxBackgroundCompactions(),
+            rocksdDbConfiguration.getBackgroundThreadCount(),
+            rocksdDbConfiguration.getCache(),
+            "pruning",
+            rocksdDbConfiguration.isWriteBatchesEnabled(),
+            rocksdDbConfiguration.isWriteAheadLogDisabled()),
+        // The main database already registers the RocksDB metrics.
+        new NoOpMetricsSystem());
+  }
+
+  private void stopPruner(final Pruner pruner) {
+    try {
+      pruner.stop();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void closeMarkStorage(final KeyValueStorage markStorage) {
+    try {
+      markStorage.close();
+    } catch (final IOException e) {
+      LOG.error("Failed to close pruning mark storage", e);
+    }
+  }
+
+  private FlatStateManager createFlatStateManager(final ProtocolContext<C> protocolContext) {
+    return new FlatStateManager(
+        protocolContext.getWorldStateArchive().getStorage(),
+        protocolContext.getBlockchain(),
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setPriority(Thread.MIN_PRIORITY)
+                .setNameFormat("FlatStateGeneration-%d")
+                .build()));
+  }
+
+  private void stopFlatStateManager(final FlatStateManager flatStateManager) {
+    try {
+      flatStateManager.stop();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Optional<LogIndex> createLogIndex(final MutableBlockchain blockchain) {
+    if (!isLogIndexEnabled) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        new LogIndex(
+            blockchain,
+            storageProvider.createLogIndexStorage(),
+            Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setPriority(Thread.MIN_PRIORITY)
+                    .setNameFormat("LogIndex-%d")
+                    .build())));
+  }
+
+  private void stopLogIndex(final LogIndex logIndex) {
+    try {
+      logIndex.stop();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   protected void prepForBuild() {}
 
   protected JsonRpcMethodFactory createAdditionalJsonRpcMethodFactory(
@@ -47,6 +47,7 @@ import tech.pegasys.pantheon.ethereum.jsonrpc.websocket.WebSocketConfiguration;
 import tech.pegasys.pantheon.ethereum.permissioning.LocalPermissioningConfiguration;
 import tech.pegasys.pantheon.ethereum.permissioning.PermissioningConfiguration;
 import tech.pegasys.pantheon.ethereum.permissioning.SmartContractPermissioningConfiguration;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
 import tech.pegasys.pantheon.metrics.MetricCategory;
 import tech.pegasys.pantheon.metrics.prometheus.MetricsConfiguration;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
@@ -1218,6 +1219,127 @@ public class PantheonCommandTest extends CommandTestAbstract {
     assertThat(commandErrorOutput.toString()).isEmpty();
   }
 
+  @Test
+  public void pruningOptionsRequiresPruningToBeEnabled() {
+    parseCommand("--pruning-blocks-retained", "2048", "--pruning-block-confirmations", "20");
+
+    verifyOptionsConstraintLoggerCall(
+        "--pruning-enabled", "--pruning-block-confirmations", "--pruning-blocks-retained");
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void pruningParametersAreCaptured() throws Exception {
+    parseCommand(
+        "--pruning-enabled",
+        "--pruning-blocks-retained",
+        "2048",
+        "--pruning-block-confirmations",
+        "20");
+
+    final ArgumentCaptor<PrunerConfiguration> pruningArg =
+        ArgumentCaptor.forClass(PrunerConfiguration.class);
+
+    verify(mockControllerBuilder).isPruningEnabled(eq(true));
+    verify(mockControllerBuilder).pruningConfiguration(pruningArg.capture());
+    verify(mockControllerBuilder).build();
+
+    assertThat(pruningArg.getValue().getBlocksRetained()).isEqualTo(2048);
+    assertThat(pruningArg.getValue().getBlockConfirmations()).isEqualTo(20);
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void logIndexOptionMustBePassedToControllerBuilder() throws Exception {
+    parseCommand("--log-index-enabled");
+
+    verify(mockControllerBuilder).isLogIndexEnabled(eq(true));
+    verify(mockControllerBuilder).build();
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void senderRecoveryThreadsOptionMustBePassedToControllerBuilder() throws Exception {
+    parseCommand("--sender-recovery-threads", "3");
+
+    verify(mockControllerBuilder).senderRecoveryThreads(eq(3));
+    verify(mockControllerBuilder).build();
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void parallelTransactionThreadsOptionMustBePassedToControllerBuilder() throws Exception {
+    parseCommand("--parallel-transaction-threads", "4");
+
+    verify(mockControllerBuilder).parallelTransactionThreads(eq(4));
+    verify(mockControllerBuilder).build();
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void blockchainCacheSizeOptionMustBePassedToControllerBuilder() throws Exception {
+    parseCommand("--blockchain-cache-size", "64");
+
+    verify(mockControllerBuilder).blockchainCacheSize(eq(64));
+    verify(mockControllerBuilder).build();
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void worldStateCacheSizeOptionMustBePassedToControllerBuilder() throws Exception {
+    parseCommand("--world-state-cache-size", "1048576");
+
+    verify(mockControllerBuilder).worldStateCacheSizeBytes(eq(1048576L));
+    verify(mockControllerBuilder).build();
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void p2pWorkerThreadsOptionMustBePassedToRunnerBuilder() throws Exception {
+    parseCommand("--p2p-worker-threads", "8");
+
+    verify(mockRunnerBuilder).p2pWorkerThreads(eq(8));
+    verify(mockRunnerBuilder).build();
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void p2pNativeTransportEnabledOptionMustBePassedToRunnerBuilder() throws Exception {
+    parseCommand("--p2p-native-transport-enabled");
+
+    verify(mockRunnerBuilder).p2pNativeTransportEnabled(eq(true));
+    verify(mockRunnerBuilder).build();
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void txPoolMaxBytesOptionMustBePassedToControllerBuilder() throws Exception {
+    parseCommand("--tx-pool-max-bytes", "1048576");
+
+    verify(mockControllerBuilder).maxPendingTransactionsBytes(eq(1048576L));
+    verify(mockControllerBuilder).build();
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
   @Test
   public void rpcHttpOptionsRequiresServiceToBeEnabled() {
     parseCommand(
@@ -1281,6 +1403,25 @@ public class PantheonCommandTest extends CommandTestAbstract {
     assertThat(commandErrorOutput.toString()).isEmpty();
   }
 
+  @Test
+  public void rpcHttpBatchOptionsMustBeUsed() {
+    parseCommand(
+        "--rpc-http-enabled",
+        "--rpc-http-batch-worker-pool-size",
+        "32",
+        "--rpc-http-max-batch-concurrency",
+        "12");
+
+    verify(mockRunnerBuilder).jsonRpcConfiguration(jsonRpcConfigArgumentCaptor.capture());
+    verify(mockRunnerBuilder).build();
+
+    assertThat(jsonRpcConfigArgumentCaptor.getValue().getBatchWorkerPoolSize()).isEqualTo(32);
+    assertThat(jsonRpcConfigArgumentCaptor.getValue().getMaxBatchConcurrency()).isEqualTo(12);
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
   @Test
   public void rpcHttpHostMayBeLocalhost() {
 
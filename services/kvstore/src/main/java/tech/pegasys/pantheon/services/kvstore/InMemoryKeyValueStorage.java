@@ -14,14 +14,19 @@ package tech.pegasys.pantheon.services.kvstore;
 
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class InMemoryKeyValueStorage implements KeyValueStorage {
 
@@ -39,11 +44,62 @@ public class InMemoryKeyValueStorage implements KeyValueStorage {
     }
   }
 
+  @Override
+  public List<Optional<BytesValue>> getAll(final List<BytesValue> keys) {
+    final Lock lock = rwLock.readLock();
+    lock.lock();
+    try {
+      final List<Optional<BytesValue>> values = new ArrayList<>(keys.size());
+      keys.forEach(key -> values.add(Optional.ofNullable(hashValueStore.get(key))));
+      return values;
+    } finally {
+      lock.unlock();
+    }
+  }
+
   @Override
   public Transaction startTransaction() {
     return new InMemoryTransaction();
   }
 
+  @Override
+  public Stream<Entry> entries() {
+    return entriesMatching(key -> true).stream();
+  }
+
+  @Override
+  public Stream<Entry> entries(final BytesValue startKey, final BytesValue endKey) {
+    return sorted(
+        entriesMatching(key -> key.compareTo(startKey) >= 0 && key.compareTo(endKey) < 0));
+  }
+
+  @Override
+  public Stream<Entry> entriesWithPrefix(final BytesValue prefix) {
+    return sorted(entriesMatching(key -> key.commonPrefixLength(prefix) == prefix.size()));
+  }
+
+  private List<Entry> entriesMatching(final Predicate<BytesValue> keyFilter) {
+    final Lock lock = rwLock.readLock();
+    lock.lock();
+    try {
+      final List<Entry> entries = new ArrayList<>();
+      hashValueStore.forEach(
+          (key, value) -> {
+            if (keyFilter.test(key)) {
+              entries.add(Entry.create(key, value));
+            }
+          });
+      return entries;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static Stream<Entry> sorted(final List<Entry> entries) {
+    entries.sort(Comparator.comparing(Entry::getKey));
+    return entries.stream();
+  }
+
   @Override
   public void close() {}
 
@@ -17,8 +17,10 @@ import static com.google.common.base.Preconditions.checkState;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.io.Closeable;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /** Service provided by pantheon to facilitate persistent data storage. */
 public interface KeyValueStorage extends Closeable {
@@ -29,6 +31,15 @@ public interface KeyValueStorage extends Closeable {
    */
   Optional<BytesValue> get(BytesValue key) throws StorageException;
 
+  /**
+   * Gets the values of several keys at once, which for some implementations is considerably cheaper
+   * than getting each key individually.
+   *
+   * @param keys Indexes into persistent data repository.
+   * @return The value persisted at each key index, in the same order as the keys.
+   */
+  List<Optional<BytesValue>> getAll(List<BytesValue> keys) throws StorageException;
+
   /**
    * Begins a transaction. Returns a transaction object that can be updated and committed.
    *
@@ -36,6 +47,36 @@ public interface KeyValueStorage extends Closeable {
    */
   Transaction startTransaction() throws StorageException;
 
+  /**
+   * Streams every entry currently held in storage. Entries added or removed while the stream is
+   * being consumed may or may not be included. The returned stream holds native resources for some
+   * implementations and must be closed once consumed.
+   *
+   * @return A stream of all entries in storage.
+   */
+  Stream<Entry> entries() throws StorageException;
+
+  /**
+   * Streams the entries with keys from {@code startKey} (inclusive) up to {@code endKey}
+   * (exclusive), in ascending order of their keys compared as unsigned bytes. The returned stream
+   * holds native resources for some implementations and must be closed once consumed.
+   *
+   * @param startKey The first key of the range.
+   * @param endKey The key after the end of the range.
+   * @return A stream of the entries in the range.
+   */
+  Stream<Entry> entries(BytesValue startKey, BytesValue endKey) throws StorageException;
+
+  /**
+   * Streams the entries with keys starting with {@code prefix}, in ascending order of their keys
+   * compared as unsigned bytes. The returned stream holds native resources for some implementations
+   * and must be closed once consumed.
+   *
+   * @param prefix The prefix shared by all returned keys.
+   * @return A stream of the entries with the prefix.
+   */
+  Stream<Entry> entriesWithPrefix(BytesValue prefix) throws StorageException;
+
   class Entry {
     private final BytesValue key;
     private final BytesValue value;
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+import java.nio.charset.StandardCharsets;
+
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.Filter;
+
+/** A RocksDB column family, tuned for the way the data stored in it is accessed. */
+public class RocksDbColumnFamily {
+
+  private static final int BLOOM_FILTER_BITS_PER_KEY = 10;
+  private static final long APPEND_MOSTLY_BLOCK_SIZE = 32L * 1024;
+  private static final long APPEND_MOSTLY_TARGET_FILE_SIZE = 256L * 1024 * 1024;
+  private static final long APPEND_MOSTLY_MAX_BYTES_FOR_LEVEL_BASE = 1024L * 1024 * 1024;
+
+  public enum AccessPattern {
+    /** Point lookups of keys with no locality, such as hash-keyed trie nodes. */
+    RANDOM_READS,
+    /** Data which is written once and rarely updated or removed, such as block data. */
+    APPEND_MOSTLY
+  }
+
+  private final String name;
+  private final AccessPattern accessPattern;
+
+  public RocksDbColumnFamily(final String name, final AccessPattern accessPattern) {
+    this.name = name;
+    this.accessPattern = accessPattern;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public AccessPattern getAccessPattern() {
+    return accessPattern;
+  }
+
+  byte[] getId() {
+    return name.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Creates the options for this column family. All column families share a single block cache so
+   * memory is used by whichever data is hottest.
+   *
+   * @param blockCache the block cache shared by all column families.
+   * @param filter the bloom filter policy shared by all column families.
+   * @return the options, which must be closed once the database is closed.
+   */
+  ColumnFamilyOptions createOptions(final Cache blockCache, final Filter filter) {
+    // Every read of a missing key would otherwise have to check each level, and both trie node and
+    // block lookups are by hash so frequently miss in all but one level.
+    final BlockBasedTableConfig tableConfig =
+        new BlockBasedTableConfig()
+            .setBlockCache(blockCache)
+            .setFilter(filter)
+            .setCacheIndexAndFilterBlocks(true)
+            .setPinL0FilterAndIndexBlocksInCache(true);
+    final ColumnFamilyOptions options =
+        new ColumnFamilyOptions().setLevelCompactionDynamicLevelBytes(true);
+    if (accessPattern == AccessPattern.APPEND_MOSTLY) {
+      // Larger blocks compress better and need fewer index entries, while larger files and levels
+      // mean data that is never updated is rewritten by fewer compactions.
+      tableConfig.setBlockSize(APPEND_MOSTLY_BLOCK_SIZE);
+      options
+          .setTargetFileSizeBase(APPEND_MOSTLY_TARGET_FILE_SIZE)
+          .setMaxBytesForLevelBase(APPEND_MOSTLY_MAX_BYTES_FOR_LEVEL_BASE);
+    }
+    return options.setTableFormatConfig(tableConfig);
+  }
+
+  static Filter createFilter() {
+    return new BloomFilter(BLOOM_FILTER_BITS_PER_KEY, false);
+  }
+}
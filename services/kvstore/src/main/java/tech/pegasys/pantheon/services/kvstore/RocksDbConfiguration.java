@@ -24,10 +24,13 @@ public class RocksDbConfiguration {
 
   private final Path databaseDir;
   private final int maxOpenFiles;
+  private final LRUCache cache;
   private final BlockBasedTableConfig blockBasedTableConfig;
   private final String label;
   private final int maxBackgroundCompactions;
   private final int backgroundThreadCount;
+  private final boolean writeBatchesEnabled;
+  private final boolean writeAheadLogDisabled;
 
   public RocksDbConfiguration(
       final Path databaseDir,
@@ -35,14 +38,19 @@ public class RocksDbConfiguration {
       final int maxBackgroundCompactions,
       final int backgroundThreadCount,
       final LRUCache cache,
-      final String label) {
+      final String label,
+      final boolean writeBatchesEnabled,
+      final boolean writeAheadLogDisabled) {
     this.maxBackgroundCompactions = maxBackgroundCompactions;
     this.backgroundThreadCount = backgroundThreadCount;
     RocksDbUtil.loadNativeLibrary();
     this.databaseDir = databaseDir;
     this.maxOpenFiles = maxOpenFiles;
+    this.cache = cache;
     this.blockBasedTableConfig = new BlockBasedTableConfig().setBlockCache(cache);
     this.label = label;
+    this.writeBatchesEnabled = writeBatchesEnabled;
+    this.writeAheadLogDisabled = writeAheadLogDisabled;
   }
 
   public Path getDatabaseDir() {
@@ -61,6 +69,10 @@ public class RocksDbConfiguration {
     return backgroundThreadCount;
   }
 
+  public LRUCache getCache() {
+    return cache;
+  }
+
   public BlockBasedTableConfig getBlockBasedTableConfig() {
     return blockBasedTableConfig;
   }
@@ -69,6 +81,14 @@ public class RocksDbConfiguration {
     return label;
   }
 
+  public boolean isWriteBatchesEnabled() {
+    return writeBatchesEnabled;
+  }
+
+  public boolean isWriteAheadLogDisabled() {
+    return writeAheadLogDisabled;
+  }
+
   public static class Builder {
 
     Path databaseDir;
@@ -108,6 +128,24 @@ public class RocksDbConfiguration {
         description = "Number of RocksDB background threads (default: ${DEFAULT-VALUE})")
     int backgroundThreadCount;
 
+    @CommandLine.Option(
+        names = {"--Xrocksdb-write-batches-enabled"},
+        hidden = true,
+        defaultValue = "false",
+        paramLabel = "<BOOLEAN>",
+        description =
+            "Write to RocksDB with write batches instead of transactions, avoiding the cost of locking every key written (default: ${DEFAULT-VALUE})")
+    boolean writeBatchesEnabled;
+
+    @CommandLine.Option(
+        names = {"--Xrocksdb-write-ahead-log-disabled"},
+        hidden = true,
+        defaultValue = "false",
+        paramLabel = "<BOOLEAN>",
+        description =
+            "Disable the RocksDB write-ahead log to speed up the initial sync. If Pantheon does not shut down cleanly, the database may be left inconsistent and need to be deleted and resynced (default: ${DEFAULT-VALUE})")
+    boolean writeAheadLogDisabled;
+
     public Builder databaseDir(final Path databaseDir) {
       this.databaseDir = databaseDir;
       return this;
@@ -138,6 +176,16 @@ public class RocksDbConfiguration {
       return this;
     }
 
+    public Builder writeBatchesEnabled(final boolean writeBatchesEnabled) {
+      this.writeBatchesEnabled = writeBatchesEnabled;
+      return this;
+    }
+
+    public Builder writeAheadLogDisabled(final boolean writeAheadLogDisabled) {
+      this.writeAheadLogDisabled = writeAheadLogDisabled;
+      return this;
+    }
+
     private LRUCache createCache(final long cacheCapacity) {
       RocksDbUtil.loadNativeLibrary();
       return new LRUCache(cacheCapacity);
@@ -148,7 +196,14 @@ public class RocksDbConfiguration {
         cache = createCache(cacheCapacity);
       }
       return new RocksDbConfiguration(
-          databaseDir, maxOpenFiles, maxBackgroundCompactions, backgroundThreadCount, cache, label);
+          databaseDir,
+          maxOpenFiles,
+          maxBackgroundCompactions,
+          backgroundThreadCount,
+          cache,
+          label,
+          writeBatchesEnabled,
+          writeAheadLogDisabled);
     }
   }
 }
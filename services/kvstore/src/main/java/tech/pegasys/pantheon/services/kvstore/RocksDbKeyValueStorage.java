@@ -22,28 +22,68 @@ import tech.pegasys.pantheon.services.util.RocksDbUtil;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.google.common.collect.Iterators;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.Env;
+import org.rocksdb.Filter;
 import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
 import org.rocksdb.Statistics;
 import org.rocksdb.TransactionDB;
 import org.rocksdb.TransactionDBOptions;
+import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 
 public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
 
   private static final Logger LOG = LogManager.getLogger();
 
-  private final Options options;
+  private final DBOptions options;
   private final TransactionDBOptions txOptions;
-  private final TransactionDB db;
+  private final Filter filter;
+  private final List<ColumnFamilyOptions> columnFamilyOptions = new ArrayList<>();
+  private final List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
+  private final Map<String, ColumnFamilyHandle> columnFamilyHandlesByName = new HashMap<>();
+  private final ColumnFamilyHandle defaultColumnFamilyHandle;
+  private final boolean predatesColumnFamilies;
+  private final RocksDB db;
+  // Empty when writes are applied as plain write batches instead of RocksDB transactions.
+  private final Optional<TransactionDB> transactionDb;
+  private final boolean writeAheadLogDisabled;
+  private final KeyValueStorage defaultColumnFamily;
   private final AtomicBoolean closed = new AtomicBoolean(false);
 
   private final OperationTimer readLatency;
+  private final OperationTimer multiReadLatency;
   private final OperationTimer removeLatency;
   private final OperationTimer writeLatency;
   private final OperationTimer commitLatency;
@@ -53,25 +93,101 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
   public static KeyValueStorage create(
       final RocksDbConfiguration rocksDbConfiguration, final MetricsSystem metricsSystem)
       throws StorageException {
-    return new RocksDbKeyValueStorage(rocksDbConfiguration, metricsSystem);
+    return new RocksDbKeyValueStorage(rocksDbConfiguration, Collections.emptyList(), metricsSystem);
+  }
+
+  /**
+   * Opens a database with the given column families in addition to the default column family, which
+   * this storage reads and writes. The other column families are accessed through {@link
+   * #columnFamilyView(List, Function)}.
+   *
+   * <p>A database created before column families were used has only the default column family. Such
+   * a database keeps storing everything in the default column family, so that existing data remains
+   * readable.
+   *
+   * @param rocksDbConfiguration the database configuration.
+   * @param columnFamilies the column families to open, creating them if required.
+   * @param metricsSystem the metrics system.
+   * @return the storage.
+   */
+  public static RocksDbKeyValueStorage create(
+      final RocksDbConfiguration rocksDbConfiguration,
+      final List<RocksDbColumnFamily> columnFamilies,
+      final MetricsSystem metricsSystem)
+      throws StorageException {
+    return new RocksDbKeyValueStorage(rocksDbConfiguration, columnFamilies, metricsSystem);
   }
 
   private RocksDbKeyValueStorage(
-      final RocksDbConfiguration rocksDbConfiguration, final MetricsSystem metricsSystem) {
+      final RocksDbConfiguration rocksDbConfiguration,
+      final List<RocksDbColumnFamily> columnFamilies,
+      final MetricsSystem metricsSystem) {
     RocksDbUtil.loadNativeLibrary();
     try {
       stats = new Statistics();
       options =
-          new Options()
+          new DBOptions()
               .setCreateIfMissing(true)
+              .setCreateMissingColumnFamilies(true)
               .setMaxOpenFiles(rocksDbConfiguration.getMaxOpenFiles())
-              .setTableFormatConfig(rocksDbConfiguration.getBlockBasedTableConfig())
               .setMaxBackgroundCompactions(rocksDbConfiguration.getMaxBackgroundCompactions())
               .setStatistics(stats);
-      options.getEnv().setBackgroundThreads(rocksDbConfiguration.getBackgroundThreadCount());
+      Env.getDefault().setBackgroundThreads(rocksDbConfiguration.getBackgroundThreadCount());
+      filter = RocksDbColumnFamily.createFilter();
+
+      predatesColumnFamilies =
+          !columnFamilies.isEmpty()
+              && predatesColumnFamilies(rocksDbConfiguration.getDatabaseDir());
+      if (predatesColumnFamilies) {
+        LOG.info(
+            "Database {} was created without column families, "
+                + "all data will be stored in the default column family",
+            rocksDbConfiguration.getDatabaseDir());
+      }
+
+      final List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+      final ColumnFamilyOptions defaultOptions =
+          new ColumnFamilyOptions()
+              .setTableFormatConfig(rocksDbConfiguration.getBlockBasedTableConfig());
+      columnFamilyOptions.add(defaultOptions);
+      descriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, defaultOptions));
+      if (!predatesColumnFamilies) {
+        for (final RocksDbColumnFamily columnFamily : columnFamilies) {
+          final ColumnFamilyOptions familyOptions =
+              columnFamily.createOptions(rocksDbConfiguration.getCache(), filter);
+          columnFamilyOptions.add(familyOptions);
+          descriptors.add(new ColumnFamilyDescriptor(columnFamily.getId(), familyOptions));
+        }
+      }
 
       txOptions = new TransactionDBOptions();
-      db = TransactionDB.open(options, txOptions, rocksDbConfiguration.getDatabaseDir().toString());
+      final String databaseDir = rocksDbConfiguration.getDatabaseDir().toString();
+      if (rocksDbConfiguration.isWriteBatchesEnabled()) {
+        db = RocksDB.open(options, databaseDir, descriptors, columnFamilyHandles);
+        transactionDb = Optional.empty();
+      } else {
+        transactionDb =
+            Optional.of(
+                TransactionDB.open(
+                    options, txOptions, databaseDir, descriptors, columnFamilyHandles));
+        db = transactionDb.get();
+      }
+      writeAheadLogDisabled = rocksDbConfiguration.isWriteAheadLogDisabled();
+      if (writeAheadLogDisabled) {
+        LOG.warn(
+            "RocksDB write-ahead log is disabled for {}, if Pantheon does not shut down cleanly "
+                + "the database may be left inconsistent and need to be deleted and resynced",
+            databaseDir);
+      }
+      defaultColumnFamilyHandle = columnFamilyHandles.get(0);
+      for (int i = 1; i < columnFamilyHandles.size(); i++) {
+        columnFamilyHandlesByName.put(
+            columnFamilies.get(i - 1).getName(), columnFamilyHandles.get(i));
+      }
+      defaultColumnFamily =
+          new ColumnFamilyView(
+              Collections.singletonList(defaultColumnFamilyHandle),
+              key -> defaultColumnFamilyHandle);
 
       readLatency =
           metricsSystem
@@ -81,6 +197,14 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
                   "Latency for read from RocksDB.",
                   "database")
               .labels(rocksDbConfiguration.getLabel());
+      multiReadLatency =
+          metricsSystem
+              .createLabelledTimer(
+                  MetricCategory.KVSTORE_ROCKSDB,
+                  "multi_read_latency_seconds",
+                  "Latency for batched reads from RocksDB.",
+                  "database")
+              .labels(rocksDbConfiguration.getLabel());
       removeLatency =
           metricsSystem
               .createLabelledTimer(
@@ -116,7 +240,11 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
           "Estimated memory used for RocksDB index and filter blocks in bytes",
           () -> {
             try {
-              return db.getLongProperty("rocksdb.estimate-table-readers-mem");
+              long total = 0;
+              for (final ColumnFamilyHandle handle : columnFamilyHandles) {
+                total += db.getLongProperty(handle, "rocksdb.estimate-table-readers-mem");
+              }
+              return total;
             } catch (final RocksDBException e) {
               LOG.debug("Failed to get RocksDB metric", e);
               return 0L;
@@ -136,30 +264,87 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
     }
   }
 
+  private static boolean predatesColumnFamilies(final Path databaseDir) throws RocksDBException {
+    if (!Files.exists(databaseDir.resolve("CURRENT"))) {
+      return false;
+    }
+    try (final Options listOptions = new Options()) {
+      return RocksDB.listColumnFamilies(listOptions, databaseDir.toString()).size() == 1;
+    }
+  }
+
+  /**
+   * Returns a view of this database which stores each key in the column family chosen by {@code
+   * columnFamilySelector}. Transactions started from the view are atomic across all of its column
+   * families. Closing the view has no effect, the database is closed along with this storage.
+   *
+   * @param columnFamilies every column family the selector may choose.
+   * @param columnFamilySelector chooses the column family to store each key in.
+   * @return the view.
+   */
+  public KeyValueStorage columnFamilyView(
+      final List<RocksDbColumnFamily> columnFamilies,
+      final Function<BytesValue, RocksDbColumnFamily> columnFamilySelector) {
+    final Map<RocksDbColumnFamily, ColumnFamilyHandle> handles = new HashMap<>();
+    columnFamilies.forEach(
+        columnFamily -> handles.put(columnFamily, getColumnFamilyHandle(columnFamily)));
+    final Set<ColumnFamilyHandle> distinctHandles = new LinkedHashSet<>(handles.values());
+    return new ColumnFamilyView(
+        new ArrayList<>(distinctHandles), key -> handles.get(columnFamilySelector.apply(key)));
+  }
+
+  private ColumnFamilyHandle getColumnFamilyHandle(final RocksDbColumnFamily columnFamily) {
+    if (predatesColumnFamilies) {
+      return defaultColumnFamilyHandle;
+    }
+    final ColumnFamilyHandle handle = columnFamilyHandlesByName.get(columnFamily.getName());
+    if (handle == null) {
+      throw new IllegalArgumentException(
+          "Column family " + columnFamily.getName() + " was not opened");
+    }
+    return handle;
+  }
+
   @Override
   public Optional<BytesValue> get(final BytesValue key) throws StorageException {
-    throwIfClosed();
+    return defaultColumnFamily.get(key);
+  }
 
-    try (final OperationTimer.TimingContext ignored = readLatency.startTimer()) {
-      return Optional.ofNullable(db.get(key.getArrayUnsafe())).map(BytesValue::wrap);
-    } catch (final RocksDBException e) {
-      throw new StorageException(e);
-    }
+  @Override
+  public List<Optional<BytesValue>> getAll(final List<BytesValue> keys) throws StorageException {
+    return defaultColumnFamily.getAll(keys);
   }
 
   @Override
   public Transaction startTransaction() throws StorageException {
-    throwIfClosed();
-    final WriteOptions options = new WriteOptions();
-    return new RocksDbTransaction(db.beginTransaction(options), options);
+    return defaultColumnFamily.startTransaction();
+  }
+
+  @Override
+  public Stream<Entry> entries() throws StorageException {
+    return defaultColumnFamily.entries();
+  }
+
+  @Override
+  public Stream<Entry> entries(final BytesValue startKey, final BytesValue endKey)
+      throws StorageException {
+    return defaultColumnFamily.entries(startKey, endKey);
+  }
+
+  @Override
+  public Stream<Entry> entriesWithPrefix(final BytesValue prefix) throws StorageException {
+    return defaultColumnFamily.entriesWithPrefix(prefix);
   }
 
   @Override
   public void close() {
     if (closed.compareAndSet(false, true)) {
+      columnFamilyHandles.forEach(ColumnFamilyHandle::close);
+      db.close();
       txOptions.close();
+      columnFamilyOptions.forEach(ColumnFamilyOptions::close);
+      filter.close();
       options.close();
-      db.close();
     }
   }
 
@@ -170,19 +355,161 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
     }
   }
 
+  /** Stores keys in one or more column families of the database. */
+  private class ColumnFamilyView implements KeyValueStorage {
+    private final List<ColumnFamilyHandle> handles;
+    private final Function<BytesValue, ColumnFamilyHandle> handleForKey;
+
+    ColumnFamilyView(
+        final List<ColumnFamilyHandle> handles,
+        final Function<BytesValue, ColumnFamilyHandle> handleForKey) {
+      this.handles = handles;
+      this.handleForKey = handleForKey;
+    }
+
+    @Override
+    public Optional<BytesValue> get(final BytesValue key) throws StorageException {
+      throwIfClosed();
+
+      try (final OperationTimer.TimingContext ignored = readLatency.startTimer()) {
+        return Optional.ofNullable(db.get(handleForKey.apply(key), key.getArrayUnsafe()))
+            .map(BytesValue::wrap);
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      }
+    }
+
+    @Override
+    public List<Optional<BytesValue>> getAll(final List<BytesValue> keys) throws StorageException {
+      throwIfClosed();
+
+      final List<ColumnFamilyHandle> keyHandles = new ArrayList<>(keys.size());
+      final List<byte[]> keyArrays = new ArrayList<>(keys.size());
+      keys.forEach(
+          key -> {
+            keyHandles.add(handleForKey.apply(key));
+            keyArrays.add(key.getArrayUnsafe());
+          });
+      try (final OperationTimer.TimingContext ignored = multiReadLatency.startTimer()) {
+        // The returned map is keyed by the key array instances that were passed in.
+        final Map<byte[], byte[]> values = db.multiGet(keyHandles, keyArrays);
+        final List<Optional<BytesValue>> result = new ArrayList<>(keyArrays.size());
+        keyArrays.forEach(
+            key -> result.add(Optional.ofNullable(values.get(key)).map(BytesValue::wrap)));
+        return result;
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      }
+    }
+
+    @Override
+    public Transaction startTransaction() throws StorageException {
+      throwIfClosed();
+      final WriteOptions options = new WriteOptions().setDisableWAL(writeAheadLogDisabled);
+      if (transactionDb.isPresent()) {
+        return new RocksDbTransaction(
+            transactionDb.get().beginTransaction(options), options, handleForKey);
+      }
+      return new RocksDbWriteBatch(new WriteBatch(), options, handleForKey);
+    }
+
+    @Override
+    public Stream<Entry> entries() throws StorageException {
+      return stream(RocksIterator::seekToFirst, key -> true);
+    }
+
+    @Override
+    public Stream<Entry> entries(final BytesValue startKey, final BytesValue endKey)
+        throws StorageException {
+      return stream(
+          iterator -> iterator.seek(startKey.getArrayUnsafe()), key -> key.compareTo(endKey) < 0);
+    }
+
+    @Override
+    public Stream<Entry> entriesWithPrefix(final BytesValue prefix) throws StorageException {
+      return stream(
+          iterator -> iterator.seek(prefix.getArrayUnsafe()),
+          key -> key.commonPrefixLength(prefix) == prefix.size());
+    }
+
+    private Stream<Entry> stream(
+        final Consumer<RocksIterator> seek, final Predicate<BytesValue> inRange) {
+      throwIfClosed();
+      final List<RocksIterator> rocksIterators = new ArrayList<>(handles.size());
+      final List<Iterator<Entry>> entryIterators = new ArrayList<>(handles.size());
+      for (final ColumnFamilyHandle handle : handles) {
+        final RocksIterator rocksIterator = db.newIterator(handle);
+        seek.accept(rocksIterator);
+        rocksIterators.add(rocksIterator);
+        entryIterators.add(new RocksDbEntryIterator(rocksIterator, inRange));
+      }
+      final Iterator<Entry> entries =
+          entryIterators.size() == 1
+              ? entryIterators.get(0)
+              : Iterators.mergeSorted(entryIterators, Comparator.comparing(Entry::getKey));
+      return StreamSupport.stream(
+              Spliterators.spliteratorUnknownSize(
+                  entries, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+              false)
+          .onClose(() -> rocksIterators.forEach(RocksIterator::close));
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  /** Iterates from the current position of a RocksIterator until it reaches a key out of range. */
+  private static class RocksDbEntryIterator implements Iterator<Entry> {
+    private final RocksIterator rocksIterator;
+    private final Predicate<BytesValue> inRange;
+    private Entry nextEntry;
+
+    RocksDbEntryIterator(final RocksIterator rocksIterator, final Predicate<BytesValue> inRange) {
+      this.rocksIterator = rocksIterator;
+      this.inRange = inRange;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextEntry == null && rocksIterator.isValid()) {
+        final BytesValue key = BytesValue.wrap(rocksIterator.key());
+        if (inRange.test(key)) {
+          nextEntry = Entry.create(key, BytesValue.wrap(rocksIterator.value()));
+        }
+      }
+      return nextEntry != null;
+    }
+
+    @Override
+    public Entry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Entry entry = nextEntry;
+      nextEntry = null;
+      rocksIterator.next();
+      return entry;
+    }
+  }
+
   private class RocksDbTransaction extends AbstractTransaction {
     private final org.rocksdb.Transaction innerTx;
     private final WriteOptions options;
+    private final Function<BytesValue, ColumnFamilyHandle> handleForKey;
 
-    RocksDbTransaction(final org.rocksdb.Transaction innerTx, final WriteOptions options) {
+    RocksDbTransaction(
+        final org.rocksdb.Transaction innerTx,
+        final WriteOptions options,
+        final Function<BytesValue, ColumnFamilyHandle> handleForKey) {
       this.innerTx = innerTx;
       this.options = options;
+      this.handleForKey = handleForKey;
     }
 
     @Override
     protected void doPut(final BytesValue key, final BytesValue value) {
       try (final OperationTimer.TimingContext ignored = writeLatency.startTimer()) {
-        innerTx.put(key.getArrayUnsafe(), value.getArrayUnsafe());
+        innerTx.put(handleForKey.apply(key), key.getArrayUnsafe(), value.getArrayUnsafe());
       } catch (final RocksDBException e) {
         throw new StorageException(e);
       }
@@ -191,7 +518,7 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
     @Override
     protected void doRemove(final BytesValue key) {
       try (final OperationTimer.TimingContext ignored = removeLatency.startTimer()) {
-        innerTx.delete(key.getArrayUnsafe());
+        innerTx.delete(handleForKey.apply(key), key.getArrayUnsafe());
       } catch (final RocksDBException e) {
         throw new StorageException(e);
       }
@@ -225,4 +552,64 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
       options.close();
     }
   }
+
+  /**
+   * Buffers writes in a batch which is applied atomically on commit. Unlike a RocksDB transaction
+   * no locks are taken on the keys written, so concurrent transactions are not isolated from each
+   * other until they commit.
+   */
+  private class RocksDbWriteBatch extends AbstractTransaction {
+    private final WriteBatch writeBatch;
+    private final WriteOptions options;
+    private final Function<BytesValue, ColumnFamilyHandle> handleForKey;
+
+    RocksDbWriteBatch(
+        final WriteBatch writeBatch,
+        final WriteOptions options,
+        final Function<BytesValue, ColumnFamilyHandle> handleForKey) {
+      this.writeBatch = writeBatch;
+      this.options = options;
+      this.handleForKey = handleForKey;
+    }
+
+    @Override
+    protected void doPut(final BytesValue key, final BytesValue value) {
+      try (final OperationTimer.TimingContext ignored = writeLatency.startTimer()) {
+        writeBatch.put(handleForKey.apply(key), key.getArrayUnsafe(), value.getArrayUnsafe());
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      }
+    }
+
+    @Override
+    protected void doRemove(final BytesValue key) {
+      try (final OperationTimer.TimingContext ignored = removeLatency.startTimer()) {
+        writeBatch.delete(handleForKey.apply(key), key.getArrayUnsafe());
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      }
+    }
+
+    @Override
+    protected void doCommit() throws StorageException {
+      try (final OperationTimer.TimingContext ignored = commitLatency.startTimer()) {
+        db.write(options, writeBatch);
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      } finally {
+        close();
+      }
+    }
+
+    @Override
+    protected void doRollback() {
+      rollbackCount.inc();
+      close();
+    }
+
+    private void close() {
+      writeBatch.close();
+      options.close();
+    }
+  }
 }
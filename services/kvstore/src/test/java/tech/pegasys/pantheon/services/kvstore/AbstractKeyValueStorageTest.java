@@ -16,14 +16,18 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Entry;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Transaction;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.bytes.BytesValues;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -131,6 +135,97 @@ public abstract class AbstractKeyValueStorageTest {
     store.close();
   }
 
+  @Test
+  public void entries() throws Exception {
+    final KeyValueStorage store = createStore();
+    final Transaction tx = store.startTransaction();
+    tx.put(BytesValue.of(1), BytesValue.of(4));
+    tx.put(BytesValue.of(2), BytesValue.of(5));
+    tx.put(BytesValue.of(3), BytesValue.of(6));
+    tx.commit();
+
+    try (final Stream<Entry> entries = store.entries()) {
+      assertEquals(
+          new HashSet<>(
+              Arrays.asList(
+                  Entry.create(BytesValue.of(1), BytesValue.of(4)),
+                  Entry.create(BytesValue.of(2), BytesValue.of(5)),
+                  Entry.create(BytesValue.of(3), BytesValue.of(6)))),
+          entries.collect(Collectors.toSet()));
+    }
+  }
+
+  @Test
+  public void entriesWhenEmpty() throws Exception {
+    final KeyValueStorage store = createStore();
+    try (final Stream<Entry> entries = store.entries()) {
+      assertEquals(0, entries.count());
+    }
+  }
+
+  @Test
+  public void getAll() throws Exception {
+    final KeyValueStorage store = createStore();
+    final Transaction tx = store.startTransaction();
+    tx.put(BytesValue.of(1), BytesValue.of(4));
+    tx.put(BytesValue.of(3), BytesValue.of(6));
+    tx.commit();
+
+    assertEquals(
+        Arrays.asList(
+            Optional.of(BytesValue.of(6)),
+            Optional.empty(),
+            Optional.of(BytesValue.of(4)),
+            Optional.of(BytesValue.of(6))),
+        store.getAll(
+            Arrays.asList(BytesValue.of(3), BytesValue.of(2), BytesValue.of(1), BytesValue.of(3))));
+  }
+
+  @Test
+  public void entriesInRange() throws Exception {
+    final KeyValueStorage store = createStore();
+    final Transaction tx = store.startTransaction();
+    tx.put(BytesValue.of(1), BytesValue.of(4));
+    tx.put(BytesValue.of(2), BytesValue.of(5));
+    tx.put(BytesValue.of(2, 0), BytesValue.of(6));
+    tx.put(BytesValue.of(0x80), BytesValue.of(7));
+    tx.put(BytesValue.of(0x90), BytesValue.of(8));
+    tx.commit();
+
+    try (final Stream<Entry> entries = store.entries(BytesValue.of(2), BytesValue.of(0x90))) {
+      assertEquals(
+          Arrays.asList(
+              Entry.create(BytesValue.of(2), BytesValue.of(5)),
+              Entry.create(BytesValue.of(2, 0), BytesValue.of(6)),
+              Entry.create(BytesValue.of(0x80), BytesValue.of(7))),
+          entries.collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void entriesWithPrefix() throws Exception {
+    final KeyValueStorage store = createStore();
+    final Transaction tx = store.startTransaction();
+    tx.put(BytesValue.of(1, 2), BytesValue.of(4));
+    tx.put(BytesValue.of(2), BytesValue.of(5));
+    tx.put(BytesValue.of(2, 0xff), BytesValue.of(6));
+    tx.put(BytesValue.of(2, 1), BytesValue.of(7));
+    tx.put(BytesValue.of(3, 0), BytesValue.of(8));
+    tx.commit();
+
+    try (final Stream<Entry> entries = store.entriesWithPrefix(BytesValue.of(2))) {
+      assertEquals(
+          Arrays.asList(
+              Entry.create(BytesValue.of(2), BytesValue.of(5)),
+              Entry.create(BytesValue.of(2, 1), BytesValue.of(7)),
+              Entry.create(BytesValue.of(2, 0xff), BytesValue.of(6))),
+          entries.collect(Collectors.toList()));
+    }
+    try (final Stream<Entry> entries = store.entriesWithPrefix(BytesValue.of(4))) {
+      assertEquals(0, entries.count());
+    }
+  }
+
   @Test
   public void transactionCommit() throws Exception {
     final KeyValueStorage store = createStore();
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Transaction;
+import tech.pegasys.pantheon.services.kvstore.RocksDbColumnFamily.AccessPattern;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RocksDbColumnFamilyViewTest extends AbstractKeyValueStorageTest {
+
+  private static final RocksDbColumnFamily EVEN =
+      new RocksDbColumnFamily("even", AccessPattern.RANDOM_READS);
+  private static final RocksDbColumnFamily ODD =
+      new RocksDbColumnFamily("odd", AccessPattern.APPEND_MOSTLY);
+  private static final List<RocksDbColumnFamily> COLUMN_FAMILIES = Arrays.asList(EVEN, ODD);
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Override
+  protected KeyValueStorage createStore() throws Exception {
+    return view(open(folder.newFolder().toPath(), COLUMN_FAMILIES));
+  }
+
+  @Test
+  public void keysAreStoredInTheSelectedColumnFamily() throws Exception {
+    final Path databaseDir = folder.newFolder().toPath();
+    final RocksDbKeyValueStorage storage = open(databaseDir, COLUMN_FAMILIES);
+    final KeyValueStorage view = view(storage);
+    final Transaction tx = view.startTransaction();
+    tx.put(BytesValue.of(1), BytesValue.of(2));
+    tx.put(BytesValue.of(2), BytesValue.of(3));
+    tx.commit();
+
+    final KeyValueStorage oddOnly =
+        storage.columnFamilyView(Collections.singletonList(ODD), key -> ODD);
+    assertEquals(Optional.of(BytesValue.of(2)), oddOnly.get(BytesValue.of(1)));
+    assertEquals(Optional.empty(), oddOnly.get(BytesValue.of(2)));
+    assertEquals(Optional.empty(), storage.get(BytesValue.of(1)));
+    storage.close();
+
+    final RocksDbKeyValueStorage reopened = open(databaseDir, COLUMN_FAMILIES);
+    assertEquals(
+        Arrays.asList(Optional.of(BytesValue.of(2)), Optional.of(BytesValue.of(3))),
+        view(reopened).getAll(Arrays.asList(BytesValue.of(1), BytesValue.of(2))));
+    reopened.close();
+  }
+
+  @Test
+  public void databaseWithoutColumnFamiliesKeepsUsingDefaultColumnFamily() throws Exception {
+    final Path databaseDir = folder.newFolder().toPath();
+    final RocksDbKeyValueStorage legacy = open(databaseDir, Collections.emptyList());
+    final Transaction tx = legacy.startTransaction();
+    tx.put(BytesValue.of(1), BytesValue.of(2));
+    tx.commit();
+    legacy.close();
+
+    final RocksDbKeyValueStorage storage = open(databaseDir, COLUMN_FAMILIES);
+    assertEquals(Optional.of(BytesValue.of(2)), view(storage).get(BytesValue.of(1)));
+    storage.close();
+  }
+
+  @Test
+  public void transactionsAreAtomicAcrossColumnFamilies() throws Exception {
+    final KeyValueStorage view = createStore();
+    final Transaction tx = view.startTransaction();
+    tx.put(BytesValue.of(1), BytesValue.of(2));
+    tx.put(BytesValue.of(2), BytesValue.of(3));
+    tx.rollback();
+
+    assertFalse(view.get(BytesValue.of(1)).isPresent());
+    assertFalse(view.get(BytesValue.of(2)).isPresent());
+  }
+
+  private static RocksDbKeyValueStorage open(
+      final Path databaseDir, final List<RocksDbColumnFamily> columnFamilies) {
+    return RocksDbKeyValueStorage.create(
+        new RocksDbConfiguration.Builder().databaseDir(databaseDir).build(),
+        columnFamilies,
+        new NoOpMetricsSystem());
+  }
+
+  private static KeyValueStorage view(final RocksDbKeyValueStorage storage) {
+    return storage.columnFamilyView(
+        COLUMN_FAMILIES, key -> key.isEmpty() || key.get(0) % 2 == 0 ? EVEN : ODD);
+  }
+}
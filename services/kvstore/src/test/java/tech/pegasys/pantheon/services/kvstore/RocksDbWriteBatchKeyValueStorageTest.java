@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+import static org.junit.Assert.assertEquals;
+
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Transaction;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RocksDbWriteBatchKeyValueStorageTest extends AbstractKeyValueStorageTest {
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Override
+  protected KeyValueStorage createStore() throws Exception {
+    return create(folder.newFolder().toPath(), false);
+  }
+
+  @Test
+  public void writesWithoutWriteAheadLogAreKeptAfterCleanShutdown() throws Exception {
+    final Path databaseDir = folder.newFolder().toPath();
+    final KeyValueStorage store = create(databaseDir, true);
+    final Transaction tx = store.startTransaction();
+    tx.put(BytesValue.of(1), BytesValue.of(2));
+    tx.commit();
+    store.close();
+
+    final KeyValueStorage reopened = create(databaseDir, true);
+    assertEquals(Optional.of(BytesValue.of(2)), reopened.get(BytesValue.of(1)));
+    reopened.close();
+  }
+
+  private static KeyValueStorage create(
+      final Path databaseDir, final boolean writeAheadLogDisabled) {
+    return RocksDbKeyValueStorage.create(
+        new RocksDbConfiguration.Builder()
+            .databaseDir(databaseDir)
+            .writeBatchesEnabled(true)
+            .writeAheadLogDisabled(writeAheadLogDisabled)
+            .build(),
+        new NoOpMetricsSystem());
+  }
+}
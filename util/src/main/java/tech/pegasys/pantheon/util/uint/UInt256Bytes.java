@@ -21,7 +21,7 @@ import tech.pegasys.pantheon.util.bytes.BytesValues;
 import tech.pegasys.pantheon.util.bytes.MutableBytes32;
 
 import java.math.BigInteger;
-import java.util.function.BinaryOperator;
+import java.util.Arrays;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -56,8 +56,6 @@ public abstract class UInt256Bytes {
 
   private static final int SIZE = Bytes32.SIZE;
 
-  private static final BigInteger P256 = BigInteger.valueOf(2).pow(8 * 32);
-
   /** The number of ints a word contains. */
   private static final int INT_SIZE = 32 / 4;
 
@@ -69,6 +67,26 @@ public abstract class UInt256Bytes {
   /** This mask is used to obtain the value of an int as if it were unsigned. */
   private static final long LONG_MASK = 0xffffffffL;
 
+  private static final ThreadLocal<Limbs> LIMBS = ThreadLocal.withInitial(Limbs::new);
+
+  /**
+   * Arrays of ints, least significant first, reused by the operations of a thread so that they
+   * don't allocate them for every operation. The length of each array is part of the computation:
+   * products are truncated to the length of the array they are written to.
+   */
+  private static class Limbs {
+    // The sum of two words may need one more int than a word.
+    final int[] a = new int[INT_SIZE + 1];
+    final int[] b = new int[INT_SIZE];
+    final int[] product = new int[INT_SIZE];
+    final int[] wideProduct = new int[2 * INT_SIZE];
+    final int[] divisor = new int[INT_SIZE];
+    final int[] quotient = new int[2 * INT_SIZE];
+    final int[] remainder = new int[INT_SIZE];
+    final int[] normalizedDivisor = new int[INT_SIZE];
+    final int[] normalizedDividend = new int[2 * INT_SIZE + 1];
+  }
+
   static void copyPadded(
       final BytesValue toCopy, final MutableBytes32 destination, final byte padByte) {
     final int copySize = toCopy.size();
@@ -83,36 +101,168 @@ public abstract class UInt256Bytes {
     }
   }
 
-  private static void copy(final BigInteger result, final MutableBytes32 destination) {
-    copyPadded(BytesValue.wrap(result.toByteArray()), destination, ALL_ZERO_BYTE);
+  // Reads the ints of a word into the start of an array, least significant int first, and clears
+  // the rest of the array.
+  private static int[] toInts(final Bytes32 v, final int[] ints) {
+    for (int i = 0; i < INT_SIZE; i++) {
+      ints[i] = v.getInt(SIZE - 4 - i * 4);
+    }
+    Arrays.fill(ints, INT_SIZE, ints.length, 0);
+    return ints;
   }
 
-  private interface TriOperator<T> {
-    T apply(T op1, T op2, T op3);
+  // Writes the first ints of an array, least significant int first, as a word.
+  private static void fromInts(final int[] ints, final MutableBytes32 result) {
+    for (int i = 0; i < INT_SIZE; i++) {
+      result.setInt(SIZE - 4 - i * 4, ints[i]);
+    }
   }
 
-  private static void doOnBigInteger(
-      final Bytes32 v1,
-      final Bytes32 v2,
-      final MutableBytes32 dest,
-      final BinaryOperator<BigInteger> operator) {
-    final BigInteger i1 = BytesValues.asUnsignedBigInteger(v1);
-    final BigInteger i2 = BytesValues.asUnsignedBigInteger(v2);
-    final BigInteger result = operator.apply(i1, i2);
-    copy(result, dest);
+  // The number of ints up to and including the most significant non-zero one.
+  private static int significantInts(final int[] ints) {
+    int length = ints.length;
+    while (length > 0 && ints[length - 1] == 0) {
+      length--;
+    }
+    return length;
+  }
+
+  /**
+   * Multiplies two numbers represented as ints, least significant first, into product, discarding
+   * anything that doesn't fit the length of product.
+   */
+  private static void multiplyInts(final int[] a, final int[] b, final int[] product) {
+    Arrays.fill(product, 0);
+    final int bLength = significantInts(b);
+    for (int i = 0; i < a.length && i < product.length; i++) {
+      final long ai = a[i] & LONG_MASK;
+      if (ai == 0) continue;
+
+      long carry = 0;
+      int j = 0;
+      for (; j < bLength && i + j < product.length; j++) {
+        final long t = ai * (b[j] & LONG_MASK) + (product[i + j] & LONG_MASK) + carry;
+        product[i + j] = (int) t;
+        carry = t >>> 32;
+      }
+      if (i + j < product.length) {
+        product[i + j] = (int) carry;
+      }
+    }
+  }
+
+  /**
+   * Divides u by v, both represented as ints, least significant first, writing the quotient and
+   * remainder (which must be at least as long as u and v respectively). This is Knuth's algorithm D
+   * (TAOCP vol. 2, 4.3.1) on 32 bits digits; v must be non-zero and at most a word long, and u at
+   * most two words long.
+   */
+  private static void divideInts(
+      final int[] u,
+      final int[] v,
+      final int[] quotient,
+      final int[] remainder,
+      final Limbs limbs) {
+    final int m = significantInts(u);
+    final int n = significantInts(v);
+    Arrays.fill(quotient, 0);
+    Arrays.fill(remainder, 0);
+
+    if (m < n) {
+      System.arraycopy(u, 0, remainder, 0, m);
+      return;
+    }
+
+    if (n == 1) {
+      final long divisor = v[0] & LONG_MASK;
+      long rem = 0;
+      for (int i = m - 1; i >= 0; i--) {
+        final long current = (rem << 32) | (u[i] & LONG_MASK);
+        quotient[i] = (int) Long.divideUnsigned(current, divisor);
+        rem = Long.remainderUnsigned(current, divisor);
+      }
+      remainder[0] = (int) rem;
+      return;
+    }
+
+    // Normalize so the most significant digit of the divisor has its top bit set.
+    final int shift = Integer.numberOfLeadingZeros(v[n - 1]);
+    final int[] vn = limbs.normalizedDivisor;
+    final int[] un = limbs.normalizedDividend;
+    if (shift == 0) {
+      System.arraycopy(v, 0, vn, 0, n);
+      System.arraycopy(u, 0, un, 0, m);
+      un[m] = 0;
+    } else {
+      for (int i = n - 1; i > 0; i--) {
+        vn[i] = (v[i] << shift) | (v[i - 1] >>> (32 - shift));
+      }
+      vn[0] = v[0] << shift;
+      un[m] = u[m - 1] >>> (32 - shift);
+      for (int i = m - 1; i > 0; i--) {
+        un[i] = (u[i] << shift) | (u[i - 1] >>> (32 - shift));
+      }
+      un[0] = u[0] << shift;
+    }
+
+    final long base = 1L << 32;
+    final long vTop = vn[n - 1] & LONG_MASK;
+    final long vNext = vn[n - 2] & LONG_MASK;
+    for (int j = m - n; j >= 0; j--) {
+      // Estimate the quotient digit from the top two digits, correcting it to be at most one too
+      // large.
+      final long numerator = ((un[j + n] & LONG_MASK) << 32) | (un[j + n - 1] & LONG_MASK);
+      long qHat = Long.divideUnsigned(numerator, vTop);
+      long rHat = Long.remainderUnsigned(numerator, vTop);
+      while (qHat >= base
+          || Long.compareUnsigned(qHat * vNext, (rHat << 32) | (un[j + n - 2] & LONG_MASK)) > 0) {
+        qHat--;
+        rHat += vTop;
+        if (rHat >= base) break;
+      }
+
+      // Multiply and subtract.
+      long borrow = 0;
+      long carry = 0;
+      for (int i = 0; i < n; i++) {
+        final long p = qHat * (vn[i] & LONG_MASK) + carry;
+        carry = p >>> 32;
+        final long t = (un[i + j] & LONG_MASK) - (p & LONG_MASK) - borrow;
+        un[i + j] = (int) t;
+        borrow = t < 0 ? 1 : 0;
+      }
+      final long t = (un[j + n] & LONG_MASK) - carry - borrow;
+      un[j + n] = (int) t;
+
+      quotient[j] = (int) qHat;
+      if (t < 0) {
+        // The estimate was one too large: add the divisor back.
+        quotient[j]--;
+        carry = 0;
+        for (int i = 0; i < n; i++) {
+          final long sum = (un[i + j] & LONG_MASK) + (vn[i] & LONG_MASK) + carry;
+          un[i + j] = (int) sum;
+          carry = sum >>> 32;
+        }
+        un[j + n] += (int) carry;
+      }
+    }
+
+    // Unnormalize the remainder.
+    if (shift == 0) {
+      System.arraycopy(un, 0, remainder, 0, n);
+    } else {
+      for (int i = 0; i < n; i++) {
+        remainder[i] = (un[i] >>> shift) | (un[i + 1] << (32 - shift));
+      }
+    }
   }
 
-  private static void doOnBigInteger(
-      final Bytes32 v1,
-      final Bytes32 v2,
-      final Bytes32 v3,
-      final MutableBytes32 dest,
-      final TriOperator<BigInteger> operator) {
-    final BigInteger i1 = BytesValues.asUnsignedBigInteger(v1);
-    final BigInteger i2 = BytesValues.asUnsignedBigInteger(v2);
-    final BigInteger i3 = BytesValues.asUnsignedBigInteger(v3);
-    final BigInteger result = operator.apply(i1, i2, i3);
-    copy(result, dest);
+  // Reduces a number represented as ints, least significant first, modulo a non-zero word.
+  private static void moduloInts(
+      final int[] u, final Bytes32 modulo, final MutableBytes32 result, final Limbs limbs) {
+    divideInts(u, toInts(modulo, limbs.divisor), limbs.quotient, limbs.remainder, limbs);
+    fromInts(limbs.remainder, result);
   }
 
   public static void add(final Bytes32 v1, final Bytes32 v2, final MutableBytes32 result) {
@@ -147,7 +297,16 @@ public abstract class UInt256Bytes {
     if (modulo.isZero()) {
       result.clear();
     } else {
-      doOnBigInteger(v1, v2, modulo, result, (op1, op2, mod) -> op1.add(op2).mod(mod));
+      final Limbs limbs = LIMBS.get();
+      final int[] sum = toInts(v1, limbs.a);
+      long carry = 0;
+      for (int i = 0; i < INT_SIZE; i++) {
+        final long t = (sum[i] & LONG_MASK) + (v2.getInt(SIZE - 4 - i * 4) & LONG_MASK) + carry;
+        sum[i] = (int) t;
+        carry = t >>> 32;
+      }
+      sum[INT_SIZE] = (int) carry;
+      moduloInts(sum, modulo, result, limbs);
     }
   }
 
@@ -217,7 +376,7 @@ public abstract class UInt256Bytes {
     }
   }
 
-  private static void negateSigned(final Bytes32 v, final MutableBytes32 result) {
+  static void negateSigned(final Bytes32 v, final MutableBytes32 result) {
     Bytes32s.not(v, result);
     add(result, UInt256.ONE.getBytes(), result);
   }
@@ -227,7 +386,9 @@ public abstract class UInt256Bytes {
   }
 
   public static void multiply(final Bytes32 v1, final Bytes32 v2, final MutableBytes32 result) {
-    doOnBigInteger(v1, v2, result, BigInteger::multiply);
+    final Limbs limbs = LIMBS.get();
+    multiplyInts(toInts(v1, limbs.a), toInts(v2, limbs.b), limbs.product);
+    fromInts(limbs.product, result);
   }
 
   public static void multiply(final Bytes32 v1, final long v2, final MutableBytes32 result) {
@@ -237,12 +398,12 @@ public abstract class UInt256Bytes {
       final int shifts = log2(v2);
       // We have to be careful with overflowing operation.
       if (bitLength(v1) >= SIZE - 1 - shifts) {
-        doOnBigInteger(v1, of(v2), result, BigInteger::multiply);
+        multiply(v1, of(v2), result);
       } else {
         shiftLeft(v1, shifts, result);
       }
     } else {
-      doOnBigInteger(v1, of(v2), result, BigInteger::multiply);
+      multiply(v1, of(v2), result);
     }
   }
 
@@ -251,7 +412,9 @@ public abstract class UInt256Bytes {
     if (modulo.isZero()) {
       result.clear();
     } else {
-      doOnBigInteger(v1, v2, modulo, result, (op1, op2, mod) -> op1.multiply(op2).mod(mod));
+      final Limbs limbs = LIMBS.get();
+      multiplyInts(toInts(v1, limbs.a), toInts(v2, limbs.b), limbs.wideProduct);
+      moduloInts(limbs.wideProduct, modulo, result, limbs);
     }
   }
 
@@ -259,7 +422,10 @@ public abstract class UInt256Bytes {
     if (v2.isZero()) {
       result.clear();
     } else {
-      doOnBigInteger(v1, v2, result, BigInteger::divide);
+      final Limbs limbs = LIMBS.get();
+      divideInts(
+          toInts(v1, limbs.a), toInts(v2, limbs.divisor), limbs.quotient, limbs.remainder, limbs);
+      fromInts(limbs.quotient, result);
     }
   }
 
@@ -308,19 +474,39 @@ public abstract class UInt256Bytes {
     } else if (v2 > 0 && isPowerOf2(v2)) {
       shiftRight(v1, log2(v2), result);
     } else {
-      doOnBigInteger(v1, of(v2), result, BigInteger::divide);
+      divide(v1, of(v2), result);
     }
   }
 
   public static void exponent(final Bytes32 v1, final Bytes32 v2, final MutableBytes32 result) {
-    doOnBigInteger(v1, v2, result, (val, pow) -> val.modPow(pow, P256));
+    // Square-and-multiply, with every product taken modulo 2^256.
+    final Limbs limbs = LIMBS.get();
+    final int[] base = toInts(v1, limbs.a);
+    int[] power = limbs.product;
+    int[] scratch = limbs.b;
+    Arrays.fill(power, 0);
+    power[0] = 1;
+    for (int bit = bitLength(v2) - 1; bit >= 0; bit--) {
+      multiplyInts(power, power, scratch);
+      int[] swap = power;
+      power = scratch;
+      scratch = swap;
+      if (testBit(v2, bit)) {
+        multiplyInts(power, base, scratch);
+        swap = power;
+        power = scratch;
+        scratch = swap;
+      }
+    }
+    fromInts(power, result);
   }
 
   public static void modulo(final Bytes32 v1, final Bytes32 v2, final MutableBytes32 result) {
     if (v2.isZero()) {
       result.clear();
     } else {
-      doOnBigInteger(v1, v2, result, BigInteger::mod);
+      final Limbs limbs = LIMBS.get();
+      moduloInts(toInts(v1, limbs.a), v2, result, limbs);
     }
   }
 
@@ -340,7 +526,7 @@ public abstract class UInt256Bytes {
         result.set(SIZE - 1 - i, (byte) 0);
       }
     } else {
-      doOnBigInteger(v1, of(v2), result, BigInteger::mod);
+      modulo(v1, of(v2), result);
     }
   }
 
@@ -418,9 +604,13 @@ public abstract class UInt256Bytes {
     return 0;
   }
 
+  private static boolean testBit(final Bytes32 bytes, final int bit) {
+    return (bytes.get(SIZE - 1 - bit / 8) & (1 << (bit % 8))) != 0;
+  }
+
   static int compareUnsigned(final Bytes32 v1, final Bytes32 v2) {
-    for (int i = 0; i < SIZE; i++) {
-      final int cmp = Integer.compare((v1.get(i)) & 0xFF, (v2.get(i)) & 0xFF);
+    for (int i = 0; i < SIZE; i += 8) {
+      final int cmp = Long.compareUnsigned(v1.getLong(i), v2.getLong(i));
       if (cmp != 0) return cmp;
     }
     return 0;
@@ -15,17 +15,21 @@ package tech.pegasys.pantheon.util.uint;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
 import tech.pegasys.pantheon.util.bytes.MutableBytes32;
 import tech.pegasys.pantheon.util.uint.UInt256Bytes.BinaryLongOp;
 import tech.pegasys.pantheon.util.uint.UInt256Bytes.BinaryOp;
 
 import java.math.BigInteger;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 public class UInt256BytesTest {
 
+  private static final BigInteger P256 = BigInteger.valueOf(2).pow(256);
+
   private static String h(final String n) {
     return UInt256.of(new BigInteger(n)).toShortHexString();
   }
@@ -219,6 +223,95 @@ public class UInt256BytesTest {
         .isEqualTo("0x00000000000000000000000000000000000000000000000000000000facefeed");
   }
 
+  @Test
+  public void arithmeticMatchesBigInteger() {
+    final Random random = new Random(42);
+    for (int i = 0; i < 2000; i++) {
+      final Bytes32 v1 = randomValue(random);
+      final Bytes32 v2 = randomValue(random);
+      final Bytes32 v3 = randomValue(random);
+      final BigInteger i1 = BytesValues.asUnsignedBigInteger(v1);
+      final BigInteger i2 = BytesValues.asUnsignedBigInteger(v2);
+      final BigInteger i3 = BytesValues.asUnsignedBigInteger(v3);
+
+      assertOp(UInt256Bytes::multiply, v1, v2, i1.multiply(i2).mod(P256));
+      assertOp(UInt256Bytes::exponent, v1, v2, i1.modPow(i2, P256));
+      assertThat(UInt256Bytes.compareUnsigned(v1, v2)).isEqualTo(Integer.signum(i1.compareTo(i2)));
+      if (i2.signum() != 0) {
+        assertOp(UInt256Bytes::divide, v1, v2, i1.divide(i2));
+        assertOp(UInt256Bytes::modulo, v1, v2, i1.mod(i2));
+      }
+      if (i3.signum() != 0) {
+        assertOp(
+            (a, b, result) -> UInt256Bytes.addModulo(a, b, v3, result), v1, v2, i1.add(i2).mod(i3));
+        assertOp(
+            (a, b, result) -> UInt256Bytes.multiplyModulo(a, b, v3, result),
+            v1,
+            v2,
+            i1.multiply(i2).mod(i3));
+      }
+    }
+  }
+
+  @Test
+  public void signedArithmeticMatchesBigInteger() {
+    final Random random = new Random(42);
+    for (int i = 0; i < 2000; i++) {
+      final Bytes32 v1 = randomValue(random);
+      final Bytes32 v2 = randomValue(random);
+      final BigInteger i1 = BytesValues.asSignedBigInteger(v1);
+      final BigInteger i2 = BytesValues.asSignedBigInteger(v2);
+      if (i2.signum() == 0) continue;
+
+      assertOp(Int256Bytes::divide, v1, v2, i1.divide(i2).mod(P256));
+      assertOp(
+          Int256Bytes::mod,
+          v1,
+          v2,
+          i1.abs().mod(i2.abs()).multiply(BigInteger.valueOf(i1.signum() < 0 ? -1 : 1)).mod(P256));
+    }
+  }
+
+  @Test
+  public void divideRequiringQuotientCorrection() {
+    // Divisors whose leading digits make the quotient estimate too large.
+    final Bytes32 dividend =
+        Bytes32.fromHexString("0x7fffffff800000000000000000000000000000000000000000000000000000");
+    final Bytes32 divisor = Bytes32.fromHexString("0x800000000000000000000001");
+    final BigInteger i1 = BytesValues.asUnsignedBigInteger(dividend);
+    final BigInteger i2 = BytesValues.asUnsignedBigInteger(divisor);
+
+    assertOp(UInt256Bytes::divide, dividend, divisor, i1.divide(i2));
+    assertOp(UInt256Bytes::modulo, dividend, divisor, i1.mod(i2));
+  }
+
+  // Random values with a random number of significant bytes and runs of all-ones or all-zeros
+  // bytes, to exercise carries and every divisor length.
+  private static Bytes32 randomValue(final Random random) {
+    final MutableBytes32 value = MutableBytes32.create();
+    final int length = random.nextInt(Bytes32.SIZE + 1);
+    for (int i = Bytes32.SIZE - length; i < Bytes32.SIZE; i++) {
+      switch (random.nextInt(4)) {
+        case 0:
+          value.set(i, (byte) 0xFF);
+          break;
+        case 1:
+          value.set(i, (byte) 0);
+          break;
+        default:
+          value.set(i, (byte) random.nextInt());
+      }
+    }
+    return value;
+  }
+
+  private void assertOp(
+      final BinaryOp op, final Bytes32 v1, final Bytes32 v2, final BigInteger expected) {
+    final MutableBytes32 r = MutableBytes32.create();
+    op.applyOp(v1, v2, r);
+    assertThat(BytesValues.asUnsignedBigInteger(r)).isEqualTo(expected);
+  }
+
   private void bitLength(final String input, final int expectedLength) {
     Assert.assertEquals(
         expectedLength, UInt256Bytes.bitLength(Bytes32.fromHexStringLenient(input)));